@@ -0,0 +1,124 @@
+package com.aihub.hub.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Component
+@ConfigurationProperties(prefix = "hub.budget")
+public class BudgetProperties {
+
+    public enum Scope {
+        USER,
+        PROJECT,
+        MODEL
+    }
+
+    public enum Period {
+        DAY,
+        MONTH
+    }
+
+    public enum Action {
+        REJECT,
+        DOWNGRADE
+    }
+
+    private boolean enabled = true;
+    private int estimatedPromptTokens = 150_000;
+    private int estimatedCompletionTokens = 15_000;
+    private Duration reservationTtl = Duration.ofHours(6);
+    private List<Policy> policies = new ArrayList<>();
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getEstimatedPromptTokens() {
+        return estimatedPromptTokens;
+    }
+
+    public void setEstimatedPromptTokens(int estimatedPromptTokens) {
+        this.estimatedPromptTokens = estimatedPromptTokens;
+    }
+
+    public int getEstimatedCompletionTokens() {
+        return estimatedCompletionTokens;
+    }
+
+    public void setEstimatedCompletionTokens(int estimatedCompletionTokens) {
+        this.estimatedCompletionTokens = estimatedCompletionTokens;
+    }
+
+    public Duration getReservationTtl() {
+        return reservationTtl;
+    }
+
+    public void setReservationTtl(Duration reservationTtl) {
+        this.reservationTtl = reservationTtl;
+    }
+
+    public List<Policy> getPolicies() {
+        return policies;
+    }
+
+    public void setPolicies(List<Policy> policies) {
+        this.policies = policies;
+    }
+
+    public static class Policy {
+        private Scope scope;
+        private String subject = "*";
+        private Period period = Period.DAY;
+        private BigDecimal limit;
+        private Action action = Action.REJECT;
+
+        public Scope getScope() {
+            return scope;
+        }
+
+        public void setScope(Scope scope) {
+            this.scope = scope;
+        }
+
+        public String getSubject() {
+            return subject;
+        }
+
+        public void setSubject(String subject) {
+            this.subject = subject;
+        }
+
+        public Period getPeriod() {
+            return period;
+        }
+
+        public void setPeriod(Period period) {
+            this.period = period;
+        }
+
+        public BigDecimal getLimit() {
+            return limit;
+        }
+
+        public void setLimit(BigDecimal limit) {
+            this.limit = limit;
+        }
+
+        public Action getAction() {
+            return action;
+        }
+
+        public void setAction(Action action) {
+            this.action = action;
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.aihub.hub.config;
 
 import com.aihub.hub.domain.CodexModelPricing;
 import com.aihub.hub.repository.CodexModelPricingRepository;
+import com.aihub.hub.service.CodexModelPricingService;
 import jakarta.annotation.PostConstruct;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,13 +18,16 @@ public class CodexModelPricingInitializer {
 
     private final CodexPricingProperties pricingProperties;
     private final CodexModelPricingRepository repository;
+    private final CodexModelPricingService pricingService;
 
     public CodexModelPricingInitializer(
         CodexPricingProperties pricingProperties,
-        CodexModelPricingRepository repository
+        CodexModelPricingRepository repository,
+        CodexModelPricingService pricingService
     ) {
         this.pricingProperties = pricingProperties;
         this.repository = repository;
+        this.pricingService = pricingService;
     }
 
     @PostConstruct
@@ -33,7 +37,7 @@ public class CodexModelPricingInitializer {
                 return;
             }
 
-            repository.findByModelNameIgnoreCase(modelName)
+            repository.findByModelNameIgnoreCaseAndEffectiveToIsNull(modelName)
                 .ifPresentOrElse(existing -> {
                     if (existing.getDisplayName() == null) {
                         existing.setDisplayName(modelName.trim());
@@ -50,6 +54,7 @@ public class CodexModelPricingInitializer {
                     log.info("Modelo de pricing '{}' inicializado a partir da configuração", modelName);
                 });
         });
+        pricingService.reloadSnapshot();
     }
 
     private BigDecimal defaultValue(BigDecimal value) {
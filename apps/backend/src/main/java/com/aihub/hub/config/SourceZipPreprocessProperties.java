@@ -0,0 +1,109 @@
+package com.aihub.hub.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+@Component
+@ConfigurationProperties(prefix = "hub.upload-jobs.preprocess")
+public class SourceZipPreprocessProperties {
+
+    private boolean enabled = true;
+    private boolean respectGitignore = true;
+    private List<String> exclude = new ArrayList<>(List.of(
+        "**/.git/**",
+        "**/node_modules/**",
+        "**/.gradle/**",
+        "**/.idea/**",
+        "**/.vscode/**",
+        "**/*.iml",
+        "**/.DS_Store",
+        "__MACOSX/**"
+    ));
+    // Diretório de saída -> arquivos de build que precisam existir no mesmo nível.
+    private Map<String, List<String>> buildOutputs = new LinkedHashMap<>(Map.of(
+        "target", List.of("pom.xml"),
+        "build", List.of("build.gradle", "build.gradle.kts")
+    ));
+    private int maxEntries = 50_000;
+    private long maxEntryBytes = 512L * 1024 * 1024;
+    private long maxTotalBytes = 2L * 1024 * 1024 * 1024;
+    private int maxCompressionRatio = 200;
+    private int compressionLevel = 6;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public boolean isRespectGitignore() {
+        return respectGitignore;
+    }
+
+    public void setRespectGitignore(boolean respectGitignore) {
+        this.respectGitignore = respectGitignore;
+    }
+
+    public List<String> getExclude() {
+        return exclude;
+    }
+
+    public void setExclude(List<String> exclude) {
+        this.exclude = exclude;
+    }
+
+    public Map<String, List<String>> getBuildOutputs() {
+        return buildOutputs;
+    }
+
+    public void setBuildOutputs(Map<String, List<String>> buildOutputs) {
+        this.buildOutputs = buildOutputs;
+    }
+
+    public int getMaxEntries() {
+        return maxEntries;
+    }
+
+    public void setMaxEntries(int maxEntries) {
+        this.maxEntries = maxEntries;
+    }
+
+    public long getMaxEntryBytes() {
+        return maxEntryBytes;
+    }
+
+    public void setMaxEntryBytes(long maxEntryBytes) {
+        this.maxEntryBytes = maxEntryBytes;
+    }
+
+    public long getMaxTotalBytes() {
+        return maxTotalBytes;
+    }
+
+    public void setMaxTotalBytes(long maxTotalBytes) {
+        this.maxTotalBytes = maxTotalBytes;
+    }
+
+    public int getMaxCompressionRatio() {
+        return maxCompressionRatio;
+    }
+
+    public void setMaxCompressionRatio(int maxCompressionRatio) {
+        this.maxCompressionRatio = maxCompressionRatio;
+    }
+
+    public int getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(int compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+}
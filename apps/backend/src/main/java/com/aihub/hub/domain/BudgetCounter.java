@@ -0,0 +1,77 @@
+package com.aihub.hub.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "budget_counters")
+public class BudgetCounter {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false, length = 20)
+    private String scope;
+
+    @Column(nullable = false, length = 191)
+    private String subject;
+
+    @Column(nullable = false, length = 10)
+    private String period;
+
+    @Column(name = "period_start", nullable = false)
+    private LocalDate periodStart;
+
+    @Column(name = "spent_micros", nullable = false)
+    private long spentMicros;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    protected BudgetCounter() {
+    }
+
+    public BudgetCounter(String scope, String subject, String period, LocalDate periodStart, long spentMicros) {
+        this.scope = scope;
+        this.subject = subject;
+        this.period = period;
+        this.periodStart = periodStart;
+        this.spentMicros = spentMicros;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getScope() {
+        return scope;
+    }
+
+    public String getSubject() {
+        return subject;
+    }
+
+    public String getPeriod() {
+        return period;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public long getSpentMicros() {
+        return spentMicros;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
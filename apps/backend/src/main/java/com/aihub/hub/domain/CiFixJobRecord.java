@@ -9,12 +9,14 @@ import jakarta.persistence.Id;
 import jakarta.persistence.JoinColumn;
 import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 import java.time.Instant;
 
 @Entity
+@DynamicUpdate
 @Table(name = "cifix_jobs")
 public class CiFixJobRecord {
 
@@ -64,6 +66,18 @@ public class CiFixJobRecord {
     @Column(name = "updated_at")
     private Instant updatedAt = Instant.now();
 
+    @Column(name = "next_sync_at")
+    private Instant nextSyncAt;
+
+    @Column(name = "sync_misses", nullable = false)
+    private int syncMisses;
+
+    @Column(name = "sync_version", length = 80)
+    private String syncVersion;
+
+    @Column(name = "callback_sequence")
+    private Long callbackSequence;
+
     public Long getId() {
         return id;
     }
@@ -167,4 +181,36 @@ public class CiFixJobRecord {
     public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Instant getNextSyncAt() {
+        return nextSyncAt;
+    }
+
+    public void setNextSyncAt(Instant nextSyncAt) {
+        this.nextSyncAt = nextSyncAt;
+    }
+
+    public int getSyncMisses() {
+        return syncMisses;
+    }
+
+    public void setSyncMisses(int syncMisses) {
+        this.syncMisses = syncMisses;
+    }
+
+    public String getSyncVersion() {
+        return syncVersion;
+    }
+
+    public void setSyncVersion(String syncVersion) {
+        this.syncVersion = syncVersion;
+    }
+
+    public Long getCallbackSequence() {
+        return callbackSequence;
+    }
+
+    public void setCallbackSequence(Long callbackSequence) {
+        this.callbackSequence = callbackSequence;
+    }
 }
@@ -17,7 +17,7 @@ import java.time.Instant;
 @Table(
     name = "codex_model_pricing",
     uniqueConstraints = {
-        @UniqueConstraint(name = "uk_codex_model_pricing_model_name", columnNames = {"model_name"})
+        @UniqueConstraint(name = "uk_codex_model_pricing_model_effective", columnNames = {"model_name", "effective_from"})
     }
 )
 public class CodexModelPricing {
@@ -41,6 +41,13 @@ public class CodexModelPricing {
     @Column(name = "output_price_per_million", precision = 19, scale = 6, nullable = false)
     private BigDecimal outputPricePerMillion;
 
+    @Column(name = "effective_from", nullable = false)
+    private Instant effectiveFrom = Instant.EPOCH;
+
+    // exclusive; null na versão vigente
+    @Column(name = "effective_to")
+    private Instant effectiveTo;
+
     @Column(name = "created_at", nullable = false, updatable = false)
     private Instant createdAt;
 
@@ -103,6 +110,26 @@ public class CodexModelPricing {
         this.outputPricePerMillion = outputPricePerMillion;
     }
 
+    public Instant getEffectiveFrom() {
+        return effectiveFrom;
+    }
+
+    public void setEffectiveFrom(Instant effectiveFrom) {
+        this.effectiveFrom = effectiveFrom;
+    }
+
+    public Instant getEffectiveTo() {
+        return effectiveTo;
+    }
+
+    public void setEffectiveTo(Instant effectiveTo) {
+        this.effectiveTo = effectiveTo;
+    }
+
+    public boolean isEffectiveAt(Instant instant) {
+        return !instant.isBefore(effectiveFrom) && (effectiveTo == null || instant.isBefore(effectiveTo));
+    }
+
     public Instant getCreatedAt() {
         return createdAt;
     }
@@ -1,14 +1,20 @@
 package com.aihub.hub.domain;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.Column;
 import jakarta.persistence.Entity;
 import jakarta.persistence.EnumType;
 import jakarta.persistence.Enumerated;
+import jakarta.persistence.FetchType;
 import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
+import jakarta.persistence.JoinColumn;
+import jakarta.persistence.ManyToOne;
 import jakarta.persistence.Table;
+import jakarta.persistence.TableGenerator;
 
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -16,16 +22,48 @@ import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
+@DynamicUpdate
 @Table(name = "codex_requests")
 public class CodexRequest {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.TABLE, generator = "codex-requests-ids")
+    @TableGenerator(
+        name = "codex-requests-ids",
+        table = "id_generators",
+        pkColumnName = "sequence_name",
+        valueColumnName = "next_val",
+        pkColumnValue = "codex_requests",
+        allocationSize = 50
+    )
     private Long id;
 
     @Column(nullable = false)
     private String environment;
 
+    @Column(name = "requested_by", length = 191)
+    private String requestedBy;
+
+    @Column(name = "repo_owner", length = 100)
+    private String repoOwner;
+
+    @Column(name = "repo_name", length = 200)
+    private String repoName;
+
+    @Column(length = 200)
+    private String branch;
+
+    @Column(name = "run_id")
+    private Long runId;
+
+    @Column(name = "pr_number")
+    private Integer prNumber;
+
+    @JsonIgnore
+    @ManyToOne(fetch = FetchType.LAZY)
+    @JoinColumn(name = "prompt_id")
+    private PromptRecord promptRecord;
+
     @Column(nullable = false)
     private String model;
 
@@ -71,6 +109,18 @@ public class CodexRequest {
     @Column(name = "created_at", nullable = false)
     private Instant createdAt = Instant.now();
 
+    @Column(name = "next_sync_at")
+    private Instant nextSyncAt;
+
+    @Column(name = "sync_misses", nullable = false)
+    private int syncMisses;
+
+    @Column(name = "sync_version", length = 80)
+    private String syncVersion;
+
+    @Column(name = "callback_sequence")
+    private Long callbackSequence;
+
     public CodexRequest() {
     }
 
@@ -93,6 +143,66 @@ public class CodexRequest {
         this.environment = environment;
     }
 
+    public String getRequestedBy() {
+        return requestedBy;
+    }
+
+    public void setRequestedBy(String requestedBy) {
+        this.requestedBy = requestedBy;
+    }
+
+    public String getRepoOwner() {
+        return repoOwner;
+    }
+
+    public void setRepoOwner(String repoOwner) {
+        this.repoOwner = repoOwner;
+    }
+
+    public String getRepoName() {
+        return repoName;
+    }
+
+    public void setRepoName(String repoName) {
+        this.repoName = repoName;
+    }
+
+    public String getBranch() {
+        return branch;
+    }
+
+    public void setBranch(String branch) {
+        this.branch = branch;
+    }
+
+    public Long getRunId() {
+        return runId;
+    }
+
+    public void setRunId(Long runId) {
+        this.runId = runId;
+    }
+
+    public Integer getPrNumber() {
+        return prNumber;
+    }
+
+    public void setPrNumber(Integer prNumber) {
+        this.prNumber = prNumber;
+    }
+
+    public PromptRecord getPromptRecord() {
+        return promptRecord;
+    }
+
+    public void setPromptRecord(PromptRecord promptRecord) {
+        this.promptRecord = promptRecord;
+    }
+
+    public Long getPromptId() {
+        return promptRecord != null ? promptRecord.getId() : null;
+    }
+
     public String getModel() {
         return model;
     }
@@ -204,4 +314,36 @@ public class CodexRequest {
     public void setCreatedAt(Instant createdAt) {
         this.createdAt = createdAt;
     }
+
+    public Instant getNextSyncAt() {
+        return nextSyncAt;
+    }
+
+    public void setNextSyncAt(Instant nextSyncAt) {
+        this.nextSyncAt = nextSyncAt;
+    }
+
+    public int getSyncMisses() {
+        return syncMisses;
+    }
+
+    public void setSyncMisses(int syncMisses) {
+        this.syncMisses = syncMisses;
+    }
+
+    public String getSyncVersion() {
+        return syncVersion;
+    }
+
+    public void setSyncVersion(String syncVersion) {
+        this.syncVersion = syncVersion;
+    }
+
+    public Long getCallbackSequence() {
+        return callbackSequence;
+    }
+
+    public void setCallbackSequence(Long callbackSequence) {
+        this.callbackSequence = callbackSequence;
+    }
 }
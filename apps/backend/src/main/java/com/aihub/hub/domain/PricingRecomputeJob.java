@@ -0,0 +1,144 @@
+package com.aihub.hub.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.PrePersist;
+import jakarta.persistence.PreUpdate;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "pricing_recompute_jobs")
+public class PricingRecomputeJob {
+
+    public static final String STATUS_RUNNING = "RUNNING";
+    public static final String STATUS_COMPLETED = "COMPLETED";
+    public static final String STATUS_FAILED = "FAILED";
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "model_name", nullable = false, length = 191)
+    private String modelName;
+
+    @Column(name = "window_from")
+    private Instant windowFrom;
+
+    @Column(name = "window_to")
+    private Instant windowTo;
+
+    @Column(nullable = false, length = 20)
+    private String status;
+
+    @Column(name = "codex_checkpoint_id", nullable = false)
+    private long codexCheckpointId;
+
+    @Column(name = "upload_checkpoint_id", nullable = false)
+    private long uploadCheckpointId;
+
+    @Column(name = "updated_rows", nullable = false)
+    private long updatedRows;
+
+    @Column(name = "last_error")
+    @JdbcTypeCode(SqlTypes.LONGVARCHAR)
+    private String lastError;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt;
+
+    protected PricingRecomputeJob() {
+    }
+
+    public PricingRecomputeJob(String modelName, Instant windowFrom, Instant windowTo) {
+        this.modelName = modelName;
+        this.windowFrom = windowFrom;
+        this.windowTo = windowTo;
+        this.status = STATUS_RUNNING;
+    }
+
+    @PrePersist
+    void prePersist() {
+        Instant now = Instant.now();
+        this.createdAt = now;
+        this.updatedAt = now;
+    }
+
+    @PreUpdate
+    void preUpdate() {
+        this.updatedAt = Instant.now();
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public Instant getWindowFrom() {
+        return windowFrom;
+    }
+
+    public Instant getWindowTo() {
+        return windowTo;
+    }
+
+    public String getStatus() {
+        return status;
+    }
+
+    public void setStatus(String status) {
+        this.status = status;
+    }
+
+    public long getCodexCheckpointId() {
+        return codexCheckpointId;
+    }
+
+    public void setCodexCheckpointId(long codexCheckpointId) {
+        this.codexCheckpointId = codexCheckpointId;
+    }
+
+    public long getUploadCheckpointId() {
+        return uploadCheckpointId;
+    }
+
+    public void setUploadCheckpointId(long uploadCheckpointId) {
+        this.uploadCheckpointId = uploadCheckpointId;
+    }
+
+    public long getUpdatedRows() {
+        return updatedRows;
+    }
+
+    public void setUpdatedRows(long updatedRows) {
+        this.updatedRows = updatedRows;
+    }
+
+    public String getLastError() {
+        return lastError;
+    }
+
+    public void setLastError(String lastError) {
+        this.lastError = lastError;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+}
@@ -13,7 +13,11 @@ import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Instant;
+import java.util.HexFormat;
 
 @Entity
 @Table(name = "responses")
@@ -27,6 +31,12 @@ public class ResponseRecord {
     @JoinColumn(name = "prompt_id")
     private PromptRecord prompt;
 
+    @Column(name = "codex_request_id")
+    private Long codexRequestId;
+
+    @Column(name = "content_hash", length = 64)
+    private String contentHash;
+
     @Column(nullable = false)
     private String repo;
 
@@ -80,6 +90,36 @@ public class ResponseRecord {
         this.prompt = prompt;
     }
 
+    public Long getCodexRequestId() {
+        return codexRequestId;
+    }
+
+    public void setCodexRequestId(Long codexRequestId) {
+        this.codexRequestId = codexRequestId;
+    }
+
+    public String getContentHash() {
+        return contentHash;
+    }
+
+    public void setContentHash(String contentHash) {
+        this.contentHash = contentHash;
+    }
+
+    public static String hashContent(String rootCause, String fixPlan, String unifiedDiff) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (String part : new String[] {rootCause, fixPlan, unifiedDiff}) {
+                // marcador distingue null de texto vazio; o separador evita colisões entre campos
+                digest.update(part == null ? new byte[] {0} : ("\u0001" + part).getBytes(StandardCharsets.UTF_8));
+                digest.update((byte) 0x1e);
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM", ex);
+        }
+    }
+
     public String getRepo() {
         return repo;
     }
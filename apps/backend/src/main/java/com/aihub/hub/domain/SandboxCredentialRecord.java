@@ -0,0 +1,55 @@
+package com.aihub.hub.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import org.hibernate.annotations.JdbcTypeCode;
+import org.hibernate.type.SqlTypes;
+
+import java.time.Instant;
+
+@Entity
+@Table(name = "sandbox_credentials")
+public class SandboxCredentialRecord {
+
+    @Id
+    @Column(name = "job_id", length = 100)
+    private String jobId;
+
+    @Column(nullable = false)
+    @JdbcTypeCode(SqlTypes.LONGVARCHAR)
+    private String ciphertext;
+
+    @Column(name = "created_at", nullable = false, updatable = false)
+    private Instant createdAt;
+
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    protected SandboxCredentialRecord() {
+    }
+
+    public SandboxCredentialRecord(String jobId, String ciphertext, Instant createdAt, Instant expiresAt) {
+        this.jobId = jobId;
+        this.ciphertext = ciphertext;
+        this.createdAt = createdAt;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getJobId() {
+        return jobId;
+    }
+
+    public String getCiphertext() {
+        return ciphertext;
+    }
+
+    public Instant getCreatedAt() {
+        return createdAt;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+}
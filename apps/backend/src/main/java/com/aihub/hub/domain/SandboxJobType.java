@@ -0,0 +1,7 @@
+package com.aihub.hub.domain;
+
+public enum SandboxJobType {
+    UPLOAD,
+    CI_FIX,
+    CODEX
+}
@@ -6,6 +6,7 @@ import jakarta.persistence.GeneratedValue;
 import jakarta.persistence.GenerationType;
 import jakarta.persistence.Id;
 import jakarta.persistence.Table;
+import org.hibernate.annotations.DynamicUpdate;
 import org.hibernate.annotations.JdbcTypeCode;
 import org.hibernate.type.SqlTypes;
 
@@ -13,6 +14,7 @@ import java.math.BigDecimal;
 import java.time.Instant;
 
 @Entity
+@DynamicUpdate
 @Table(name = "upload_jobs")
 public class UploadJobRecord {
 
@@ -34,9 +36,27 @@ public class UploadJobRecord {
 
     private String model;
 
+    @Column(name = "requested_by", length = 191)
+    private String requestedBy;
+
+    @Column(name = "project", length = 255)
+    private String project;
+
     @Column(name = "zip_name")
     private String zipName;
 
+    @Column(name = "source_manifest_sha256", length = 64)
+    private String sourceManifestSha256;
+
+    @Column(name = "source_excluded_entries")
+    private Integer sourceExcludedEntries;
+
+    @Column(name = "source_zip_sha256", length = 64)
+    private String sourceZipSha256;
+
+    @Column(name = "base_job_id")
+    private String baseJobId;
+
     @Column(nullable = false)
     private String status;
 
@@ -63,6 +83,12 @@ public class UploadJobRecord {
     @Column(name = "result_zip_ready")
     private Boolean resultZipReady = Boolean.FALSE;
 
+    @Column(name = "result_zip_sha256", length = 64)
+    private String resultZipSha256;
+
+    @Column(name = "result_zip_size")
+    private Long resultZipSize;
+
     @Column(name = "pull_request_url")
     private String pullRequestUrl;
 
@@ -86,6 +112,18 @@ public class UploadJobRecord {
     @Column(name = "updated_at")
     private Instant updatedAt = Instant.now();
 
+    @Column(name = "next_sync_at")
+    private Instant nextSyncAt;
+
+    @Column(name = "sync_misses", nullable = false)
+    private int syncMisses;
+
+    @Column(name = "sync_version", length = 80)
+    private String syncVersion;
+
+    @Column(name = "callback_sequence")
+    private Long callbackSequence;
+
     public Long getId() {
         return id;
     }
@@ -130,6 +168,22 @@ public class UploadJobRecord {
         this.model = model;
     }
 
+    public String getRequestedBy() {
+        return requestedBy;
+    }
+
+    public void setRequestedBy(String requestedBy) {
+        this.requestedBy = requestedBy;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(String project) {
+        this.project = project;
+    }
+
     public String getZipName() {
         return zipName;
     }
@@ -202,6 +256,54 @@ public class UploadJobRecord {
         this.resultZipReady = resultZipReady;
     }
 
+    public String getResultZipSha256() {
+        return resultZipSha256;
+    }
+
+    public void setResultZipSha256(String resultZipSha256) {
+        this.resultZipSha256 = resultZipSha256;
+    }
+
+    public Long getResultZipSize() {
+        return resultZipSize;
+    }
+
+    public void setResultZipSize(Long resultZipSize) {
+        this.resultZipSize = resultZipSize;
+    }
+
+    public String getSourceManifestSha256() {
+        return sourceManifestSha256;
+    }
+
+    public void setSourceManifestSha256(String sourceManifestSha256) {
+        this.sourceManifestSha256 = sourceManifestSha256;
+    }
+
+    public Integer getSourceExcludedEntries() {
+        return sourceExcludedEntries;
+    }
+
+    public void setSourceExcludedEntries(Integer sourceExcludedEntries) {
+        this.sourceExcludedEntries = sourceExcludedEntries;
+    }
+
+    public String getSourceZipSha256() {
+        return sourceZipSha256;
+    }
+
+    public void setSourceZipSha256(String sourceZipSha256) {
+        this.sourceZipSha256 = sourceZipSha256;
+    }
+
+    public String getBaseJobId() {
+        return baseJobId;
+    }
+
+    public void setBaseJobId(String baseJobId) {
+        this.baseJobId = baseJobId;
+    }
+
     public String getPullRequestUrl() {
         return pullRequestUrl;
     }
@@ -261,4 +363,36 @@ public class UploadJobRecord {
     public void setUpdatedAt(Instant updatedAt) {
         this.updatedAt = updatedAt;
     }
+
+    public Instant getNextSyncAt() {
+        return nextSyncAt;
+    }
+
+    public void setNextSyncAt(Instant nextSyncAt) {
+        this.nextSyncAt = nextSyncAt;
+    }
+
+    public int getSyncMisses() {
+        return syncMisses;
+    }
+
+    public void setSyncMisses(int syncMisses) {
+        this.syncMisses = syncMisses;
+    }
+
+    public String getSyncVersion() {
+        return syncVersion;
+    }
+
+    public void setSyncVersion(String syncVersion) {
+        this.syncVersion = syncVersion;
+    }
+
+    public Long getCallbackSequence() {
+        return callbackSequence;
+    }
+
+    public void setCallbackSequence(Long callbackSequence) {
+        this.callbackSequence = callbackSequence;
+    }
 }
@@ -0,0 +1,159 @@
+package com.aihub.hub.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.EnumType;
+import jakarta.persistence.Enumerated;
+import jakarta.persistence.GeneratedValue;
+import jakarta.persistence.GenerationType;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "usage_rollups")
+public class UsageRollup {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(nullable = false)
+    private long generation;
+
+    @Column(name = "bucket_date", nullable = false)
+    private LocalDate bucketDate;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name = "job_type", nullable = false, length = 20)
+    private SandboxJobType jobType;
+
+    @Column(nullable = false, length = 200)
+    private String model;
+
+    @Column(nullable = false, length = 50)
+    private String profile;
+
+    @Column(nullable = false)
+    private String project;
+
+    @Column(nullable = false)
+    private long requests;
+
+    @Column(name = "prompt_tokens", nullable = false)
+    private long promptTokens;
+
+    @Column(name = "cached_prompt_tokens", nullable = false)
+    private long cachedPromptTokens;
+
+    @Column(name = "completion_tokens", nullable = false)
+    private long completionTokens;
+
+    @Column(name = "total_tokens", nullable = false)
+    private long totalTokens;
+
+    @Column(nullable = false, precision = 19, scale = 6)
+    private BigDecimal cost = BigDecimal.ZERO;
+
+    @Column(name = "updated_at", nullable = false)
+    private Instant updatedAt = Instant.now();
+
+    protected UsageRollup() {
+    }
+
+    public UsageRollup(long generation, LocalDate bucketDate, SandboxJobType jobType, String model, String profile, String project) {
+        this.generation = generation;
+        this.bucketDate = bucketDate;
+        this.jobType = jobType;
+        this.model = model;
+        this.profile = profile;
+        this.project = project;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public long getGeneration() {
+        return generation;
+    }
+
+    public LocalDate getBucketDate() {
+        return bucketDate;
+    }
+
+    public SandboxJobType getJobType() {
+        return jobType;
+    }
+
+    public String getModel() {
+        return model;
+    }
+
+    public String getProfile() {
+        return profile;
+    }
+
+    public String getProject() {
+        return project;
+    }
+
+    public long getRequests() {
+        return requests;
+    }
+
+    public void setRequests(long requests) {
+        this.requests = requests;
+    }
+
+    public long getPromptTokens() {
+        return promptTokens;
+    }
+
+    public void setPromptTokens(long promptTokens) {
+        this.promptTokens = promptTokens;
+    }
+
+    public long getCachedPromptTokens() {
+        return cachedPromptTokens;
+    }
+
+    public void setCachedPromptTokens(long cachedPromptTokens) {
+        this.cachedPromptTokens = cachedPromptTokens;
+    }
+
+    public long getCompletionTokens() {
+        return completionTokens;
+    }
+
+    public void setCompletionTokens(long completionTokens) {
+        this.completionTokens = completionTokens;
+    }
+
+    public long getTotalTokens() {
+        return totalTokens;
+    }
+
+    public void setTotalTokens(long totalTokens) {
+        this.totalTokens = totalTokens;
+    }
+
+    public BigDecimal getCost() {
+        return cost;
+    }
+
+    public void setCost(BigDecimal cost) {
+        this.cost = cost;
+    }
+
+    public Instant getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(Instant updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
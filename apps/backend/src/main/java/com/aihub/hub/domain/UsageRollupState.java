@@ -0,0 +1,66 @@
+package com.aihub.hub.domain;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+
+import java.time.Instant;
+
+// Linha única (id 1) com a geração de rollups servida nas consultas e a reconstrução em andamento.
+@Entity
+@Table(name = "usage_rollup_state")
+public class UsageRollupState {
+
+    public static final int ID = 1;
+
+    @Id
+    private Integer id;
+
+    @Column(name = "active_generation", nullable = false)
+    private long activeGeneration;
+
+    @Column(name = "building_generation")
+    private Long buildingGeneration;
+
+    @Column(name = "codex_cursor")
+    private Long codexCursor;
+
+    @Column(name = "upload_cursor")
+    private Long uploadCursor;
+
+    @Column(name = "heartbeat_at")
+    private Instant heartbeatAt;
+
+    protected UsageRollupState() {
+    }
+
+    public UsageRollupState(long activeGeneration, Long buildingGeneration, Long codexCursor, Long uploadCursor) {
+        this.id = ID;
+        this.activeGeneration = activeGeneration;
+        this.buildingGeneration = buildingGeneration;
+        this.codexCursor = codexCursor;
+        this.uploadCursor = uploadCursor;
+    }
+
+    public long getActiveGeneration() {
+        return activeGeneration;
+    }
+
+    public Long getBuildingGeneration() {
+        return buildingGeneration;
+    }
+
+    // último id já lido pela reconstrução; null fora dela ou para tipos sem rollup
+    public Long cursor(SandboxJobType jobType) {
+        return switch (jobType) {
+            case CODEX -> codexCursor;
+            case UPLOAD -> uploadCursor;
+            default -> null;
+        };
+    }
+
+    public Instant getHeartbeatAt() {
+        return heartbeatAt;
+    }
+}
@@ -0,0 +1,25 @@
+package com.aihub.hub.dto;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record CodexBatchItemResult(int index, Status status, Long id, Dispatch dispatch, String error) {
+
+    public enum Status {
+        ACCEPTED,
+        FAILED
+    }
+
+    public enum Dispatch {
+        QUEUED,
+        SKIPPED
+    }
+
+    public static CodexBatchItemResult accepted(int index, Long id, Dispatch dispatch) {
+        return new CodexBatchItemResult(index, Status.ACCEPTED, id, dispatch, null);
+    }
+
+    public static CodexBatchItemResult failed(int index, String error) {
+        return new CodexBatchItemResult(index, Status.FAILED, null, null, error);
+    }
+}
@@ -6,6 +6,7 @@ import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 
 import java.math.BigDecimal;
+import java.time.Instant;
 
 public class CodexModelPricingRequest {
 
@@ -29,6 +30,12 @@ public class CodexModelPricingRequest {
     @Digits(integer = 13, fraction = 6)
     private BigDecimal outputPricePerMillion;
 
+    private Instant effectiveFrom;
+
+    // Na edição da versão vigente, true corrige os preços no lugar (reescreve o histórico);
+    // sem isso, um preço diferente abre uma nova versão a partir de agora.
+    private boolean correction;
+
     public CodexModelPricingRequest() {
     }
 
@@ -71,4 +78,20 @@ public class CodexModelPricingRequest {
     public void setOutputPricePerMillion(BigDecimal outputPricePerMillion) {
         this.outputPricePerMillion = outputPricePerMillion;
     }
+
+    public Instant getEffectiveFrom() {
+        return effectiveFrom;
+    }
+
+    public void setEffectiveFrom(Instant effectiveFrom) {
+        this.effectiveFrom = effectiveFrom;
+    }
+
+    public boolean isCorrection() {
+        return correction;
+    }
+
+    public void setCorrection(boolean correction) {
+        this.correction = correction;
+    }
 }
@@ -0,0 +1,24 @@
+package com.aihub.hub.dto;
+
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+
+import java.util.List;
+
+public class CreateCodexBatchRequest {
+
+    @NotEmpty
+    @Valid
+    private List<CreateCodexRequest> requests;
+
+    public CreateCodexBatchRequest() {
+    }
+
+    public List<CreateCodexRequest> getRequests() {
+        return requests;
+    }
+
+    public void setRequests(List<CreateCodexRequest> requests) {
+        this.requests = requests;
+    }
+}
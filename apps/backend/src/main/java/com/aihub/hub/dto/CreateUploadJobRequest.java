@@ -20,6 +20,8 @@ public class CreateUploadJobRequest {
 
     private String model;
 
+    private String project;
+
     private List<MultipartFile> problemFiles;
 
     private MultipartFile applicationDefaultCredentials;
@@ -28,6 +30,10 @@ public class CreateUploadJobRequest {
 
     private MultipartFile gitlabPersonalAccessToken;
 
+    private String baseJobId;
+
+    private String sourceManifest;
+
     public String getTaskDescription() {
         return taskDescription;
     }
@@ -68,6 +74,14 @@ public class CreateUploadJobRequest {
         this.model = model;
     }
 
+    public String getProject() {
+        return project;
+    }
+
+    public void setProject(String project) {
+        this.project = project;
+    }
+
     public List<MultipartFile> getProblemFiles() {
         return problemFiles;
     }
@@ -99,4 +113,20 @@ public class CreateUploadJobRequest {
     public void setGitlabPersonalAccessToken(MultipartFile gitlabPersonalAccessToken) {
         this.gitlabPersonalAccessToken = gitlabPersonalAccessToken;
     }
+
+    public String getBaseJobId() {
+        return baseJobId;
+    }
+
+    public void setBaseJobId(String baseJobId) {
+        this.baseJobId = baseJobId;
+    }
+
+    public String getSourceManifest() {
+        return sourceManifest;
+    }
+
+    public void setSourceManifest(String sourceManifest) {
+        this.sourceManifest = sourceManifest;
+    }
 }
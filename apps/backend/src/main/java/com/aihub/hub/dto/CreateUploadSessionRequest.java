@@ -0,0 +1,15 @@
+package com.aihub.hub.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.Pattern;
+import jakarta.validation.constraints.Positive;
+
+public record CreateUploadSessionRequest(
+    @NotBlank(message = "Informe o nome do arquivo")
+    String filename,
+    @Positive(message = "Informe o tamanho total do arquivo")
+    long size,
+    @Pattern(regexp = "[0-9a-f]{64}", message = "sha256 deve ter 64 caracteres hexadecimais minúsculos")
+    String sha256
+) {
+}
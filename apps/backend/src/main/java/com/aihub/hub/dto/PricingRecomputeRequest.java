@@ -0,0 +1,42 @@
+package com.aihub.hub.dto;
+
+import jakarta.validation.constraints.NotBlank;
+
+import java.time.Instant;
+
+public class PricingRecomputeRequest {
+
+    @NotBlank
+    private String modelName;
+
+    private Instant from;
+
+    private Instant to;
+
+    public PricingRecomputeRequest() {
+    }
+
+    public String getModelName() {
+        return modelName;
+    }
+
+    public void setModelName(String modelName) {
+        this.modelName = modelName;
+    }
+
+    public Instant getFrom() {
+        return from;
+    }
+
+    public void setFrom(Instant from) {
+        this.from = from;
+    }
+
+    public Instant getTo() {
+        return to;
+    }
+
+    public void setTo(Instant to) {
+        this.to = to;
+    }
+}
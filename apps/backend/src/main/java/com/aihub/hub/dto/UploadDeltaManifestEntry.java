@@ -0,0 +1,7 @@
+package com.aihub.hub.dto;
+
+public record UploadDeltaManifestEntry(
+    String path,
+    String sha256
+) {
+}
@@ -0,0 +1,11 @@
+package com.aihub.hub.dto;
+
+import java.util.List;
+
+public record UploadDeltaPlanView(
+    String baseJobId,
+    List<String> missing,
+    int reused,
+    int removed
+) {
+}
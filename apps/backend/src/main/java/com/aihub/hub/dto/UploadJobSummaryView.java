@@ -0,0 +1,54 @@
+package com.aihub.hub.dto;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record UploadJobSummaryView(
+    Long id,
+    String jobId,
+    String title,
+    String profile,
+    String model,
+    String status,
+    Boolean resultZipReady,
+    Integer promptTokens,
+    Integer cachedPromptTokens,
+    Integer completionTokens,
+    Integer totalTokens,
+    BigDecimal cost,
+    Instant createdAt,
+    Instant updatedAt
+) {
+    public UploadJobSummaryView(Long id,
+                                String jobId,
+                                String taskDescription,
+                                String profile,
+                                String model,
+                                String status,
+                                Boolean resultZipReady,
+                                String resultZipSha256,
+                                Integer promptTokens,
+                                Integer cachedPromptTokens,
+                                Integer completionTokens,
+                                Integer totalTokens,
+                                BigDecimal cost,
+                                Instant createdAt,
+                                Instant updatedAt) {
+        this(
+            id,
+            jobId,
+            UploadJobView.buildTitle(taskDescription),
+            profile,
+            model,
+            status,
+            Boolean.TRUE.equals(resultZipReady) || resultZipSha256 != null,
+            promptTokens,
+            cachedPromptTokens,
+            completionTokens,
+            totalTokens,
+            cost,
+            createdAt,
+            updatedAt
+        );
+    }
+}
@@ -70,7 +70,7 @@ public record UploadJobView(
         );
     }
 
-    private static String buildTitle(String taskDescription) {
+    static String buildTitle(String taskDescription) {
         if (taskDescription == null || taskDescription.isBlank()) {
             return "Sem título";
         }
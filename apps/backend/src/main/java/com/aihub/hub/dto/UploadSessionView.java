@@ -0,0 +1,20 @@
+package com.aihub.hub.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+public record UploadSessionView(
+    String sessionId,
+    String filename,
+    long size,
+    long maxChunkBytes,
+    long committedBytes,
+    List<Range> committed,
+    boolean complete,
+    Instant expiresAt
+) {
+
+    // end exclusivo
+    public record Range(long start, long end) {
+    }
+}
@@ -0,0 +1,23 @@
+package com.aihub.hub.dto;
+
+import com.aihub.hub.domain.SandboxJobType;
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record UsageRollupView(
+    LocalDate day,
+    SandboxJobType jobType,
+    String model,
+    String profile,
+    String project,
+    long requests,
+    long promptTokens,
+    long cachedPromptTokens,
+    long completionTokens,
+    long totalTokens,
+    BigDecimal cost
+) {
+}
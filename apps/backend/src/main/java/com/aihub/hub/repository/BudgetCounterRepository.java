@@ -0,0 +1,29 @@
+package com.aihub.hub.repository;
+
+import com.aihub.hub.domain.BudgetCounter;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface BudgetCounterRepository extends JpaRepository<BudgetCounter, Long> {
+
+    List<BudgetCounter> findByScopeAndPeriodStartGreaterThanEqual(String scope, LocalDate periodStart);
+
+    @Modifying
+    @Query("""
+        update BudgetCounter b
+        set b.spentMicros = b.spentMicros + :micros, b.updatedAt = :now
+        where b.scope = :scope and b.subject = :subject and b.period = :period and b.periodStart = :periodStart
+        """)
+    int increment(@Param("scope") String scope,
+                  @Param("subject") String subject,
+                  @Param("period") String period,
+                  @Param("periodStart") LocalDate periodStart,
+                  @Param("micros") long micros,
+                  @Param("now") Instant now);
+}
@@ -1,10 +1,50 @@
 package com.aihub.hub.repository;
 
 import com.aihub.hub.domain.CiFixJobRecord;
+import com.aihub.hub.service.SandboxSyncCandidate;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 
 public interface CiFixJobRepository extends JpaRepository<CiFixJobRecord, Long> {
     Optional<CiFixJobRecord> findByJobId(String jobId);
+
+    @Query("""
+        select new com.aihub.hub.service.SandboxSyncCandidate(j.id, j.jobId, j.syncVersion)
+        from CiFixJobRecord j
+        where j.nextSyncAt <= :now
+        order by j.nextSyncAt
+        """)
+    List<SandboxSyncCandidate> findDueForSync(@Param("now") Instant now, Pageable pageable);
+
+    @Query("""
+        select new com.aihub.hub.service.SandboxSyncCandidate(j.id, j.jobId, j.syncVersion)
+        from CiFixJobRecord j
+        where j.jobId = :jobId
+        order by j.id desc
+        """)
+    List<SandboxSyncCandidate> findSyncCandidates(@Param("jobId") String jobId, Pageable pageable);
+
+    @Modifying
+    @Query("""
+        update CiFixJobRecord j
+        set j.callbackSequence = :sequence
+        where j.id = :id and (j.callbackSequence is null or j.callbackSequence < :sequence)
+        """)
+    int claimCallback(@Param("id") Long id, @Param("sequence") long sequence);
+
+    // A resposta de criação reivindica a sequência 0: só vale enquanto nenhum callback foi aplicado.
+    @Modifying
+    @Query("""
+        update CiFixJobRecord j
+        set j.callbackSequence = 0
+        where j.jobId = :jobId and j.callbackSequence is null
+        """)
+    int claimDispatch(@Param("jobId") String jobId);
 }
@@ -1,10 +1,83 @@
 package com.aihub.hub.repository;
 
 import com.aihub.hub.domain.CodexRequest;
+import com.aihub.hub.service.CostRow;
+import com.aihub.hub.service.SandboxSyncCandidate;
+import com.aihub.hub.service.UsageRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
 import java.util.List;
 
 public interface CodexRequestRepository extends JpaRepository<CodexRequest, Long> {
     List<CodexRequest> findAllByOrderByCreatedAtDesc();
+
+    List<CodexRequest> findByRepoOwnerAndRepoNameOrderByCreatedAtDesc(String repoOwner, String repoName);
+
+    List<CodexRequest> findByRepoOwnerAndRepoNameAndPrNumberOrderByCreatedAtDesc(String repoOwner, String repoName, Integer prNumber);
+
+    @Query("""
+        select new com.aihub.hub.service.SandboxSyncCandidate(c.id, c.externalId, c.syncVersion)
+        from CodexRequest c
+        where c.nextSyncAt <= :now and c.externalId is not null
+        order by c.nextSyncAt
+        """)
+    List<SandboxSyncCandidate> findDueForSync(@Param("now") Instant now, Pageable pageable);
+
+    @Query("""
+        select new com.aihub.hub.service.SandboxSyncCandidate(c.id, c.externalId, c.syncVersion)
+        from CodexRequest c
+        where c.externalId = :jobId
+        order by c.id desc
+        """)
+    List<SandboxSyncCandidate> findSyncCandidates(@Param("jobId") String jobId, Pageable pageable);
+
+    @Modifying
+    @Query("""
+        update CodexRequest c
+        set c.callbackSequence = :sequence
+        where c.id = :id and (c.callbackSequence is null or c.callbackSequence < :sequence)
+        """)
+    int claimCallback(@Param("id") Long id, @Param("sequence") long sequence);
+
+    // A resposta de criação reivindica a sequência 0: só vale enquanto nenhum callback foi aplicado.
+    @Modifying
+    @Query("""
+        update CodexRequest c
+        set c.callbackSequence = 0
+        where c.id = :id and c.callbackSequence is null
+        """)
+    int claimDispatch(@Param("id") Long id);
+
+    @Query("""
+        select new com.aihub.hub.service.UsageRow(
+            c.id, c.createdAt, c.model, c.profile,
+            case when c.repoOwner is null then '' else concat(c.repoOwner, '/', c.repoName) end,
+            c.promptTokens, c.cachedPromptTokens,
+            c.completionTokens, c.totalTokens, c.cost)
+        from CodexRequest c
+        where c.id > :afterId
+        order by c.id
+        """)
+    List<UsageRow> findUsageRows(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("""
+        select new com.aihub.hub.service.CostRow(
+            c.id, c.createdAt, c.model, c.profile,
+            case when c.repoOwner is null then '' else concat(c.repoOwner, '/', c.repoName) end,
+            c.requestedBy, c.promptTokens, c.cachedPromptTokens,
+            c.completionTokens, c.totalTokens, c.promptCost, c.cachedPromptCost, c.completionCost, c.cost)
+        from CodexRequest c
+        where lower(c.model) = lower(:model) and c.createdAt >= :from and c.createdAt < :to and c.id > :afterId
+        order by c.id
+        """)
+    List<CostRow> findCostRows(@Param("model") String model,
+                               @Param("from") Instant from,
+                               @Param("to") Instant to,
+                               @Param("afterId") long afterId,
+                               Pageable pageable);
 }
@@ -0,0 +1,54 @@
+package com.aihub.hub.repository;
+
+import com.aihub.hub.domain.IdempotencyKeyRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface IdempotencyKeyRepository extends JpaRepository<IdempotencyKeyRecord, String> {
+
+    // falha com violação de chave primária se a chave já existir
+    @Modifying
+    @Transactional
+    @Query(value = """
+        insert into idempotency_keys (id, scope, fingerprint, status, created_at, expires_at)
+        values (:id, :scope, :fingerprint, 'IN_PROGRESS', :now, :expiresAt)
+        """, nativeQuery = true)
+    int insertInProgress(@Param("id") String id,
+                         @Param("scope") String scope,
+                         @Param("fingerprint") String fingerprint,
+                         @Param("now") Instant now,
+                         @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        update IdempotencyKeyRecord k
+        set k.status = 'COMPLETED', k.responseStatus = :responseStatus, k.responseBody = :responseBody,
+            k.expiresAt = :expiresAt
+        where k.id = :id and k.status = 'IN_PROGRESS'
+        """)
+    int complete(@Param("id") String id,
+                 @Param("responseStatus") int responseStatus,
+                 @Param("responseBody") String responseBody,
+                 @Param("expiresAt") Instant expiresAt);
+
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyKeyRecord k where k.id = :id and k.status = 'IN_PROGRESS'")
+    int deleteInProgress(@Param("id") String id);
+
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyKeyRecord k where k.id = :id and k.expiresAt < :now")
+    int deleteIfExpired(@Param("id") String id, @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from IdempotencyKeyRecord k where k.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,11 @@
+package com.aihub.hub.repository;
+
+import com.aihub.hub.domain.PricingRecomputeJob;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+import java.util.List;
+
+public interface PricingRecomputeJobRepository extends JpaRepository<PricingRecomputeJob, Long> {
+
+    List<PricingRecomputeJob> findByStatusOrderByIdAsc(String status);
+}
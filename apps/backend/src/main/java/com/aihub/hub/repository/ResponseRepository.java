@@ -1,10 +1,49 @@
 package com.aihub.hub.repository;
 
 import com.aihub.hub.domain.ResponseRecord;
+import com.aihub.hub.service.ResponseDuplicateGroup;
+import com.aihub.hub.service.ResponseRequestLink;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
 import java.util.List;
 
 public interface ResponseRepository extends JpaRepository<ResponseRecord, Long> {
     List<ResponseRecord> findTop10ByRepoOrderByCreatedAtDesc(String repo);
+
+    boolean existsByCodexRequestIdAndContentHash(Long codexRequestId, String contentHash);
+
+    List<ResponseRecord> findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(Long afterId, Pageable pageable);
+
+    // Respostas antigas sem codex_request_id cujo prompt pertence a uma única CodexRequest.
+    @Query("""
+        select new com.aihub.hub.service.ResponseRequestLink(r.id, c.id)
+        from ResponseRecord r, CodexRequest c
+        where c.promptRecord = r.prompt
+          and r.codexRequestId is null and r.contentHash is not null and r.id > :afterId
+          and not exists (select o.id from CodexRequest o where o.promptRecord = r.prompt and o.id <> c.id)
+        order by r.id
+        """)
+    List<ResponseRequestLink> findUnlinkedAfter(@Param("afterId") Long afterId, Pageable pageable);
+
+    @Query("""
+        select new com.aihub.hub.service.ResponseDuplicateGroup(p.id, r.repo, r.contentHash, min(r.id))
+        from ResponseRecord r left join r.prompt p
+        where r.codexRequestId is null and r.contentHash is not null
+        group by p.id, r.repo, r.contentHash
+        having count(r) > 1
+        """)
+    List<ResponseDuplicateGroup> findDuplicateGroups(Pageable pageable);
+
+    @Query("""
+        select r.id from ResponseRecord r left join r.prompt p
+        where r.codexRequestId is null and r.repo = :repo and r.contentHash = :contentHash and r.id <> :keepId
+          and ((:promptId is null and p is null) or p.id = :promptId)
+        """)
+    List<Long> findDuplicateIds(@Param("promptId") Long promptId,
+                                @Param("repo") String repo,
+                                @Param("contentHash") String contentHash,
+                                @Param("keepId") Long keepId);
 }
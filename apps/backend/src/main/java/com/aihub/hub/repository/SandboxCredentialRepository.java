@@ -0,0 +1,23 @@
+package com.aihub.hub.repository;
+
+import com.aihub.hub.domain.SandboxCredentialRecord;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+
+public interface SandboxCredentialRepository extends JpaRepository<SandboxCredentialRecord, String> {
+
+    @Modifying
+    @Transactional
+    @Query("delete from SandboxCredentialRecord c where c.jobId = :jobId")
+    int deleteByJobId(@Param("jobId") String jobId);
+
+    @Modifying
+    @Transactional
+    @Query("delete from SandboxCredentialRecord c where c.expiresAt < :now")
+    int deleteExpired(@Param("now") Instant now);
+}
@@ -0,0 +1,40 @@
+package com.aihub.hub.repository;
+
+import com.aihub.hub.domain.SandboxOutboxEntry;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+public interface SandboxOutboxRepository extends JpaRepository<SandboxOutboxEntry, Long> {
+
+    @Query("""
+        select e from SandboxOutboxEntry e
+        where e.status = :status and e.nextAttemptAt <= :now
+        order by e.nextAttemptAt asc, e.id asc
+        """)
+    List<SandboxOutboxEntry> findDue(@Param("status") String status, @Param("now") Instant now, Pageable pageable);
+
+    @Modifying
+    @Transactional
+    @Query("""
+        update SandboxOutboxEntry e
+        set e.attempts = e.attempts + 1, e.nextAttemptAt = :leaseUntil, e.updatedAt = :now
+        where e.id = :id and e.status = :status and e.attempts = :attempts
+        """)
+    int claim(@Param("id") Long id,
+              @Param("status") String status,
+              @Param("attempts") int attempts,
+              @Param("leaseUntil") Instant leaseUntil,
+              @Param("now") Instant now);
+
+    @Modifying
+    @Transactional
+    @Query("delete from SandboxOutboxEntry e where e.status = :status and e.dispatchedAt < :before")
+    int deleteDispatchedBefore(@Param("status") String status, @Param("before") Instant before);
+}
@@ -1,13 +1,110 @@
 package com.aihub.hub.repository;
 
 import com.aihub.hub.domain.UploadJobRecord;
+import com.aihub.hub.dto.UploadJobSummaryView;
+import com.aihub.hub.service.CostRow;
+import com.aihub.hub.service.SandboxSyncCandidate;
+import com.aihub.hub.service.UsageRow;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 
+import java.time.Instant;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 public interface UploadJobRepository extends JpaRepository<UploadJobRecord, Long> {
     Optional<UploadJobRecord> findByJobId(String jobId);
 
-    List<UploadJobRecord> findTop50ByOrderByCreatedAtDesc();
+    @Query("""
+        select new com.aihub.hub.dto.UploadJobSummaryView(
+            j.id, j.jobId, substring(j.taskDescription, 1, 120), j.profile, j.model, j.status,
+            j.resultZipReady, j.resultZipSha256, j.promptTokens, j.cachedPromptTokens,
+            j.completionTokens, j.totalTokens, j.cost, j.createdAt, j.updatedAt)
+        from UploadJobRecord j
+        order by j.createdAt desc, j.id desc
+        """)
+    List<UploadJobSummaryView> findSummaries(Pageable pageable);
+
+    @Query("""
+        select new com.aihub.hub.dto.UploadJobSummaryView(
+            j.id, j.jobId, substring(j.taskDescription, 1, 120), j.profile, j.model, j.status,
+            j.resultZipReady, j.resultZipSha256, j.promptTokens, j.cachedPromptTokens,
+            j.completionTokens, j.totalTokens, j.cost, j.createdAt, j.updatedAt)
+        from UploadJobRecord j
+        where j.createdAt < :createdAt or (j.createdAt = :createdAt and j.id < :id)
+        order by j.createdAt desc, j.id desc
+        """)
+    List<UploadJobSummaryView> findSummariesBefore(@Param("createdAt") Instant createdAt,
+                                                   @Param("id") Long id,
+                                                   Pageable pageable);
+
+    @Query("""
+        select new com.aihub.hub.service.SandboxSyncCandidate(j.id, j.jobId, j.syncVersion)
+        from UploadJobRecord j
+        where j.nextSyncAt <= :now
+        order by j.nextSyncAt
+        """)
+    List<SandboxSyncCandidate> findDueForSync(@Param("now") Instant now, Pageable pageable);
+
+    @Query("""
+        select new com.aihub.hub.service.SandboxSyncCandidate(j.id, j.jobId, j.syncVersion)
+        from UploadJobRecord j
+        where j.jobId = :jobId
+        order by j.id desc
+        """)
+    List<SandboxSyncCandidate> findSyncCandidates(@Param("jobId") String jobId, Pageable pageable);
+
+    @Modifying
+    @Query("""
+        update UploadJobRecord j
+        set j.callbackSequence = :sequence
+        where j.id = :id and (j.callbackSequence is null or j.callbackSequence < :sequence)
+        """)
+    int claimCallback(@Param("id") Long id, @Param("sequence") long sequence);
+
+    // A resposta de criação reivindica a sequência 0: só vale enquanto nenhum callback foi aplicado.
+    @Modifying
+    @Query("""
+        update UploadJobRecord j
+        set j.callbackSequence = 0
+        where j.jobId = :jobId and j.callbackSequence is null
+        """)
+    int claimDispatch(@Param("jobId") String jobId);
+
+    @Query("""
+        select new com.aihub.hub.service.UsageRow(
+            j.id, j.createdAt, j.model, j.profile, coalesce(j.project, ''), j.promptTokens, j.cachedPromptTokens,
+            j.completionTokens, j.totalTokens, j.cost)
+        from UploadJobRecord j
+        where j.id > :afterId
+        order by j.id
+        """)
+    List<UsageRow> findUsageRows(@Param("afterId") long afterId, Pageable pageable);
+
+    @Query("""
+        select new com.aihub.hub.service.CostRow(
+            j.id, j.createdAt, j.model, j.profile, coalesce(j.project, ''), j.requestedBy, j.promptTokens, j.cachedPromptTokens,
+            j.completionTokens, j.totalTokens, j.cost)
+        from UploadJobRecord j
+        where lower(j.model) = lower(:model) and j.createdAt >= :from and j.createdAt < :to and j.id > :afterId
+        order by j.id
+        """)
+    List<CostRow> findCostRows(@Param("model") String model,
+                               @Param("from") Instant from,
+                               @Param("to") Instant to,
+                               @Param("afterId") long afterId,
+                               Pageable pageable);
+
+    @Query("""
+        select j.sourceZipSha256 from UploadJobRecord j where j.sourceZipSha256 in :hashes
+        union
+        select j.resultZipSha256 from UploadJobRecord j where j.resultZipSha256 in :hashes
+        union
+        select j.sourceManifestSha256 from UploadJobRecord j where j.sourceManifestSha256 in :hashes
+        """)
+    List<String> findReferencedArtifacts(@Param("hashes") Collection<String> hashes);
 }
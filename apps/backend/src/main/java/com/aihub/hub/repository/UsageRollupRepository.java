@@ -0,0 +1,55 @@
+package com.aihub.hub.repository;
+
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.UsageRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.List;
+
+public interface UsageRollupRepository extends JpaRepository<UsageRollup, Long>, UsageRollupRepositoryCustom {
+
+    List<UsageRollup> findByBucketDateBetween(LocalDate from, LocalDate to);
+
+    boolean existsByGeneration(long generation);
+
+    @Modifying
+    @Query("delete from UsageRollup r where r.generation = :generation")
+    int deleteGeneration(@Param("generation") long generation);
+
+    @Modifying
+    @Query("delete from UsageRollup r where r.generation <> :generation")
+    int deleteOtherGenerations(@Param("generation") long generation);
+
+    @Modifying
+    @Query("""
+        update UsageRollup r
+        set r.requests = r.requests + :requests,
+            r.promptTokens = r.promptTokens + :promptTokens,
+            r.cachedPromptTokens = r.cachedPromptTokens + :cachedPromptTokens,
+            r.completionTokens = r.completionTokens + :completionTokens,
+            r.totalTokens = r.totalTokens + :totalTokens,
+            r.cost = r.cost + :cost,
+            r.updatedAt = :now
+        where r.generation = :generation and r.bucketDate = :day and r.jobType = :jobType and r.model = :model
+            and r.profile = :profile and r.project = :project
+        """)
+    int increment(@Param("generation") long generation,
+                  @Param("day") LocalDate day,
+                  @Param("jobType") SandboxJobType jobType,
+                  @Param("model") String model,
+                  @Param("profile") String profile,
+                  @Param("project") String project,
+                  @Param("requests") long requests,
+                  @Param("promptTokens") long promptTokens,
+                  @Param("cachedPromptTokens") long cachedPromptTokens,
+                  @Param("completionTokens") long completionTokens,
+                  @Param("totalTokens") long totalTokens,
+                  @Param("cost") BigDecimal cost,
+                  @Param("now") Instant now);
+}
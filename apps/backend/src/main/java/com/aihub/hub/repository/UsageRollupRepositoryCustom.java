@@ -0,0 +1,17 @@
+package com.aihub.hub.repository;
+
+import com.aihub.hub.dto.UsageRollupView;
+import com.aihub.hub.service.UsageRollupService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+
+public interface UsageRollupRepositoryCustom {
+
+    List<UsageRollupView> aggregate(long generation,
+                                    LocalDate from,
+                                    LocalDate to,
+                                    Set<UsageRollupService.Dimension> groupBy,
+                                    UsageRollupService.Filter filter);
+}
@@ -0,0 +1,102 @@
+package com.aihub.hub.repository;
+
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.dto.UsageRollupView;
+import com.aihub.hub.service.UsageRollupService.Dimension;
+import com.aihub.hub.service.UsageRollupService.Filter;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+public class UsageRollupRepositoryImpl implements UsageRollupRepositoryCustom {
+
+    private static final Map<Dimension, String> COLUMNS = new EnumMap<>(Map.of(
+        Dimension.DAY, "r.bucketDate",
+        Dimension.JOB_TYPE, "r.jobType",
+        Dimension.MODEL, "r.model",
+        Dimension.PROFILE, "r.profile",
+        Dimension.PROJECT, "r.project"
+    ));
+
+    private final EntityManager entityManager;
+
+    public UsageRollupRepositoryImpl(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    @Override
+    public List<UsageRollupView> aggregate(long generation, LocalDate from, LocalDate to, Set<Dimension> groupBy, Filter filter) {
+        List<Dimension> dimensions = Arrays.stream(Dimension.values()).filter(groupBy::contains).toList();
+        List<String> columns = dimensions.stream().map(COLUMNS::get).toList();
+        Map<String, Object> parameters = new LinkedHashMap<>();
+        parameters.put("generation", generation);
+        parameters.put("from", from);
+        parameters.put("to", to);
+
+        StringBuilder jpql = new StringBuilder("select ");
+        columns.forEach(column -> jpql.append(column).append(", "));
+        jpql.append("sum(r.requests), sum(r.promptTokens), sum(r.cachedPromptTokens), sum(r.completionTokens), ")
+            .append("sum(r.totalTokens), sum(r.cost) from UsageRollup r where r.generation = :generation and r.bucketDate between :from and :to");
+        if (filter != null) {
+            if (filter.jobType() != null) {
+                jpql.append(" and r.jobType = :jobType");
+                parameters.put("jobType", filter.jobType());
+            }
+            if (filter.model() != null) {
+                jpql.append(" and lower(r.model) = lower(:model)");
+                parameters.put("model", filter.model());
+            }
+            if (filter.profile() != null) {
+                jpql.append(" and lower(r.profile) = lower(:profile)");
+                parameters.put("profile", filter.profile());
+            }
+            if (filter.project() != null) {
+                jpql.append(" and r.project = :project");
+                parameters.put("project", filter.project());
+            }
+        }
+        if (!columns.isEmpty()) {
+            jpql.append(" group by ").append(String.join(", ", columns));
+        }
+        jpql.append(dimensions.contains(Dimension.DAY) ? " order by r.bucketDate, sum(r.cost) desc" : " order by sum(r.cost) desc");
+
+        TypedQuery<Object[]> query = entityManager.createQuery(jpql.toString(), Object[].class);
+        parameters.forEach(query::setParameter);
+        List<UsageRollupView> views = new ArrayList<>();
+        for (Object[] row : query.getResultList()) {
+            int totals = dimensions.size();
+            if (row[totals] == null) {
+                // sem agrupamento e sem linhas no intervalo: a agregação devolve só nulos
+                continue;
+            }
+            views.add(new UsageRollupView(
+                (LocalDate) value(dimensions, row, Dimension.DAY),
+                (SandboxJobType) value(dimensions, row, Dimension.JOB_TYPE),
+                (String) value(dimensions, row, Dimension.MODEL),
+                (String) value(dimensions, row, Dimension.PROFILE),
+                (String) value(dimensions, row, Dimension.PROJECT),
+                ((Number) row[totals]).longValue(),
+                ((Number) row[totals + 1]).longValue(),
+                ((Number) row[totals + 2]).longValue(),
+                ((Number) row[totals + 3]).longValue(),
+                ((Number) row[totals + 4]).longValue(),
+                (BigDecimal) row[totals + 5]
+            ));
+        }
+        return views;
+    }
+
+    private static Object value(List<Dimension> dimensions, Object[] row, Dimension dimension) {
+        int index = dimensions.indexOf(dimension);
+        return index >= 0 ? row[index] : null;
+    }
+}
@@ -0,0 +1,56 @@
+package com.aihub.hub.repository;
+
+import com.aihub.hub.domain.UsageRollupState;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.Instant;
+
+public interface UsageRollupStateRepository extends JpaRepository<UsageRollupState, Integer> {
+
+    // Só uma instância reconstrói por vez; uma reconstrução sem sinal de vida desde staleBefore é
+    // assumida com geração nova, e as gravações da anterior deixam de casar com building_generation.
+    @Modifying
+    @Query("""
+        update UsageRollupState s
+        set s.buildingGeneration = coalesce(s.buildingGeneration, s.activeGeneration) + 1,
+            s.codexCursor = 0, s.uploadCursor = 0, s.heartbeatAt = :now
+        where s.id = 1 and (s.buildingGeneration is null or s.heartbeatAt < :staleBefore)
+        """)
+    int claimRebuild(@Param("now") Instant now, @Param("staleBefore") Instant staleBefore);
+
+    @Modifying
+    @Query("""
+        update UsageRollupState s
+        set s.codexCursor = :cursor, s.heartbeatAt = :now
+        where s.id = 1 and s.buildingGeneration = :generation
+        """)
+    int advanceCodexCursor(@Param("generation") long generation, @Param("cursor") long cursor, @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+        update UsageRollupState s
+        set s.uploadCursor = :cursor, s.heartbeatAt = :now
+        where s.id = 1 and s.buildingGeneration = :generation
+        """)
+    int advanceUploadCursor(@Param("generation") long generation, @Param("cursor") long cursor, @Param("now") Instant now);
+
+    @Modifying
+    @Query("""
+        update UsageRollupState s
+        set s.activeGeneration = :generation, s.buildingGeneration = null,
+            s.codexCursor = null, s.uploadCursor = null, s.heartbeatAt = null
+        where s.id = 1 and s.buildingGeneration = :generation
+        """)
+    int activate(@Param("generation") long generation);
+
+    @Modifying
+    @Query("""
+        update UsageRollupState s
+        set s.buildingGeneration = null, s.codexCursor = null, s.uploadCursor = null, s.heartbeatAt = null
+        where s.id = 1 and s.buildingGeneration = :generation
+        """)
+    int abandon(@Param("generation") long generation);
+}
@@ -0,0 +1,103 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.repository.UploadJobRepository;
+import com.aihub.hub.storage.ArtifactStore;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+@Component
+public class ArtifactGarbageCollector {
+
+    private static final Logger log = LoggerFactory.getLogger(ArtifactGarbageCollector.class);
+
+    private final ArtifactStore artifactStore;
+    private final UploadJobRepository uploadJobRepository;
+    private final Clock clock;
+    private final boolean enabled;
+    private final Duration grace;
+    private final int batchSize;
+
+    public ArtifactGarbageCollector(ArtifactStore artifactStore,
+                                    UploadJobRepository uploadJobRepository,
+                                    Clock clock,
+                                    @Value("${hub.artifacts.gc.enabled:true}") boolean enabled,
+                                    @Value("${hub.artifacts.gc.grace:PT24H}") Duration grace,
+                                    @Value("${hub.artifacts.gc.batch-size:500}") int batchSize) {
+        this.artifactStore = artifactStore;
+        this.uploadJobRepository = uploadJobRepository;
+        this.clock = clock;
+        this.enabled = enabled;
+        this.grace = grace;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @Scheduled(fixedDelayString = "${hub.artifacts.gc.interval-ms:3600000}",
+        initialDelayString = "${hub.artifacts.gc.interval-ms:3600000}")
+    public void sweep() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            long removed = collect();
+            if (removed > 0) {
+                log.info("{} artefato(s) sem referência removido(s)", removed);
+            }
+        } catch (RuntimeException ex) {
+            log.error("Falha na coleta de artefatos sem referência", ex);
+        }
+    }
+
+    // Só considera artefatos sem gravação há mais que a carência: cobre o intervalo
+    // entre o upload chegar ao store e o job que o referencia ser confirmado no banco.
+    long collect() {
+        Instant cutoff = clock.instant().minus(grace);
+        long removed = 0;
+        try (Stream<String> candidates = artifactStore.listOlderThan(cutoff)) {
+            Iterator<String> iterator = candidates.iterator();
+            List<String> batch = new ArrayList<>(batchSize);
+            while (iterator.hasNext()) {
+                batch.add(iterator.next());
+                if (batch.size() == batchSize || !iterator.hasNext()) {
+                    removed += deleteUnreferenced(batch);
+                    batch.clear();
+                }
+            }
+        } catch (IOException ex) {
+            throw new UncheckedIOException(ex);
+        }
+        return removed;
+    }
+
+    private long deleteUnreferenced(List<String> hashes) {
+        Set<String> referenced = new HashSet<>(uploadJobRepository.findReferencedArtifacts(hashes));
+        long removed = 0;
+        for (String sha256 : hashes) {
+            if (referenced.contains(sha256)) {
+                continue;
+            }
+            try {
+                if (artifactStore.delete(sha256)) {
+                    removed++;
+                }
+            } catch (IOException ex) {
+                log.warn("Falha ao remover artefato {}: {}", sha256, ex.getMessage());
+            }
+        }
+        return removed;
+    }
+}
@@ -0,0 +1,408 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.config.BudgetProperties;
+import com.aihub.hub.config.BudgetProperties.Action;
+import com.aihub.hub.config.BudgetProperties.Period;
+import com.aihub.hub.config.BudgetProperties.Scope;
+import com.aihub.hub.domain.BudgetCounter;
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.dto.UsageRollupView;
+import com.aihub.hub.repository.BudgetCounterRepository;
+import com.aihub.hub.service.UsageRollupService.Dimension;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+@Service
+public class BudgetService {
+
+    private static final Logger log = LoggerFactory.getLogger(BudgetService.class);
+    private static final String ANY_SUBJECT = "*";
+
+    public enum Decision {
+        ALLOW,
+        DOWNGRADE
+    }
+
+    private record Policy(Scope scope, String subject, Period period, long limitMicros, Action action) {
+
+        boolean appliesTo(String candidate) {
+            return ANY_SUBJECT.equals(subject) || subject.equals(candidate);
+        }
+    }
+
+    private record CounterKey(Scope scope, String subject, Period period, LocalDate start) {
+    }
+
+    private static final class Counter {
+        private final AtomicLong flushed = new AtomicLong();
+        private final LongAdder pending = new LongAdder();
+        private final LongAdder reserved = new LongAdder();
+
+        long total() {
+            return flushed.get() + pending.sum() + reserved.sum();
+        }
+
+        boolean isIdle() {
+            return pending.sum() == 0 && reserved.sum() == 0;
+        }
+    }
+
+    private record JobKey(SandboxJobType jobType, Long id) {
+    }
+
+    private record Reservation(List<Counter> counters, long micros, Instant expiresAt) {
+
+        void release() {
+            counters.forEach(counter -> counter.reserved.add(-micros));
+        }
+    }
+
+    private final BudgetCounterRepository counterRepository;
+    private final UsageRollupService usageRollupService;
+    private final CodexModelPricingService pricingService;
+    private final TransactionTemplate transactions;
+    private final Clock clock;
+    private final List<Policy> policies;
+    private final int estimatedPromptTokens;
+    private final int estimatedCompletionTokens;
+    private final Duration reservationTtl;
+    private final Map<CounterKey, Counter> counters = new ConcurrentHashMap<>();
+    private final Map<JobKey, Reservation> reservations = new ConcurrentHashMap<>();
+
+    public BudgetService(BudgetCounterRepository counterRepository,
+                         UsageRollupService usageRollupService,
+                         CodexModelPricingService pricingService,
+                         PlatformTransactionManager transactionManager,
+                         Clock clock,
+                         BudgetProperties properties) {
+        this.counterRepository = counterRepository;
+        this.usageRollupService = usageRollupService;
+        this.pricingService = pricingService;
+        // Os usos chegam depois do commit: cada gravação precisa da sua própria transação.
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.clock = clock;
+        this.policies = properties.isEnabled() ? parse(properties.getPolicies()) : List.of();
+        this.estimatedPromptTokens = Math.max(0, properties.getEstimatedPromptTokens());
+        this.estimatedCompletionTokens = Math.max(0, properties.getEstimatedCompletionTokens());
+        this.reservationTtl = properties.getReservationTtl();
+    }
+
+    public Decision admit(String user, String project, String model) {
+        if (policies.isEmpty()) {
+            return Decision.ALLOW;
+        }
+        LocalDate today = today();
+        Decision decision = Decision.ALLOW;
+        for (Policy policy : policies) {
+            String subject = subject(policy.scope(), user, project, model);
+            if (subject == null || !policy.appliesTo(subject)) {
+                continue;
+            }
+            Counter counter = counters.get(new CounterKey(policy.scope(), subject, policy.period(), start(policy.period(), today)));
+            long spent = counter != null ? counter.total() : 0L;
+            if (spent < policy.limitMicros()) {
+                continue;
+            }
+            if (policy.action() == Action.REJECT) {
+                throw new BudgetExceededException(
+                    "Orçamento " + describe(policy, subject) + " esgotado: US$ " + ModelPricingSnapshot.fromMicros(spent)
+                        + " de US$ " + ModelPricingSnapshot.fromMicros(policy.limitMicros()),
+                    secondsUntilNextPeriod(policy.period())
+                );
+            }
+            decision = Decision.DOWNGRADE;
+        }
+        return decision;
+    }
+
+    // desfeita se a transação que criou o job não confirmar
+    public void reserve(SandboxJobType jobType, Long id, String user, String project, String model) {
+        if (policies.isEmpty() || id == null) {
+            return;
+        }
+        ModelPricingSnapshot.Price price = pricingService.snapshot().find(model);
+        if (price == null) {
+            return;
+        }
+        long micros = TokenCostCalculator.breakdown(price, estimatedPromptTokens, 0, estimatedCompletionTokens, null)
+            .totalCostMicros();
+        if (micros <= 0) {
+            return;
+        }
+        List<Counter> reserved = countersFor(today(), user, project, model);
+        reserved.forEach(counter -> counter.reserved.add(micros));
+        JobKey key = new JobKey(jobType, id);
+        Reservation previous = reservations.put(key, new Reservation(reserved, micros, clock.instant().plus(reservationTtl)));
+        if (previous != null) {
+            previous.release();
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    if (status != STATUS_COMMITTED) {
+                        release(key);
+                    }
+                }
+            });
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsageChanged(UsageChanged change) {
+        if (policies.isEmpty()) {
+            return;
+        }
+        UsageSnapshot before = change.before();
+        UsageSnapshot after = change.after();
+        if (change.id() != null) {
+            release(new JobKey(after.jobType(), change.id()));
+        }
+        long beforeMicros = ModelPricingSnapshot.toMicros(before.cost());
+        long afterMicros = ModelPricingSnapshot.toMicros(after.cost());
+        if (before.sameKey(after)) {
+            add(after, change.requestedBy(), afterMicros - beforeMicros);
+        } else {
+            add(before, change.requestedBy(), -beforeMicros);
+            add(after, change.requestedBy(), afterMicros);
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (!policies.isEmpty()) {
+            load();
+        }
+    }
+
+    void load() {
+        refresh(today());
+        log.info("Contadores de orçamento carregados: {} contador(es) no período atual", counters.size());
+    }
+
+    @Scheduled(fixedDelayString = "${hub.budget.flush-interval-ms:10000}")
+    public void flush() {
+        if (policies.isEmpty()) {
+            return;
+        }
+        Instant now = clock.instant();
+        reservations.entrySet().removeIf(entry -> {
+            if (entry.getValue().expiresAt().isAfter(now)) {
+                return false;
+            }
+            entry.getValue().release();
+            return true;
+        });
+        LocalDate today = today();
+        counters.forEach((key, counter) -> {
+            if (key.scope() == Scope.USER) {
+                long micros = counter.pending.sumThenReset();
+                if (micros != 0) {
+                    try {
+                        write(key, micros, now);
+                        counter.flushed.addAndGet(micros);
+                    } catch (RuntimeException ex) {
+                        counter.pending.add(micros);
+                        log.warn("Falha ao gravar contador de orçamento {}; nova tentativa no próximo ciclo: {}", key, ex.getMessage());
+                    }
+                }
+            }
+            if (key.start().isBefore(start(key.period(), today)) && counter.isIdle()) {
+                counters.remove(key, counter);
+            }
+        });
+        try {
+            refresh(today);
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao reler contadores de orçamento; mantendo os valores locais: {}", ex.getMessage());
+        }
+    }
+
+    // Total de todas as instâncias no período atual: usuário em budget_counters; modelo e projeto
+    // em usage_rollups, que já incluem o gasto local pendente desses escopos.
+    private void refresh(LocalDate today) {
+        LocalDate monthStart = start(Period.MONTH, today);
+        Map<CounterKey, Long> spent = new HashMap<>();
+        Set<Scope> refreshed = EnumSet.noneOf(Scope.class);
+        if (hasPolicy(Scope.USER)) {
+            for (BudgetCounter row : counterRepository.findByScopeAndPeriodStartGreaterThanEqual(Scope.USER.name(), monthStart)) {
+                Period period = Period.valueOf(row.getPeriod());
+                if (row.getPeriodStart().equals(start(period, today))) {
+                    spent.put(new CounterKey(Scope.USER, row.getSubject(), period, row.getPeriodStart()), row.getSpentMicros());
+                }
+            }
+            refreshed.add(Scope.USER);
+        }
+        for (Scope scope : List.of(Scope.MODEL, Scope.PROJECT)) {
+            // a reconstrução dos rollups grava em outra geração: a consulta segue lendo a completa
+            if (!hasPolicy(scope)) {
+                continue;
+            }
+            counters.forEach((key, counter) -> {
+                if (key.scope() == scope) {
+                    counter.pending.reset();
+                }
+            });
+            Dimension dimension = scope == Scope.MODEL ? Dimension.MODEL : Dimension.PROJECT;
+            for (UsageRollupView row : usageRollupService.query(monthStart, today, EnumSet.of(Dimension.DAY, dimension), null)) {
+                String subject = subject(scope, null, row.project(), row.model());
+                if (subject == null) {
+                    continue;
+                }
+                long micros = ModelPricingSnapshot.toMicros(row.cost());
+                spent.merge(new CounterKey(scope, subject, Period.MONTH, monthStart), micros, Long::sum);
+                if (row.day().equals(today)) {
+                    spent.merge(new CounterKey(scope, subject, Period.DAY, today), micros, Long::sum);
+                }
+            }
+            refreshed.add(scope);
+        }
+        counters.forEach((key, counter) -> {
+            if (refreshed.contains(key.scope()) && key.start().equals(start(key.period(), today)) && !spent.containsKey(key)) {
+                counter.flushed.set(0);
+            }
+        });
+        spent.forEach((key, micros) -> counter(key).flushed.set(micros));
+    }
+
+    private boolean hasPolicy(Scope scope) {
+        return policies.stream().anyMatch(policy -> policy.scope() == scope);
+    }
+
+    private void release(JobKey key) {
+        Reservation reservation = reservations.remove(key);
+        if (reservation != null) {
+            reservation.release();
+        }
+    }
+
+    private void add(UsageSnapshot snapshot, String user, long micros) {
+        if (micros != 0) {
+            countersFor(snapshot.day(), user, snapshot.project(), snapshot.model())
+                .forEach(counter -> counter.pending.add(micros));
+        }
+    }
+
+    private List<Counter> countersFor(LocalDate day, String user, String project, String model) {
+        List<Counter> result = new ArrayList<>(6);
+        for (Scope scope : Scope.values()) {
+            String subject = subject(scope, user, project, model);
+            if (subject == null) {
+                continue;
+            }
+            for (Period period : Period.values()) {
+                result.add(counter(new CounterKey(scope, subject, period, start(period, day))));
+            }
+        }
+        return result;
+    }
+
+    private Counter counter(CounterKey key) {
+        return counters.computeIfAbsent(key, ignored -> new Counter());
+    }
+
+    private void write(CounterKey key, long micros, Instant now) {
+        Integer updated = transactions.execute(status -> increment(key, micros, now));
+        if (updated != null && updated > 0) {
+            return;
+        }
+        try {
+            transactions.executeWithoutResult(status -> counterRepository.save(new BudgetCounter(
+                key.scope().name(), key.subject(), key.period().name(), key.start(), micros
+            )));
+        } catch (DataIntegrityViolationException ex) {
+            // outra instância criou a linha entre o update e o insert
+            transactions.execute(status -> increment(key, micros, now));
+        }
+    }
+
+    private int increment(CounterKey key, long micros, Instant now) {
+        return counterRepository.increment(key.scope().name(), key.subject(), key.period().name(), key.start(), micros, now);
+    }
+
+    private LocalDate today() {
+        return LocalDate.ofInstant(clock.instant(), ZoneOffset.UTC);
+    }
+
+    private long secondsUntilNextPeriod(Period period) {
+        LocalDate today = today();
+        LocalDate next = period == Period.DAY ? today.plusDays(1) : start(Period.MONTH, today).plusMonths(1);
+        return Math.max(1, Duration.between(clock.instant(), next.atStartOfDay().toInstant(ZoneOffset.UTC)).toSeconds());
+    }
+
+    private static LocalDate start(Period period, LocalDate day) {
+        return period == Period.DAY ? day : day.withDayOfMonth(1);
+    }
+
+    private static String subject(Scope scope, String user, String project, String model) {
+        String value = switch (scope) {
+            case USER -> user;
+            case PROJECT -> project;
+            case MODEL -> model;
+        };
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        String normalized = value.trim().toLowerCase(Locale.ROOT);
+        return normalized.length() > 191 ? normalized.substring(0, 191) : normalized;
+    }
+
+    private static String describe(Policy policy, String subject) {
+        String scope = switch (policy.scope()) {
+            case USER -> "do usuário";
+            case PROJECT -> "do projeto";
+            case MODEL -> "do modelo";
+        };
+        String period = policy.period() == Period.DAY ? "diário" : "mensal";
+        return period + " " + scope + " " + subject;
+    }
+
+    private static List<Policy> parse(List<BudgetProperties.Policy> configured) {
+        List<Policy> parsed = new ArrayList<>();
+        for (BudgetProperties.Policy policy : configured) {
+            if (policy.getScope() == null || policy.getLimit() == null || policy.getLimit().signum() < 0) {
+                throw new IllegalArgumentException("Política de orçamento inválida: informe scope e limit >= 0");
+            }
+            String subject = policy.getSubject() == null || policy.getSubject().isBlank()
+                ? ANY_SUBJECT
+                : policy.getSubject().trim().toLowerCase(Locale.ROOT);
+            parsed.add(new Policy(
+                policy.getScope(),
+                subject,
+                policy.getPeriod() != null ? policy.getPeriod() : Period.DAY,
+                ModelPricingSnapshot.toMicros(policy.getLimit()),
+                policy.getAction() != null ? policy.getAction() : Action.REJECT
+            ));
+        }
+        return List.copyOf(parsed);
+    }
+}
@@ -2,33 +2,55 @@ package com.aihub.hub.service;
 
 import com.aihub.hub.domain.CiFixJobRecord;
 import com.aihub.hub.domain.Project;
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.SandboxOutboxEntry;
 import com.aihub.hub.dto.CiFixJobView;
 import com.aihub.hub.dto.CreateCiFixJobRequest;
 import com.aihub.hub.repository.CiFixJobRepository;
 import com.aihub.hub.repository.ProjectRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.time.Instant;
+import java.util.List;
 import java.util.Optional;
 import java.util.UUID;
 
 @Service
-public class CiFixJobService {
+public class CiFixJobService implements SandboxDispatchHandler, SandboxJobSynchronizer {
+
+    private static final Logger log = LoggerFactory.getLogger(CiFixJobService.class);
 
     private final ProjectRepository projectRepository;
     private final CiFixJobRepository jobRepository;
     private final SandboxOrchestratorClient sandboxOrchestratorClient;
     private final AuditService auditService;
+    private final SandboxOutbox sandboxOutbox;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BudgetService budgetService;
+    private final TransactionOperations transactionOperations;
 
     public CiFixJobService(ProjectRepository projectRepository,
                            CiFixJobRepository jobRepository,
                            SandboxOrchestratorClient sandboxOrchestratorClient,
-                           AuditService auditService) {
+                           AuditService auditService,
+                           SandboxOutbox sandboxOutbox,
+                           ApplicationEventPublisher eventPublisher,
+                           BudgetService budgetService,
+                           TransactionOperations transactionOperations) {
         this.projectRepository = projectRepository;
         this.jobRepository = jobRepository;
         this.sandboxOrchestratorClient = sandboxOrchestratorClient;
         this.auditService = auditService;
+        this.sandboxOutbox = sandboxOutbox;
+        this.eventPublisher = eventPublisher;
+        this.budgetService = budgetService;
+        this.transactionOperations = transactionOperations;
     }
 
     @Transactional
@@ -38,6 +60,8 @@ public class CiFixJobService {
         if (project.getRepoUrl() == null || project.getRepoUrl().isBlank()) {
             throw new IllegalStateException("Project.repoUrl não configurado para o projeto solicitado");
         }
+        // CI fix não tem modelo nem perfil: só as políticas de recusa por usuário e projeto se aplicam
+        budgetService.admit(actor, project.getRepo(), null);
 
         String branch = request.getBranch() != null && !request.getBranch().isBlank()
             ? request.getBranch().trim()
@@ -66,24 +90,54 @@ public class CiFixJobService {
             null
         );
 
-        try {
-            SandboxOrchestratorClient.SandboxOrchestratorJobResponse orchestratorResponse =
-                sandboxOrchestratorClient.createJob(jobRequest);
-            populateFromOrchestrator(record, orchestratorResponse);
-        } catch (RuntimeException ex) {
-            record.setStatus("FAILED");
-            String message = ex.getMessage() != null
-                ? ex.getMessage()
-                : "Falha ao criar job no sandbox-orchestrator";
-            record.setSummary("Falha ao criar job no sandbox-orchestrator: " + message);
-        }
-
-        jobRepository.save(record);
+        sandboxOutbox.enqueue(SandboxJobType.CI_FIX, record.getJobId(), jobRequest);
 
         auditService.record(actor, "cifix_job_created", project.getRepo(), null);
         return CiFixJobView.from(record);
     }
 
+    @Override
+    public SandboxJobType jobType() {
+        return SandboxJobType.CI_FIX;
+    }
+
+    @Override
+    public void dispatch(SandboxOutboxEntry entry) {
+        SandboxJobRequest jobRequest = sandboxOutbox.readPayload(entry, SandboxJobRequest.class);
+        SandboxOrchestratorClient.SandboxOrchestratorJobResponse orchestratorResponse =
+            sandboxOrchestratorClient.createJob(jobRequest);
+
+        // Callback aplicado antes da resposta de criação vence; ver SandboxUploadService.dispatch
+        transactionOperations.executeWithoutResult(status -> {
+            boolean claimed = jobRepository.claimDispatch(entry.getJobId()) > 0;
+            CiFixJobRecord record = jobRepository.findByJobId(entry.getJobId())
+                .orElseThrow(() -> new IllegalArgumentException("Job não encontrado"));
+            if (!claimed || record.getSyncVersion() != null) {
+                log.info("Job {} já sincronizado por callback; resposta de criação ignorada", entry.getJobId());
+                return;
+            }
+            SandboxJobSnapshot before = SandboxJobSnapshot.of(record);
+            populateFromOrchestrator(record, orchestratorResponse);
+            record.setNextSyncAt(SandboxSyncBackoff.isTerminal(record.getStatus()) ? null : Instant.now());
+            record.setUpdatedAt(Instant.now());
+            jobRepository.save(record);
+            publishChange(record, before);
+        });
+    }
+
+    @Override
+    public void markFailed(SandboxOutboxEntry entry, String message) {
+        jobRepository.findByJobId(entry.getJobId()).ifPresent(record -> {
+            SandboxJobSnapshot before = SandboxJobSnapshot.of(record);
+            record.setStatus("FAILED");
+            record.setSummary("Falha ao criar job no sandbox-orchestrator: " + message);
+            record.setNextSyncAt(null);
+            record.setUpdatedAt(Instant.now());
+            jobRepository.save(record);
+            publishChange(record, before);
+        });
+    }
+
     @Transactional(readOnly = true)
     public CiFixJobView getJob(String jobId) {
         CiFixJobRecord record = jobRepository.findByJobId(jobId)
@@ -98,12 +152,82 @@ public class CiFixJobService {
 
         SandboxOrchestratorClient.SandboxOrchestratorJobResponse orchestratorResponse =
             sandboxOrchestratorClient.getJob(jobId);
+        SandboxJobSnapshot before = SandboxJobSnapshot.of(record);
         populateFromOrchestrator(record, orchestratorResponse);
+        if (SandboxSyncBackoff.isTerminal(record.getStatus())) {
+            record.setNextSyncAt(null);
+        }
         record.setUpdatedAt(Instant.now());
         jobRepository.save(record);
+        publishChange(record, before);
         return CiFixJobView.from(record);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<SandboxSyncCandidate> findDueForSync(Instant now, int limit) {
+        return jobRepository.findDueForSync(now, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public Optional<SandboxSyncCandidate> findSyncCandidate(String jobId) {
+        return jobRepository.findSyncCandidates(jobId, PageRequest.of(0, 1)).stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public boolean claimCallback(SandboxSyncCandidate candidate, long sequence) {
+        return jobRepository.claimCallback(candidate.id(), sequence) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void deferSync(SandboxSyncCandidate candidate, SandboxSyncBackoff backoff) {
+        jobRepository.findById(candidate.id()).ifPresent(record -> {
+            SandboxSyncBackoff.Next next = backoff.next(record.getCreatedAt(), record.getSyncMisses(), false, false);
+            record.setNextSyncAt(next.at());
+            record.setSyncMisses(next.misses());
+        });
+    }
+
+    @Override
+    @Transactional
+    public void applySync(SandboxSyncCandidate candidate,
+                          SandboxOrchestratorClient.SandboxOrchestratorJobResponse response,
+                          String version,
+                          SandboxSyncBackoff backoff) {
+        jobRepository.findById(candidate.id()).ifPresent(record -> {
+            SyncState before = SyncState.of(record);
+            SandboxJobSnapshot snapshot = SandboxJobSnapshot.of(record);
+            if (response == null) {
+                if (!SandboxSyncBackoff.isTerminal(record.getStatus())) {
+                    record.setStatus("FAILED");
+                    record.setSummary("Job não encontrado no sandbox-orchestrator");
+                }
+            } else {
+                populateFromOrchestrator(record, response);
+            }
+            boolean changed = !before.equals(SyncState.of(record));
+            if (changed) {
+                record.setUpdatedAt(Instant.now());
+            }
+            SandboxSyncBackoff.Next next = backoff.next(
+                record.getCreatedAt(), record.getSyncMisses(), changed, SandboxSyncBackoff.isTerminal(record.getStatus())
+            );
+            record.setNextSyncAt(next.at());
+            record.setSyncMisses(next.misses());
+            record.setSyncVersion(version);
+            publishChange(record, snapshot);
+        });
+    }
+
+    private void publishChange(CiFixJobRecord record, SandboxJobSnapshot before) {
+        SandboxJobSnapshot after = SandboxJobSnapshot.of(record);
+        if (!before.equals(after)) {
+            eventPublisher.publishEvent(new SandboxJobChanged(SandboxJobType.CI_FIX, record.getJobId(), before, after));
+        }
+    }
+
     private void populateFromOrchestrator(CiFixJobRecord record, SandboxOrchestratorClient.SandboxOrchestratorJobResponse payload) {
         if (payload == null) {
             return;
@@ -118,4 +242,16 @@ public class CiFixJobService {
             record.setChangedFiles(joined);
         }
     }
+
+    private record SyncState(String status, String summary, String patch, String pullRequestUrl, String changedFiles) {
+        static SyncState of(CiFixJobRecord record) {
+            return new SyncState(
+                record.getStatus(),
+                record.getSummary(),
+                record.getPatch(),
+                record.getPullRequestUrl(),
+                record.getChangedFiles()
+            );
+        }
+    }
 }
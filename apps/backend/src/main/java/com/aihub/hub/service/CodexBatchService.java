@@ -0,0 +1,109 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.CodexRequest;
+import com.aihub.hub.dto.CodexBatchItemResult;
+import com.aihub.hub.dto.CreateCodexRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+@Service
+public class CodexBatchService {
+
+    private static final Logger log = LoggerFactory.getLogger(CodexBatchService.class);
+
+    private final CodexRequestService codexRequestService;
+    private final int maxItems;
+    private final int chunkSize;
+
+    public CodexBatchService(CodexRequestService codexRequestService,
+                             @Value("${hub.codex.batch.max-items:500}") int maxItems,
+                             @Value("${hub.codex.batch.chunk-size:50}") int chunkSize) {
+        this.codexRequestService = codexRequestService;
+        this.maxItems = maxItems;
+        this.chunkSize = Math.max(1, chunkSize);
+    }
+
+    public void validate(List<CreateCodexRequest> requests) {
+        if (requests.size() > maxItems) {
+            throw new IllegalArgumentException("Lote com " + requests.size() + " itens excede o limite de " + maxItems);
+        }
+    }
+
+    public void submit(String actor, List<CreateCodexRequest> requests, Consumer<CodexBatchItemResult> results) {
+        validate(requests);
+        Consumer<CodexBatchItemResult> delivery = detachOnFailure(results);
+        int accepted = 0;
+        List<Integer> indexes = new ArrayList<>(chunkSize);
+        List<CodexRequestService.Admission> admissions = new ArrayList<>(chunkSize);
+        for (int index = 0; index < requests.size(); index++) {
+            try {
+                admissions.add(codexRequestService.checkBudget(actor, requests.get(index)));
+            } catch (BudgetExceededException ex) {
+                // recusado pelo orçamento: só este item falha, o resto do lote segue
+                delivery.accept(CodexBatchItemResult.failed(index, ex.getMessage()));
+                continue;
+            }
+            indexes.add(index);
+            if (indexes.size() == chunkSize) {
+                accepted += submitChunk(actor, requests, indexes, admissions, delivery);
+                indexes.clear();
+                admissions.clear();
+            }
+        }
+        if (!indexes.isEmpty()) {
+            accepted += submitChunk(actor, requests, indexes, admissions, delivery);
+        }
+        log.info("Lote de CodexRequests processado: {} de {} itens aceitos", accepted, requests.size());
+    }
+
+    private int submitChunk(String actor,
+                            List<CreateCodexRequest> requests,
+                            List<Integer> indexes,
+                            List<CodexRequestService.Admission> admissions,
+                            Consumer<CodexBatchItemResult> results) {
+        List<CodexRequest> saved;
+        try {
+            saved = codexRequestService.createAll(
+                actor, indexes.stream().map(requests::get).toList(), new ArrayList<>(admissions)
+            );
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao gravar itens {}-{} do lote de CodexRequests: {}",
+                indexes.get(0), indexes.get(indexes.size() - 1), ex.getMessage());
+            indexes.forEach(index -> results.accept(CodexBatchItemResult.failed(index, ex.getMessage())));
+            return 0;
+        }
+        for (int i = 0; i < saved.size(); i++) {
+            CodexRequest request = saved.get(i);
+            CodexBatchItemResult.Dispatch dispatch = request.getRepoOwner() != null
+                ? CodexBatchItemResult.Dispatch.QUEUED
+                : CodexBatchItemResult.Dispatch.SKIPPED;
+            results.accept(CodexBatchItemResult.accepted(indexes.get(i), request.getId(), dispatch));
+        }
+        return saved.size();
+    }
+
+    // Cliente que desconecta no meio do lote não interrompe a gravação: os itens restantes
+    // continuam sendo gravados e só as linhas de resultado são descartadas.
+    private static Consumer<CodexBatchItemResult> detachOnFailure(Consumer<CodexBatchItemResult> results) {
+        AtomicBoolean detached = new AtomicBoolean();
+        return result -> {
+            if (detached.get()) {
+                return;
+            }
+            try {
+                results.accept(result);
+            } catch (RuntimeException ex) {
+                detached.set(true);
+                log.warn("Falha ao enviar resultado do item {} do lote; os demais itens seguem sem resposta: {}",
+                    result.index(), ex.getMessage());
+            }
+        };
+    }
+}
@@ -4,57 +4,184 @@ import com.aihub.hub.domain.CodexModelPricing;
 import com.aihub.hub.dto.CodexModelPricingRequest;
 import com.aihub.hub.repository.CodexModelPricingRepository;
 import jakarta.persistence.EntityNotFoundException;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Sort;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 import org.springframework.util.StringUtils;
 
+import java.time.Clock;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
 import java.util.List;
-import java.util.Optional;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReference;
 
 @Service
 public class CodexModelPricingService {
 
     private final CodexModelPricingRepository repository;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Clock clock;
+    private final AtomicReference<ModelPricingSnapshot> snapshot = new AtomicReference<>();
 
-    public CodexModelPricingService(CodexModelPricingRepository repository) {
+    public CodexModelPricingService(CodexModelPricingRepository repository,
+                                    ApplicationEventPublisher eventPublisher,
+                                    Clock clock) {
         this.repository = repository;
+        this.eventPublisher = eventPublisher;
+        this.clock = clock;
     }
 
     @Transactional(readOnly = true)
     public List<CodexModelPricing> findAll() {
-        return repository.findAll(Sort.by(Sort.Direction.ASC, "modelName"));
+        return repository.findAll(Sort.by(Sort.Direction.ASC, "modelName", "effectiveFrom"));
     }
 
-    @Transactional(readOnly = true)
-    public Optional<CodexModelPricing> findByModelName(String modelName) {
-        if (!StringUtils.hasText(modelName)) {
-            return Optional.empty();
-        }
-        return repository.findByModelNameIgnoreCase(modelName.trim());
+    public ModelPricingSnapshot snapshot() {
+        ModelPricingSnapshot current = snapshot.get();
+        return current != null ? current : reloadSnapshot();
+    }
+
+    @Scheduled(fixedDelayString = "${hub.codex.pricing.refresh-interval-ms:60000}")
+    public ModelPricingSnapshot reloadSnapshot() {
+        ModelPricingSnapshot loaded = ModelPricingSnapshot.of(repository.findAll());
+        snapshot.set(loaded);
+        return loaded;
     }
 
     @Transactional
     public CodexModelPricing create(CodexModelPricingRequest request) {
+        String modelName = request.getModelName().trim();
+        List<CodexModelPricing> versions = repository.findByModelNameIgnoreCaseOrderByEffectiveFromAsc(modelName);
+        Instant effectiveFrom = request.getEffectiveFrom() != null
+            ? request.getEffectiveFrom().truncatedTo(ChronoUnit.SECONDS)
+            : versions.isEmpty() ? Instant.EPOCH : clock.instant().truncatedTo(ChronoUnit.SECONDS);
+        return insertVersion(modelName, versions, effectiveFrom, request);
+    }
+
+    private CodexModelPricing insertVersion(String modelName,
+                                            List<CodexModelPricing> versions,
+                                            Instant effectiveFrom,
+                                            CodexModelPricingRequest request) {
+        CodexModelPricing previous = null;
+        CodexModelPricing next = null;
+        for (CodexModelPricing version : versions) {
+            int order = version.getEffectiveFrom().compareTo(effectiveFrom);
+            if (order == 0) {
+                throw new IllegalArgumentException(
+                    "Já existe preço para o modelo " + modelName + " com vigência a partir de " + effectiveFrom
+                );
+            }
+            if (order < 0) {
+                previous = version;
+            } else if (next == null) {
+                next = version;
+            }
+        }
+
         CodexModelPricing entity = new CodexModelPricing();
         apply(entity, request);
-        return repository.save(entity);
+        entity.setEffectiveFrom(effectiveFrom);
+        entity.setEffectiveTo(next != null ? next.getEffectiveFrom() : null);
+        if (previous != null) {
+            previous.setEffectiveTo(effectiveFrom);
+            repository.save(previous);
+        }
+        CodexModelPricing saved = repository.save(entity);
+        changed(saved.getModelName(), saved.getEffectiveFrom(), saved.getEffectiveTo());
+        return saved;
     }
 
+    // mudar o preço da versão vigente abre uma nova versão, salvo em correções
     @Transactional
     public CodexModelPricing update(Long id, CodexModelPricingRequest request) {
         CodexModelPricing entity = repository.findById(id)
             .orElseThrow(() -> new EntityNotFoundException("Modelo de pricing não encontrado: " + id));
+        if (request.getEffectiveFrom() != null
+            && !request.getEffectiveFrom().truncatedTo(ChronoUnit.SECONDS).equals(entity.getEffectiveFrom())) {
+            throw new IllegalArgumentException("Para mudar a vigência, crie uma nova versão de preço");
+        }
+        Instant now = clock.instant().truncatedTo(ChronoUnit.SECONDS);
+        if (!request.isCorrection() && isInEffect(entity, now) && pricesDiffer(entity, request)) {
+            if (!entity.getModelName().equalsIgnoreCase(request.getModelName().trim())) {
+                throw new IllegalArgumentException("Renomeie o modelo e altere o preço em requisições separadas");
+            }
+            return insertVersion(
+                entity.getModelName(),
+                repository.findByModelNameIgnoreCaseOrderByEffectiveFromAsc(entity.getModelName()),
+                now,
+                request
+            );
+        }
+        String previousName = entity.getModelName();
         apply(entity, request);
-        return repository.save(entity);
+        CodexModelPricing saved = repository.save(entity);
+
+        if (!saved.getModelName().equalsIgnoreCase(previousName)) {
+            boolean taken = repository.findByModelNameIgnoreCaseOrderByEffectiveFromAsc(saved.getModelName()).stream()
+                .anyMatch(version -> !Objects.equals(version.getId(), saved.getId()));
+            if (taken) {
+                throw new IllegalArgumentException("Já existe preço para o modelo " + saved.getModelName());
+            }
+            for (CodexModelPricing version : repository.findByModelNameIgnoreCaseOrderByEffectiveFromAsc(previousName)) {
+                if (!Objects.equals(version.getId(), saved.getId())) {
+                    version.setModelName(saved.getModelName());
+                    repository.save(version);
+                }
+            }
+            changed(saved.getModelName(), null, null);
+        } else {
+            changed(saved.getModelName(), saved.getEffectiveFrom(), saved.getEffectiveTo());
+        }
+        return saved;
     }
 
     @Transactional
     public void delete(Long id) {
-        if (!repository.existsById(id)) {
-            throw new EntityNotFoundException("Modelo de pricing não encontrado: " + id);
+        CodexModelPricing entity = repository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException("Modelo de pricing não encontrado: " + id));
+        CodexModelPricing previous = null;
+        for (CodexModelPricing version : repository.findByModelNameIgnoreCaseOrderByEffectiveFromAsc(entity.getModelName())) {
+            if (version.getEffectiveFrom().isBefore(entity.getEffectiveFrom())) {
+                previous = version;
+            }
         }
-        repository.deleteById(id);
+        repository.delete(entity);
+        if (previous != null) {
+            previous.setEffectiveTo(entity.getEffectiveTo());
+            repository.save(previous);
+        }
+        changed(entity.getModelName(), entity.getEffectiveFrom(), entity.getEffectiveTo());
+    }
+
+    private void changed(String modelName, Instant from, Instant to) {
+        eventPublisher.publishEvent(new ModelPricingChanged(modelName, from, to));
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            reloadSnapshot();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                reloadSnapshot();
+            }
+        });
+    }
+
+    // Começou antes deste segundo: uma versão aberta agora não colide com a vigência dela.
+    private boolean isInEffect(CodexModelPricing version, Instant now) {
+        return version.getEffectiveFrom().isBefore(now)
+            && (version.getEffectiveTo() == null || version.getEffectiveTo().isAfter(now));
+    }
+
+    private boolean pricesDiffer(CodexModelPricing version, CodexModelPricingRequest request) {
+        return version.getInputPricePerMillion().compareTo(request.getInputPricePerMillion()) != 0
+            || version.getCachedInputPricePerMillion().compareTo(request.getCachedInputPricePerMillion()) != 0
+            || version.getOutputPricePerMillion().compareTo(request.getOutputPricePerMillion()) != 0;
     }
 
     private void apply(CodexModelPricing entity, CodexModelPricingRequest request) {
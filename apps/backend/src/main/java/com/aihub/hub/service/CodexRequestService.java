@@ -4,6 +4,8 @@ import com.aihub.hub.domain.CodexRequest;
 import com.aihub.hub.domain.CodexIntegrationProfile;
 import com.aihub.hub.domain.PromptRecord;
 import com.aihub.hub.domain.ResponseRecord;
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.SandboxOutboxEntry;
 import com.aihub.hub.dto.CreateCodexRequest;
 import com.aihub.hub.repository.CodexRequestRepository;
 import com.aihub.hub.repository.PromptRepository;
@@ -11,22 +13,26 @@ import com.aihub.hub.repository.ResponseRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StringUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.math.BigDecimal;
-import java.time.Duration;
 import java.time.Instant;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 @Service
-public class CodexRequestService {
+public class CodexRequestService implements SandboxDispatchHandler, SandboxJobSynchronizer {
 
     private static final Logger log = LoggerFactory.getLogger(CodexRequestService.class);
     private static final String PERSONA_PREFIX = "Você é um especialista sênior em Java.\n\n";
@@ -36,6 +42,11 @@ public class CodexRequestService {
     private final ResponseRepository responseRepository;
     private final SandboxOrchestratorClient sandboxOrchestratorClient;
     private final TokenCostCalculator tokenCostCalculator;
+    private final SandboxOutbox sandboxOutbox;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BudgetService budgetService;
+    private final TransactionTemplate responseInserts;
+    private final TransactionTemplate transactionTemplate;
     private final String defaultModel;
     private final String economyModel;
     private final String defaultBranch;
@@ -45,6 +56,10 @@ public class CodexRequestService {
                                ResponseRepository responseRepository,
                                SandboxOrchestratorClient sandboxOrchestratorClient,
                                TokenCostCalculator tokenCostCalculator,
+                               SandboxOutbox sandboxOutbox,
+                               ApplicationEventPublisher eventPublisher,
+                               BudgetService budgetService,
+                               PlatformTransactionManager transactionManager,
                                @Value("${hub.codex.model:gpt-5-codex}") String defaultModel,
                                @Value("${hub.codex.economy-model:gpt-4.1-mini}") String economyModel,
                                @Value("${hub.codex.default-branch:main}") String defaultBranch) {
@@ -53,15 +68,58 @@ public class CodexRequestService {
         this.responseRepository = responseRepository;
         this.sandboxOrchestratorClient = sandboxOrchestratorClient;
         this.tokenCostCalculator = tokenCostCalculator;
+        this.sandboxOutbox = sandboxOutbox;
+        this.eventPublisher = eventPublisher;
+        this.budgetService = budgetService;
+        // Uma resposta repetida viola uk_responses_request_content: isolada, não derruba a sincronização.
+        this.responseInserts = new TransactionTemplate(transactionManager);
+        this.responseInserts.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
         this.defaultModel = defaultModel;
         this.economyModel = economyModel;
         this.defaultBranch = defaultBranch;
     }
 
     @Transactional
-    public CodexRequest create(CreateCodexRequest request) {
-        CodexIntegrationProfile profile = resolveProfile(request.getProfile());
-        String model = resolveModel(profile, request.getModel());
+    public CodexRequest create(String actor, CreateCodexRequest request) {
+        return createAll(actor, List.of(request)).get(0);
+    }
+
+    // ids de gerador em tabela: prompts e requisições saem em inserts em lote no flush
+    @Transactional
+    public List<CodexRequest> createAll(String actor, List<CreateCodexRequest> requests) {
+        return createAll(actor, requests, requests.stream().map(request -> checkBudget(actor, request)).toList());
+    }
+
+    // admissions vêm de checkBudget, um por item: o orçamento não é consultado de novo
+    @Transactional
+    public List<CodexRequest> createAll(String actor, List<CreateCodexRequest> requests, List<Admission> admissions) {
+        if (requests.size() != admissions.size()) {
+            throw new IllegalArgumentException("Cada CodexRequest precisa da sua admissão de orçamento");
+        }
+        List<CodexRequest> prepared = new ArrayList<>(requests.size());
+        for (int i = 0; i < requests.size(); i++) {
+            prepared.add(prepare(actor, requests.get(i), admissions.get(i)));
+        }
+        promptRepository.saveAll(prepared.stream().map(CodexRequest::getPromptRecord).toList());
+        List<CodexRequest> saved = codexRequestRepository.saveAll(prepared);
+        for (CodexRequest codexRequest : saved) {
+            log.info("CodexRequest {} salvo, enfileirando envio para o sandbox se aplicável", codexRequest.getId());
+            budgetService.reserve(SandboxJobType.CODEX, codexRequest.getId(), actor,
+                EnvironmentCoordinates.parse(codexRequest.getEnvironment(), defaultBranch).project(), codexRequest.getModel());
+            enqueueSandboxDispatch(codexRequest);
+        }
+        return saved;
+    }
+
+    public Admission checkBudget(String actor, CreateCodexRequest request) {
+        return admit(actor, request, EnvironmentCoordinates.parse(request.getEnvironment(), defaultBranch));
+    }
+
+    private CodexRequest prepare(String actor, CreateCodexRequest request, Admission admission) {
+        EnvironmentCoordinates coordinates = EnvironmentCoordinates.parse(request.getEnvironment(), defaultBranch);
+        CodexIntegrationProfile profile = admission.profile();
+        String model = admission.model();
         log.info("Criando CodexRequest para ambiente {} com modelo {} (perfil {})", request.getEnvironment(), model, profile);
         String resolvedPrompt = applyPersonaPrefix(request.getPrompt());
         CodexRequest codexRequest = new CodexRequest(
@@ -71,6 +129,7 @@ public class CodexRequestService {
             resolvedPrompt
         );
 
+        codexRequest.setRequestedBy(actor);
         codexRequest.setProfile(profile);
         codexRequest.setPromptTokens(request.getPromptTokens());
         codexRequest.setCachedPromptTokens(request.getCachedPromptTokens());
@@ -81,80 +140,62 @@ public class CodexRequestService {
         codexRequest.setCompletionCost(request.getCompletionCost());
         codexRequest.setCost(request.getCost());
 
-        PromptMetadata metadata = extractMetadata(request.getEnvironment());
+        codexRequest.setRepoOwner(coordinates.owner());
+        codexRequest.setRepoName(coordinates.name());
+        codexRequest.setBranch(coordinates.branch());
+        codexRequest.setRunId(coordinates.runId());
+        codexRequest.setPrNumber(coordinates.prNumber());
         PromptRecord promptRecord = new PromptRecord(
-            metadata.repo(),
-            metadata.branch(),
-            metadata.runId(),
-            metadata.prNumber(),
+            coordinates.repo(),
+            coordinates.branch(),
+            coordinates.runId(),
+            coordinates.prNumber(),
             model,
             resolvedPrompt
         );
-        promptRepository.save(promptRecord);
-
-        CodexRequest saved = codexRequestRepository.save(codexRequest);
-        log.info("CodexRequest {} salvo, enviando para sandbox se aplicável", saved.getId());
-        dispatchToSandbox(saved);
-        return saved;
+        codexRequest.setPromptRecord(promptRecord);
+        return codexRequest;
     }
 
+    @Transactional(readOnly = true)
     public List<CodexRequest> list() {
-        Instant refreshCutoff = Instant.now().minus(Duration.ofHours(1));
-        List<CodexRequest> requests = codexRequestRepository.findAllByOrderByCreatedAtDesc();
-
-        for (CodexRequest request : requests) {
-            if (request.getExternalId() == null) {
-                continue;
-            }
-
-            RefreshDecision decision = evaluateRefresh(request, refreshCutoff);
-            if (!decision.shouldRefresh()) {
-                continue;
-            }
-
-            log.info(
-                "Atualizando CodexRequest {} a partir do sandbox ({})",
-                request.getId(),
-                decision.reason()
-            );
-            refreshFromSandbox(request);
-        }
-
-        return requests;
+        // Somente leitura: a sincronização com o sandbox fica a cargo do SandboxJobReconciler.
+        return codexRequestRepository.findAllByOrderByCreatedAtDesc();
     }
 
-    private RefreshDecision evaluateRefresh(CodexRequest request, Instant refreshCutoff) {
-        boolean hasResponse = StringUtils.hasText(request.getResponseText());
-        boolean hasUsageMetadata = request.getPromptTokens() != null
-            && request.getCachedPromptTokens() != null
-            && request.getCompletionTokens() != null
-            && request.getTotalTokens() != null
-            && request.getPromptCost() != null
-            && request.getCachedPromptCost() != null
-            && request.getCompletionCost() != null
-            && request.getCost() != null;
-
-        if (hasResponse && hasUsageMetadata) {
-            return RefreshDecision.skip();
+    @Transactional(readOnly = true)
+    public List<CodexRequest> list(String repo, Integer prNumber) {
+        if (!StringUtils.hasText(repo)) {
+            if (prNumber != null) {
+                throw new IllegalArgumentException("prNumber exige o parâmetro repo (owner/nome)");
+            }
+            return list();
         }
-
-        if (request.getCreatedAt() == null) {
-            return new RefreshDecision(true, "sem data de criação, dados incompletos");
-        }
-
-        if (request.getCreatedAt().isAfter(refreshCutoff)) {
-            return new RefreshDecision(true, "dentro da janela de atualização automática");
-        }
-
-        if (!hasResponse && !hasUsageMetadata) {
-            return new RefreshDecision(true, "dados ausentes após janela de atualização");
+        String[] parts = repo.trim().split("/");
+        if (parts.length != 2 || !StringUtils.hasText(parts[0]) || !StringUtils.hasText(parts[1])) {
+            throw new IllegalArgumentException("repo deve estar no formato owner/nome");
         }
+        return prNumber != null
+            ? codexRequestRepository.findByRepoOwnerAndRepoNameAndPrNumberOrderByCreatedAtDesc(parts[0], parts[1], prNumber)
+            : codexRequestRepository.findByRepoOwnerAndRepoNameOrderByCreatedAtDesc(parts[0], parts[1]);
+    }
 
-        if (!hasResponse) {
-            return new RefreshDecision(true, "resposta ausente após janela de atualização");
-        }
+    // um rebaixamento troca para ECONOMY, que ainda passa pelas políticas de recusa
+    private Admission admit(String actor, CreateCodexRequest request, EnvironmentCoordinates coordinates) {
+        CodexIntegrationProfile profile = resolveProfile(request.getProfile());
+        String model = resolveModel(profile, request.getModel());
+        if (budgetService.admit(actor, coordinates.project(), model) == BudgetService.Decision.DOWNGRADE
+            && StringUtils.hasText(economyModel) && !economyModel.trim().equalsIgnoreCase(model)) {
+            log.info("Orçamento estourado para {} em {} com modelo {}; rebaixando para o perfil ECONOMY",
+                actor, coordinates.project(), model);
+            profile = CodexIntegrationProfile.ECONOMY;
+            model = economyModel.trim();
+            budgetService.admit(actor, coordinates.project(), model);
+        }
+        return new Admission(profile, model);
+    }
 
-        return new RefreshDecision(true, "metadados de uso ausentes após janela de atualização");
+    public record Admission(CodexIntegrationProfile profile, String model) {
     }
 
     private CodexIntegrationProfile resolveProfile(CodexIntegrationProfile candidate) {
@@ -183,65 +224,18 @@ public class CodexRequestService {
         return PERSONA_PREFIX + trimmedPrompt;
     }
 
-    private PromptMetadata extractMetadata(String environment) {
-        RepoCoordinates coordinates = RepoCoordinates.from(environment);
-        String repo = coordinates != null
-            ? coordinates.owner() + "/" + coordinates.repo()
-            : Optional.ofNullable(environment).map(String::trim).filter(value -> !value.isBlank()).orElse("unknown");
-
-        String branch = extractBranch(environment);
-        Long runId = extractNumber(environment, "(?i)run[:/#]\\s*(\\d+)");
-        Integer prNumber = Optional.ofNullable(extractNumber(environment, "(?i)pr[:/#]\\s*(\\d+)")).map(Long::intValue).orElse(null);
-
-        return new PromptMetadata(repo, branch, runId, prNumber);
-    }
-
-    private String extractBranch(String environment) {
-        if (!StringUtils.hasText(environment)) {
-            return defaultBranch;
-        }
-        Matcher matcher = Pattern.compile("@([\\w./-]+)").matcher(environment);
-        if (matcher.find()) {
-            return matcher.group(1).trim();
-        }
-
-        String[] parts = environment.trim().split("/");
-        if (parts.length >= 3 && StringUtils.hasText(parts[2])) {
-            return parts[2].trim();
-        }
-
-        return defaultBranch;
-    }
-
-    private Long extractNumber(String environment, String pattern) {
-        if (!StringUtils.hasText(environment)) {
-            return null;
-        }
-        Matcher matcher = Pattern.compile(pattern).matcher(environment);
-        if (matcher.find()) {
-            try {
-                return Long.parseLong(matcher.group(1));
-            } catch (NumberFormatException ignored) {
-                return null;
-            }
-        }
-        return null;
-    }
-
-    private void dispatchToSandbox(CodexRequest request) {
-        RepoCoordinates coordinates = RepoCoordinates.from(request.getEnvironment());
-        if (coordinates == null) {
+    private void enqueueSandboxDispatch(CodexRequest request) {
+        if (request.getRepoOwner() == null) {
             log.info("Ambiente {} não corresponde a um repositório; ignorando envio para o sandbox", request.getEnvironment());
             return;
         }
 
         String jobId = UUID.randomUUID().toString();
-        log.info("Enviando CodexRequest {} para sandbox com jobId {} e branch padrão {}", request.getId(), jobId, defaultBranch);
-        PromptMetadata metadata = extractMetadata(request.getEnvironment());
+        log.info("Enfileirando CodexRequest {} para o sandbox com jobId {} e branch padrão {}", request.getId(), jobId, defaultBranch);
 
         SandboxJobRequest jobRequest = new SandboxJobRequest(
             jobId,
-            coordinates.owner() + "/" + coordinates.repo(),
+            request.getRepoOwner() + "/" + request.getRepoName(),
             null,
             defaultBranch,
             request.getPrompt(),
@@ -250,27 +244,135 @@ public class CodexRequestService {
             Optional.ofNullable(request.getProfile()).map(Enum::name).orElse(null),
             request.getModel()
         );
+        sandboxOutbox.enqueue(SandboxJobType.CODEX, jobId, new CodexDispatchPayload(request.getId(), jobRequest));
+    }
+
+    @Override
+    public SandboxJobType jobType() {
+        return SandboxJobType.CODEX;
+    }
+
+    @Override
+    public void dispatch(SandboxOutboxEntry entry) {
+        CodexDispatchPayload payload = sandboxOutbox.readPayload(entry, CodexDispatchPayload.class);
+        SandboxJobRequest jobRequest = payload.job();
 
         SandboxOrchestratorClient.SandboxOrchestratorJobResponse response = sandboxOrchestratorClient.createJob(jobRequest);
-        log.info("Sandbox retornou resposta para CodexRequest {} com jobId {}", request.getId(), response != null ? response.jobId() : jobId);
-        String resolvedExternalId = Optional.ofNullable(response)
-            .map(SandboxOrchestratorClient.SandboxOrchestratorJobResponse::jobId)
-            .orElse(jobId);
-        request.setExternalId(resolvedExternalId);
-        Optional.ofNullable(response)
-            .map(SandboxOrchestratorClient.SandboxOrchestratorJobResponse::summary)
-            .ifPresent(request::setResponseText);
-        applyUsageMetadata(request, response);
-
-        codexRequestRepository.save(request);
-        log.info("CodexRequest {} atualizado com externalId {}", request.getId(), resolvedExternalId);
-
-        recordResponse(metadata, response);
+        log.info("Sandbox retornou resposta para CodexRequest {} com jobId {}", payload.requestId(), response != null ? response.jobId() : jobRequest.jobId());
+
+        // Callback aplicado antes da resposta de criação vence; ver SandboxUploadService.dispatch
+        CodexRequest updated = transactionTemplate.execute(status -> {
+            boolean claimed = codexRequestRepository.claimDispatch(payload.requestId()) > 0;
+            CodexRequest request = codexRequestRepository.findById(payload.requestId())
+                .orElseThrow(() -> new IllegalArgumentException("CodexRequest " + payload.requestId() + " não encontrado"));
+            if (!claimed || request.getSyncVersion() != null) {
+                log.info("CodexRequest {} já sincronizado por callback; resposta de criação ignorada", request.getId());
+                return null;
+            }
+            SandboxJobSnapshot before = SandboxJobSnapshot.of(request);
+            String resolvedExternalId = Optional.ofNullable(response)
+                .map(SandboxOrchestratorClient.SandboxOrchestratorJobResponse::jobId)
+                .orElse(jobRequest.jobId());
+            request.setExternalId(resolvedExternalId);
+            request.setNextSyncAt(Instant.now());
+            Optional.ofNullable(response)
+                .map(SandboxOrchestratorClient.SandboxOrchestratorJobResponse::summary)
+                .ifPresent(request::setResponseText);
+            applyUsageMetadata(request, response);
+
+            codexRequestRepository.save(request);
+            log.info("CodexRequest {} atualizado com externalId {}", request.getId(), resolvedExternalId);
+            publishChange(request, before);
+            return request;
+        });
+
+        if (updated != null) {
+            recordResponse(updated, response);
+        }
+    }
+
+    @Override
+    public void markFailed(SandboxOutboxEntry entry, String message) {
+        CodexDispatchPayload payload = sandboxOutbox.readPayload(entry, CodexDispatchPayload.class);
+        codexRequestRepository.findById(payload.requestId()).ifPresent(request -> {
+            request.setResponseText("Falha ao enviar para o sandbox-orchestrator: " + message);
+            request.setNextSyncAt(null);
+            codexRequestRepository.save(request);
+        });
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<SandboxSyncCandidate> findDueForSync(Instant now, int limit) {
+        return codexRequestRepository.findDueForSync(now, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public Optional<SandboxSyncCandidate> findSyncCandidate(String jobId) {
+        return codexRequestRepository.findSyncCandidates(jobId, PageRequest.of(0, 1)).stream().findFirst();
+    }
+
+    @Override
+    @Transactional
+    public boolean claimCallback(SandboxSyncCandidate candidate, long sequence) {
+        return codexRequestRepository.claimCallback(candidate.id(), sequence) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void deferSync(SandboxSyncCandidate candidate, SandboxSyncBackoff backoff) {
+        codexRequestRepository.findById(candidate.id()).ifPresent(request -> {
+            SandboxSyncBackoff.Next next = backoff.next(request.getCreatedAt(), request.getSyncMisses(), false, false);
+            request.setNextSyncAt(next.at());
+            request.setSyncMisses(next.misses());
+        });
     }
 
-    private void refreshFromSandbox(CodexRequest request) {
-        SandboxOrchestratorClient.SandboxOrchestratorJobResponse response =
-            sandboxOrchestratorClient.getJob(request.getExternalId());
+    @Override
+    @Transactional
+    public void applySync(SandboxSyncCandidate candidate,
+                          SandboxOrchestratorClient.SandboxOrchestratorJobResponse response,
+                          String version,
+                          SandboxSyncBackoff backoff) {
+        codexRequestRepository.findById(candidate.id()).ifPresent(request -> {
+            SandboxJobSnapshot before = SandboxJobSnapshot.of(request);
+            boolean changed = applySandboxResponse(request, response);
+            boolean terminal = response == null
+                || SandboxSyncBackoff.isTerminal(response.status())
+                || hasCompleteSandboxData(request);
+            SandboxSyncBackoff.Next next = backoff.next(request.getCreatedAt(), request.getSyncMisses(), changed, terminal);
+            request.setNextSyncAt(next.at());
+            request.setSyncMisses(next.misses());
+            request.setSyncVersion(version);
+            publishChange(request, before);
+            if (changed) {
+                log.info("CodexRequest {} atualizado a partir do sandbox", request.getId());
+                recordResponse(request, response);
+            }
+        });
+    }
+
+    private void publishChange(CodexRequest request, SandboxJobSnapshot before) {
+        SandboxJobSnapshot after = SandboxJobSnapshot.of(request);
+        if (!before.equals(after)) {
+            eventPublisher.publishEvent(new SandboxJobChanged(SandboxJobType.CODEX, request.getExternalId(), before, after));
+        }
+    }
+
+    private boolean hasCompleteSandboxData(CodexRequest request) {
+        return request.getResponseText() != null
+            && request.getPromptTokens() != null
+            && request.getCachedPromptTokens() != null
+            && request.getCompletionTokens() != null
+            && request.getTotalTokens() != null
+            && request.getPromptCost() != null
+            && request.getCachedPromptCost() != null
+            && request.getCompletionCost() != null
+            && request.getCost() != null;
+    }
+
+    private boolean applySandboxResponse(CodexRequest request,
+                                         SandboxOrchestratorClient.SandboxOrchestratorJobResponse response) {
         if (response == null) {
             log.info(
                 "Nenhuma resposta encontrada no sandbox para CodexRequest {} com externalId {}",
@@ -319,36 +421,28 @@ public class CodexRequestService {
                 updated = true;
             }
 
-            if (updated) {
-                codexRequestRepository.save(request);
-            }
-
-            return;
+            return updated;
         }
 
         boolean updated = false;
+        String responseText = request.getResponseText();
         if (response.summary() != null && !response.summary().isBlank()) {
-            log.info("Sandbox retornou resumo para CodexRequest {}", request.getId());
-            request.setResponseText(response.summary().trim());
-            updated = true;
+            responseText = response.summary().trim();
         }
         if (response.error() != null && !response.error().isBlank()) {
-            log.info("Sandbox retornou erro para CodexRequest {}", request.getId());
-            request.setResponseText(response.error().trim());
+            responseText = response.error().trim();
+        }
+        if (!Objects.equals(responseText, request.getResponseText())) {
+            log.info("Sandbox retornou resposta para CodexRequest {}", request.getId());
+            request.setResponseText(responseText);
             updated = true;
         }
 
         boolean usageUpdated = applyUsageMetadata(request, response);
-
-        if (updated || usageUpdated) {
-            codexRequestRepository.save(request);
-            log.info("CodexRequest {} atualizado a partir do sandbox", request.getId());
-        }
-
-        recordResponse(extractMetadata(request.getEnvironment()), response);
+        return updated || usageUpdated;
     }
 
-    private void recordResponse(PromptMetadata metadata, SandboxOrchestratorClient.SandboxOrchestratorJobResponse response) {
+    private void recordResponse(CodexRequest request, SandboxOrchestratorClient.SandboxOrchestratorJobResponse response) {
         if (response == null) {
             return;
         }
@@ -360,47 +454,34 @@ public class CodexRequestService {
             return;
         }
 
-        PromptRecord prompt = findPromptRecord(metadata).orElse(null);
-        ResponseRecord record = new ResponseRecord(prompt, metadata.repo(), metadata.runId(), metadata.prNumber());
+        PromptRecord prompt = request.getPromptRecord();
+        ResponseRecord record = prompt != null
+            ? new ResponseRecord(prompt, prompt.getRepo(), prompt.getRunId(), prompt.getPrNumber())
+            : new ResponseRecord(null, repoOf(request), request.getRunId(), request.getPrNumber());
         Optional.ofNullable(response.summary()).filter(value -> !value.isBlank()).ifPresent(record::setFixPlan);
         Optional.ofNullable(response.patch()).filter(value -> !value.isBlank()).ifPresent(record::setUnifiedDiff);
         Optional.ofNullable(response.error()).filter(value -> !value.isBlank()).ifPresent(record::setRootCause);
-        responseRepository.save(record);
-    }
-
-    private Optional<PromptRecord> findPromptRecord(PromptMetadata metadata) {
-        if (metadata == null || metadata.repo() == null) {
-            return Optional.empty();
+        String contentHash = ResponseRecord.hashContent(record.getRootCause(), record.getFixPlan(), record.getUnifiedDiff());
+        if (responseRepository.existsByCodexRequestIdAndContentHash(request.getId(), contentHash)) {
+            log.debug("Resposta do CodexRequest {} sem mudanças; nada a registrar", request.getId());
+            return;
         }
-
-        if (metadata.runId() != null && metadata.prNumber() != null) {
-            Optional<PromptRecord> record = promptRepository.findTopByRepoAndRunIdAndPrNumberOrderByCreatedAtDesc(
-                metadata.repo(), metadata.runId(), metadata.prNumber()
-            );
-            if (record.isPresent()) {
-                return record;
-            }
-        }
-
-        if (metadata.runId() != null) {
-            Optional<PromptRecord> record = promptRepository.findTopByRepoAndRunIdOrderByCreatedAtDesc(
-                metadata.repo(), metadata.runId()
-            );
-            if (record.isPresent()) {
-                return record;
-            }
+        record.setCodexRequestId(request.getId());
+        record.setContentHash(contentHash);
+        try {
+            responseInserts.executeWithoutResult(status -> responseRepository.saveAndFlush(record));
+        } catch (DataIntegrityViolationException ex) {
+            // outra sincronização concorrente já gravou o mesmo conteúdo
+            log.debug("Resposta do CodexRequest {} já registrada por outra sincronização", request.getId());
         }
+    }
 
-        if (metadata.prNumber() != null) {
-            Optional<PromptRecord> record = promptRepository.findTopByRepoAndPrNumberOrderByCreatedAtDesc(
-                metadata.repo(), metadata.prNumber()
-            );
-            if (record.isPresent()) {
-                return record;
-            }
+    private String repoOf(CodexRequest request) {
+        if (request.getRepoOwner() != null) {
+            return request.getRepoOwner() + "/" + request.getRepoName();
         }
-
-        return promptRepository.findTopByRepoOrderByCreatedAtDesc(metadata.repo());
+        // registros anteriores às colunas de coordenadas
+        return EnvironmentCoordinates.parse(request.getEnvironment(), defaultBranch).repo();
     }
 
     private boolean applyUsageMetadata(
@@ -411,6 +492,7 @@ public class CodexRequestService {
             return false;
         }
 
+        UsageSnapshot usageBefore = UsageSnapshot.of(request);
         boolean updated = false;
         Integer promptTokens = response.promptTokens();
         Integer cachedPromptTokens = response.cachedPromptTokens();
@@ -439,6 +521,7 @@ public class CodexRequestService {
 
         TokenCostBreakdown breakdown = tokenCostCalculator.calculate(
             request.getModel(),
+            request.getCreatedAt(),
             promptTokens,
             cachedPromptTokens,
             completionTokens,
@@ -511,27 +594,11 @@ public class CodexRequestService {
             updated = true;
         }
 
-        return updated;
-    }
-
-    private record PromptMetadata(String repo, String branch, Long runId, Integer prNumber) {}
-
-    private record RepoCoordinates(String owner, String repo) {
-        static RepoCoordinates from(String environment) {
-            if (environment == null || environment.isBlank()) {
-                return null;
-            }
-            String[] parts = environment.trim().split("/");
-            if (parts.length < 2) {
-                return null;
-            }
-            return new RepoCoordinates(parts[0], parts[1]);
+        if (updated) {
+            eventPublisher.publishEvent(new UsageChanged(request.getId(), request.getRequestedBy(), usageBefore, UsageSnapshot.of(request)));
         }
+        return updated;
     }
 
-    private record RefreshDecision(boolean shouldRefresh, String reason) {
-        private static RefreshDecision skip() {
-            return new RefreshDecision(false, "dados completos");
-        }
-    }
+    public record CodexDispatchPayload(Long requestId, SandboxJobRequest job) {}
 }
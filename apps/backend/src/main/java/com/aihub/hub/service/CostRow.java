@@ -0,0 +1,44 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.CodexIntegrationProfile;
+import com.aihub.hub.domain.SandboxJobType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record CostRow(Long id,
+                      Instant createdAt,
+                      String model,
+                      String profile,
+                      String project,
+                      String requestedBy,
+                      Integer promptTokens,
+                      Integer cachedPromptTokens,
+                      Integer completionTokens,
+                      Integer totalTokens,
+                      BigDecimal promptCost,
+                      BigDecimal cachedPromptCost,
+                      BigDecimal completionCost,
+                      BigDecimal cost) {
+
+    public CostRow(Long id, Instant createdAt, String model, CodexIntegrationProfile profile, String project,
+                   String requestedBy, Integer promptTokens, Integer cachedPromptTokens, Integer completionTokens,
+                   Integer totalTokens, BigDecimal promptCost, BigDecimal cachedPromptCost, BigDecimal completionCost,
+                   BigDecimal cost) {
+        this(id, createdAt, model, profile != null ? profile.name() : null, project, requestedBy,
+            promptTokens, cachedPromptTokens, completionTokens, totalTokens,
+            promptCost, cachedPromptCost, completionCost, cost);
+    }
+
+    public CostRow(Long id, Instant createdAt, String model, String profile, String project, String requestedBy,
+                   Integer promptTokens, Integer cachedPromptTokens, Integer completionTokens, Integer totalTokens,
+                   BigDecimal cost) {
+        this(id, createdAt, model, profile, project, requestedBy,
+            promptTokens, cachedPromptTokens, completionTokens, totalTokens, null, null, null, cost);
+    }
+
+    public UsageSnapshot toSnapshot(SandboxJobType jobType, BigDecimal cost) {
+        return UsageSnapshot.of(jobType, createdAt, model, profile, project,
+            promptTokens, cachedPromptTokens, completionTokens, totalTokens, cost);
+    }
+}
@@ -0,0 +1,76 @@
+package com.aihub.hub.service;
+
+import org.springframework.util.StringUtils;
+
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+record EnvironmentCoordinates(String owner, String name, String repo, String branch, Long runId, Integer prNumber) {
+
+    private static final Pattern BRANCH = Pattern.compile("@([\\w./-]+)");
+    private static final Pattern RUN_ID = Pattern.compile("(?i)run[:/#]\\s*(\\d+)");
+    private static final Pattern PR_NUMBER = Pattern.compile("(?i)pr[:/#]\\s*(\\d+)");
+
+    static EnvironmentCoordinates parse(String environment, String defaultBranch) {
+        String owner = null;
+        String name = null;
+        String[] parts = pathOf(environment).split("/");
+        if (parts.length >= 2 && !parts[0].isEmpty()) {
+            owner = parts[0];
+            int branchSeparator = parts[1].indexOf('@');
+            name = branchSeparator >= 0 ? parts[1].substring(0, branchSeparator) : parts[1];
+        }
+        String repo = owner != null
+            ? owner + "/" + name
+            : Optional.ofNullable(environment).map(String::trim).filter(value -> !value.isBlank()).orElse("unknown");
+        Integer prNumber = Optional.ofNullable(extractNumber(environment, PR_NUMBER)).map(Long::intValue).orElse(null);
+        return new EnvironmentCoordinates(
+            owner, name, repo, extractBranch(environment, parts, defaultBranch), extractNumber(environment, RUN_ID), prNumber
+        );
+    }
+
+    boolean hasRepository() {
+        return owner != null;
+    }
+
+    // chave de projeto dos rollups e orçamentos: só ambientes que apontam um repositório
+    String project() {
+        return hasRepository() ? repo : null;
+    }
+
+    private static String pathOf(String environment) {
+        return StringUtils.hasText(environment) ? environment.trim().split("\\s+")[0] : "";
+    }
+
+    private static String extractBranch(String environment, String[] parts, String defaultBranch) {
+        if (!StringUtils.hasText(environment)) {
+            return defaultBranch;
+        }
+        Matcher matcher = BRANCH.matcher(environment);
+        if (matcher.find()) {
+            return matcher.group(1).trim();
+        }
+
+        if (parts.length >= 3 && StringUtils.hasText(parts[2])) {
+            return parts[2].trim();
+        }
+
+        return defaultBranch;
+    }
+
+    private static Long extractNumber(String environment, Pattern pattern) {
+        if (!StringUtils.hasText(environment)) {
+            return null;
+        }
+        Matcher matcher = pattern.matcher(environment);
+        if (matcher.find()) {
+            try {
+                return Long.parseLong(matcher.group(1));
+            } catch (NumberFormatException ignored) {
+                return null;
+            }
+        }
+        return null;
+    }
+}
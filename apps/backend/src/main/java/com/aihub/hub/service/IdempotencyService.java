@@ -0,0 +1,257 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.IdempotencyKeyRecord;
+import com.aihub.hub.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+@Service
+public class IdempotencyService {
+
+    public static final String HEADER = "Idempotency-Key";
+    public static final String REPLAYED_HEADER = "Idempotent-Replayed";
+
+    private static final Logger log = LoggerFactory.getLogger(IdempotencyService.class);
+    private static final int MAX_KEY_LENGTH = 150;
+
+    private final IdempotencyKeyRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final Duration ttl;
+    private final Duration inProgressLease;
+    private final Duration waitTimeout;
+    private final Duration pollInterval;
+    private final int maxCachedEntries;
+    private final Map<String, CompletableFuture<Void>> inFlight = new ConcurrentHashMap<>();
+    private final Map<String, StoredResponse> cache = new ConcurrentHashMap<>();
+
+    public IdempotencyService(IdempotencyKeyRepository repository,
+                              ObjectMapper objectMapper,
+                              Clock clock,
+                              @Value("${hub.idempotency.ttl:PT24H}") Duration ttl,
+                              @Value("${hub.idempotency.in-progress-lease:PT15M}") Duration inProgressLease,
+                              @Value("${hub.idempotency.wait-timeout:PT30S}") Duration waitTimeout,
+                              @Value("${hub.idempotency.poll-interval:PT0.25S}") Duration pollInterval,
+                              @Value("${hub.idempotency.max-cached-entries:10000}") int maxCachedEntries) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.inProgressLease = inProgressLease;
+        this.waitTimeout = waitTimeout;
+        this.pollInterval = pollInterval;
+        this.maxCachedEntries = Math.max(0, maxCachedEntries);
+    }
+
+    public ResponseEntity<?> execute(String scope, String key, String fingerprint, Supplier<ResponseEntity<?>> action) {
+        if (key == null || key.isBlank()) {
+            return action.get();
+        }
+        String id = entryId(scope, key);
+        Instant deadline = clock.instant().plus(waitTimeout);
+        while (true) {
+            CompletableFuture<Void> done = new CompletableFuture<>();
+            CompletableFuture<Void> running = inFlight.putIfAbsent(id, done);
+            if (running != null) {
+                if (!await(running, deadline)) {
+                    return stillInProgress(key);
+                }
+                continue;
+            }
+            try {
+                return executeExclusive(scope, id, key, fingerprint, deadline, action);
+            } finally {
+                inFlight.remove(id, done);
+                done.complete(null);
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${hub.idempotency.sweep-interval-ms:600000}")
+    public void sweepExpired() {
+        Instant now = clock.instant();
+        cache.values().removeIf(stored -> stored.isExpired(now));
+        int removed = repository.deleteExpired(now);
+        if (removed > 0) {
+            log.info("{} Idempotency-Key(s) expirada(s) removida(s)", removed);
+        }
+    }
+
+    private ResponseEntity<?> executeExclusive(String scope, String id, String key, String fingerprint,
+                                               Instant deadline, Supplier<ResponseEntity<?>> action) {
+        while (true) {
+            StoredResponse stored = lookup(id);
+            if (stored != null) {
+                if (!stored.fingerprint().equals(fingerprint)) {
+                    throw new IllegalArgumentException("Idempotency-Key " + key + " já foi usada com outra requisição");
+                }
+                if (stored.completed()) {
+                    log.info("Repetindo resposta guardada para Idempotency-Key {} ({})", key, scope);
+                    return replay(stored);
+                }
+                // Em andamento em outra instância: espera a linha ser concluída ou removida.
+                if (!sleepUntilNextPoll(deadline)) {
+                    return stillInProgress(key);
+                }
+                continue;
+            }
+
+            Instant now = clock.instant();
+            try {
+                repository.insertInProgress(id, scope, fingerprint, now, now.plus(inProgressLease));
+            } catch (DataIntegrityViolationException ex) {
+                // outra instância inseriu a mesma chave entre a leitura e o insert
+                continue;
+            }
+
+            ResponseEntity<?> response;
+            try {
+                response = action.get();
+            } catch (RuntimeException ex) {
+                repository.deleteInProgress(id);
+                throw ex;
+            }
+            store(id, fingerprint, response);
+            return response;
+        }
+    }
+
+    private StoredResponse lookup(String id) {
+        Instant now = clock.instant();
+        StoredResponse cached = cache.get(id);
+        if (cached != null) {
+            if (!cached.isExpired(now)) {
+                return cached;
+            }
+            cache.remove(id, cached);
+        }
+        IdempotencyKeyRecord record = repository.findById(id).orElse(null);
+        if (record == null) {
+            return null;
+        }
+        if (record.getExpiresAt().isBefore(now)) {
+            // em andamento abandonado (instância caiu) ou resposta vencida: a chave fica livre
+            repository.deleteIfExpired(id, now);
+            return null;
+        }
+        boolean completed = IdempotencyKeyRecord.STATUS_COMPLETED.equals(record.getStatus());
+        StoredResponse stored = new StoredResponse(
+            record.getFingerprint(),
+            completed,
+            completed ? record.getResponseStatus() : 0,
+            record.getResponseBody(),
+            record.getExpiresAt()
+        );
+        if (completed) {
+            cacheResponse(id, stored);
+        }
+        return stored;
+    }
+
+    private void store(String id, String fingerprint, ResponseEntity<?> response) {
+        if (response.getStatusCode().is5xxServerError()) {
+            repository.deleteInProgress(id);
+            return;
+        }
+        String body;
+        try {
+            body = response.getBody() == null ? null : objectMapper.writeValueAsString(response.getBody());
+        } catch (JsonProcessingException ex) {
+            log.warn("Resposta de {} não serializável; Idempotency-Key liberada: {}", id, ex.getMessage());
+            repository.deleteInProgress(id);
+            return;
+        }
+        Instant expiresAt = clock.instant().plus(ttl);
+        int status = response.getStatusCode().value();
+        repository.complete(id, status, body, expiresAt);
+        cacheResponse(id, new StoredResponse(fingerprint, true, status, body, expiresAt));
+    }
+
+    private void cacheResponse(String id, StoredResponse stored) {
+        if (cache.size() < maxCachedEntries || cache.containsKey(id)) {
+            cache.put(id, stored);
+        }
+    }
+
+    private boolean await(CompletableFuture<Void> running, Instant deadline) {
+        long remaining = Duration.between(clock.instant(), deadline).toMillis();
+        if (remaining <= 0) {
+            return false;
+        }
+        try {
+            running.get(remaining, TimeUnit.MILLISECONDS);
+            return true;
+        } catch (TimeoutException ex) {
+            return false;
+        } catch (ExecutionException ex) {
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private boolean sleepUntilNextPoll(Instant deadline) {
+        long remaining = Duration.between(clock.instant(), deadline).toMillis();
+        if (remaining <= 0) {
+            return false;
+        }
+        try {
+            Thread.sleep(Math.min(remaining, Math.max(1L, pollInterval.toMillis())));
+            return true;
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private ResponseEntity<?> replay(StoredResponse stored) {
+        return ResponseEntity.status(stored.status())
+            .contentType(MediaType.APPLICATION_JSON)
+            .header(REPLAYED_HEADER, "true")
+            .body(stored.body());
+    }
+
+    private ResponseEntity<?> stillInProgress(String key) {
+        return ResponseEntity.status(HttpStatus.CONFLICT)
+            .header(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1L, pollInterval.toSeconds())))
+            .body(Map.of("error", "Requisição com Idempotency-Key " + key + " ainda em andamento"));
+    }
+
+    private static String entryId(String scope, String key) {
+        String trimmed = key.trim();
+        if (trimmed.length() > MAX_KEY_LENGTH || !trimmed.chars().allMatch(c -> c > 0x20 && c < 0x7f)) {
+            throw new IllegalArgumentException(
+                "Idempotency-Key deve ter até " + MAX_KEY_LENGTH + " caracteres ASCII visíveis"
+            );
+        }
+        return scope + ":" + trimmed;
+    }
+
+    private record StoredResponse(String fingerprint, boolean completed, int status, String body, Instant expiresAt) {
+        boolean isExpired(Instant now) {
+            return expiresAt.isBefore(now);
+        }
+    }
+}
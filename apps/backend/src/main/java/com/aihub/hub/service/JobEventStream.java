@@ -0,0 +1,179 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxJobType;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Component
+public class JobEventStream {
+
+    private final int bufferSize;
+    private final int replaySize;
+    private final Duration heartbeat;
+    private final Duration timeout;
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final ArrayDeque<JobEvent> replay = new ArrayDeque<>();
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter dropped;
+    private long sequence;
+
+    public JobEventStream(MeterRegistry meterRegistry,
+                          @Value("${hub.jobs.stream.buffer-size:256}") int bufferSize,
+                          @Value("${hub.jobs.stream.replay-size:1024}") int replaySize,
+                          @Value("${hub.jobs.stream.heartbeat:PT15S}") Duration heartbeat,
+                          @Value("${hub.jobs.stream.timeout:PT30M}") Duration timeout) {
+        this.bufferSize = Math.max(1, bufferSize);
+        this.replaySize = Math.max(0, replaySize);
+        this.heartbeat = heartbeat;
+        this.timeout = timeout;
+        Gauge.builder("hub.jobs.stream.subscribers", subscribers, Set::size)
+            .description("Clientes conectados ao stream de eventos de jobs")
+            .register(meterRegistry);
+        this.dropped = Counter.builder("hub.jobs.stream.dropped")
+            .description("Eventos descartados por assinantes lentos")
+            .register(meterRegistry);
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onJobChanged(SandboxJobChanged change) {
+        if (change.jobId() == null) {
+            return;
+        }
+        synchronized (replay) {
+            for (JobEvent event : toEvents(change)) {
+                replay.addLast(event);
+                if (replay.size() > replaySize) {
+                    replay.pollFirst();
+                }
+                subscribers.forEach(subscriber -> subscriber.offer(event));
+            }
+        }
+    }
+
+    public SseEmitter subscribe(SandboxJobType jobType, String jobId, String lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        Subscriber subscriber = new Subscriber(new SseSubscription<>(emitter, bufferSize, JobEventStream::encode, dropped), jobType, jobId);
+        synchronized (replay) {
+            // registro e histórico sob o mesmo lock: nenhum evento é perdido nem repetido
+            if (lastEventId != null && !lastEventId.isBlank()) {
+                List<JobEvent> missed = eventsSince(lastEventId.trim());
+                if (missed == null) {
+                    // histórico insuficiente (ou backend reiniciado): o cliente deve recarregar o estado
+                    subscriber.subscription().offer(new JobEvent(0, null, "reset", null, null, Map.of()));
+                } else {
+                    missed.forEach(subscriber::offer);
+                }
+            }
+            subscribers.add(subscriber);
+        }
+        executor.execute(() -> {
+            try {
+                subscriber.subscription().drain(heartbeat);
+            } finally {
+                subscribers.remove(subscriber);
+            }
+        });
+        return emitter;
+    }
+
+    // null quando o histórico não cobre mais lastEventId
+    List<JobEvent> eventsSince(String lastEventId) {
+        Long lastSequence = parseSequence(lastEventId);
+        if (lastSequence == null) {
+            return null;
+        }
+        synchronized (replay) {
+            JobEvent oldest = replay.peekFirst();
+            boolean covered = oldest == null ? lastSequence <= sequence : lastSequence >= oldest.sequence() - 1;
+            if (!covered) {
+                return null;
+            }
+            List<JobEvent> missed = new ArrayList<>();
+            for (JobEvent event : replay) {
+                if (event.sequence() > lastSequence) {
+                    missed.add(event);
+                }
+            }
+            return missed;
+        }
+    }
+
+    private Long parseSequence(String eventId) {
+        int separator = eventId.indexOf('-');
+        if (separator < 0 || !epoch.equals(eventId.substring(0, separator))) {
+            return null;
+        }
+        try {
+            return Long.parseLong(eventId.substring(separator + 1));
+        } catch (NumberFormatException ex) {
+            return null;
+        }
+    }
+
+    private List<JobEvent> toEvents(SandboxJobChanged change) {
+        SandboxJobSnapshot before = change.before();
+        SandboxJobSnapshot after = change.after();
+        List<JobEvent> events = new ArrayList<>();
+        addIfChanged(events, change, "status", before.status(), after.status());
+        addIfChanged(events, change, "tokens", before.totalTokens(), after.totalTokens());
+        addIfChanged(events, change, "cost", before.cost(), after.cost());
+        addIfChanged(events, change, "changedFiles", before.changedFiles(), after.changedFiles());
+        addIfChanged(events, change, "resultZipReady", before.resultZipReady(), after.resultZipReady());
+        return events;
+    }
+
+    private void addIfChanged(List<JobEvent> events, SandboxJobChanged change, String type, Object before, Object after) {
+        if (Objects.equals(before, after) || after == null) {
+            return;
+        }
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("jobType", change.jobType().name());
+        data.put("jobId", change.jobId());
+        data.put(type, after);
+        sequence++;
+        events.add(new JobEvent(sequence, epoch + "-" + sequence, type, change.jobType(), change.jobId(), data));
+    }
+
+    private static SseEmitter.SseEventBuilder encode(JobEvent event) {
+        SseEmitter.SseEventBuilder builder = SseEmitter.event().name(event.type()).data(event.data());
+        return event.id() != null ? builder.id(event.id()) : builder;
+    }
+
+    @PreDestroy
+    void shutdown() {
+        subscribers.forEach(subscriber -> subscriber.subscription().complete());
+        executor.shutdownNow();
+    }
+
+    record JobEvent(long sequence, String id, String type, SandboxJobType jobType, String jobId, Map<String, Object> data) {
+    }
+
+    private record Subscriber(SseSubscription<JobEvent> subscription, SandboxJobType jobType, String jobId) {
+
+        void offer(JobEvent event) {
+            if ((jobType == null || jobType == event.jobType()) && (jobId == null || jobId.equals(event.jobId()))) {
+                subscription.offer(event);
+            }
+        }
+    }
+}
@@ -0,0 +1,6 @@
+package com.aihub.hub.service;
+
+import java.time.Instant;
+
+public record ModelPricingChanged(String modelName, Instant from, Instant to) {
+}
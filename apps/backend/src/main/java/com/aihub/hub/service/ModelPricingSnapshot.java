@@ -0,0 +1,116 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.CodexModelPricing;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+public final class ModelPricingSnapshot {
+
+    public static final ModelPricingSnapshot EMPTY = new ModelPricingSnapshot(Map.of());
+
+    public static final int MICROS_SCALE = 6;
+
+    public record Price(String modelName,
+                        Instant effectiveFrom,
+                        Instant effectiveTo,
+                        long inputMicrosPerMillion,
+                        long cachedInputMicrosPerMillion,
+                        long outputMicrosPerMillion) {
+
+        static Price of(CodexModelPricing pricing) {
+            return new Price(
+                pricing.getModelName(),
+                pricing.getEffectiveFrom() != null ? pricing.getEffectiveFrom() : Instant.EPOCH,
+                pricing.getEffectiveTo(),
+                toMicros(pricing.getInputPricePerMillion()),
+                toMicros(pricing.getCachedInputPricePerMillion()),
+                toMicros(pricing.getOutputPricePerMillion())
+            );
+        }
+
+        boolean isEffectiveAt(Instant instant) {
+            return !instant.isBefore(effectiveFrom) && (effectiveTo == null || instant.isBefore(effectiveTo));
+        }
+    }
+
+    private final Map<String, Price[]> byModel;
+
+    private ModelPricingSnapshot(Map<String, Price[]> byModel) {
+        this.byModel = byModel;
+    }
+
+    public static ModelPricingSnapshot of(Collection<CodexModelPricing> pricings) {
+        Map<String, List<Price>> grouped = new HashMap<>();
+        for (CodexModelPricing pricing : pricings) {
+            if (pricing.getModelName() != null) {
+                grouped.computeIfAbsent(key(pricing.getModelName()), name -> new ArrayList<>()).add(Price.of(pricing));
+            }
+        }
+        Map<String, Price[]> byModel = new HashMap<>();
+        grouped.forEach((name, versions) -> byModel.put(
+            name,
+            versions.stream().sorted(Comparator.comparing(Price::effectiveFrom)).toArray(Price[]::new)
+        ));
+        return new ModelPricingSnapshot(Map.copyOf(byModel));
+    }
+
+    public Price find(String modelName) {
+        Price[] versions = versions(modelName);
+        if (versions == null) {
+            return null;
+        }
+        Price latest = versions[versions.length - 1];
+        return latest.effectiveTo() == null ? latest : null;
+    }
+
+    public Price find(String modelName, Instant instant) {
+        if (instant == null) {
+            return find(modelName);
+        }
+        Price[] versions = versions(modelName);
+        if (versions == null) {
+            return null;
+        }
+        for (int i = versions.length - 1; i >= 0; i--) {
+            if (versions[i].isEffectiveAt(instant)) {
+                return versions[i];
+            }
+        }
+        return null;
+    }
+
+    public int size() {
+        return byModel.size();
+    }
+
+    public static long toMicros(BigDecimal value) {
+        if (value == null) {
+            return 0L;
+        }
+        return value.setScale(MICROS_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    public static BigDecimal fromMicros(long micros) {
+        return BigDecimal.valueOf(micros, MICROS_SCALE);
+    }
+
+    private Price[] versions(String modelName) {
+        if (modelName == null || modelName.isBlank()) {
+            return null;
+        }
+        return byModel.get(key(modelName));
+    }
+
+    private static String key(String modelName) {
+        return modelName.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,327 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.PricingRecomputeJob;
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.repository.CodexModelPricingRepository;
+import com.aihub.hub.repository.CodexRequestRepository;
+import com.aihub.hub.repository.PricingRecomputeJobRepository;
+import com.aihub.hub.repository.UploadJobRepository;
+import jakarta.persistence.EntityNotFoundException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.BiFunction;
+
+@Service
+public class PricingRecomputeService {
+
+    private static final Logger log = LoggerFactory.getLogger(PricingRecomputeService.class);
+    // cabe num DATETIME do MySQL
+    private static final Instant OPEN_END = Instant.parse("9999-12-31T00:00:00Z");
+    // os custos gravados nunca são negativos
+    private static final BigDecimal NO_COST = BigDecimal.ONE.negate();
+
+    private static final String UPDATE_CODEX_COSTS = """
+        update codex_requests
+        set prompt_cost = ?, cached_prompt_cost = ?, completion_cost = ?, cost = ?
+        where id = ? and coalesce(cost, -1) = ?
+        """;
+    private static final String UPDATE_UPLOAD_COSTS = """
+        update upload_jobs
+        set cost = ?
+        where id = ? and coalesce(cost, -1) = ?
+        """;
+
+    private final PricingRecomputeJobRepository jobRepository;
+    private final CodexModelPricingRepository pricingRepository;
+    private final CodexRequestRepository codexRequestRepository;
+    private final UploadJobRepository uploadJobRepository;
+    private final UsageRollupService usageRollupService;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactions;
+    private final int batchSize;
+    private final int parallelism;
+    private final boolean autoStart;
+    private final Set<Long> running = ConcurrentHashMap.newKeySet();
+
+    public PricingRecomputeService(PricingRecomputeJobRepository jobRepository,
+                                   CodexModelPricingRepository pricingRepository,
+                                   CodexRequestRepository codexRequestRepository,
+                                   UploadJobRepository uploadJobRepository,
+                                   UsageRollupService usageRollupService,
+                                   JdbcTemplate jdbcTemplate,
+                                   PlatformTransactionManager transactionManager,
+                                   @Value("${hub.codex.pricing.recompute.batch-size:500}") int batchSize,
+                                   @Value("${hub.codex.pricing.recompute.parallelism:4}") int parallelism,
+                                   @Value("${hub.codex.pricing.recompute.auto-start:true}") boolean autoStart) {
+        this.jobRepository = jobRepository;
+        this.pricingRepository = pricingRepository;
+        this.codexRequestRepository = codexRequestRepository;
+        this.uploadJobRepository = uploadJobRepository;
+        this.usageRollupService = usageRollupService;
+        this.jdbcTemplate = jdbcTemplate;
+        // O job é criado depois do commit da alteração de preço: precisa da sua própria transação.
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.batchSize = Math.max(1, batchSize);
+        this.parallelism = Math.max(1, parallelism);
+        this.autoStart = autoStart;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onPricingChanged(ModelPricingChanged change) {
+        if (autoStart) {
+            start(change.modelName(), change.from(), change.to());
+        }
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        for (PricingRecomputeJob job : jobRepository.findByStatusOrderByIdAsc(PricingRecomputeJob.STATUS_RUNNING)) {
+            log.info("Retomando recálculo de custos {} do modelo {}", job.getId(), job.getModelName());
+            launch(job.getId());
+        }
+    }
+
+    public PricingRecomputeJob start(String modelName, Instant from, Instant to) {
+        if (modelName == null || modelName.isBlank()) {
+            throw new IllegalArgumentException("Informe o modelo a recalcular");
+        }
+        if (from != null && to != null && !from.isBefore(to)) {
+            throw new IllegalArgumentException("Informe um intervalo válido: from < to");
+        }
+        PricingRecomputeJob job = transactions.execute(status ->
+            jobRepository.save(new PricingRecomputeJob(modelName.trim(), from, to))
+        );
+        launch(job.getId());
+        return job;
+    }
+
+    public PricingRecomputeJob find(Long id) {
+        return jobRepository.findById(id)
+            .orElseThrow(() -> new EntityNotFoundException("Recálculo de custos não encontrado: " + id));
+    }
+
+    public boolean resume(Long id) {
+        PricingRecomputeJob job = find(id);
+        if (PricingRecomputeJob.STATUS_COMPLETED.equals(job.getStatus())) {
+            throw new IllegalArgumentException("Recálculo de custos " + id + " já concluído");
+        }
+        return launch(id);
+    }
+
+    private boolean launch(Long id) {
+        if (!running.add(id)) {
+            return false;
+        }
+        Thread.ofVirtual().name("pricing-recompute-" + id).start(() -> {
+            try {
+                run(id);
+            } finally {
+                running.remove(id);
+            }
+        });
+        return true;
+    }
+
+    void run(Long id) {
+        PricingRecomputeJob job = transactions.execute(status -> {
+            PricingRecomputeJob current = find(id);
+            current.setStatus(PricingRecomputeJob.STATUS_RUNNING);
+            current.setLastError(null);
+            return current;
+        });
+        String model = job.getModelName();
+        Instant from = job.getWindowFrom() != null ? job.getWindowFrom() : Instant.EPOCH;
+        Instant to = job.getWindowTo() != null ? job.getWindowTo() : OPEN_END;
+        try {
+            // preços lidos do banco, não do snapshot em memória, que pode ainda não ter sido recarregado
+            ModelPricingSnapshot pricing = ModelPricingSnapshot.of(
+                pricingRepository.findByModelNameIgnoreCaseOrderByEffectiveFromAsc(model)
+            );
+            long codex = recompute(id, SandboxJobType.CODEX, job.getCodexCheckpointId(), pricing,
+                (afterId, page) -> codexRequestRepository.findCostRows(model, from, to, afterId, page));
+            long uploads = recompute(id, SandboxJobType.UPLOAD, job.getUploadCheckpointId(), pricing,
+                (afterId, page) -> uploadJobRepository.findCostRows(model, from, to, afterId, page));
+            finish(id, PricingRecomputeJob.STATUS_COMPLETED, null);
+            log.info("Recálculo de custos {} do modelo {} concluído: {} CodexRequest(s), {} upload job(s) atualizados",
+                id, model, codex, uploads);
+        } catch (RuntimeException ex) {
+            log.error("Falha no recálculo de custos {} do modelo {}; pode ser retomado do checkpoint", id, model, ex);
+            finish(id, PricingRecomputeJob.STATUS_FAILED, ex.getMessage());
+        }
+    }
+
+    private long recompute(Long jobId,
+                           SandboxJobType jobType,
+                           long checkpoint,
+                           ModelPricingSnapshot pricing,
+                           BiFunction<Long, Pageable, List<CostRow>> reader) {
+        long updated = 0;
+        Deque<Future<Chunk>> inFlight = new ArrayDeque<>();
+        try (ExecutorService writers = Executors.newVirtualThreadPerTaskExecutor()) {
+            long lastId = checkpoint;
+            while (true) {
+                List<CostRow> rows = reader.apply(lastId, PageRequest.of(0, batchSize));
+                if (rows.isEmpty()) {
+                    break;
+                }
+                lastId = rows.get(rows.size() - 1).id();
+                long chunkEnd = lastId;
+                inFlight.add(writers.submit(() -> new Chunk(chunkEnd, write(jobType, pricing, rows))));
+                if (inFlight.size() >= parallelism) {
+                    updated += checkpoint(jobId, jobType, await(inFlight.poll()));
+                }
+            }
+            while (!inFlight.isEmpty()) {
+                updated += checkpoint(jobId, jobType, await(inFlight.poll()));
+            }
+        }
+        return updated;
+    }
+
+    int write(SandboxJobType jobType, ModelPricingSnapshot pricing, List<CostRow> rows) {
+        List<Object[]> arguments = new ArrayList<>();
+        List<UsageChanged> changes = new ArrayList<>();
+        for (CostRow row : rows) {
+            ModelPricingSnapshot.Price price = pricing.find(row.model(), row.createdAt());
+            if (price == null || !hasTokens(row)) {
+                // sem preço vigente ou sem uso registrado: mantém o que está gravado
+                continue;
+            }
+            TokenCostBreakdown breakdown = TokenCostCalculator.breakdown(
+                price, row.promptTokens(), row.cachedPromptTokens(), row.completionTokens(), row.totalTokens()
+            );
+            BigDecimal cost = jobType == SandboxJobType.CODEX && reportedCost(row) ? row.cost() : breakdown.totalCost();
+            if (jobType == SandboxJobType.CODEX) {
+                if (same(row.promptCost(), breakdown.inputCost()) && same(row.cachedPromptCost(), breakdown.cachedInputCost())
+                    && same(row.completionCost(), breakdown.outputCost()) && same(row.cost(), cost)) {
+                    continue;
+                }
+                arguments.add(new Object[] {
+                    breakdown.inputCost(), breakdown.cachedInputCost(), breakdown.outputCost(), cost,
+                    row.id(), orNoCost(row.cost())
+                });
+            } else {
+                if (same(row.cost(), cost)) {
+                    continue;
+                }
+                arguments.add(new Object[] {cost, row.id(), orNoCost(row.cost())});
+            }
+            changes.add(new UsageChanged(
+                row.id(), row.requestedBy(), row.toSnapshot(jobType, row.cost()), row.toSnapshot(jobType, cost)
+            ));
+        }
+        if (arguments.isEmpty()) {
+            return 0;
+        }
+        String sql = jobType == SandboxJobType.CODEX ? UPDATE_CODEX_COSTS : UPDATE_UPLOAD_COSTS;
+        int[] counts = transactions.execute(status -> jdbcTemplate.batchUpdate(sql, arguments));
+        List<UsageChanged> applied = new ArrayList<>();
+        for (int i = 0; i < changes.size(); i++) {
+            // 0: o custo mudou depois da leitura (nova gravação de uso), que já atualizou o rollup
+            if (counts == null || counts[i] != 0) {
+                applied.add(changes.get(i));
+            }
+        }
+        try {
+            usageRollupService.applyAll(applied);
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao atualizar rollups de uso após recálculo de custos ({}); reconstrua os rollups para corrigir: {}",
+                jobType, ex.getMessage());
+        }
+        return applied.size();
+    }
+
+    private long checkpoint(Long jobId, SandboxJobType jobType, Chunk chunk) {
+        transactions.executeWithoutResult(status -> {
+            PricingRecomputeJob job = find(jobId);
+            if (jobType == SandboxJobType.CODEX) {
+                job.setCodexCheckpointId(chunk.lastId());
+            } else {
+                job.setUploadCheckpointId(chunk.lastId());
+            }
+            job.setUpdatedRows(job.getUpdatedRows() + chunk.updated());
+        });
+        return chunk.updated();
+    }
+
+    private void finish(Long id, String status, String error) {
+        transactions.executeWithoutResult(tx -> {
+            PricingRecomputeJob job = find(id);
+            job.setStatus(status);
+            job.setLastError(error);
+        });
+    }
+
+    private static Chunk await(Future<Chunk> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Recálculo de custos interrompido", ex);
+        } catch (ExecutionException ex) {
+            if (ex.getCause() instanceof RuntimeException runtime) {
+                throw runtime;
+            }
+            throw new IllegalStateException("Falha ao gravar lote do recálculo de custos", ex.getCause());
+        }
+    }
+
+    private static boolean hasTokens(CostRow row) {
+        return positive(row.promptTokens()) || positive(row.cachedPromptTokens())
+            || positive(row.completionTokens()) || positive(row.totalTokens());
+    }
+
+    // o custo total informado pelo sandbox não é recalculado
+    private static boolean reportedCost(CostRow row) {
+        if (row.cost() == null) {
+            return false;
+        }
+        BigDecimal components = orZero(row.promptCost()).add(orZero(row.cachedPromptCost())).add(orZero(row.completionCost()));
+        return row.cost().compareTo(components) != 0;
+    }
+
+    private static boolean positive(Integer value) {
+        return value != null && value > 0;
+    }
+
+    private static boolean same(BigDecimal stored, BigDecimal computed) {
+        return stored != null && stored.compareTo(computed) == 0;
+    }
+
+    private static BigDecimal orZero(BigDecimal value) {
+        return value != null ? value : BigDecimal.ZERO;
+    }
+
+    private static BigDecimal orNoCost(BigDecimal value) {
+        return value != null ? value : NO_COST;
+    }
+
+    private record Chunk(long lastId, int updated) {
+    }
+}
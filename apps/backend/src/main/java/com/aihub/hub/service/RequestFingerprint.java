@@ -0,0 +1,64 @@
+package com.aihub.hub.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.HexFormat;
+import java.util.List;
+
+public final class RequestFingerprint {
+
+    private final MessageDigest digest = SourceZipPreprocessor.newSha256();
+
+    public RequestFingerprint add(String value) {
+        if (value == null) {
+            digest.update(longBytes(-1));
+            return this;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        digest.update(longBytes(bytes.length));
+        digest.update(bytes);
+        return this;
+    }
+
+    public RequestFingerprint addJson(ObjectMapper objectMapper, Object value) {
+        try {
+            return add(objectMapper.writeValueAsString(value));
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Requisição não serializável para Idempotency-Key", ex);
+        }
+    }
+
+    public RequestFingerprint add(MultipartFile file) {
+        if (file == null || file.isEmpty()) {
+            digest.update(longBytes(-1));
+            return this;
+        }
+        // Só nome, tipo e tamanho informados pelo cliente: reler o conteúdo custaria uma passada
+        // extra sobre ZIPs de vários GB antes mesmo do processamento.
+        add(file.getOriginalFilename());
+        add(file.getContentType());
+        digest.update(longBytes(file.getSize()));
+        return this;
+    }
+
+    public RequestFingerprint add(List<MultipartFile> files) {
+        digest.update(longBytes(files == null ? -1 : files.size()));
+        if (files != null) {
+            files.forEach(this::add);
+        }
+        return this;
+    }
+
+    public String hex() {
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private static byte[] longBytes(long value) {
+        return ByteBuffer.allocate(Long.BYTES).putLong(value).array();
+    }
+}
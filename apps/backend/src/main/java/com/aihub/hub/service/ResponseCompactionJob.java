@@ -0,0 +1,147 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.ResponseRecord;
+import com.aihub.hub.repository.ResponseRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+@Component
+public class ResponseCompactionJob {
+
+    private static final Logger log = LoggerFactory.getLogger(ResponseCompactionJob.class);
+
+    private final ResponseRepository responseRepository;
+    private final TransactionOperations transactionOperations;
+    private final boolean enabled;
+    private final int batchSize;
+
+    public ResponseCompactionJob(ResponseRepository responseRepository,
+                                 TransactionOperations transactionOperations,
+                                 @Value("${hub.responses.compaction.enabled:false}") boolean enabled,
+                                 @Value("${hub.responses.compaction.batch-size:500}") int batchSize) {
+        this.responseRepository = responseRepository;
+        this.transactionOperations = transactionOperations;
+        this.enabled = enabled;
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (enabled) {
+            Thread.ofVirtual().name("response-compaction").start(this::run);
+        }
+    }
+
+    public void run() {
+        try {
+            long hashed = backfillHashes();
+            // Vincular antes de deduplicar: a checagem de resposta repetida é por codex_request_id.
+            long linked = linkCodexRequests();
+            long removed = removeDuplicates();
+            log.info("Compactação de responses concluída: {} hash(es) calculado(s), {} resposta(s) vinculada(s), "
+                + "{} duplicata(s) removida(s)", hashed, linked, removed);
+        } catch (RuntimeException ex) {
+            log.error("Falha na compactação de responses; pode ser executada novamente", ex);
+        }
+    }
+
+    long backfillHashes() {
+        long total = 0;
+        long lastId = 0;
+        while (true) {
+            long afterId = lastId;
+            List<ResponseRecord> batch = transactionOperations.execute(status -> {
+                List<ResponseRecord> records = responseRepository.findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(
+                    afterId, PageRequest.of(0, batchSize)
+                );
+                records.forEach(record -> record.setContentHash(
+                    ResponseRecord.hashContent(record.getRootCause(), record.getFixPlan(), record.getUnifiedDiff())
+                ));
+                return responseRepository.saveAll(records);
+            });
+            if (batch == null || batch.isEmpty()) {
+                return total;
+            }
+            total += batch.size();
+            lastId = batch.get(batch.size() - 1).getId();
+        }
+    }
+
+    // Preenche codex_request_id das respostas antigas a partir do prompt. Quando a requisição já tem
+    // resposta com o mesmo conteúdo (gravada depois, sem enxergar a antiga), a antiga é a duplicata.
+    long linkCodexRequests() {
+        long total = 0;
+        long lastId = 0;
+        while (true) {
+            long afterId = lastId;
+            List<ResponseRequestLink> links = transactionOperations.execute(status -> {
+                List<ResponseRequestLink> batch = responseRepository.findUnlinkedAfter(afterId, PageRequest.of(0, batchSize));
+                Map<Long, ResponseRecord> records = responseRepository.findAllById(
+                    batch.stream().map(ResponseRequestLink::responseId).toList()
+                ).stream().collect(Collectors.toMap(ResponseRecord::getId, Function.identity()));
+                Set<String> seen = new HashSet<>();
+                List<ResponseRecord> linked = new ArrayList<>();
+                List<Long> duplicates = new ArrayList<>();
+                for (ResponseRequestLink link : batch) {
+                    ResponseRecord record = records.get(link.responseId());
+                    if (record == null) {
+                        continue;
+                    }
+                    String hash = record.getContentHash();
+                    if (!seen.add(link.codexRequestId() + ":" + hash)
+                        || responseRepository.existsByCodexRequestIdAndContentHash(link.codexRequestId(), hash)) {
+                        duplicates.add(record.getId());
+                    } else {
+                        record.setCodexRequestId(link.codexRequestId());
+                        linked.add(record);
+                    }
+                }
+                responseRepository.saveAll(linked);
+                if (!duplicates.isEmpty()) {
+                    responseRepository.deleteAllByIdInBatch(duplicates);
+                }
+                return batch;
+            });
+            if (links == null || links.isEmpty()) {
+                return total;
+            }
+            total += links.size();
+            lastId = links.get(links.size() - 1).responseId();
+        }
+    }
+
+    long removeDuplicates() {
+        long total = 0;
+        while (true) {
+            Long removed = transactionOperations.execute(status -> {
+                long count = 0;
+                for (ResponseDuplicateGroup group : responseRepository.findDuplicateGroups(PageRequest.of(0, batchSize))) {
+                    List<Long> ids = responseRepository.findDuplicateIds(
+                        group.promptId(), group.repo(), group.contentHash(), group.keepId()
+                    );
+                    responseRepository.deleteAllByIdInBatch(ids);
+                    count += ids.size();
+                }
+                return count;
+            });
+            if (removed == null || removed == 0) {
+                return total;
+            }
+            total += removed;
+        }
+    }
+}
@@ -0,0 +1,4 @@
+package com.aihub.hub.service;
+
+public record ResponseDuplicateGroup(Long promptId, String repo, String contentHash, Long keepId) {
+}
@@ -0,0 +1,4 @@
+package com.aihub.hub.service;
+
+public record ResponseRequestLink(Long responseId, Long codexRequestId) {
+}
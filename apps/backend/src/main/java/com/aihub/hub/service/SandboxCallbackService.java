@@ -0,0 +1,110 @@
+package com.aihub.hub.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+
+@Service
+public class SandboxCallbackService {
+
+    private static final Logger log = LoggerFactory.getLogger(SandboxCallbackService.class);
+
+    private final List<SandboxJobSynchronizer> synchronizers;
+    private final ObjectMapper objectMapper;
+    private final SandboxSyncBackoff fallbackPolling;
+    private final Counter applied;
+    private final Counter duplicate;
+    private final Counter unknown;
+
+    public SandboxCallbackService(List<SandboxJobSynchronizer> synchronizers,
+                                  ObjectMapper objectMapper,
+                                  Clock clock,
+                                  MeterRegistry meterRegistry,
+                                  @Value("${hub.sandbox.callbacks.fallback-poll:PT2M}") Duration fallbackPoll) {
+        this.synchronizers = synchronizers;
+        this.objectMapper = objectMapper;
+        this.fallbackPolling = new SandboxSyncBackoff(clock, fallbackPoll, fallbackPoll, 0);
+        this.applied = callbackCounter(meterRegistry, "applied");
+        this.duplicate = callbackCounter(meterRegistry, "duplicate");
+        this.unknown = callbackCounter(meterRegistry, "unknown");
+    }
+
+    @Transactional
+    public Result apply(String payload) {
+        Callback callback = parse(payload);
+        for (SandboxJobSynchronizer synchronizer : synchronizers) {
+            Optional<SandboxSyncCandidate> candidate = synchronizer.findSyncCandidate(callback.jobId());
+            if (candidate.isEmpty()) {
+                continue;
+            }
+            if (!synchronizer.claimCallback(candidate.get(), callback.sequence())) {
+                duplicate.increment();
+                log.debug("Callback {} do job {} já aplicado; ignorando", callback.sequence(), callback.jobId());
+                return Result.DUPLICATE;
+            }
+            synchronizer.applySync(candidate.get(), callback.job(), callback.version(), fallbackPolling);
+            applied.increment();
+            log.info("Callback {} do job {} ({}) aplicado: status {}",
+                callback.sequence(), callback.jobId(), synchronizer.jobType(), callback.job().status());
+            return Result.APPLIED;
+        }
+        unknown.increment();
+        throw new IllegalArgumentException("Job não encontrado: " + callback.jobId());
+    }
+
+    private Callback parse(String payload) {
+        JsonNode json;
+        try {
+            json = objectMapper.readTree(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Callback inválido: " + ex.getOriginalMessage());
+        }
+        if (json == null || !json.isObject()) {
+            throw new IllegalArgumentException("Callback inválido: corpo deve ser um objeto JSON");
+        }
+        String jobId = json.path("jobId").asText(null);
+        if (jobId == null || jobId.isBlank()) {
+            throw new IllegalArgumentException("Callback sem jobId");
+        }
+        JsonNode sequence = json.path("sequence");
+        if (!sequence.canConvertToLong() || sequence.asLong() < 1) {
+            throw new IllegalArgumentException("Callback sem sequence válido");
+        }
+        JsonNode jobNode = json.path("job");
+        SandboxOrchestratorClient.SandboxOrchestratorJobResponse job =
+            SandboxOrchestratorClient.SandboxOrchestratorJobResponse.from(jobNode);
+        if (job == null) {
+            throw new IllegalArgumentException("Callback sem estado do job");
+        }
+        String version = new SandboxOrchestratorClient.SandboxJobStatus(
+            jobId.trim(), job.status(), jobNode.path("updatedAt").asText(null)
+        ).version();
+        return new Callback(jobId.trim(), sequence.asLong(), job, version);
+    }
+
+    private static Counter callbackCounter(MeterRegistry meterRegistry, String result) {
+        return Counter.builder("hub.sandbox.callbacks")
+            .description("Callbacks recebidos do sandbox-orchestrator")
+            .tag("result", result)
+            .register(meterRegistry);
+    }
+
+    public enum Result { APPLIED, DUPLICATE }
+
+    private record Callback(String jobId, long sequence,
+                            SandboxOrchestratorClient.SandboxOrchestratorJobResponse job,
+                            String version) {
+    }
+}
@@ -0,0 +1,134 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxCredentialRecord;
+import com.aihub.hub.repository.SandboxCredentialRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Cipher;
+import javax.crypto.KeyGenerator;
+import javax.crypto.SecretKey;
+import javax.crypto.spec.GCMParameterSpec;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.SecureRandom;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Base64;
+import java.util.Optional;
+
+// Guarda as credenciais enviadas com um job até a entrega ao orquestrador. Ficam
+// cifradas com AES-GCM (jobId como dado associado) numa tabela à parte da outbox,
+// para sobreviverem a reinícios e serem lidas por qualquer instância.
+@Component
+public class SandboxCredentialVault {
+
+    private static final Logger log = LoggerFactory.getLogger(SandboxCredentialVault.class);
+    private static final String TRANSFORMATION = "AES/GCM/NoPadding";
+    private static final int IV_LENGTH = 12;
+    private static final int TAG_BITS = 128;
+
+    private final SandboxCredentialRepository repository;
+    private final ObjectMapper objectMapper;
+    private final Clock clock;
+    private final Duration ttl;
+    private final SecretKey key;
+    private final SecureRandom random = new SecureRandom();
+
+    public SandboxCredentialVault(SandboxCredentialRepository repository,
+                                  ObjectMapper objectMapper,
+                                  Clock clock,
+                                  @Value("${hub.sandbox.credentials.key:}") String key,
+                                  @Value("${hub.sandbox.credentials.ttl:PT24H}") Duration ttl) {
+        this.repository = repository;
+        this.objectMapper = objectMapper;
+        this.clock = clock;
+        this.ttl = ttl;
+        this.key = resolveKey(key);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void store(String jobId, Object credentials) {
+        Instant now = clock.instant();
+        repository.save(new SandboxCredentialRecord(jobId, encrypt(jobId, credentials), now, now.plus(ttl)));
+    }
+
+    public <T> Optional<T> load(String jobId, Class<T> type) {
+        return repository.findById(jobId)
+            .filter(record -> record.getExpiresAt().isAfter(clock.instant()))
+            .map(record -> decrypt(jobId, record.getCiphertext(), type));
+    }
+
+    public void remove(String jobId) {
+        repository.deleteByJobId(jobId);
+    }
+
+    @Scheduled(fixedDelayString = "${hub.sandbox.credentials.sweep-interval-ms:600000}")
+    public void sweepExpired() {
+        int removed = repository.deleteExpired(clock.instant());
+        if (removed > 0) {
+            log.info("{} credencial(is) de job expirada(s) removida(s)", removed);
+        }
+    }
+
+    private String encrypt(String jobId, Object credentials) {
+        try {
+            byte[] iv = new byte[IV_LENGTH];
+            random.nextBytes(iv);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.ENCRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, iv));
+            cipher.updateAAD(jobId.getBytes(StandardCharsets.UTF_8));
+            byte[] sealed = cipher.doFinal(objectMapper.writeValueAsBytes(credentials));
+            return Base64.getEncoder().encodeToString(ByteBuffer.allocate(iv.length + sealed.length).put(iv).put(sealed).array());
+        } catch (GeneralSecurityException | JsonProcessingException ex) {
+            throw new IllegalStateException("Falha ao cifrar credenciais do job " + jobId, ex);
+        }
+    }
+
+    private <T> T decrypt(String jobId, String ciphertext, Class<T> type) {
+        try {
+            byte[] data = Base64.getDecoder().decode(ciphertext);
+            Cipher cipher = Cipher.getInstance(TRANSFORMATION);
+            cipher.init(Cipher.DECRYPT_MODE, key, new GCMParameterSpec(TAG_BITS, data, 0, IV_LENGTH));
+            cipher.updateAAD(jobId.getBytes(StandardCharsets.UTF_8));
+            byte[] plain = cipher.doFinal(data, IV_LENGTH, data.length - IV_LENGTH);
+            return objectMapper.readValue(plain, type);
+        } catch (GeneralSecurityException | IllegalArgumentException ex) {
+            throw new IllegalArgumentException("Credenciais do job " + jobId + " não puderam ser decifradas; "
+                + "confira se todas as instâncias usam a mesma hub.sandbox.credentials.key", ex);
+        } catch (IOException ex) {
+            throw new IllegalArgumentException("Credenciais do job " + jobId + " estão corrompidas", ex);
+        }
+    }
+
+    private static SecretKey resolveKey(String configured) {
+        if (configured == null || configured.isBlank()) {
+            // Sem chave configurada só a própria instância decifra o que gravou.
+            log.warn("hub.sandbox.credentials.key não configurada; usando chave efêmera. Credenciais pendentes "
+                + "não sobrevivem a reinícios nem são entregues por outras instâncias");
+            try {
+                KeyGenerator generator = KeyGenerator.getInstance("AES");
+                generator.init(256);
+                return generator.generateKey();
+            } catch (GeneralSecurityException ex) {
+                throw new IllegalStateException("AES indisponível na JVM", ex);
+            }
+        }
+        byte[] bytes = Base64.getDecoder().decode(configured.trim());
+        if (bytes.length != 16 && bytes.length != 24 && bytes.length != 32) {
+            throw new IllegalStateException("hub.sandbox.credentials.key deve ter 16, 24 ou 32 bytes em base64");
+        }
+        return new SecretKeySpec(bytes, "AES");
+    }
+}
@@ -0,0 +1,14 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.SandboxOutboxEntry;
+
+// IllegalArgumentException em dispatch falha o job na hora; as demais exceções são reenviadas
+public interface SandboxDispatchHandler {
+
+    SandboxJobType jobType();
+
+    void dispatch(SandboxOutboxEntry entry);
+
+    void markFailed(SandboxOutboxEntry entry, String message);
+}
@@ -0,0 +1,9 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxJobType;
+
+public record SandboxJobChanged(SandboxJobType jobType,
+                                String jobId,
+                                SandboxJobSnapshot before,
+                                SandboxJobSnapshot after) {
+}
@@ -0,0 +1,171 @@
+package com.aihub.hub.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+public class SandboxJobReconciler {
+
+    private static final Logger log = LoggerFactory.getLogger(SandboxJobReconciler.class);
+
+    private final SandboxOrchestratorClient sandboxOrchestratorClient;
+    private final List<SandboxJobSynchronizer> synchronizers;
+    private final Clock clock;
+    private final SandboxSyncBackoff backoff;
+    private final int batchSize;
+    private final Semaphore inFlight;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter unchanged;
+    private final Counter fetched;
+    private final Counter missing;
+
+    public SandboxJobReconciler(SandboxOrchestratorClient sandboxOrchestratorClient,
+                                List<SandboxJobSynchronizer> synchronizers,
+                                Clock clock,
+                                MeterRegistry meterRegistry,
+                                @Value("${hub.sandbox.reconcile.initial-backoff:PT5S}") Duration initialBackoff,
+                                @Value("${hub.sandbox.reconcile.max-backoff:PT5M}") Duration maxBackoff,
+                                @Value("${hub.sandbox.reconcile.age-factor:0.05}") double ageFactor,
+                                @Value("${hub.sandbox.reconcile.batch-size:100}") int batchSize,
+                                @Value("${hub.sandbox.reconcile.max-in-flight:8}") int maxInFlight) {
+        this.sandboxOrchestratorClient = sandboxOrchestratorClient;
+        this.synchronizers = synchronizers;
+        this.clock = clock;
+        this.backoff = new SandboxSyncBackoff(clock, initialBackoff, maxBackoff, ageFactor);
+        this.batchSize = Math.max(1, batchSize);
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+        this.unchanged = jobCounter(meterRegistry, "unchanged");
+        this.fetched = jobCounter(meterRegistry, "fetched");
+        this.missing = jobCounter(meterRegistry, "missing");
+    }
+
+    @Scheduled(
+        initialDelayString = "${hub.sandbox.reconcile.initial-delay-ms:10000}",
+        fixedDelayString = "${hub.sandbox.reconcile.interval-ms:2000}"
+    )
+    public void reconcile() {
+        Instant now = clock.instant();
+        AtomicBoolean orchestratorDown = new AtomicBoolean(false);
+        List<Future<?>> pending = new ArrayList<>();
+        for (SandboxJobSynchronizer synchronizer : synchronizers) {
+            List<SandboxSyncCandidate> due = synchronizer.findDueForSync(now, batchSize);
+            if (due.isEmpty()) {
+                continue;
+            }
+            Map<String, SandboxOrchestratorClient.SandboxJobStatus> statuses;
+            try {
+                statuses = sandboxOrchestratorClient.getJobs(due.stream().map(SandboxSyncCandidate::jobId).toList());
+            } catch (RuntimeException ex) {
+                log.warn("Sandbox-orchestrator indisponível ao consultar status de {} job(s) ({}); rodada interrompida: {}",
+                    due.size(), synchronizer.jobType(), ex.getMessage());
+                orchestratorDown.set(true);
+                break;
+            }
+            for (SandboxSyncCandidate candidate : due) {
+                if (statuses == null) {
+                    // orquestrador sem consulta em lote: busca o payload completo de cada job
+                    pending.add(executor.submit(() -> sync(synchronizer, candidate, null, orchestratorDown)));
+                    continue;
+                }
+                SandboxOrchestratorClient.SandboxJobStatus status = statuses.get(candidate.jobId());
+                if (status == null) {
+                    missing.increment();
+                    pending.add(executor.submit(() -> apply(synchronizer, candidate, null, null)));
+                } else if (status.version().equals(candidate.syncVersion())) {
+                    unchanged.increment();
+                    pending.add(executor.submit(() -> defer(synchronizer, candidate)));
+                } else {
+                    pending.add(executor.submit(() -> sync(synchronizer, candidate, status.version(), orchestratorDown)));
+                }
+            }
+        }
+        for (Future<?> task : pending) {
+            try {
+                task.get();
+            } catch (InterruptedException ex) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (ExecutionException ex) {
+                log.warn("Falha inesperada ao sincronizar job do sandbox: {}", ex.getCause().getMessage());
+            }
+        }
+    }
+
+    private void sync(SandboxJobSynchronizer synchronizer,
+                      SandboxSyncCandidate candidate,
+                      String version,
+                      AtomicBoolean orchestratorDown) {
+        inFlight.acquireUninterruptibly();
+        try {
+            if (orchestratorDown.get()) {
+                // o job continua vencido e será consultado na próxima rodada
+                return;
+            }
+            SandboxOrchestratorClient.SandboxOrchestratorJobResponse response;
+            try {
+                response = sandboxOrchestratorClient.getJob(candidate.jobId());
+                fetched.increment();
+            } catch (RuntimeException ex) {
+                if (orchestratorDown.compareAndSet(false, true)) {
+                    log.warn("Sandbox-orchestrator indisponível ao sincronizar job {} ({}); rodada interrompida: {}",
+                        candidate.jobId(), synchronizer.jobType(), ex.getMessage());
+                }
+                return;
+            }
+            apply(synchronizer, candidate, response, version);
+        } finally {
+            inFlight.release();
+        }
+    }
+
+    private void apply(SandboxJobSynchronizer synchronizer,
+                       SandboxSyncCandidate candidate,
+                       SandboxOrchestratorClient.SandboxOrchestratorJobResponse response,
+                       String version) {
+        try {
+            synchronizer.applySync(candidate, response, version, backoff);
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao sincronizar job {} ({}) com o sandbox: {}",
+                candidate.jobId(), synchronizer.jobType(), ex.getMessage());
+        }
+    }
+
+    private void defer(SandboxJobSynchronizer synchronizer, SandboxSyncCandidate candidate) {
+        try {
+            synchronizer.deferSync(candidate, backoff);
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao reagendar job {} ({}): {}", candidate.jobId(), synchronizer.jobType(), ex.getMessage());
+        }
+    }
+
+    private static Counter jobCounter(MeterRegistry meterRegistry, String outcome) {
+        return Counter.builder("hub.sandbox.reconcile.jobs")
+            .description("Jobs verificados pelo reconciliador, por resultado da consulta em lote")
+            .tag("outcome", outcome)
+            .register(meterRegistry);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
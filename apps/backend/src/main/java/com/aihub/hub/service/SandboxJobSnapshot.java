@@ -0,0 +1,45 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.CiFixJobRecord;
+import com.aihub.hub.domain.CodexRequest;
+import com.aihub.hub.domain.UploadJobRecord;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.List;
+
+public record SandboxJobSnapshot(String status,
+                                 Integer totalTokens,
+                                 BigDecimal cost,
+                                 List<String> changedFiles,
+                                 Boolean resultZipReady) {
+
+    public static SandboxJobSnapshot of(CiFixJobRecord record) {
+        return new SandboxJobSnapshot(record.getStatus(), null, null, splitLines(record.getChangedFiles()), null);
+    }
+
+    public static SandboxJobSnapshot of(UploadJobRecord record) {
+        return new SandboxJobSnapshot(
+            record.getStatus(),
+            record.getTotalTokens(),
+            normalize(record.getCost()),
+            splitLines(record.getChangedFiles()),
+            record.getResultZipReady()
+        );
+    }
+
+    public static SandboxJobSnapshot of(CodexRequest request) {
+        return new SandboxJobSnapshot(null, request.getTotalTokens(), normalize(request.getCost()), null, null);
+    }
+
+    private static BigDecimal normalize(BigDecimal value) {
+        return value != null ? value.stripTrailingZeros() : null;
+    }
+
+    private static List<String> splitLines(String value) {
+        if (value == null || value.isBlank()) {
+            return null;
+        }
+        return Arrays.stream(value.split("\n")).map(String::trim).filter(line -> !line.isEmpty()).toList();
+    }
+}
@@ -0,0 +1,27 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxJobType;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Optional;
+
+public interface SandboxJobSynchronizer {
+
+    SandboxJobType jobType();
+
+    List<SandboxSyncCandidate> findDueForSync(Instant now, int limit);
+
+    // response nulo: o job não existe mais no orquestrador
+    void applySync(SandboxSyncCandidate candidate,
+                   SandboxOrchestratorClient.SandboxOrchestratorJobResponse response,
+                   String version,
+                   SandboxSyncBackoff backoff);
+
+    void deferSync(SandboxSyncCandidate candidate, SandboxSyncBackoff backoff);
+
+    Optional<SandboxSyncCandidate> findSyncCandidate(String jobId);
+
+    // false quando um callback com sequência igual ou maior já foi aplicado
+    boolean claimCallback(SandboxSyncCandidate candidate, long sequence);
+}
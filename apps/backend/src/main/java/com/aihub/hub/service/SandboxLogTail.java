@@ -0,0 +1,241 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.repository.CiFixJobRepository;
+import com.aihub.hub.repository.UploadJobRepository;
+import com.aihub.hub.service.SandboxOrchestratorClient.LogStreamResult;
+import com.aihub.hub.service.SandboxOrchestratorClient.SandboxLogLine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+@Component
+public class SandboxLogTail {
+
+    private static final Logger log = LoggerFactory.getLogger(SandboxLogTail.class);
+    private static final String END_EVENT = "end";
+
+    private final SandboxOrchestratorClient sandboxOrchestratorClient;
+    private final CiFixJobRepository ciFixJobRepository;
+    private final UploadJobRepository uploadJobRepository;
+    private final Clock clock;
+    private final long bufferBytes;
+    private final int subscriberBuffer;
+    private final Duration heartbeat;
+    private final Duration timeout;
+    private final Duration retention;
+    private final Duration reconnectDelay;
+    private final Map<String, Tail> tails = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final Counter dropped;
+
+    public SandboxLogTail(SandboxOrchestratorClient sandboxOrchestratorClient,
+                          CiFixJobRepository ciFixJobRepository,
+                          UploadJobRepository uploadJobRepository,
+                          Clock clock,
+                          MeterRegistry meterRegistry,
+                          @Value("${hub.jobs.logs.buffer-size:64KB}") DataSize bufferSize,
+                          @Value("${hub.jobs.logs.subscriber-buffer:1024}") int subscriberBuffer,
+                          @Value("${hub.jobs.logs.heartbeat:PT15S}") Duration heartbeat,
+                          @Value("${hub.jobs.logs.timeout:PT30M}") Duration timeout,
+                          @Value("${hub.jobs.logs.retention:PT10M}") Duration retention,
+                          @Value("${hub.jobs.logs.reconnect-delay:PT2S}") Duration reconnectDelay) {
+        this.sandboxOrchestratorClient = sandboxOrchestratorClient;
+        this.ciFixJobRepository = ciFixJobRepository;
+        this.uploadJobRepository = uploadJobRepository;
+        this.clock = clock;
+        this.bufferBytes = Math.max(1, bufferSize.toBytes());
+        this.subscriberBuffer = subscriberBuffer;
+        this.heartbeat = heartbeat;
+        this.timeout = timeout;
+        this.retention = retention;
+        this.reconnectDelay = reconnectDelay;
+        Gauge.builder("hub.jobs.logs.tails", tails, Map::size)
+            .description("Jobs com log ao vivo em memória")
+            .register(meterRegistry);
+        this.dropped = Counter.builder("hub.jobs.logs.dropped")
+            .description("Linhas de log descartadas por assinantes lentos")
+            .register(meterRegistry);
+    }
+
+    public SseEmitter subscribe(String jobId) {
+        if (ciFixJobRepository.findByJobId(jobId).isEmpty() && uploadJobRepository.findByJobId(jobId).isEmpty()) {
+            throw new IllegalArgumentException("Job não encontrado: " + jobId);
+        }
+        SseEmitter emitter = new SseEmitter(timeout.toMillis());
+        SseSubscription<SandboxLogLine> subscription =
+            new SseSubscription<>(emitter, subscriberBuffer, SandboxLogTail::encode, dropped);
+        Tail tail = tails.computeIfAbsent(jobId, Tail::new);
+        tail.add(subscription);
+        executor.execute(() -> {
+            try {
+                subscription.drain(heartbeat);
+            } finally {
+                tail.remove(subscription);
+            }
+        });
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${hub.jobs.logs.sweep-interval-ms:60000}")
+    public void evictIdleTails() {
+        Instant threshold = clock.instant().minus(retention);
+        tails.values().removeIf(tail -> tail.isIdleSince(threshold));
+    }
+
+    List<SandboxLogLine> recentLines(String jobId) {
+        Tail tail = tails.get(jobId);
+        return tail == null ? List.of() : tail.snapshot();
+    }
+
+    @PreDestroy
+    void shutdown() {
+        tails.values().forEach(Tail::shutdown);
+        executor.shutdownNow();
+    }
+
+    private static SseEmitter.SseEventBuilder encode(SandboxLogLine line) {
+        if (END_EVENT.equals(line.kind())) {
+            // sinaliza ao EventSource que não há o que retomar
+            return SseEmitter.event().name(END_EVENT).data(Map.of("next", line.index()));
+        }
+        return SseEmitter.event().id(Long.toString(line.index())).name(line.kind()).data(line);
+    }
+
+    private static long sizeOf(SandboxLogLine line) {
+        return line.line().getBytes(StandardCharsets.UTF_8).length;
+    }
+
+    private final class Tail {
+
+        private final String jobId;
+        private final ArrayDeque<SandboxLogLine> lines = new ArrayDeque<>();
+        private final Set<SseSubscription<SandboxLogLine>> subscribers = ConcurrentHashMap.newKeySet();
+        private long bytes;
+        private long nextIndex;
+        private boolean ended;
+        private Future<?> reader;
+        private Instant lastActive;
+
+        private Tail(String jobId) {
+            this.jobId = jobId;
+            this.lastActive = clock.instant();
+        }
+
+        synchronized void add(SseSubscription<SandboxLogLine> subscription) {
+            subscription.offerAll(lines);
+            if (ended) {
+                subscription.offer(endMarker());
+                subscription.finish();
+                return;
+            }
+            subscribers.add(subscription);
+            if (reader == null || reader.isDone()) {
+                reader = executor.submit(this::follow);
+            }
+        }
+
+        synchronized void remove(SseSubscription<SandboxLogLine> subscription) {
+            subscribers.remove(subscription);
+            lastActive = clock.instant();
+            if (subscribers.isEmpty() && reader != null) {
+                // ninguém mais assiste: libera a conexão com o orquestrador
+                reader.cancel(true);
+                reader = null;
+            }
+        }
+
+        synchronized boolean isIdleSince(Instant threshold) {
+            return subscribers.isEmpty() && lastActive.isBefore(threshold);
+        }
+
+        synchronized List<SandboxLogLine> snapshot() {
+            return new ArrayList<>(lines);
+        }
+
+        synchronized void shutdown() {
+            subscribers.forEach(SseSubscription::complete);
+        }
+
+        private synchronized void append(SandboxLogLine line) {
+            if (line.index() < nextIndex) {
+                return;
+            }
+            nextIndex = line.index() + 1;
+            lines.addLast(line);
+            bytes += sizeOf(line);
+            while (bytes > bufferBytes && lines.size() > 1) {
+                bytes -= sizeOf(lines.pollFirst());
+            }
+            subscribers.forEach(subscription -> subscription.offer(line));
+        }
+
+        private SandboxLogLine endMarker() {
+            return new SandboxLogLine(nextIndex, END_EVENT, "");
+        }
+
+        private synchronized long nextIndex() {
+            return nextIndex;
+        }
+
+        private synchronized boolean isWatched() {
+            return !subscribers.isEmpty() && !Thread.currentThread().isInterrupted();
+        }
+
+        private synchronized void end() {
+            ended = true;
+            SandboxLogLine marker = endMarker();
+            subscribers.forEach(subscription -> {
+                subscription.offer(marker);
+                subscription.finish();
+            });
+        }
+
+        private void follow() {
+            while (isWatched()) {
+                try {
+                    LogStreamResult result = sandboxOrchestratorClient.streamJobLogs(jobId, nextIndex(), this::append);
+                    if (result != LogStreamResult.DISCONNECTED) {
+                        if (result == LogStreamResult.NOT_FOUND) {
+                            log.info("Log do job {} indisponível no sandbox-orchestrator", jobId);
+                        }
+                        end();
+                        return;
+                    }
+                } catch (RuntimeException ex) {
+                    if (Thread.currentThread().isInterrupted()) {
+                        return;
+                    }
+                    log.warn("Falha ao acompanhar log do job {}: {}", jobId, ex.getMessage());
+                }
+                try {
+                    Thread.sleep(reconnectDelay);
+                } catch (InterruptedException ex) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+        }
+    }
+}
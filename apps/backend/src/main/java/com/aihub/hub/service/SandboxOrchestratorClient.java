@@ -3,44 +3,79 @@ package com.aihub.hub.service;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatusCode;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Component;
+import org.springframework.util.StreamUtils;
 import org.springframework.web.client.RestClient;
 
+import java.io.BufferedReader;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.OutputStream;
 import java.math.BigDecimal;
 import java.nio.charset.StandardCharsets;
 import java.util.Arrays;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Consumer;
 
 @Component
 public class SandboxOrchestratorClient {
 
     private static final Logger log = LoggerFactory.getLogger(SandboxOrchestratorClient.class);
     private static final int MAX_LOG_BODY_LENGTH = 2_000;
+    private static final MediaType ZIP_CONTENT_TYPE = MediaType.valueOf("application/zip");
 
     private final RestClient restClient;
     private final String jobsPath;
     private final ObjectMapper objectMapper;
+    private final boolean streamingUploadEnabled;
+    private final AtomicReference<Boolean> streamingUploadSupported = new AtomicReference<>();
+    private final String blobsPath;
+    private final AtomicReference<Boolean> sourceBlobsSupported = new AtomicReference<>();
+    private final AtomicReference<Boolean> batchStatusSupported = new AtomicReference<>();
+    private final Counter sourceBlobHits;
+    private final Counter sourceBlobMisses;
+    private final Counter sourceBlobBytesSkipped;
 
     public SandboxOrchestratorClient(
         RestClient sandboxOrchestratorRestClient,
         ObjectMapper objectMapper,
-        @Value("${hub.sandbox.orchestrator.jobs-path:/jobs}") String jobsPath
+        @Value("${hub.sandbox.orchestrator.jobs-path:/jobs}") String jobsPath,
+        @Value("${hub.sandbox.orchestrator.upload-transport:stream}") String uploadTransport,
+        @Value("${hub.sandbox.orchestrator.blobs-path:/blobs}") String blobsPath,
+        MeterRegistry meterRegistry
     ) {
         this.restClient = sandboxOrchestratorRestClient;
         this.objectMapper = objectMapper;
         this.jobsPath = jobsPath;
+        this.streamingUploadEnabled = !"base64".equalsIgnoreCase(Optional.ofNullable(uploadTransport).orElse("").trim());
+        this.blobsPath = blobsPath;
+        this.sourceBlobHits = Counter.builder("hub.sandbox.source.blobs")
+            .description("ZIPs de código-fonte já presentes no sandbox-orchestrator")
+            .tag("result", "hit")
+            .register(meterRegistry);
+        this.sourceBlobMisses = Counter.builder("hub.sandbox.source.blobs")
+            .description("ZIPs de código-fonte já presentes no sandbox-orchestrator")
+            .tag("result", "miss")
+            .register(meterRegistry);
+        this.sourceBlobBytesSkipped = Counter.builder("hub.sandbox.source.blobs.bytes.skipped")
+            .description("Bytes de ZIP não retransmitidos graças à deduplicação")
+            .baseUnit("bytes")
+            .register(meterRegistry);
     }
 
     public SandboxOrchestratorJobResponse createJob(SandboxJobRequest request) {
@@ -76,8 +111,39 @@ public class SandboxOrchestratorClient {
         Optional.ofNullable(request.model()).ifPresent(value -> body.put("model", value));
 
         Map<String, Object> upload = new HashMap<>();
-        upload.put("base64", request.base64Zip());
-        Optional.ofNullable(request.zipName()).ifPresent(value -> upload.put("filename", value));
+        UploadedSourceZip sourceZip = request.sourceZip();
+        if (sourceZip == null || sourceZip.content() == null) {
+            throw new IllegalArgumentException("ZIP de código-fonte ausente para o job " + request.jobId());
+        }
+        Optional.ofNullable(sourceZip.filename()).ifPresent(value -> upload.put("filename", value));
+        try {
+            return submitUploadJob(request, body, upload, sourceZip);
+        } catch (JobAlreadyRegisteredException ex) {
+            // Reentrega da outbox depois de um envio que chegou ao orquestrador: o job já
+            // existe lá, então vale o registro atual em vez de falhar com 409.
+            log.info("Job {} já registrado no sandbox-orchestrator; usando o estado atual", request.jobId());
+            SandboxOrchestratorJobResponse existing = getJob(request.jobId());
+            if (existing == null) {
+                throw new IllegalStateException("sandbox-orchestrator respondeu 409 para o job " + request.jobId()
+                    + " mas não o encontrou na consulta");
+            }
+            return existing;
+        }
+    }
+
+    private SandboxOrchestratorJobResponse submitUploadJob(SandboxUploadJobRequest request,
+                                                           Map<String, Object> body,
+                                                           Map<String, Object> upload,
+                                                           UploadedSourceZip sourceZip) {
+        if (offerSourceBlob(sourceZip)) {
+            upload.put("blobSha256", sourceZip.sha256());
+            upload.put("size", sourceZip.size());
+        } else if (stageSourceZip(request.jobId(), sourceZip)) {
+            upload.put("staged", true);
+            upload.put("size", sourceZip.size());
+        } else {
+            upload.put("base64", encodeSourceZip(sourceZip));
+        }
         body.put("uploadedZip", upload);
 
         if (request.problemFiles() != null && !request.problemFiles().isEmpty()) {
@@ -126,11 +192,193 @@ public class SandboxOrchestratorClient {
             .uri(jobsPath)
             .contentType(MediaType.APPLICATION_JSON)
             .body(body)
-            , "criar job upload", false, false);
+            , "criar job upload", false, false, true);
 
         return SandboxOrchestratorJobResponse.from(response);
     }
 
+    private boolean offerSourceBlob(UploadedSourceZip sourceZip) {
+        String sha256 = sourceZip.sha256();
+        if (sha256 == null || !streamingUploadEnabled || !isSourceBlobStoreSupported(sha256)) {
+            return false;
+        }
+
+        HttpStatusCode headStatus = restClient.head()
+            .uri(blobPath(sha256))
+            .exchange((request, response) -> {
+                discardBody(response);
+                return response.getStatusCode();
+            });
+        if (headStatus.is2xxSuccessful()) {
+            sourceBlobHits.increment();
+            sourceBlobBytesSkipped.increment(Math.max(sourceZip.size(), 0));
+            log.info("sandbox-orchestrator já possui o ZIP {}; reutilizando sem reenviar", sha256);
+            return true;
+        }
+        if (headStatus.value() != 404) {
+            log.warn("sandbox-orchestrator respondeu {} ao consultar o ZIP {}; enviando pelo fluxo por job", headStatus.value(), sha256);
+            return false;
+        }
+
+        log.info("Enviando ZIP {} ({} bytes) ao armazenamento de blobs do sandbox-orchestrator", sha256, sourceZip.size());
+        RestClient.RequestBodySpec requestSpec = restClient.put()
+            .uri(blobPath(sha256))
+            .contentType(ZIP_CONTENT_TYPE);
+        if (sourceZip.size() > 0) {
+            requestSpec = requestSpec.contentLength(sourceZip.size());
+        }
+        Boolean uploaded = requestSpec
+            .body(outputStream -> {
+                try (InputStream input = sourceZip.content().getInputStream()) {
+                    input.transferTo(outputStream);
+                }
+            })
+            .exchange((request, response) -> {
+                HttpStatusCode status = response.getStatusCode();
+                if (isUnsupportedTransportStatus(status)) {
+                    discardBody(response);
+                    sourceBlobsSupported.set(Boolean.FALSE);
+                    return false;
+                }
+                if (status.value() == 409) {
+                    discardBody(response);
+                    throw new JobAlreadyRegisteredException();
+                }
+                if (!status.is2xxSuccessful()) {
+                    MediaType contentType = response.getHeaders().getContentType();
+                    String body = readBodyForLog(response);
+                    logIfNeeded(status, contentType, body);
+                    throw new IllegalStateException(buildErrorMessage(status, contentType));
+                }
+                discardBody(response);
+                return true;
+            });
+        if (Boolean.TRUE.equals(uploaded)) {
+            sourceBlobMisses.increment();
+            return true;
+        }
+        return false;
+    }
+
+    private boolean isSourceBlobStoreSupported(String sha256) {
+        Boolean cached = sourceBlobsSupported.get();
+        if (cached != null) {
+            return cached;
+        }
+        boolean supported;
+        try {
+            supported = restClient.options()
+                .uri(blobPath(sha256))
+                .exchange((request, response) -> {
+                    HttpStatusCode status = response.getStatusCode();
+                    String allow = response.getHeaders().getFirst("Allow");
+                    discardBody(response);
+                    return status.is2xxSuccessful() && (allow == null || allow.toUpperCase().contains("HEAD"));
+                });
+        } catch (RuntimeException ex) {
+            log.warn("Não foi possível detectar o armazenamento de blobs no sandbox-orchestrator: {}", ex.getMessage());
+            return false;
+        }
+        sourceBlobsSupported.compareAndSet(null, supported);
+        if (!supported) {
+            log.info("sandbox-orchestrator não oferece armazenamento de blobs; ZIPs serão enviados por job");
+        }
+        return supported;
+    }
+
+    private String blobPath(String sha256) {
+        return blobsPath + "/" + sha256;
+    }
+
+    private boolean stageSourceZip(String jobId, UploadedSourceZip sourceZip) {
+        if (!streamingUploadEnabled || !isStreamingUploadSupported(jobId)) {
+            return false;
+        }
+
+        log.info("Transmitindo ZIP do job {} ({} bytes) para sandbox-orchestrator", jobId, sourceZip.size());
+        RestClient.RequestBodySpec requestSpec = restClient.put()
+            .uri(sourceZipPath(jobId))
+            .contentType(ZIP_CONTENT_TYPE);
+        if (sourceZip.size() > 0) {
+            requestSpec = requestSpec.contentLength(sourceZip.size());
+        }
+        Boolean staged = requestSpec
+            .body(outputStream -> {
+                try (InputStream input = sourceZip.content().getInputStream()) {
+                    input.transferTo(outputStream);
+                }
+            })
+            .exchange((request, response) -> {
+                HttpStatusCode status = response.getStatusCode();
+                if (isUnsupportedTransportStatus(status)) {
+                    discardBody(response);
+                    markStreamingUploadUnsupported(status);
+                    return false;
+                }
+                if (status.value() == 409) {
+                    discardBody(response);
+                    throw new JobAlreadyRegisteredException();
+                }
+                if (!status.is2xxSuccessful()) {
+                    MediaType contentType = response.getHeaders().getContentType();
+                    String body = readBodyForLog(response);
+                    logIfNeeded(status, contentType, body);
+                    throw new IllegalStateException(buildErrorMessage(status, contentType));
+                }
+                discardBody(response);
+                return true;
+            });
+        return Boolean.TRUE.equals(staged);
+    }
+
+    private boolean isStreamingUploadSupported(String jobId) {
+        Boolean cached = streamingUploadSupported.get();
+        if (cached != null) {
+            return cached;
+        }
+        boolean supported;
+        try {
+            supported = restClient.options()
+                .uri(sourceZipPath(jobId))
+                .exchange((request, response) -> {
+                    HttpStatusCode status = response.getStatusCode();
+                    String allow = response.getHeaders().getFirst("Allow");
+                    discardBody(response);
+                    return status.is2xxSuccessful() && (allow == null || allow.toUpperCase().contains("PUT"));
+                });
+        } catch (RuntimeException ex) {
+            log.warn("Não foi possível detectar suporte a upload binário no sandbox-orchestrator: {}", ex.getMessage());
+            return false;
+        }
+        streamingUploadSupported.compareAndSet(null, supported);
+        if (!supported) {
+            log.info("sandbox-orchestrator não aceita upload binário de ZIP; usando payload base64 em JSON");
+        }
+        return supported;
+    }
+
+    private void markStreamingUploadUnsupported(HttpStatusCode status) {
+        streamingUploadSupported.set(Boolean.FALSE);
+        log.warn("sandbox-orchestrator respondeu {} ao upload binário de ZIP; usando payload base64 em JSON", status.value());
+    }
+
+    private boolean isUnsupportedTransportStatus(HttpStatusCode status) {
+        int value = status.value();
+        return value == 404 || value == 405 || value == 415 || value == 501;
+    }
+
+    private String encodeSourceZip(UploadedSourceZip sourceZip) {
+        try (InputStream input = sourceZip.content().getInputStream()) {
+            return Base64.getEncoder().encodeToString(StreamUtils.copyToByteArray(input));
+        } catch (IOException ex) {
+            throw new IllegalStateException("Falha ao ler o arquivo ZIP enviado", ex);
+        }
+    }
+
+    private String sourceZipPath(String jobId) {
+        return jobsPath + "/" + jobId + "/source-zip";
+    }
+
     public SandboxOrchestratorJobResponse getJob(String jobId) {
         log.info("Consultando job {} no sandbox-orchestrator", jobId);
         JsonNode response = executeForJsonResponse(restClient.get()
@@ -139,7 +387,96 @@ public class SandboxOrchestratorClient {
         return SandboxOrchestratorJobResponse.from(response);
     }
 
-    public ResultZipDownload getResultZip(String jobId) {
+    // null quando o orquestrador não oferece POST /jobs/status; jobs desconhecidos ficam fora do mapa
+    public Map<String, SandboxJobStatus> getJobs(Collection<String> jobIds) {
+        if (jobIds.isEmpty()) {
+            return Map.of();
+        }
+        if (Boolean.FALSE.equals(batchStatusSupported.get())) {
+            return null;
+        }
+        JsonNode response = restClient.post()
+            .uri(jobsPath + "/status")
+            .contentType(MediaType.APPLICATION_JSON)
+            .body(Map.of("jobIds", jobIds))
+            .exchange((request, clientResponse) -> {
+                HttpStatusCode status = clientResponse.getStatusCode();
+                MediaType contentType = clientResponse.getHeaders().getContentType();
+                if (isUnsupportedTransportStatus(status)) {
+                    discardBody(clientResponse);
+                    return null;
+                }
+                if (!status.is2xxSuccessful() || !isJsonContentType(contentType)) {
+                    String body = readBodyForLog(clientResponse);
+                    logIfNeeded(status, contentType, body);
+                    throw new IllegalStateException(buildErrorMessage(status, contentType));
+                }
+                return readJsonTree(clientResponse, status, contentType);
+            });
+        if (response == null) {
+            if (batchStatusSupported.compareAndSet(null, Boolean.FALSE)) {
+                log.info("sandbox-orchestrator não oferece POST {}/status; jobs serão consultados um a um", jobsPath);
+            }
+            return null;
+        }
+        batchStatusSupported.set(Boolean.TRUE);
+        Map<String, SandboxJobStatus> statuses = new HashMap<>();
+        response.path("jobs").forEach(node -> {
+            SandboxJobStatus status = SandboxJobStatus.from(node);
+            if (status != null) {
+                statuses.put(status.jobId(), status);
+            }
+        });
+        log.debug("Status de {} de {} job(s) obtidos em lote no sandbox-orchestrator", statuses.size(), jobIds.size());
+        return statuses;
+    }
+
+    // leitura bloqueante: entrega as linhas na thread chamadora até o orquestrador encerrar
+    public LogStreamResult streamJobLogs(String jobId, long from, Consumer<SandboxLogLine> consumer) {
+        return restClient.get()
+            .uri(jobsPath + "/" + jobId + "/logs/stream?from=" + from)
+            .accept(MediaType.TEXT_EVENT_STREAM)
+            .exchange((request, response) -> {
+                HttpStatusCode status = response.getStatusCode();
+                if (isUnsupportedTransportStatus(status)) {
+                    discardBody(response);
+                    return LogStreamResult.NOT_FOUND;
+                }
+                MediaType contentType = response.getHeaders().getContentType();
+                if (!status.is2xxSuccessful()) {
+                    String body = readBodyForLog(response);
+                    logIfNeeded(status, contentType, body);
+                    throw new IllegalStateException(buildErrorMessage(status, contentType));
+                }
+                try (BufferedReader reader = new BufferedReader(new InputStreamReader(response.getBody(), StandardCharsets.UTF_8))) {
+                    String event = null;
+                    StringBuilder data = new StringBuilder();
+                    String line;
+                    while ((line = reader.readLine()) != null) {
+                        if (line.isEmpty()) {
+                            if ("end".equals(event)) {
+                                return LogStreamResult.ENDED;
+                            }
+                            if ("log".equals(event) && !data.isEmpty()) {
+                                SandboxLogLine logLine = SandboxLogLine.from(objectMapper.readTree(data.toString()));
+                                if (logLine != null) {
+                                    consumer.accept(logLine);
+                                }
+                            }
+                            event = null;
+                            data.setLength(0);
+                        } else if (line.startsWith("event:")) {
+                            event = line.substring(6).trim();
+                        } else if (line.startsWith("data:")) {
+                            data.append(line.substring(5).trim());
+                        }
+                    }
+                }
+                return LogStreamResult.DISCONNECTED;
+            });
+    }
+
+    public <T> T getResultZip(String jobId, ResultZipHandler<T> handler) {
         return restClient.get()
             .uri(jobsPath + "/" + jobId + "/result-zip")
             .exchange((request, response) -> {
@@ -167,9 +504,13 @@ public class SandboxOrchestratorClient {
                     if (body == null) {
                         return null;
                     }
-                    byte[] zipBytes = readAllBytes(body);
-                    String filename = response.getHeaders().getFirst("Content-Disposition");
-                    return new ResultZipDownload(zipBytes, extractFilename(filename));
+                    String contentDisposition = response.getHeaders().getFirst("Content-Disposition");
+                    return handler.handle(new ResultZipStream(
+                        body,
+                        extractFilename(contentDisposition),
+                        contentDisposition,
+                        response.getHeaders().getContentLength()
+                    ));
                 } catch (IOException ex) {
                     throw new IllegalStateException("Falha ao ler ZIP retornado pelo sandbox-orchestrator", ex);
                 }
@@ -180,10 +521,23 @@ public class SandboxOrchestratorClient {
                                             String operationDescription,
                                             boolean allowNotFound,
                                             boolean allowZipContent) {
+        return executeForJsonResponse(requestSpec, operationDescription, allowNotFound, allowZipContent, false);
+    }
+
+    private JsonNode executeForJsonResponse(RestClient.RequestHeadersSpec<?> requestSpec,
+                                            String operationDescription,
+                                            boolean allowNotFound,
+                                            boolean allowZipContent,
+                                            boolean conflictMeansRegistered) {
         return requestSpec.exchange((request, response) -> {
             HttpStatusCode status = response.getStatusCode();
             MediaType contentType = response.getHeaders().getContentType();
 
+            if (conflictMeansRegistered && status.value() == 409) {
+                discardBody(response);
+                throw new JobAlreadyRegisteredException();
+            }
+
             if (allowNotFound && status.value() == 404) {
                 log.warn("Job não encontrado no sandbox-orchestrator (operação: {})", operationDescription);
                 discardBody(response);
@@ -360,7 +714,58 @@ public class SandboxOrchestratorClient {
         return null;
     }
 
-    public record ResultZipDownload(byte[] bytes, String filename) {
+    public record ResultZipStream(
+        InputStream body,
+        String filename,
+        String contentDisposition,
+        long contentLength
+    ) {
+    }
+
+    @FunctionalInterface
+    public interface ResultZipHandler<T> {
+        T handle(ResultZipStream zip) throws IOException;
+    }
+
+    // 409 ao registrar um upload: o orquestrador já conhece o jobId.
+    private static final class JobAlreadyRegisteredException extends RuntimeException {
+        JobAlreadyRegisteredException() {
+            super(null, null, false, false);
+        }
+    }
+
+    public enum LogStreamResult {
+        ENDED,
+        DISCONNECTED,
+        NOT_FOUND
+    }
+
+    public record SandboxLogLine(long index, String kind, String line) {
+
+        public static SandboxLogLine from(JsonNode node) {
+            if (node == null || !node.hasNonNull("index")) {
+                return null;
+            }
+            return new SandboxLogLine(node.path("index").asLong(), node.path("kind").asText("info"), node.path("line").asText(""));
+        }
+    }
+
+    public record SandboxJobStatus(String jobId, String status, String updatedAt) {
+
+        public String version() {
+            return status + "@" + updatedAt;
+        }
+
+        public static SandboxJobStatus from(JsonNode node) {
+            if (node == null || !node.isObject()) {
+                return null;
+            }
+            String jobId = node.path("jobId").asText(null);
+            if (jobId == null || jobId.isBlank()) {
+                return null;
+            }
+            return new SandboxJobStatus(jobId, node.path("status").asText(null), node.path("updatedAt").asText(null));
+        }
     }
 
     public record SandboxOrchestratorJobResponse(
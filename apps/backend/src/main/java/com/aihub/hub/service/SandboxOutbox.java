@@ -0,0 +1,51 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.SandboxOutboxEntry;
+import com.aihub.hub.repository.SandboxOutboxRepository;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+@Component
+public class SandboxOutbox {
+
+    private final SandboxOutboxRepository outboxRepository;
+    private final ObjectMapper objectMapper;
+    private final ApplicationEventPublisher eventPublisher;
+
+    public SandboxOutbox(SandboxOutboxRepository outboxRepository,
+                         ObjectMapper objectMapper,
+                         ApplicationEventPublisher eventPublisher) {
+        this.outboxRepository = outboxRepository;
+        this.objectMapper = objectMapper;
+        this.eventPublisher = eventPublisher;
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public SandboxOutboxEntry enqueue(SandboxJobType jobType, String jobId, Object payload) {
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(payload);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Falha ao serializar payload do job " + jobId, ex);
+        }
+        SandboxOutboxEntry entry = outboxRepository.save(new SandboxOutboxEntry(jobType, jobId, json));
+        eventPublisher.publishEvent(new Enqueued(entry.getId()));
+        return entry;
+    }
+
+    public <T> T readPayload(SandboxOutboxEntry entry, Class<T> type) {
+        try {
+            return objectMapper.readValue(entry.getPayload(), type);
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("Payload inválido na outbox para o job " + entry.getJobId(), ex);
+        }
+    }
+
+    public record Enqueued(Long entryId) {
+    }
+}
@@ -0,0 +1,208 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.SandboxOutboxEntry;
+import com.aihub.hub.repository.SandboxOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+@Component
+public class SandboxOutboxDispatcher {
+
+    private static final Logger log = LoggerFactory.getLogger(SandboxOutboxDispatcher.class);
+    private static final int MAX_ERROR_LENGTH = 4000;
+
+    private final SandboxOutboxRepository outboxRepository;
+    private final Map<SandboxJobType, SandboxDispatchHandler> handlers = new EnumMap<>(SandboxJobType.class);
+    private final Clock clock;
+    private final int maxAttempts;
+    private final Duration initialBackoff;
+    private final Duration maxBackoff;
+    private final Duration lease;
+    private final int batchSize;
+    private final Duration retention;
+    private final Semaphore inFlight;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
+    private final AtomicBoolean polling = new AtomicBoolean(false);
+    private final AtomicBoolean pollRequested = new AtomicBoolean(false);
+
+    public SandboxOutboxDispatcher(SandboxOutboxRepository outboxRepository,
+                                   List<SandboxDispatchHandler> handlers,
+                                   Clock clock,
+                                   @Value("${hub.sandbox.outbox.max-attempts:8}") int maxAttempts,
+                                   @Value("${hub.sandbox.outbox.initial-backoff:PT2S}") Duration initialBackoff,
+                                   @Value("${hub.sandbox.outbox.max-backoff:PT5M}") Duration maxBackoff,
+                                   @Value("${hub.sandbox.outbox.lease:PT5M}") Duration lease,
+                                   @Value("${hub.sandbox.outbox.batch-size:50}") int batchSize,
+                                   @Value("${hub.sandbox.outbox.max-in-flight:16}") int maxInFlight,
+                                   @Value("${hub.sandbox.outbox.retention:P7D}") Duration retention) {
+        this.outboxRepository = outboxRepository;
+        handlers.forEach(handler -> this.handlers.put(handler.jobType(), handler));
+        this.clock = clock;
+        this.maxAttempts = Math.max(1, maxAttempts);
+        this.initialBackoff = initialBackoff;
+        this.maxBackoff = maxBackoff;
+        this.lease = lease;
+        this.batchSize = Math.max(1, batchSize);
+        this.inFlight = new Semaphore(Math.max(1, maxInFlight));
+        this.retention = retention;
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onEnqueued(SandboxOutbox.Enqueued event) {
+        executor.execute(this::poll);
+    }
+
+    @Scheduled(fixedDelayString = "${hub.sandbox.outbox.poll-interval-ms:2000}")
+    public void poll() {
+        pollRequested.set(true);
+        while (pollRequested.getAndSet(false)) {
+            if (!polling.compareAndSet(false, true)) {
+                // outro poll em andamento repetirá a leitura ao terminar
+                pollRequested.set(true);
+                return;
+            }
+            try {
+                dispatchDueEntries();
+            } finally {
+                polling.set(false);
+            }
+        }
+    }
+
+    // Entradas entregues só servem para diagnóstico; as com falha ficam até limpeza manual.
+    @Scheduled(fixedDelayString = "${hub.sandbox.outbox.purge-interval-ms:3600000}")
+    public void purgeDispatched() {
+        int removed = outboxRepository.deleteDispatchedBefore(
+            SandboxOutboxEntry.STATUS_DISPATCHED,
+            clock.instant().minus(retention)
+        );
+        if (removed > 0) {
+            log.info("{} entrada(s) entregue(s) removida(s) da outbox", removed);
+        }
+    }
+
+    private void dispatchDueEntries() {
+        Instant now = clock.instant();
+        List<SandboxOutboxEntry> due = outboxRepository.findDue(
+            SandboxOutboxEntry.STATUS_PENDING,
+            now,
+            PageRequest.of(0, batchSize)
+        );
+        for (SandboxOutboxEntry entry : due) {
+            if (!inFlight.tryAcquire()) {
+                return;
+            }
+            int attempts = entry.getAttempts();
+            int claimed = outboxRepository.claim(
+                entry.getId(),
+                SandboxOutboxEntry.STATUS_PENDING,
+                attempts,
+                now.plus(lease),
+                now
+            );
+            if (claimed == 0) {
+                inFlight.release();
+                continue;
+            }
+            entry.setAttempts(attempts + 1);
+            executor.execute(() -> {
+                try {
+                    deliver(entry);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    void deliver(SandboxOutboxEntry entry) {
+        SandboxDispatchHandler handler = handlers.get(entry.getJobType());
+        if (handler == null) {
+            fail(entry, null, "Nenhum handler registrado para jobs do tipo " + entry.getJobType());
+            return;
+        }
+
+        try {
+            handler.dispatch(entry);
+            entry.setStatus(SandboxOutboxEntry.STATUS_DISPATCHED);
+            entry.setDispatchedAt(clock.instant());
+            entry.setLastError(null);
+            entry.setUpdatedAt(clock.instant());
+            outboxRepository.save(entry);
+            log.info("Job {} ({}) entregue ao sandbox-orchestrator na tentativa {}", entry.getJobId(), entry.getJobType(), entry.getAttempts());
+        } catch (IllegalArgumentException ex) {
+            fail(entry, handler, describe(ex));
+        } catch (RuntimeException ex) {
+            String message = describe(ex);
+            if (entry.getAttempts() >= maxAttempts) {
+                fail(entry, handler, message);
+                return;
+            }
+            Duration backoff = backoffFor(entry.getAttempts());
+            log.warn(
+                "Falha ao entregar job {} ({}) na tentativa {}/{}; nova tentativa em {}: {}",
+                entry.getJobId(), entry.getJobType(), entry.getAttempts(), maxAttempts, backoff, message
+            );
+            entry.setLastError(truncate(message));
+            entry.setNextAttemptAt(clock.instant().plus(backoff));
+            entry.setUpdatedAt(clock.instant());
+            outboxRepository.save(entry);
+        }
+    }
+
+    private void fail(SandboxOutboxEntry entry, SandboxDispatchHandler handler, String message) {
+        log.error("Job {} ({}) descartado da outbox após {} tentativa(s): {}", entry.getJobId(), entry.getJobType(), entry.getAttempts(), message);
+        entry.setStatus(SandboxOutboxEntry.STATUS_FAILED);
+        entry.setLastError(truncate(message));
+        entry.setUpdatedAt(clock.instant());
+        outboxRepository.save(entry);
+        if (handler != null) {
+            try {
+                handler.markFailed(entry, message);
+            } catch (RuntimeException ex) {
+                log.error("Falha ao registrar erro do job {}: {}", entry.getJobId(), ex.getMessage());
+            }
+        }
+    }
+
+    Duration backoffFor(int attempts) {
+        long multiplier = 1L << Math.min(Math.max(attempts - 1, 0), 20);
+        Duration candidate = initialBackoff.multipliedBy(multiplier);
+        return candidate.compareTo(maxBackoff) > 0 ? maxBackoff : candidate;
+    }
+
+    private String describe(RuntimeException ex) {
+        return ex.getMessage() != null ? ex.getMessage() : ex.getClass().getSimpleName();
+    }
+
+    private String truncate(String message) {
+        if (message == null || message.length() <= MAX_ERROR_LENGTH) {
+            return message;
+        }
+        return message.substring(0, MAX_ERROR_LENGTH);
+    }
+
+    @PreDestroy
+    void shutdown() {
+        executor.shutdown();
+    }
+}
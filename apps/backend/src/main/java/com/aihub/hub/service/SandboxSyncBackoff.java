@@ -0,0 +1,34 @@
+package com.aihub.hub.service;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+public record SandboxSyncBackoff(Clock clock, Duration initial, Duration max, double ageFactor) {
+
+    public Next next(Instant createdAt, int misses, boolean changed, boolean terminal) {
+        if (terminal) {
+            return new Next(null, 0);
+        }
+        Instant now = clock.instant();
+        int nextMisses = changed ? 0 : misses + 1;
+        Duration delay = initial.multipliedBy(1L << Math.min(nextMisses, 20));
+        if (createdAt != null && createdAt.isBefore(now)) {
+            Duration ageFloor = Duration.ofMillis((long) (Duration.between(createdAt, now).toMillis() * ageFactor));
+            if (ageFloor.compareTo(delay) > 0) {
+                delay = ageFloor;
+            }
+        }
+        if (delay.compareTo(max) > 0) {
+            delay = max;
+        }
+        return new Next(now.plus(delay), nextMisses);
+    }
+
+    public static boolean isTerminal(String status) {
+        return "COMPLETED".equalsIgnoreCase(status) || "FAILED".equalsIgnoreCase(status);
+    }
+
+    public record Next(Instant at, int misses) {
+    }
+}
@@ -0,0 +1,4 @@
+package com.aihub.hub.service;
+
+public record SandboxSyncCandidate(Long id, String jobId, String syncVersion) {
+}
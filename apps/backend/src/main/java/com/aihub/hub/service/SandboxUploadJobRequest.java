@@ -5,8 +5,7 @@ import java.util.List;
 public record SandboxUploadJobRequest(
     String jobId,
     String taskDescription,
-    String base64Zip,
-    String zipName,
+    UploadedSourceZip sourceZip,
     String testCommand,
     String profile,
     String model,
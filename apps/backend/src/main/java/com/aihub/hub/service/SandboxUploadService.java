@@ -1,18 +1,39 @@
 package com.aihub.hub.service;
 
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.SandboxOutboxEntry;
 import com.aihub.hub.domain.UploadJobRecord;
 import com.aihub.hub.dto.CreateUploadJobRequest;
+import com.aihub.hub.dto.UploadDeltaManifestEntry;
+import com.aihub.hub.dto.UploadDeltaPlanView;
+import com.aihub.hub.dto.UploadJobSummaryView;
 import com.aihub.hub.dto.UploadJobView;
 import com.aihub.hub.repository.UploadJobRepository;
+import com.aihub.hub.storage.ArtifactStore;
+import com.aihub.hub.storage.StoredArtifact;
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskExecutor;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionOperations;
 import org.springframework.web.multipart.MultipartFile;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
 import java.math.BigDecimal;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.util.ArrayList;
 import java.util.Base64;
@@ -21,9 +42,11 @@ import java.util.Optional;
 import java.util.UUID;
 
 @Service
-public class SandboxUploadService {
+public class SandboxUploadService implements SandboxDispatchHandler, SandboxJobSynchronizer {
 
     private static final Logger log = LoggerFactory.getLogger(SandboxUploadService.class);
+    private static final int PROXY_BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_PAGE_SIZE = 200;
 
     private final SandboxOrchestratorClient sandboxOrchestratorClient;
     private final AuditService auditService;
@@ -31,99 +54,358 @@ public class SandboxUploadService {
     private final long maxInlineZipBytes;
     private final TokenCostCalculator tokenCostCalculator;
     private final String defaultUploadModel;
+    private final ArtifactStore artifactStore;
+    private final TaskExecutor cacheExecutor;
+    private final SandboxOutbox sandboxOutbox;
+    private final SourceZipPreprocessor sourceZipPreprocessor;
+    private final SourceZipDeltaAssembler sourceZipDeltaAssembler;
+    private final TransactionOperations transactionOperations;
+    private final ApplicationEventPublisher eventPublisher;
+    private final BudgetService budgetService;
+    private final String economyModel;
+    private final SandboxCredentialVault credentialVault;
 
     public SandboxUploadService(SandboxOrchestratorClient sandboxOrchestratorClient,
                                 AuditService auditService,
                                 UploadJobRepository uploadJobRepository,
+                                ArtifactStore artifactStore,
                                 @Value("${hub.upload-jobs.max-inline-zip-bytes:8388608}") long maxInlineZipBytes,
                                 TokenCostCalculator tokenCostCalculator,
                                 @Value("${hub.upload-jobs.default-model:}") String uploadJobsDefaultModel,
-                                @Value("${hub.codex.model:gpt-5-codex}") String codexDefaultModel) {
+                                @Value("${hub.codex.model:gpt-5-codex}") String codexDefaultModel,
+                                @Qualifier("applicationTaskExecutor") TaskExecutor cacheExecutor,
+                                SandboxOutbox sandboxOutbox,
+                                SourceZipPreprocessor sourceZipPreprocessor,
+                                SourceZipDeltaAssembler sourceZipDeltaAssembler,
+                                TransactionOperations transactionOperations,
+                                ApplicationEventPublisher eventPublisher,
+                                BudgetService budgetService,
+                                SandboxCredentialVault credentialVault,
+                                @Value("${hub.codex.economy-model:gpt-4.1-mini}") String economyModel) {
         this.sandboxOrchestratorClient = sandboxOrchestratorClient;
         this.auditService = auditService;
         this.uploadJobRepository = uploadJobRepository;
+        this.artifactStore = artifactStore;
+        this.cacheExecutor = cacheExecutor;
+        this.sandboxOutbox = sandboxOutbox;
+        this.sourceZipPreprocessor = sourceZipPreprocessor;
+        this.sourceZipDeltaAssembler = sourceZipDeltaAssembler;
+        this.transactionOperations = transactionOperations;
+        this.eventPublisher = eventPublisher;
+        this.budgetService = budgetService;
+        this.credentialVault = credentialVault;
+        this.economyModel = normalizeModel(economyModel);
         this.maxInlineZipBytes = Math.max(0L, maxInlineZipBytes);
         this.tokenCostCalculator = tokenCostCalculator;
         this.defaultUploadModel = resolveDefaultModel(uploadJobsDefaultModel, codexDefaultModel);
     }
 
-    @Transactional
     public UploadJobView createJob(String actor, CreateUploadJobRequest request) {
         MultipartFile sourceZip = request.getSourceZip();
         if (sourceZip == null || sourceZip.isEmpty()) {
             throw new IllegalArgumentException("Envie um arquivo ZIP válido");
         }
 
-        String jobId = UUID.randomUUID().toString();
-        String base64;
+        String baseJobId = normalizeBaseJobId(request.getBaseJobId());
+        // Orçamento antes de reescrever o ZIP: um job recusado não paga o processamento.
+        UploadAdmission admission = admit(actor, request, baseJobId);
+        // O ZIP é reescrito antes de abrir a transação para não segurar conexão durante o I/O.
+        SourceZipPreprocessor.PreprocessedSourceZip preprocessed = baseJobId != null
+            ? preprocessDeltaSourceZip(baseJobId, request.getSourceManifest(), sourceZip)
+            : preprocessSourceZip(sourceZip);
+        return registerJob(actor, request, admission, sourceZip.getOriginalFilename(), preprocessed, baseJobId);
+    }
+
+    public UploadJobView createJobFromFile(String actor, CreateUploadJobRequest request, String filename, Path sourceZip) {
+        if (request.getTaskDescription() == null || request.getTaskDescription().isBlank()) {
+            throw new IllegalArgumentException("taskDescription é obrigatório");
+        }
+        UploadAdmission admission = admit(actor, request, null);
+        SourceZipPreprocessor.PreprocessedSourceZip preprocessed;
         try {
-            base64 = Base64.getEncoder().encodeToString(sourceZip.getBytes());
-        } catch (IOException e) {
-            throw new IllegalStateException("Falha ao ler o arquivo ZIP enviado", e);
+            preprocessed = sourceZipPreprocessor.process(sourceZip);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Falha ao processar o ZIP enviado", ex);
         }
+        return registerJob(actor, request, admission, filename, preprocessed, null);
+    }
 
-        List<UploadedProblemFile> problemFiles = resolveProblemFiles(request.getProblemFiles());
-        UploadedApplicationDefaultCredential applicationDefaultCredentials =
-            resolveApplicationDefaultCredentials(request.getApplicationDefaultCredentials());
-        UploadedGitSshKey gitSshPrivateKey = resolveGitSshPrivateKey(request.getGitSshPrivateKey());
-        UploadedGitlabPersonalAccessToken gitlabPersonalAccessToken = resolveGitlabPersonalAccessToken(request.getGitlabPersonalAccessToken());
+    private UploadAdmission admit(String actor, CreateUploadJobRequest request, String baseJobId) {
+        String project = resolveProject(request.getProject(), baseJobId);
         String requestedModel = normalizeModel(request.getModel());
-        String resolvedModel = requestedModel != null ? requestedModel : defaultUploadModel;
+        String model = requestedModel != null ? requestedModel : defaultUploadModel;
+        String profile = request.getProfile();
+        if (budgetService.admit(actor, project, model) == BudgetService.Decision.DOWNGRADE && economyModel != null) {
+            profile = "ECONOMY";
+            model = economyModel;
+            budgetService.admit(actor, project, model);
+        }
+        return new UploadAdmission(profile, model, project);
+    }
 
-        SandboxUploadJobRequest payload = new SandboxUploadJobRequest(
-            jobId,
-            request.getTaskDescription(),
-            base64,
-            sourceZip.getOriginalFilename(),
-            request.getTestCommand(),
-            request.getProfile(),
-            resolvedModel,
-            "upload://" + jobId,
-            "upload",
-            problemFiles,
-            applicationDefaultCredentials,
-            gitSshPrivateKey,
-            gitlabPersonalAccessToken
-        );
+    private String resolveProject(String project, String baseJobId) {
+        if (project != null && !project.isBlank()) {
+            String repo = EnvironmentCoordinates.parse(project, null).project();
+            if (repo == null) {
+                throw new IllegalArgumentException("project deve estar no formato owner/nome");
+            }
+            return repo;
+        }
+        // reenvio parcial herda o projeto do job base
+        return baseJobId == null
+            ? null
+            : uploadJobRepository.findByJobId(baseJobId).map(UploadJobRecord::getProject).orElse(null);
+    }
 
+    private record UploadAdmission(String profile, String model, String project) {
+    }
+
+    private UploadJobView registerJob(String actor,
+                                      CreateUploadJobRequest request,
+                                      UploadAdmission admission,
+                                      String zipName,
+                                      SourceZipPreprocessor.PreprocessedSourceZip preprocessed,
+                                      String baseJobId) {
+        String jobId = UUID.randomUUID().toString();
+        StoredArtifact storedSourceZip = preprocessed.artifact();
+
+        List<UploadedProblemFile> problemFiles = resolveProblemFiles(request.getProblemFiles());
+        UploadCredentials credentials = new UploadCredentials(
+            resolveApplicationDefaultCredentials(request.getApplicationDefaultCredentials()),
+            resolveGitSshPrivateKey(request.getGitSshPrivateKey()),
+            resolveGitlabPersonalAccessToken(request.getGitlabPersonalAccessToken())
+        );
         UploadJobRecord record = new UploadJobRecord();
         record.setJobId(jobId);
         record.setTaskDescription(request.getTaskDescription());
         record.setTestCommand(request.getTestCommand());
-        record.setProfile(request.getProfile());
-        record.setModel(resolvedModel);
-        record.setZipName(sourceZip.getOriginalFilename());
+        record.setProfile(admission.profile());
+        record.setModel(admission.model());
+        record.setProject(admission.project());
+        record.setRequestedBy(actor);
+        record.setZipName(zipName);
+        record.setSourceManifestSha256(preprocessed.manifestSha256());
+        record.setSourceExcludedEntries(preprocessed.excludedEntries());
+        record.setSourceZipSha256(storedSourceZip.sha256());
+        record.setBaseJobId(baseJobId);
         record.setStatus("PENDING");
         record.setResultZipReady(Boolean.FALSE);
         record.setResultZipBase64(null);
         record.setUpdatedAt(Instant.now());
-        uploadJobRepository.save(record);
 
-        try {
-            SandboxOrchestratorClient.SandboxOrchestratorJobResponse response =
-                sandboxOrchestratorClient.createUploadJob(payload);
+        UploadDispatchPayload payload = new UploadDispatchPayload(
+            request.getTaskDescription(),
+            request.getTestCommand(),
+            admission.profile(),
+            admission.model(),
+            zipName,
+            storedSourceZip.sha256(),
+            storedSourceZip.size(),
+            problemFiles,
+            !credentials.isEmpty()
+        );
+        UploadJobRecord saved = transactionOperations.execute(status -> {
+            UploadJobRecord persisted = uploadJobRepository.save(record);
+            // Credenciais ficam cifradas fora do payload da outbox e são apagadas na entrega.
+            if (!credentials.isEmpty()) {
+                credentialVault.store(jobId, credentials);
+            }
+            sandboxOutbox.enqueue(SandboxJobType.UPLOAD, jobId, payload);
+            auditService.record(actor, "upload_job_created", zipName, null);
+            budgetService.reserve(SandboxJobType.UPLOAD, record.getId(), actor, record.getProject(), record.getModel());
+            return persisted;
+        });
+        return UploadJobView.from(saved != null ? saved : record);
+    }
+
+    @Override
+    public SandboxJobType jobType() {
+        return SandboxJobType.UPLOAD;
+    }
+
+    @Override
+    public void dispatch(SandboxOutboxEntry entry) {
+        String jobId = entry.getJobId();
+        UploadDispatchPayload payload = sandboxOutbox.readPayload(entry, UploadDispatchPayload.class);
+        UploadCredentials credentials = payload.hasCredentials()
+            ? credentialVault.load(jobId, UploadCredentials.class).orElseThrow(() -> new IllegalArgumentException(
+                "Credenciais enviadas com o job " + jobId + " expiraram antes da entrega; reenvie o job"))
+            : UploadCredentials.NONE;
+
+        String sourceZipSha256 = payload.sourceZipSha256();
+        if (artifactStore.find(sourceZipSha256).isEmpty()) {
+            throw new IllegalArgumentException("ZIP de código-fonte do job " + jobId + " não está mais armazenado");
+        }
+        SandboxUploadJobRequest request = new SandboxUploadJobRequest(
+            jobId,
+            payload.taskDescription(),
+            new UploadedSourceZip(
+                payload.sourceZipFilename(),
+                payload.sourceZipSize(),
+                sourceZipSha256,
+                () -> Channels.newInputStream(artifactStore.open(sourceZipSha256))
+            ),
+            payload.testCommand(),
+            payload.profile(),
+            payload.model(),
+            "upload://" + jobId,
+            "upload",
+            payload.problemFiles(),
+            credentials.applicationDefaultCredentials(),
+            credentials.gitSshPrivateKey(),
+            credentials.gitlabPersonalAccessToken()
+        );
+
+        SandboxOrchestratorClient.SandboxOrchestratorJobResponse response =
+            sandboxOrchestratorClient.createUploadJob(request);
+        if (payload.hasCredentials()) {
+            credentialVault.remove(jobId);
+        }
+
+        // Um callback que chegou antes desta resposta já trouxe estado mais novo; a
+        // reivindicação bloqueia a linha, então um callback concorrente espera o commit.
+        transactionOperations.executeWithoutResult(status -> {
+            boolean claimed = uploadJobRepository.claimDispatch(jobId) > 0;
+            UploadJobRecord record = uploadJobRepository.findByJobId(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Job não encontrado"));
+            if (!claimed || record.getSyncVersion() != null) {
+                log.info("Job {} já sincronizado por callback; resposta de criação ignorada", jobId);
+                return;
+            }
+            SandboxJobSnapshot before = SandboxJobSnapshot.of(record);
             populateFromOrchestrator(record, response);
-        } catch (RuntimeException ex) {
+            record.setNextSyncAt(isTerminalStatus(record.getStatus()) ? null : Instant.now());
+            record.setUpdatedAt(Instant.now());
+            uploadJobRepository.save(record);
+            publishChange(record, before);
+        });
+    }
+
+    @Override
+    public void markFailed(SandboxOutboxEntry entry, String message) {
+        credentialVault.remove(entry.getJobId());
+        uploadJobRepository.findByJobId(entry.getJobId()).ifPresent(record -> {
+            SandboxJobSnapshot before = SandboxJobSnapshot.of(record);
             record.setStatus("FAILED");
-            String message = ex.getMessage() != null
-                ? ex.getMessage()
-                : "Falha ao criar job no sandbox-orchestrator";
-            record.setError(message);
+            record.setError(message != null ? message : "Falha ao criar job no sandbox-orchestrator");
+            record.setNextSyncAt(null);
+            record.setUpdatedAt(Instant.now());
+            uploadJobRepository.save(record);
+            publishChange(record, before);
+        });
+    }
+
+    @Transactional(readOnly = true)
+    public UploadDeltaPlanView planDelta(String baseJobId, List<UploadDeltaManifestEntry> manifest) {
+        UploadJobRecord base = findDeltaBase(baseJobId);
+        SourceZipDeltaAssembler.DeltaPlan plan;
+        try {
+            plan = sourceZipDeltaAssembler.plan(
+                loadBaseManifest(base),
+                manifest,
+                () -> Channels.newInputStream(artifactStore.open(base.getSourceZipSha256()))
+            );
+        } catch (IOException ex) {
+            throw new IllegalStateException("Falha ao ler o código-fonte do job base " + baseJobId, ex);
         }
+        return new UploadDeltaPlanView(baseJobId, plan.missing(), plan.reused(), plan.removed());
+    }
 
-        record.setUpdatedAt(Instant.now());
-        uploadJobRepository.save(record);
+    private SourceZipPreprocessor.PreprocessedSourceZip preprocessDeltaSourceZip(String baseJobId,
+                                                                                 String manifestJson,
+                                                                                 MultipartFile partialZip) {
+        List<UploadDeltaManifestEntry> manifest = sourceZipDeltaAssembler.readClientManifest(manifestJson);
+        UploadJobRecord base = findDeltaBase(baseJobId);
+        Path spooled = null;
+        Path assembled = null;
+        try {
+            spooled = Files.createTempFile("upload-delta-", ".zip");
+            // transferTo(File) move o arquivo temporário do multipart quando possível, sem copiar
+            partialZip.transferTo(spooled.toFile());
+            assembled = Files.createTempFile("upload-assembled-", ".zip");
+            try (InputStream baseZip = Channels.newInputStream(artifactStore.open(base.getSourceZipSha256()))) {
+                sourceZipDeltaAssembler.assemble(
+                    baseZip,
+                    loadBaseManifest(base),
+                    manifest,
+                    spooled,
+                    assembled
+                );
+            }
+            log.info("Reenvio parcial sobre o job {}: {} arquivo(s) no manifesto, {} bytes recebidos",
+                baseJobId, manifest.size(), Files.size(spooled));
+            return sourceZipPreprocessor.process(assembled);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Falha ao reconstruir o ZIP a partir do job base", ex);
+        } finally {
+            if (spooled != null) {
+                deleteQuietly(spooled);
+            }
+            if (assembled != null) {
+                deleteQuietly(assembled);
+            }
+        }
+    }
 
-        auditService.record(actor, "upload_job_created", sourceZip.getOriginalFilename(), null);
-        return UploadJobView.from(record);
+    private UploadJobRecord findDeltaBase(String baseJobId) {
+        UploadJobRecord base = uploadJobRepository.findByJobId(baseJobId)
+            .orElseThrow(() -> new IllegalArgumentException("Job base não encontrado: " + baseJobId));
+        if (base.getSourceZipSha256() == null || base.getSourceManifestSha256() == null
+            || artifactStore.find(base.getSourceZipSha256()).isEmpty()
+            || artifactStore.find(base.getSourceManifestSha256()).isEmpty()) {
+            throw new IllegalArgumentException("Código-fonte do job " + baseJobId + " não está disponível para reenvio parcial; envie o ZIP completo");
+        }
+        return base;
+    }
+
+    private List<SourceZipPreprocessor.SourceManifestEntry> loadBaseManifest(UploadJobRecord base) {
+        try (InputStream input = Channels.newInputStream(artifactStore.open(base.getSourceManifestSha256()))) {
+            return sourceZipDeltaAssembler.readBaseManifest(input);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Falha ao ler o manifesto do job base " + base.getJobId(), ex);
+        }
+    }
+
+    private String normalizeBaseJobId(String baseJobId) {
+        if (baseJobId == null || baseJobId.isBlank()) {
+            return null;
+        }
+        return baseJobId.trim();
+    }
+
+    private SourceZipPreprocessor.PreprocessedSourceZip preprocessSourceZip(MultipartFile sourceZip) {
+        Path spooled = null;
+        try {
+            spooled = Files.createTempFile("upload-source-", ".zip");
+            sourceZip.transferTo(spooled.toFile());
+            return sourceZipPreprocessor.process(spooled);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Falha ao processar o ZIP enviado", ex);
+        } finally {
+            if (spooled != null) {
+                deleteQuietly(spooled);
+            }
+        }
     }
 
     @Transactional(readOnly = true)
-    public List<UploadJobView> listJobs() {
-        return uploadJobRepository.findTop50ByOrderByCreatedAtDesc()
-            .stream()
-            .map(UploadJobView::from)
-            .toList();
+    public UploadJobPage listJobs(String cursor, int limit) {
+        int pageSize = Math.min(Math.max(limit, 1), MAX_PAGE_SIZE);
+        Pageable page = PageRequest.of(0, pageSize + 1);
+        List<UploadJobSummaryView> rows;
+        if (cursor == null || cursor.isBlank()) {
+            rows = uploadJobRepository.findSummaries(page);
+        } else {
+            PageCursor position = PageCursor.decode(cursor);
+            rows = uploadJobRepository.findSummariesBefore(position.createdAt(), position.id(), page);
+        }
+
+        if (rows.size() <= pageSize) {
+            return new UploadJobPage(rows, null);
+        }
+        List<UploadJobSummaryView> items = rows.subList(0, pageSize);
+        UploadJobSummaryView last = items.get(items.size() - 1);
+        return new UploadJobPage(items, new PageCursor(last.createdAt(), last.id()).encode());
     }
 
     @Transactional
@@ -134,6 +416,7 @@ public class SandboxUploadService {
         if (refresh) {
             SandboxOrchestratorClient.SandboxOrchestratorJobResponse orchestratorResponse =
                 sandboxOrchestratorClient.getJob(jobId);
+            SandboxJobSnapshot before = SandboxJobSnapshot.of(record);
             if (orchestratorResponse == null) {
                 if (isTerminalStatus(record.getStatus())) {
                     record.setSummary("Job não encontrado no sandbox-orchestrator; exibindo último estado salvo localmente.");
@@ -144,43 +427,215 @@ public class SandboxUploadService {
             } else {
                 populateFromOrchestrator(record, orchestratorResponse);
             }
+            if (isTerminalStatus(record.getStatus())) {
+                record.setNextSyncAt(null);
+            }
             record.setUpdatedAt(Instant.now());
             uploadJobRepository.save(record);
+            publishChange(record, before);
         }
 
         return UploadJobView.from(record);
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public List<SandboxSyncCandidate> findDueForSync(Instant now, int limit) {
+        return uploadJobRepository.findDueForSync(now, PageRequest.of(0, limit));
+    }
+
+    @Override
+    public Optional<SandboxSyncCandidate> findSyncCandidate(String jobId) {
+        return uploadJobRepository.findSyncCandidates(jobId, PageRequest.of(0, 1)).stream().findFirst();
+    }
+
+    @Override
     @Transactional
-    public ResultZip downloadResultZip(String jobId) {
+    public boolean claimCallback(SandboxSyncCandidate candidate, long sequence) {
+        return uploadJobRepository.claimCallback(candidate.id(), sequence) > 0;
+    }
+
+    @Override
+    @Transactional
+    public void deferSync(SandboxSyncCandidate candidate, SandboxSyncBackoff backoff) {
+        uploadJobRepository.findById(candidate.id()).ifPresent(record -> {
+            SandboxSyncBackoff.Next next = backoff.next(record.getCreatedAt(), record.getSyncMisses(), false, false);
+            record.setNextSyncAt(next.at());
+            record.setSyncMisses(next.misses());
+        });
+    }
+
+    @Override
+    @Transactional
+    public void applySync(SandboxSyncCandidate candidate,
+                          SandboxOrchestratorClient.SandboxOrchestratorJobResponse response,
+                          String version,
+                          SandboxSyncBackoff backoff) {
+        uploadJobRepository.findById(candidate.id()).ifPresent(record -> {
+            SyncState before = SyncState.of(record);
+            SandboxJobSnapshot snapshot = SandboxJobSnapshot.of(record);
+            if (response == null) {
+                if (!isTerminalStatus(record.getStatus())) {
+                    record.setStatus("FAILED");
+                    record.setError("Job não encontrado no sandbox-orchestrator");
+                }
+            } else {
+                populateFromOrchestrator(record, response);
+            }
+            boolean changed = !before.equals(SyncState.of(record));
+            if (changed) {
+                record.setUpdatedAt(Instant.now());
+            }
+            SandboxSyncBackoff.Next next = backoff.next(
+                record.getCreatedAt(), record.getSyncMisses(), changed, isTerminalStatus(record.getStatus())
+            );
+            record.setNextSyncAt(next.at());
+            record.setSyncMisses(next.misses());
+            record.setSyncVersion(version);
+            publishChange(record, snapshot);
+        });
+    }
+
+    private void publishChange(UploadJobRecord record, SandboxJobSnapshot before) {
+        SandboxJobSnapshot after = SandboxJobSnapshot.of(record);
+        if (!before.equals(after)) {
+            eventPublisher.publishEvent(new SandboxJobChanged(SandboxJobType.UPLOAD, record.getJobId(), before, after));
+        }
+    }
+
+    @Transactional
+    public Optional<ResultZip> findStoredResultZip(String jobId) {
         UploadJobRecord record = uploadJobRepository.findByJobId(jobId)
             .orElseThrow(() -> new IllegalArgumentException("Job não encontrado"));
 
-        String inlineZip = sanitizeBase64(record.getResultZipBase64());
-        if (inlineZip == null) {
-            SandboxOrchestratorClient.ResultZipDownload remoteZip = sandboxOrchestratorClient.getResultZip(jobId);
-            if (remoteZip != null && remoteZip.bytes() != null && remoteZip.bytes().length > 0) {
-                inlineZip = Base64.getEncoder().encodeToString(remoteZip.bytes());
-                handleResultZip(record, inlineZip);
-                Optional.ofNullable(remoteZip.filename()).ifPresent(record::setResultZipFilename);
-                record.setUpdatedAt(Instant.now());
-                uploadJobRepository.save(record);
-                return new ResultZip(resolveZipFilename(record), remoteZip.bytes());
+        StoredArtifact artifact = resolveStoredResultZip(record);
+        if (artifact == null) {
+            return Optional.empty();
+        }
+        if (!artifact.sha256().equals(record.getResultZipSha256())) {
+            applyStoredResultZip(record, artifact);
+            record.setUpdatedAt(Instant.now());
+            uploadJobRepository.save(record);
+        }
+        return Optional.of(new ResultZip(resolveZipFilename(record), artifact));
+    }
+
+    public boolean proxyRemoteResultZip(String jobId, ResultZipProxyTarget target) {
+        Boolean proxied = sandboxOrchestratorClient.getResultZip(jobId, remoteZip -> {
+            OutputStream output = target.open(remoteZip);
+            ResultZipCache cache = ResultZipCache.open(remoteZip.contentLength(), maxInlineZipBytes);
+            try {
+                byte[] buffer = new byte[PROXY_BUFFER_SIZE];
+                int read;
+                while ((read = remoteZip.body().read(buffer)) != -1) {
+                    output.write(buffer, 0, read);
+                    cache.write(buffer, read);
+                }
+                output.flush();
+            } catch (IOException | RuntimeException ex) {
+                cache.discard();
+                throw ex;
             }
+            cache.complete().ifPresent(file -> cacheExecutor.execute(() -> cacheResultZip(jobId, remoteZip.filename(), file)));
+            return true;
+        });
+        return Boolean.TRUE.equals(proxied);
+    }
 
-            SandboxOrchestratorClient.SandboxOrchestratorJobResponse payload = sandboxOrchestratorClient.getJob(jobId);
-            if (payload == null || sanitizeBase64(payload.resultZipBase64()) == null) {
-                throw new IllegalStateException("ZIP ainda não está disponível para download");
+    public ResultZip storeRemoteResultZip(String jobId) {
+        if (uploadJobRepository.findByJobId(jobId).isEmpty()) {
+            throw new IllegalArgumentException("Job não encontrado");
+        }
+        // o download vai para o armazenamento fora de transação; o banco só é usado na gravação do registro
+        ResultZip remote = sandboxOrchestratorClient.getResultZip(jobId, remoteZip -> {
+            StoredArtifact artifact = artifactStore.put(remoteZip.body());
+            return new ResultZip(remoteZip.filename(), artifact);
+        });
+        if (remote == null) {
+            return storeResultZipFromJobPayload(jobId);
+        }
+        return recordResultZip(jobId, remote.filename(), remote.artifact());
+    }
+
+    public ResultZip storeResultZipFromJobPayload(String jobId) {
+        if (uploadJobRepository.findByJobId(jobId).isEmpty()) {
+            throw new IllegalArgumentException("Job não encontrado");
+        }
+        SandboxOrchestratorClient.SandboxOrchestratorJobResponse payload = sandboxOrchestratorClient.getJob(jobId);
+        String base64Zip = payload != null ? sanitizeBase64(payload.resultZipBase64()) : null;
+        if (base64Zip == null) {
+            throw new IllegalStateException("ZIP ainda não está disponível para download");
+        }
+        StoredArtifact artifact = storeBase64Zip(base64Zip);
+        return recordResultZip(jobId, payload.resultZipFilename(), artifact);
+    }
+
+    private ResultZip recordResultZip(String jobId, String filename, StoredArtifact artifact) {
+        UploadJobRecord updated = transactionOperations.execute(status -> {
+            UploadJobRecord record = uploadJobRepository.findByJobId(jobId)
+                .orElseThrow(() -> new IllegalArgumentException("Job não encontrado"));
+            if (filename != null) {
+                record.setResultZipFilename(filename);
             }
-            inlineZip = payload.resultZipBase64();
-            handleResultZip(record, inlineZip);
-            Optional.ofNullable(payload.resultZipFilename()).ifPresent(record::setResultZipFilename);
+            applyStoredResultZip(record, artifact);
             record.setUpdatedAt(Instant.now());
             uploadJobRepository.save(record);
+            return record;
+        });
+        return new ResultZip(resolveZipFilename(updated), artifact);
+    }
+
+    private void cacheResultZip(String jobId, String filename, Path file) {
+        try (InputStream input = Files.newInputStream(file)) {
+            StoredArtifact artifact = artifactStore.put(input);
+            uploadJobRepository.findByJobId(jobId).ifPresent(record -> {
+                if (filename != null && record.getResultZipFilename() == null) {
+                    record.setResultZipFilename(filename);
+                }
+                applyStoredResultZip(record, artifact);
+                record.setUpdatedAt(Instant.now());
+                uploadJobRepository.save(record);
+            });
+            log.info("ZIP do job {} ({} bytes) armazenado localmente após proxy", jobId, artifact.size());
+        } catch (IOException | RuntimeException ex) {
+            log.warn("Falha ao armazenar localmente o ZIP do job {}: {}", jobId, ex.getMessage());
+        } finally {
+            deleteQuietly(file);
         }
+    }
 
-        byte[] bytes = decodeZip(inlineZip);
-        return new ResultZip(resolveZipFilename(record), bytes);
+    private StoredArtifact resolveStoredResultZip(UploadJobRecord record) {
+        if (record.getResultZipSha256() != null) {
+            Optional<StoredArtifact> stored = artifactStore.find(record.getResultZipSha256());
+            if (stored.isPresent()) {
+                return stored.get();
+            }
+            log.warn("Artefato {} do job {} não encontrado no armazenamento local", record.getResultZipSha256(), record.getJobId());
+        }
+
+        String legacyInlineZip = sanitizeBase64(record.getResultZipBase64());
+        if (legacyInlineZip != null) {
+            return storeBase64Zip(legacyInlineZip);
+        }
+        return null;
+    }
+
+    private StoredArtifact storeBase64Zip(String base64Zip) {
+        try (InputStream input = Base64.getDecoder().wrap(
+            new ByteArrayInputStream(base64Zip.getBytes(StandardCharsets.US_ASCII)))) {
+            return artifactStore.put(input);
+        } catch (IllegalArgumentException ex) {
+            throw new IllegalStateException("ZIP retornado pelo sandbox está corrompido (base64 inválido)", ex);
+        } catch (IOException ex) {
+            throw new IllegalStateException("Falha ao gravar ZIP no armazenamento de artefatos", ex);
+        }
+    }
+
+    private void applyStoredResultZip(UploadJobRecord record, StoredArtifact artifact) {
+        record.setResultZipReady(Boolean.TRUE);
+        record.setResultZipSha256(artifact.sha256());
+        record.setResultZipSize(artifact.size());
+        record.setResultZipBase64(null);
     }
 
     private void populateFromOrchestrator(UploadJobRecord record, SandboxOrchestratorClient.SandboxOrchestratorJobResponse payload) {
@@ -188,6 +643,7 @@ public class SandboxUploadService {
             return;
         }
 
+        UsageSnapshot usageBefore = UsageSnapshot.of(record);
         Optional.ofNullable(payload.status()).ifPresent(record::setStatus);
         Optional.ofNullable(payload.summary()).ifPresent(record::setSummary);
         Optional.ofNullable(payload.error()).ifPresent(record::setError);
@@ -205,6 +661,8 @@ public class SandboxUploadService {
         } else if (!isCompleted(payload.status())) {
             record.setResultZipReady(Boolean.FALSE);
             record.setResultZipBase64(null);
+            record.setResultZipSha256(null);
+            record.setResultZipSize(null);
         }
         Optional.ofNullable(payload.resultZipFilename()).ifPresent(record::setResultZipFilename);
         Optional.ofNullable(payload.pullRequestUrl()).ifPresent(record::setPullRequestUrl);
@@ -217,6 +675,10 @@ public class SandboxUploadService {
         if (payload.changedFiles() != null && !payload.changedFiles().isEmpty()) {
             record.setChangedFiles(String.join("\n", payload.changedFiles()));
         }
+        UsageSnapshot usageAfter = UsageSnapshot.of(record);
+        if (!usageBefore.sameUsage(usageAfter)) {
+            eventPublisher.publishEvent(new UsageChanged(record.getId(), record.getRequestedBy(), usageBefore, usageAfter));
+        }
     }
 
     private void handleResultZip(UploadJobRecord record, String base64Zip) {
@@ -226,13 +688,18 @@ public class SandboxUploadService {
         record.setResultZipReady(Boolean.TRUE);
         long estimatedBytes = estimateBase64Bytes(base64Zip);
         if (shouldPersistInlineZip(estimatedBytes)) {
-            record.setResultZipBase64(base64Zip);
+            try {
+                applyStoredResultZip(record, storeBase64Zip(base64Zip));
+            } catch (IllegalStateException ex) {
+                log.warn("Falha ao armazenar ZIP do job {} localmente; download será via endpoint remoto: {}",
+                    record.getJobId(), ex.getMessage());
+            }
         } else {
             if (record.getResultZipBase64() != null) {
                 record.setResultZipBase64(null);
             }
             log.info(
-                "ZIP do job {} tem {} bytes (limite inline {}), mantendo apenas referência remota",
+                "ZIP do job {} tem {} bytes (limite local {}), mantendo apenas referência remota",
                 record.getJobId(),
                 estimatedBytes,
                 maxInlineZipBytes
@@ -258,14 +725,6 @@ public class SandboxUploadService {
         return ((length / 4) * 3) - padding;
     }
 
-    private byte[] decodeZip(String base64Zip) {
-        try {
-            return Base64.getDecoder().decode(base64Zip);
-        } catch (IllegalArgumentException ex) {
-            throw new IllegalStateException("ZIP retornado pelo sandbox está corrompido (base64 inválido)", ex);
-        }
-    }
-
     private String resolveZipFilename(UploadJobRecord record) {
         return Optional.ofNullable(record.getResultZipFilename())
             .filter(name -> !name.isBlank())
@@ -356,6 +815,7 @@ public class SandboxUploadService {
         }
         TokenCostBreakdown breakdown = tokenCostCalculator.calculate(
             model,
+            record.getCreatedAt(),
             record.getPromptTokens(),
             record.getCachedPromptTokens(),
             record.getCompletionTokens(),
@@ -442,5 +902,153 @@ public class SandboxUploadService {
         return files;
     }
 
-    public record ResultZip(String filename, byte[] bytes) { }
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ignored) {
+            // noop
+        }
+    }
+
+    public record ResultZip(String filename, StoredArtifact artifact) { }
+
+    private record SyncState(String status, String summary, String error, String patch, Boolean resultZipReady,
+                             String resultZipSha256, String pullRequestUrl, Integer totalTokens, BigDecimal cost,
+                             String changedFiles) {
+        static SyncState of(UploadJobRecord record) {
+            return new SyncState(
+                record.getStatus(),
+                record.getSummary(),
+                record.getError(),
+                record.getPatch(),
+                record.getResultZipReady(),
+                record.getResultZipSha256(),
+                record.getPullRequestUrl(),
+                record.getTotalTokens(),
+                record.getCost() != null ? record.getCost().stripTrailingZeros() : null,
+                record.getChangedFiles()
+            );
+        }
+    }
+
+    public record UploadDispatchPayload(
+        String taskDescription,
+        String testCommand,
+        String profile,
+        String model,
+        String sourceZipFilename,
+        String sourceZipSha256,
+        long sourceZipSize,
+        List<UploadedProblemFile> problemFiles,
+        boolean hasCredentials
+    ) { }
+
+    record UploadCredentials(
+        UploadedApplicationDefaultCredential applicationDefaultCredentials,
+        UploadedGitSshKey gitSshPrivateKey,
+        UploadedGitlabPersonalAccessToken gitlabPersonalAccessToken
+    ) {
+        static final UploadCredentials NONE = new UploadCredentials(null, null, null);
+
+        @JsonIgnore
+        boolean isEmpty() {
+            return applicationDefaultCredentials == null && gitSshPrivateKey == null && gitlabPersonalAccessToken == null;
+        }
+    }
+
+    public record UploadJobPage(List<UploadJobSummaryView> items, String nextCursor) { }
+
+    private record PageCursor(Instant createdAt, Long id) {
+
+        static PageCursor decode(String value) {
+            try {
+                String decoded = new String(Base64.getUrlDecoder().decode(value.trim()), StandardCharsets.UTF_8);
+                int separator = decoded.lastIndexOf('_');
+                return new PageCursor(
+                    Instant.parse(decoded.substring(0, separator)),
+                    Long.parseLong(decoded.substring(separator + 1))
+                );
+            } catch (RuntimeException ex) {
+                throw new IllegalArgumentException("Cursor de paginação inválido");
+            }
+        }
+
+        String encode() {
+            String raw = createdAt + "_" + id;
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+        }
+    }
+
+    @FunctionalInterface
+    public interface ResultZipProxyTarget {
+        OutputStream open(SandboxOrchestratorClient.ResultZipStream remoteZip) throws IOException;
+    }
+
+    private static final class ResultZipCache {
+
+        private final long limit;
+        private Path file;
+        private OutputStream output;
+        private long written;
+
+        private ResultZipCache(long limit, Path file, OutputStream output) {
+            this.limit = limit;
+            this.file = file;
+            this.output = output;
+        }
+
+        static ResultZipCache open(long contentLength, long limit) throws IOException {
+            if (limit <= 0 || contentLength > limit) {
+                return new ResultZipCache(limit, null, null);
+            }
+            Path file = Files.createTempFile("result-zip-", ".zip");
+            return new ResultZipCache(limit, file, Files.newOutputStream(file));
+        }
+
+        void write(byte[] buffer, int length) {
+            if (output == null) {
+                return;
+            }
+            written += length;
+            if (written > limit) {
+                discard();
+                return;
+            }
+            try {
+                output.write(buffer, 0, length);
+            } catch (IOException ex) {
+                log.warn("Falha ao gravar cópia local do ZIP durante proxy: {}", ex.getMessage());
+                discard();
+            }
+        }
+
+        Optional<Path> complete() {
+            if (output == null) {
+                return Optional.empty();
+            }
+            try {
+                output.close();
+                output = null;
+                return Optional.of(file);
+            } catch (IOException ex) {
+                discard();
+                return Optional.empty();
+            }
+        }
+
+        void discard() {
+            if (output != null) {
+                try {
+                    output.close();
+                } catch (IOException ignored) {
+                    // noop
+                }
+                output = null;
+            }
+            if (file != null) {
+                deleteQuietly(file);
+                file = null;
+            }
+        }
+    }
 }
@@ -0,0 +1,271 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.config.SourceZipPreprocessProperties;
+import com.aihub.hub.dto.UploadDeltaManifestEntry;
+import com.aihub.hub.service.SourceZipPreprocessor.GitignoreRules;
+import com.aihub.hub.service.SourceZipPreprocessor.SourceManifestEntry;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.core.io.InputStreamSource;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+@Component
+public class SourceZipDeltaAssembler {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int MAX_REPORTED_PATHS = 5;
+
+    private final ObjectMapper objectMapper;
+    private final SourceZipPreprocessProperties properties;
+    private final SourceZipExclusions exclusions;
+
+    public SourceZipDeltaAssembler(ObjectMapper objectMapper, SourceZipPreprocessProperties properties) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.exclusions = new SourceZipExclusions(properties);
+    }
+
+    public DeltaPlan plan(List<SourceManifestEntry> baseManifest,
+                          List<UploadDeltaManifestEntry> manifest,
+                          InputStreamSource baseZip) throws IOException {
+        Map<String, String> baseHashes = hashesByPath(baseManifest);
+        Map<String, String> declared = declaredByPath(manifest);
+        Map<String, String> wanted = withoutExcluded(declared, baseGitignores(baseZip, baseHashes, declared));
+        List<String> missing = new ArrayList<>();
+        int reused = 0;
+        for (Map.Entry<String, String> file : wanted.entrySet()) {
+            if (file.getValue().equals(baseHashes.get(file.getKey()))) {
+                reused++;
+            } else {
+                missing.add(file.getKey());
+            }
+        }
+        int removed = (int) baseHashes.keySet().stream().filter(path -> !wanted.containsKey(path)).count();
+        return new DeltaPlan(missing, reused, removed);
+    }
+
+    // entradas gravadas sem compressão: o SourceZipPreprocessor recomprime e aplica os limites
+    public void assemble(InputStream baseZip,
+                         List<SourceManifestEntry> baseManifest,
+                         List<UploadDeltaManifestEntry> manifest,
+                         Path overlayZip,
+                         Path target) throws IOException {
+        Map<String, String> baseHashes = hashesByPath(baseManifest);
+        Map<String, String> declared = declaredByPath(manifest);
+        Map<String, String> wanted = withoutExcluded(declared, List.of());
+        Set<String> written = new HashSet<>();
+        byte[] buffer = new byte[BUFFER_SIZE];
+        long[] totalBytes = {0};
+
+        try (OutputStream fileOutput = new BufferedOutputStream(Files.newOutputStream(target), BUFFER_SIZE);
+             ZipOutputStream output = new ZipOutputStream(fileOutput, StandardCharsets.UTF_8)) {
+            output.setLevel(Deflater.NO_COMPRESSION);
+
+            try (ZipFile overlay = new ZipFile(overlayZip.toFile(), StandardCharsets.UTF_8)) {
+                Enumeration<? extends ZipEntry> entries = overlay.entries();
+                while (entries.hasMoreElements()) {
+                    ZipEntry entry = entries.nextElement();
+                    if (entry.isDirectory()) {
+                        continue;
+                    }
+                    String path = SourceZipPreprocessor.normalizePath(entry.getName());
+                    String expected = wanted.get(path);
+                    if (expected == null && declared.containsKey(path)) {
+                        continue;
+                    }
+                    if (expected == null) {
+                        throw new IllegalArgumentException("Arquivo " + path + " enviado no ZIP parcial não consta no manifesto");
+                    }
+                    if (!written.add(path)) {
+                        throw new IllegalArgumentException("Arquivo " + path + " repetido no ZIP parcial");
+                    }
+                    try (InputStream input = overlay.getInputStream(entry)) {
+                        copyEntry(path, entry, input, expected, output, buffer, totalBytes);
+                    }
+                }
+            } catch (ZipException ex) {
+                throw new IllegalArgumentException("Arquivo enviado não é um ZIP válido", ex);
+            }
+
+            try (ZipInputStream base = new ZipInputStream(baseZip, StandardCharsets.UTF_8)) {
+                ZipEntry entry;
+                while ((entry = base.getNextEntry()) != null) {
+                    String path = entry.getName();
+                    String expected = wanted.get(path);
+                    if (entry.isDirectory() || expected == null || written.contains(path)
+                        || !expected.equals(baseHashes.get(path))) {
+                        continue;
+                    }
+                    copyEntry(path, entry, base, expected, output, buffer, totalBytes);
+                    written.add(path);
+                }
+            }
+        }
+
+        List<String> absent = wanted.keySet().stream().filter(path -> !written.contains(path)).toList();
+        if (!absent.isEmpty() && properties.isRespectGitignore()) {
+            // o plano não pede arquivos ignorados pelos .gitignore do resultado; o
+            // pré-processamento os descartaria de qualquer forma
+            List<GitignoreRules> gitignores;
+            try (ZipFile assembled = new ZipFile(target.toFile(), StandardCharsets.UTF_8)) {
+                gitignores = SourceZipPreprocessor.loadGitignores(assembled, Collections.list(assembled.entries()));
+            }
+            absent = absent.stream().filter(path -> !exclusions.excludes(path, declared.keySet(), gitignores)).toList();
+        }
+        if (!absent.isEmpty()) {
+            throw new IllegalArgumentException(
+                absent.size() + " arquivo(s) do manifesto não estão no ZIP parcial nem no job base: "
+                    + String.join(", ", absent.subList(0, Math.min(absent.size(), MAX_REPORTED_PATHS)))
+            );
+        }
+    }
+
+    public List<UploadDeltaManifestEntry> readClientManifest(String json) {
+        if (json == null || json.isBlank()) {
+            throw new IllegalArgumentException("sourceManifest é obrigatório quando baseJobId é informado");
+        }
+        try {
+            List<UploadDeltaManifestEntry> entries = objectMapper.readValue(json, new TypeReference<>() {});
+            return entries != null ? entries : List.of();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalArgumentException("sourceManifest inválido: " + ex.getOriginalMessage());
+        }
+    }
+
+    public List<SourceManifestEntry> readBaseManifest(InputStream json) throws IOException {
+        try {
+            List<SourceManifestEntry> entries = objectMapper.readValue(json, new TypeReference<>() {});
+            return entries != null ? entries : List.of();
+        } catch (JsonProcessingException ex) {
+            throw new IllegalStateException("Manifesto armazenado do job base está corrompido", ex);
+        }
+    }
+
+    private void copyEntry(String path,
+                           ZipEntry source,
+                           InputStream input,
+                           String expectedSha256,
+                           ZipOutputStream output,
+                           byte[] buffer,
+                           long[] totalBytes) throws IOException {
+        ZipEntry rewritten = new ZipEntry(path);
+        if (source.getLastModifiedTime() != null) {
+            rewritten.setLastModifiedTime(source.getLastModifiedTime());
+        }
+        output.putNextEntry(rewritten);
+        MessageDigest digest = SourceZipPreprocessor.newSha256();
+        int read;
+        while ((read = input.read(buffer)) != -1) {
+            totalBytes[0] += read;
+            if (totalBytes[0] > properties.getMaxTotalBytes()) {
+                throw new IllegalArgumentException("ZIP rejeitado: conteúdo descompactado excede " + properties.getMaxTotalBytes() + " bytes");
+            }
+            digest.update(buffer, 0, read);
+            output.write(buffer, 0, read);
+        }
+        output.closeEntry();
+        String actual = HexFormat.of().formatHex(digest.digest());
+        if (!actual.equals(expectedSha256)) {
+            throw new IllegalArgumentException("SHA-256 de " + path + " não confere com o manifesto");
+        }
+    }
+
+    private Map<String, String> hashesByPath(List<SourceManifestEntry> baseManifest) {
+        Map<String, String> hashes = new HashMap<>();
+        for (SourceManifestEntry entry : baseManifest) {
+            // manifestos anteriores à deduplicação não têm sha256: o arquivo precisa ser reenviado
+            if (entry.sha256() != null) {
+                hashes.put(entry.path(), entry.sha256());
+            }
+        }
+        return hashes;
+    }
+
+    private Map<String, String> declaredByPath(List<UploadDeltaManifestEntry> manifest) {
+        Map<String, String> wanted = new LinkedHashMap<>();
+        for (UploadDeltaManifestEntry entry : manifest) {
+            if (entry == null || entry.path() == null || entry.sha256() == null
+                || !entry.sha256().matches("[0-9a-f]{64}")) {
+                throw new IllegalArgumentException("Manifesto deve informar path e sha256 (hex minúsculo) de cada arquivo");
+            }
+            String path = SourceZipPreprocessor.normalizePath(entry.path());
+            if (wanted.put(path, entry.sha256()) != null) {
+                throw new IllegalArgumentException("Arquivo " + path + " repetido no manifesto");
+            }
+        }
+        if (wanted.isEmpty()) {
+            throw new IllegalArgumentException("Manifesto do reenvio está vazio");
+        }
+        return wanted;
+    }
+
+    // .gitignore que o cliente mantém iguais aos do job base: o conteúdo vem do ZIP base
+    // armazenado. Os alterados só são conhecidos depois do upload e valem na montagem.
+    private List<GitignoreRules> baseGitignores(InputStreamSource baseZip,
+                                                Map<String, String> baseHashes,
+                                                Map<String, String> declared) throws IOException {
+        if (!properties.isRespectGitignore()) {
+            return List.of();
+        }
+        Set<String> pending = new HashSet<>();
+        declared.forEach((path, sha256) -> {
+            if (SourceZipPreprocessor.isGitignore(path) && sha256.equals(baseHashes.get(path))) {
+                pending.add(path);
+            }
+        });
+        List<GitignoreRules> rules = new ArrayList<>();
+        if (pending.isEmpty()) {
+            return rules;
+        }
+        try (ZipInputStream base = new ZipInputStream(baseZip.getInputStream(), StandardCharsets.UTF_8)) {
+            ZipEntry entry;
+            while (!pending.isEmpty() && (entry = base.getNextEntry()) != null) {
+                if (!entry.isDirectory() && pending.remove(entry.getName())) {
+                    rules.add(SourceZipPreprocessor.parseGitignore(
+                        entry.getName(), base.readNBytes(SourceZipPreprocessor.MAX_GITIGNORE_BYTES)));
+                }
+            }
+        }
+        return SourceZipPreprocessor.byDepth(rules);
+    }
+
+    // Aplica ao manifesto do cliente as mesmas exclusões do pré-processamento, para não pedir de
+    // volta arquivos que o job base descartou.
+    private Map<String, String> withoutExcluded(Map<String, String> declared, List<GitignoreRules> gitignores) {
+        Map<String, String> wanted = new LinkedHashMap<>(declared);
+        wanted.keySet().removeIf(path -> exclusions.excludes(path, declared.keySet(), gitignores));
+        if (wanted.isEmpty()) {
+            throw new IllegalArgumentException("Manifesto do reenvio só contém arquivos excluídos do código-fonte");
+        }
+        return wanted;
+    }
+
+    public record DeltaPlan(List<String> missing, int reused, int removed) {
+    }
+}
@@ -0,0 +1,59 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.config.SourceZipPreprocessProperties;
+import com.aihub.hub.service.SourceZipPreprocessor.GitignoreRules;
+import org.springframework.util.AntPathMatcher;
+
+import java.util.List;
+import java.util.Set;
+
+// Regras de exclusão do ZIP enviado, compartilhadas pelo pré-processamento e pelo
+// plano de reenvio parcial para que os dois concordem sobre o que é código-fonte.
+final class SourceZipExclusions {
+
+    private final SourceZipPreprocessProperties properties;
+    private final AntPathMatcher matcher = new AntPathMatcher();
+
+    SourceZipExclusions(SourceZipPreprocessProperties properties) {
+        this.properties = properties;
+    }
+
+    boolean excludes(String path, Set<String> paths, List<GitignoreRules> gitignores) {
+        for (String pattern : properties.getExclude()) {
+            if (matcher.match(pattern, path)) {
+                return true;
+            }
+        }
+        if (isBuildOutput(path, paths)) {
+            return true;
+        }
+        Boolean ignored = null;
+        for (GitignoreRules rules : gitignores) {
+            Boolean decision = rules.evaluate(path, matcher);
+            if (decision != null) {
+                ignored = decision;
+            }
+        }
+        return Boolean.TRUE.equals(ignored);
+    }
+
+    // target/ e build/ só são saída de build ao lado do pom.xml/build.gradle que os gera;
+    // pacotes com esses nomes (ex.: src/main/java/.../build/) são mantidos.
+    private boolean isBuildOutput(String path, Set<String> paths) {
+        int end = path.indexOf('/');
+        while (end >= 0) {
+            int start = path.lastIndexOf('/', end - 1) + 1;
+            List<String> markers = properties.getBuildOutputs().get(path.substring(start, end));
+            if (markers != null) {
+                String parent = path.substring(0, start);
+                for (String marker : markers) {
+                    if (paths.contains(parent + marker)) {
+                        return true;
+                    }
+                }
+            }
+            end = path.indexOf('/', end + 1);
+        }
+        return false;
+    }
+}
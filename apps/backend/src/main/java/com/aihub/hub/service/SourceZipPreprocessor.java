@@ -0,0 +1,297 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.config.SourceZipPreprocessProperties;
+import com.aihub.hub.storage.ArtifactStore;
+import com.aihub.hub.storage.StoredArtifact;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.util.AntPathMatcher;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipException;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+@Component
+public class SourceZipPreprocessor {
+
+    private static final Logger log = LoggerFactory.getLogger(SourceZipPreprocessor.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    static final int MAX_GITIGNORE_BYTES = 64 * 1024;
+    // Arquivos pequenos comprimem muito (ex.: arquivos vazios ou repetitivos) sem representar risco.
+    private static final long RATIO_CHECK_THRESHOLD = 1024 * 1024;
+
+    private final ArtifactStore artifactStore;
+    private final ObjectMapper objectMapper;
+    private final SourceZipPreprocessProperties properties;
+    private final SourceZipExclusions exclusions;
+
+    public SourceZipPreprocessor(ArtifactStore artifactStore,
+                                 ObjectMapper objectMapper,
+                                 SourceZipPreprocessProperties properties) {
+        this.artifactStore = artifactStore;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.exclusions = new SourceZipExclusions(properties);
+    }
+
+    public PreprocessedSourceZip process(Path sourceZip) throws IOException {
+        if (!properties.isEnabled()) {
+            try (InputStream input = Files.newInputStream(sourceZip)) {
+                return new PreprocessedSourceZip(artifactStore.put(input), null, 0, 0);
+            }
+        }
+
+        List<ZipEntry> entries;
+        try (ZipFile zip = new ZipFile(sourceZip.toFile(), StandardCharsets.UTF_8)) {
+            entries = listEntries(zip);
+            List<GitignoreRules> gitignores = properties.isRespectGitignore()
+                ? loadGitignores(zip, entries)
+                : List.of();
+
+            Set<String> paths = filePaths(entries);
+
+            // O ZIP reescrito vai direto para o arquivo temporário do store (hash calculado na escrita).
+            Rewrite[] rewrite = new Rewrite[1];
+            StoredArtifact artifact = artifactStore.write(
+                output -> rewrite[0] = rewrite(zip, entries, paths, gitignores, output)
+            );
+            log.info(
+                "ZIP enviado reescrito: {} arquivo(s) mantido(s), {} removido(s), {} -> {} bytes",
+                rewrite[0].manifest().size(), rewrite[0].excluded(), Files.size(sourceZip), artifact.size()
+            );
+            // O manifesto vira artefato próprio: a linha do job guarda só o hash.
+            StoredArtifact manifest = artifactStore.write(output -> objectMapper.writeValue(output, rewrite[0].manifest()));
+            return new PreprocessedSourceZip(
+                artifact,
+                manifest.sha256(),
+                rewrite[0].manifest().size(),
+                rewrite[0].excluded()
+            );
+        } catch (ZipException ex) {
+            throw new IllegalArgumentException("Arquivo enviado não é um ZIP válido", ex);
+        }
+    }
+
+    private List<ZipEntry> listEntries(ZipFile zip) {
+        if (zip.size() > properties.getMaxEntries()) {
+            throw new IllegalArgumentException(
+                "ZIP rejeitado: " + zip.size() + " entradas excedem o limite de " + properties.getMaxEntries()
+            );
+        }
+        List<ZipEntry> entries = new ArrayList<>(zip.size());
+        Enumeration<? extends ZipEntry> enumeration = zip.entries();
+        while (enumeration.hasMoreElements()) {
+            entries.add(enumeration.nextElement());
+        }
+        return entries;
+    }
+
+    private Set<String> filePaths(List<ZipEntry> entries) {
+        Set<String> paths = new HashSet<>(entries.size() * 2);
+        for (ZipEntry entry : entries) {
+            if (!entry.isDirectory()) {
+                paths.add(normalizePath(entry.getName()));
+            }
+        }
+        return paths;
+    }
+
+    static List<GitignoreRules> loadGitignores(ZipFile zip, List<? extends ZipEntry> entries) throws IOException {
+        List<GitignoreRules> rules = new ArrayList<>();
+        for (ZipEntry entry : entries) {
+            String path = normalizePath(entry.getName());
+            if (entry.isDirectory() || !isGitignore(path)) {
+                continue;
+            }
+            if (entry.getSize() > MAX_GITIGNORE_BYTES) {
+                log.warn("Ignorando {} com {} bytes (acima do limite de leitura)", path, entry.getSize());
+                continue;
+            }
+            try (InputStream input = zip.getInputStream(entry)) {
+                rules.add(parseGitignore(path, input.readNBytes(MAX_GITIGNORE_BYTES)));
+            }
+        }
+        return byDepth(rules);
+    }
+
+    static boolean isGitignore(String path) {
+        return path.equals(".gitignore") || path.endsWith("/.gitignore");
+    }
+
+    static GitignoreRules parseGitignore(String path, byte[] content) {
+        String baseDir = path.substring(0, path.length() - ".gitignore".length());
+        return GitignoreRules.parse(baseDir, new String(content, StandardCharsets.UTF_8));
+    }
+
+    // Regras mais profundas são avaliadas por último para prevalecer, como no git.
+    static List<GitignoreRules> byDepth(List<GitignoreRules> rules) {
+        rules.sort((left, right) -> Integer.compare(left.baseDir().length(), right.baseDir().length()));
+        return rules;
+    }
+
+    private Rewrite rewrite(ZipFile zip,
+                            List<ZipEntry> entries,
+                            Set<String> paths,
+                            List<GitignoreRules> gitignores,
+                            OutputStream target) throws IOException {
+        List<SourceManifestEntry> manifest = new ArrayList<>();
+        int excluded = 0;
+        long totalBytes = 0;
+        byte[] buffer = new byte[BUFFER_SIZE];
+
+        try (ZipOutputStream output = new ZipOutputStream(new BufferedOutputStream(target, BUFFER_SIZE), StandardCharsets.UTF_8)) {
+            output.setLevel(properties.getCompressionLevel());
+            for (ZipEntry entry : entries) {
+                if (entry.isDirectory()) {
+                    continue;
+                }
+                String path = normalizePath(entry.getName());
+                if (exclusions.excludes(path, paths, gitignores)) {
+                    excluded++;
+                    continue;
+                }
+
+                ZipEntry rewritten = new ZipEntry(path);
+                if (entry.getLastModifiedTime() != null) {
+                    rewritten.setLastModifiedTime(entry.getLastModifiedTime());
+                }
+                output.putNextEntry(rewritten);
+
+                CRC32 crc = new CRC32();
+                MessageDigest digest = newSha256();
+                long entryBytes = 0;
+                long compressedSize = Math.max(entry.getCompressedSize(), 1L);
+                try (InputStream input = zip.getInputStream(entry)) {
+                    int read;
+                    while ((read = input.read(buffer)) != -1) {
+                        entryBytes += read;
+                        totalBytes += read;
+                        enforceLimits(path, entryBytes, compressedSize, totalBytes);
+                        crc.update(buffer, 0, read);
+                        digest.update(buffer, 0, read);
+                        output.write(buffer, 0, read);
+                    }
+                }
+                output.closeEntry();
+                manifest.add(new SourceManifestEntry(path, entryBytes, crc.getValue(), HexFormat.of().formatHex(digest.digest())));
+            }
+        }
+        return new Rewrite(Collections.unmodifiableList(manifest), excluded);
+    }
+
+    private void enforceLimits(String path, long entryBytes, long compressedSize, long totalBytes) {
+        if (entryBytes > properties.getMaxEntryBytes()) {
+            throw new IllegalArgumentException("ZIP rejeitado: " + path + " excede " + properties.getMaxEntryBytes() + " bytes descompactados");
+        }
+        if (totalBytes > properties.getMaxTotalBytes()) {
+            throw new IllegalArgumentException("ZIP rejeitado: conteúdo descompactado excede " + properties.getMaxTotalBytes() + " bytes");
+        }
+        if (entryBytes > RATIO_CHECK_THRESHOLD && entryBytes / compressedSize > properties.getMaxCompressionRatio()) {
+            throw new IllegalArgumentException("ZIP rejeitado: taxa de compressão suspeita em " + path);
+        }
+    }
+
+    static MessageDigest newSha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM", ex);
+        }
+    }
+
+    static String normalizePath(String name) {
+        String path = name.replace('\\', '/');
+        while (path.startsWith("./")) {
+            path = path.substring(2);
+        }
+        if (path.startsWith("/") || path.matches("^[A-Za-z]:/.*") || path.equals("..")
+            || path.startsWith("../") || path.contains("/../") || path.endsWith("/..")) {
+            throw new IllegalArgumentException("ZIP rejeitado: caminho inválido " + name);
+        }
+        return path;
+    }
+
+    public record PreprocessedSourceZip(StoredArtifact artifact, String manifestSha256, int keptEntries, int excludedEntries) {
+    }
+
+    public record SourceManifestEntry(String path, long size, long crc, String sha256) {
+    }
+
+    private record Rewrite(List<SourceManifestEntry> manifest, int excluded) {
+    }
+
+    // subconjunto do .gitignore: comentários, negação, padrões ancorados e restrição a diretórios
+    record GitignoreRules(String baseDir, List<Rule> rules) {
+
+        static GitignoreRules parse(String baseDir, String content) {
+            List<Rule> rules = new ArrayList<>();
+            for (String rawLine : content.split("\\r?\\n")) {
+                String line = rawLine.strip();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                boolean negated = line.startsWith("!");
+                if (negated) {
+                    line = line.substring(1);
+                }
+                boolean directoryOnly = line.endsWith("/");
+                if (directoryOnly) {
+                    line = line.substring(0, line.length() - 1);
+                }
+                if (line.isEmpty()) {
+                    continue;
+                }
+                boolean anchored = line.startsWith("/") || line.contains("/");
+                if (line.startsWith("/")) {
+                    line = line.substring(1);
+                }
+                String pattern = anchored ? baseDir + line : baseDir + "**/" + line;
+                rules.add(new Rule(pattern, negated, directoryOnly));
+            }
+            return new GitignoreRules(baseDir, rules);
+        }
+
+        Boolean evaluate(String path, AntPathMatcher matcher) {
+            if (!path.startsWith(baseDir)) {
+                return null;
+            }
+            Boolean decision = null;
+            for (Rule rule : rules) {
+                if (rule.matches(path, matcher)) {
+                    decision = !rule.negated();
+                }
+            }
+            return decision;
+        }
+    }
+
+    record Rule(String pattern, boolean negated, boolean directoryOnly) {
+
+        boolean matches(String path, AntPathMatcher matcher) {
+            if (matcher.match(pattern + "/**", path)) {
+                return true;
+            }
+            return !directoryOnly && matcher.match(pattern, path);
+        }
+    }
+}
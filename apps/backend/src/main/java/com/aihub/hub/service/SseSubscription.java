@@ -0,0 +1,111 @@
+package com.aihub.hub.service;
+
+import io.micrometer.core.instrument.Counter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+final class SseSubscription<T> {
+
+    private static final Logger log = LoggerFactory.getLogger(SseSubscription.class);
+
+    private final SseEmitter emitter;
+    private final int capacity;
+    private final Function<T, SseEmitter.SseEventBuilder> encoder;
+    private final Counter dropped;
+    private final ArrayDeque<T> buffer = new ArrayDeque<>();
+    private boolean closed;
+    private boolean finished;
+
+    SseSubscription(SseEmitter emitter, int capacity, Function<T, SseEmitter.SseEventBuilder> encoder, Counter dropped) {
+        this.emitter = emitter;
+        this.capacity = Math.max(1, capacity);
+        this.encoder = encoder;
+        this.dropped = dropped;
+        emitter.onCompletion(this::close);
+        emitter.onTimeout(this::close);
+        emitter.onError(error -> close());
+    }
+
+    synchronized void offer(T event) {
+        if (closed || finished) {
+            return;
+        }
+        if (buffer.size() >= capacity) {
+            buffer.pollFirst();
+            dropped.increment();
+        }
+        buffer.addLast(event);
+        notifyAll();
+    }
+
+    synchronized void offerAll(Collection<? extends T> events) {
+        events.forEach(this::offer);
+    }
+
+    synchronized void finish() {
+        finished = true;
+        notifyAll();
+    }
+
+    synchronized void close() {
+        closed = true;
+        notifyAll();
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    void drain(Duration heartbeat) {
+        try {
+            while (true) {
+                T event = take(heartbeat);
+                if (event != null) {
+                    emitter.send(encoder.apply(event));
+                } else if (isDone()) {
+                    emitter.complete();
+                    return;
+                } else {
+                    emitter.send(SseEmitter.event().comment("heartbeat"));
+                }
+            }
+        } catch (IOException | IllegalStateException ex) {
+            log.debug("Cliente SSE desconectado: {}", ex.getMessage());
+            emitter.completeWithError(ex);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            emitter.complete();
+        } finally {
+            close();
+        }
+    }
+
+    void complete() {
+        close();
+        emitter.complete();
+    }
+
+    private synchronized boolean isDone() {
+        return closed || (finished && buffer.isEmpty());
+    }
+
+    private synchronized T take(Duration wait) throws InterruptedException {
+        long deadline = System.nanoTime() + wait.toNanos();
+        while (buffer.isEmpty() && !closed && !finished) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return null;
+            }
+            TimeUnit.NANOSECONDS.timedWait(this, remaining);
+        }
+        return closed ? null : buffer.pollFirst();
+    }
+}
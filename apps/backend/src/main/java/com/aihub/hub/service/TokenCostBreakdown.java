@@ -7,9 +7,25 @@ public record TokenCostBreakdown(
     Integer cachedInputTokens,
     Integer outputTokens,
     Integer totalTokens,
-    BigDecimal inputCost,
-    BigDecimal cachedInputCost,
-    BigDecimal outputCost,
-    BigDecimal totalCost
+    long inputCostMicros,
+    long cachedInputCostMicros,
+    long outputCostMicros,
+    long totalCostMicros
 ) {
+
+    public BigDecimal inputCost() {
+        return ModelPricingSnapshot.fromMicros(inputCostMicros);
+    }
+
+    public BigDecimal cachedInputCost() {
+        return ModelPricingSnapshot.fromMicros(cachedInputCostMicros);
+    }
+
+    public BigDecimal outputCost() {
+        return ModelPricingSnapshot.fromMicros(outputCostMicros);
+    }
+
+    public BigDecimal totalCost() {
+        return ModelPricingSnapshot.fromMicros(totalCostMicros);
+    }
 }
@@ -1,16 +1,15 @@
 package com.aihub.hub.service;
 
-import com.aihub.hub.domain.CodexModelPricing;
 import org.springframework.stereotype.Component;
 
-import java.math.BigDecimal;
-import java.math.RoundingMode;
-import java.util.Optional;
+import java.math.BigInteger;
+import java.time.Instant;
 
 @Component
 public class TokenCostCalculator {
 
-    private static final BigDecimal MILLION = BigDecimal.valueOf(1_000_000L);
+    private static final long MILLION = 1_000_000L;
+    private static final long HALF_MILLION = MILLION / 2;
 
     private final CodexModelPricingService pricingService;
 
@@ -25,16 +24,32 @@ public class TokenCostCalculator {
         Integer outputTokens,
         Integer totalTokens
     ) {
-        Optional<CodexModelPricing> pricingOptional = pricingService.findByModelName(model);
-        if (pricingOptional.isEmpty()) {
-            return null;
-        }
+        return calculate(model, null, inputTokens, cachedInputTokens, outputTokens, totalTokens);
+    }
 
-        CodexModelPricing pricing = pricingOptional.get();
+    public TokenCostBreakdown calculate(
+        String model,
+        Instant at,
+        Integer inputTokens,
+        Integer cachedInputTokens,
+        Integer outputTokens,
+        Integer totalTokens
+    ) {
+        ModelPricingSnapshot.Price price = pricingService.snapshot().find(model, at);
+        return price != null ? breakdown(price, inputTokens, cachedInputTokens, outputTokens, totalTokens) : null;
+    }
+
+    static TokenCostBreakdown breakdown(
+        ModelPricingSnapshot.Price price,
+        Integer inputTokens,
+        Integer cachedInputTokens,
+        Integer outputTokens,
+        Integer totalTokens
+    ) {
 
-        int inputCount = Optional.ofNullable(inputTokens).orElse(0);
-        int cachedInputCount = Optional.ofNullable(cachedInputTokens).orElse(0);
-        int outputCount = Optional.ofNullable(outputTokens).orElse(0);
+        int inputCount = inputTokens != null ? inputTokens : 0;
+        int cachedInputCount = cachedInputTokens != null ? cachedInputTokens : 0;
+        int outputCount = outputTokens != null ? outputTokens : 0;
 
         Integer resolvedTotal = totalTokens;
         if (resolvedTotal == null) {
@@ -48,10 +63,9 @@ public class TokenCostCalculator {
             }
         }
 
-        BigDecimal inputCost = costForTokens(pricing.getInputPricePerMillion(), inputCount);
-        BigDecimal cachedInputCost = costForTokens(pricing.getCachedInputPricePerMillion(), cachedInputCount);
-        BigDecimal outputCost = costForTokens(pricing.getOutputPricePerMillion(), outputCount);
-        BigDecimal totalCost = inputCost.add(cachedInputCost).add(outputCost);
+        long inputCost = costMicros(price.inputMicrosPerMillion(), inputCount);
+        long cachedInputCost = costMicros(price.cachedInputMicrosPerMillion(), cachedInputCount);
+        long outputCost = costMicros(price.outputMicrosPerMillion(), outputCount);
 
         return new TokenCostBreakdown(
             inputCount,
@@ -61,16 +75,25 @@ public class TokenCostCalculator {
             inputCost,
             cachedInputCost,
             outputCost,
-            totalCost
+            inputCost + cachedInputCost + outputCost
         );
     }
 
-    private BigDecimal costForTokens(BigDecimal pricePerMillion, int tokens) {
-        if (pricePerMillion == null || tokens <= 0) {
-            return BigDecimal.ZERO.setScale(6, RoundingMode.HALF_UP);
+    // HALF_UP, como a divisão por milhão com 6 casas
+    static long costMicros(long microsPerMillion, int tokens) {
+        if (microsPerMillion <= 0 || tokens <= 0) {
+            return 0L;
+        }
+        long product;
+        try {
+            product = Math.multiplyExact(microsPerMillion, tokens);
+        } catch (ArithmeticException ex) {
+            return BigInteger.valueOf(microsPerMillion)
+                .multiply(BigInteger.valueOf(tokens))
+                .add(BigInteger.valueOf(HALF_MILLION))
+                .divide(BigInteger.valueOf(MILLION))
+                .longValueExact();
         }
-        return pricePerMillion
-            .multiply(BigDecimal.valueOf(tokens))
-            .divide(MILLION, 6, RoundingMode.HALF_UP);
+        return product / MILLION + (product % MILLION >= HALF_MILLION ? 1 : 0);
     }
 }
@@ -0,0 +1,380 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.dto.CreateUploadJobRequest;
+import com.aihub.hub.dto.CreateUploadSessionRequest;
+import com.aihub.hub.dto.UploadJobView;
+import com.aihub.hub.dto.UploadSessionView;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Service
+public class UploadSessionService {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadSessionService.class);
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final String PART_SUFFIX = ".part";
+
+    private final SandboxUploadService sandboxUploadService;
+    private final Clock clock;
+    private final Path directory;
+    private final long maxChunkBytes;
+    private final long maxSessionBytes;
+    private final Duration ttl;
+    private final Map<String, UploadSession> sessions = new ConcurrentHashMap<>();
+
+    public UploadSessionService(SandboxUploadService sandboxUploadService,
+                                Clock clock,
+                                @Value("${hub.upload-jobs.sessions.dir:${java.io.tmpdir}/hub-upload-sessions}") String directory,
+                                @Value("${hub.upload-jobs.sessions.max-chunk-bytes:16777216}") long maxChunkBytes,
+                                @Value("${hub.upload-jobs.sessions.max-session-bytes:2147483648}") long maxSessionBytes,
+                                @Value("${hub.upload-jobs.sessions.ttl:PT24H}") Duration ttl) {
+        this.sandboxUploadService = sandboxUploadService;
+        this.clock = clock;
+        this.directory = Paths.get(directory).toAbsolutePath().normalize();
+        this.maxChunkBytes = Math.max(1L, maxChunkBytes);
+        this.maxSessionBytes = Math.max(1L, maxSessionBytes);
+        this.ttl = ttl;
+    }
+
+    public UploadSessionView create(String actor, CreateUploadSessionRequest request) {
+        if (request.size() > maxSessionBytes) {
+            throw new IllegalArgumentException("Arquivo de " + request.size() + " bytes excede o limite de " + maxSessionBytes + " bytes");
+        }
+        String sessionId = UUID.randomUUID().toString();
+        Path file = directory.resolve(sessionId + PART_SUFFIX);
+        FileChannel channel;
+        try {
+            Files.createDirectories(directory);
+            try (RandomAccessFile preallocated = new RandomAccessFile(file.toFile(), "rw")) {
+                preallocated.setLength(request.size());
+            }
+            channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        } catch (IOException ex) {
+            deleteQuietly(file);
+            throw new IllegalStateException("Falha ao criar sessão de upload", ex);
+        }
+        UploadSession session = new UploadSession(sessionId, actor, request.filename(), request.size(), request.sha256(), file, channel, clock.instant());
+        sessions.put(sessionId, session);
+        log.info("Sessão de upload {} criada por {} para {} ({} bytes)", sessionId, actor, request.filename(), request.size());
+        return toView(session);
+    }
+
+    public UploadSessionView writeChunk(String actor, String sessionId, long offset, long contentLength, InputStream body) throws IOException {
+        UploadSession session = require(actor, sessionId);
+        if (offset < 0 || offset >= session.size) {
+            throw new IllegalArgumentException("offset fora do arquivo: " + offset);
+        }
+        long limit = Math.min(session.size - offset, maxChunkBytes);
+        if (contentLength > limit) {
+            throw new IllegalArgumentException("Parte de " + contentLength + " bytes excede o limite de " + limit + " bytes a partir do offset " + offset);
+        }
+
+        // cancelamento, expiração e complete esperam as gravações em andamento liberarem o arquivo
+        session.enterWriter();
+        try {
+            byte[] array = new byte[BUFFER_SIZE];
+            ByteBuffer buffer = ByteBuffer.wrap(array);
+            long position = offset;
+            long end = offset + limit;
+            int read;
+            while (position < end && (read = body.read(array, 0, (int) Math.min(array.length, end - position))) != -1) {
+                if (session.isClosed()) {
+                    throw new IllegalArgumentException("Sessão de upload " + sessionId + " foi encerrada durante o envio");
+                }
+                buffer.clear().limit(read);
+                while (buffer.hasRemaining()) {
+                    position += session.channel.write(buffer, position);
+                }
+            }
+            if (position == end && body.read() != -1) {
+                throw new IllegalArgumentException("Parte excede o limite de " + limit + " bytes a partir do offset " + offset);
+            }
+            if (position > offset) {
+                session.commit(offset, position);
+            }
+        } finally {
+            if (session.exitWriter()) {
+                release(session);
+            }
+        }
+        session.touch(clock.instant());
+        return toView(session);
+    }
+
+    public UploadSessionView status(String actor, String sessionId) {
+        return toView(require(actor, sessionId));
+    }
+
+    public UploadJobView complete(String actor, String sessionId, CreateUploadJobRequest request) {
+        UploadSession session = require(actor, sessionId);
+        session.beginComplete();
+        long committed = session.committedBytes();
+        if (committed < session.size) {
+            session.abortComplete();
+            throw new IllegalArgumentException("Upload incompleto: " + committed + " de " + session.size + " bytes recebidos");
+        }
+
+        try {
+            session.channel.force(false);
+            if (session.sha256 != null && !sha256(session.channel).equals(session.sha256)) {
+                // arquivo montado não confere: repetir o complete não adianta
+                discard(session);
+                throw new IllegalArgumentException("SHA-256 do arquivo montado não confere com o informado na sessão");
+            }
+        } catch (IOException ex) {
+            session.abortComplete();
+            throw new IllegalStateException("Falha ao finalizar sessão de upload", ex);
+        }
+
+        UploadJobView job;
+        try {
+            log.info("Sessão de upload {} completa ({} bytes); criando job", sessionId, session.size);
+            job = sandboxUploadService.createJobFromFile(actor, request, session.filename, session.file);
+        } catch (RuntimeException ex) {
+            // orçamento, banco ou validação: o arquivo segue completo e o complete pode ser repetido
+            session.abortComplete();
+            session.touch(clock.instant());
+            throw ex;
+        }
+        discard(session);
+        return job;
+    }
+
+    public void cancel(String actor, String sessionId) {
+        discard(require(actor, sessionId));
+    }
+
+    @Scheduled(fixedDelayString = "${hub.upload-jobs.sessions.sweep-interval-ms:600000}")
+    public void sweepExpired() {
+        Instant cutoff = clock.instant().minus(ttl);
+        sessions.values().stream()
+            .filter(session -> !session.isCompleting() && session.lastTouched().isBefore(cutoff))
+            .toList()
+            .forEach(session -> {
+                log.info("Sessão de upload {} expirada sem ser finalizada", session.id);
+                discard(session);
+            });
+
+        // Sessões vivem só em memória: arquivos de um processo anterior ficam órfãos.
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, "*" + PART_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                String sessionId = name.substring(0, name.length() - PART_SUFFIX.length());
+                if (!sessions.containsKey(sessionId) && Files.getLastModifiedTime(file).toInstant().isBefore(cutoff)) {
+                    deleteQuietly(file);
+                }
+            }
+        } catch (IOException ex) {
+            log.warn("Falha ao varrer sessões de upload órfãs em {}: {}", directory, ex.getMessage());
+        }
+    }
+
+    @PreDestroy
+    void shutdown() {
+        sessions.values().forEach(session -> closeQuietly(session.channel));
+    }
+
+    private UploadSession require(String actor, String sessionId) {
+        UploadSession session = sessions.get(sessionId);
+        if (session == null) {
+            throw new IllegalArgumentException("Sessão de upload não encontrada ou expirada: " + sessionId);
+        }
+        if (!session.actor.equals(actor)) {
+            throw new IllegalStateException("Sessão de upload pertence a outro usuário");
+        }
+        return session;
+    }
+
+    private void discard(UploadSession session) {
+        sessions.remove(session.id, session);
+        if (session.close()) {
+            release(session);
+        }
+    }
+
+    private void release(UploadSession session) {
+        closeQuietly(session.channel);
+        deleteQuietly(session.file);
+    }
+
+    private UploadSessionView toView(UploadSession session) {
+        List<UploadSessionView.Range> ranges = session.ranges();
+        long committed = ranges.stream().mapToLong(range -> range.end() - range.start()).sum();
+        return new UploadSessionView(
+            session.id,
+            session.filename,
+            session.size,
+            maxChunkBytes,
+            committed,
+            ranges,
+            committed == session.size,
+            session.lastTouched().plus(ttl)
+        );
+    }
+
+    private String sha256(FileChannel channel) throws IOException {
+        MessageDigest digest = SourceZipPreprocessor.newSha256();
+        ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+        long position = 0;
+        int read;
+        while ((read = channel.read(buffer, position)) != -1) {
+            buffer.flip();
+            digest.update(buffer);
+            buffer.clear();
+            position += read;
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    private void closeQuietly(FileChannel channel) {
+        try {
+            channel.close();
+        } catch (IOException ex) {
+            log.debug("Falha ao fechar arquivo da sessão de upload: {}", ex.getMessage());
+        }
+    }
+
+    private void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException ex) {
+            log.warn("Não foi possível remover {}: {}", file, ex.getMessage());
+        }
+    }
+
+    private static final class UploadSession {
+
+        private final String id;
+        private final String actor;
+        private final String filename;
+        private final long size;
+        private final String sha256;
+        private final Path file;
+        private final FileChannel channel;
+        private final TreeMap<Long, Long> committed = new TreeMap<>();
+        private int writers;
+        private boolean completing;
+        private boolean closed;
+        private volatile Instant lastTouched;
+
+        private UploadSession(String id, String actor, String filename, long size, String sha256,
+                              Path file, FileChannel channel, Instant createdAt) {
+            this.id = id;
+            this.actor = actor;
+            this.filename = filename;
+            this.size = size;
+            this.sha256 = sha256;
+            this.file = file;
+            this.channel = channel;
+            this.lastTouched = createdAt;
+        }
+
+        // funde [start, end) com intervalos sobrepostos ou adjacentes
+        synchronized void commit(long start, long end) {
+            Map.Entry<Long, Long> floor = committed.floorEntry(start);
+            if (floor != null && floor.getValue() >= start) {
+                start = floor.getKey();
+                end = Math.max(end, floor.getValue());
+                committed.remove(floor.getKey());
+            }
+            Map.Entry<Long, Long> next;
+            while ((next = committed.ceilingEntry(start)) != null && next.getKey() <= end) {
+                end = Math.max(end, next.getValue());
+                committed.remove(next.getKey());
+            }
+            committed.put(start, end);
+        }
+
+        synchronized long committedBytes() {
+            return committed.entrySet().stream().mapToLong(range -> range.getValue() - range.getKey()).sum();
+        }
+
+        synchronized List<UploadSessionView.Range> ranges() {
+            List<UploadSessionView.Range> ranges = new ArrayList<>(committed.size());
+            committed.forEach((start, end) -> ranges.add(new UploadSessionView.Range(start, end)));
+            return ranges;
+        }
+
+        synchronized void enterWriter() {
+            if (closed || completing) {
+                throw new IllegalArgumentException("Sessão " + id + " já está sendo finalizada");
+            }
+            writers++;
+        }
+
+        // true quando a sessão foi encerrada durante a gravação: o último writer libera o arquivo
+        synchronized boolean exitWriter() {
+            writers--;
+            return closed && writers == 0;
+        }
+
+        // o hash e a criação do job só leem o arquivo depois que nenhuma parte está sendo gravada
+        synchronized void beginComplete() {
+            if (closed || completing) {
+                throw new IllegalArgumentException("Sessão " + id + " já está sendo finalizada");
+            }
+            if (writers > 0) {
+                throw new IllegalArgumentException("Sessão " + id + " ainda tem partes sendo gravadas; finalize depois que terminarem");
+            }
+            completing = true;
+        }
+
+        synchronized void abortComplete() {
+            completing = false;
+        }
+
+        synchronized boolean isCompleting() {
+            return completing;
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+
+        // true quando o arquivo pode ser liberado já; com gravações em andamento fica para o último writer
+        synchronized boolean close() {
+            if (closed) {
+                return false;
+            }
+            closed = true;
+            return writers == 0;
+        }
+
+        void touch(Instant now) {
+            lastTouched = now;
+        }
+
+        Instant lastTouched() {
+            return lastTouched;
+        }
+    }
+}
@@ -0,0 +1,11 @@
+package com.aihub.hub.service;
+
+import org.springframework.core.io.InputStreamSource;
+
+public record UploadedSourceZip(
+    String filename,
+    long size,
+    String sha256,
+    InputStreamSource content
+) {
+}
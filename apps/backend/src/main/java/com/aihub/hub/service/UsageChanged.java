@@ -0,0 +1,8 @@
+package com.aihub.hub.service;
+
+public record UsageChanged(Long id, String requestedBy, UsageSnapshot before, UsageSnapshot after) {
+
+    public UsageChanged(Long id, UsageSnapshot before, UsageSnapshot after) {
+        this(id, null, before, after);
+    }
+}
@@ -0,0 +1,348 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.UsageRollup;
+import com.aihub.hub.domain.UsageRollupState;
+import com.aihub.hub.dto.UsageRollupView;
+import com.aihub.hub.repository.CodexRequestRepository;
+import com.aihub.hub.repository.UploadJobRepository;
+import com.aihub.hub.repository.UsageRollupRepository;
+import com.aihub.hub.repository.UsageRollupStateRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiFunction;
+
+@Service
+public class UsageRollupService {
+
+    private static final Logger log = LoggerFactory.getLogger(UsageRollupService.class);
+    private static final List<SandboxJobType> ROLLED_UP = List.of(SandboxJobType.CODEX, SandboxJobType.UPLOAD);
+
+    public enum Dimension {
+        DAY,
+        JOB_TYPE,
+        MODEL,
+        PROFILE,
+        PROJECT;
+
+        public static Set<Dimension> parse(String value) {
+            if (value == null || value.isBlank()) {
+                return EnumSet.of(DAY);
+            }
+            Set<Dimension> dimensions = EnumSet.noneOf(Dimension.class);
+            for (String part : value.split(",")) {
+                String normalized = part.trim().replaceAll("([a-z])([A-Z])", "$1_$2").replace('-', '_').toUpperCase(Locale.ROOT);
+                if (normalized.isEmpty()) {
+                    continue;
+                }
+                try {
+                    dimensions.add(Dimension.valueOf(normalized));
+                } catch (IllegalArgumentException ex) {
+                    throw new IllegalArgumentException(
+                        "groupBy inválido: " + part.trim() + " (use " + Arrays.toString(values()).toLowerCase(Locale.ROOT) + ")"
+                    );
+                }
+            }
+            return dimensions;
+        }
+    }
+
+    public record Filter(SandboxJobType jobType, String model, String profile, String project) {
+    }
+
+    private final UsageRollupRepository rollupRepository;
+    private final UsageRollupStateRepository stateRepository;
+    private final CodexRequestRepository codexRequestRepository;
+    private final UploadJobRepository uploadJobRepository;
+    private final TransactionTemplate transactions;
+    private final Clock clock;
+    private final int batchSize;
+    private final boolean rebuildIfEmpty;
+    private final Duration staleAfter;
+    private final AtomicBoolean rebuilding = new AtomicBoolean(false);
+
+    public UsageRollupService(UsageRollupRepository rollupRepository,
+                              UsageRollupStateRepository stateRepository,
+                              CodexRequestRepository codexRequestRepository,
+                              UploadJobRepository uploadJobRepository,
+                              PlatformTransactionManager transactionManager,
+                              Clock clock,
+                              @Value("${hub.usage.rollups.rebuild-batch-size:1000}") int batchSize,
+                              @Value("${hub.usage.rollups.rebuild-if-empty:true}") boolean rebuildIfEmpty,
+                              @Value("${hub.usage.rollups.rebuild-stale-after:PT10M}") Duration staleAfter) {
+        this.rollupRepository = rollupRepository;
+        this.stateRepository = stateRepository;
+        this.codexRequestRepository = codexRequestRepository;
+        this.uploadJobRepository = uploadJobRepository;
+        // Os eventos chegam depois do commit: cada incremento precisa da sua própria transação.
+        this.transactions = new TransactionTemplate(transactionManager);
+        this.transactions.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.clock = clock;
+        this.batchSize = Math.max(1, batchSize);
+        this.rebuildIfEmpty = rebuildIfEmpty;
+        this.staleAfter = staleAfter;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (rebuildIfEmpty && !rollupRepository.existsByGeneration(state().getActiveGeneration())) {
+            startRebuild();
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onUsageChanged(UsageChanged change) {
+        if (!ROLLED_UP.contains(change.after().jobType())) {
+            return;
+        }
+        try {
+            Map<UsageSnapshot, Totals> deltas = new HashMap<>();
+            merge(deltas, change);
+            for (long generation : generations(state(), change)) {
+                deltas.forEach((key, totals) -> add(generation, key, totals));
+            }
+        } catch (RuntimeException ex) {
+            log.warn("Falha ao atualizar rollup de uso do job {} ({}); reconstrua os rollups para corrigir: {}",
+                change.id(), change.after().jobType(), ex.getMessage());
+        }
+    }
+
+    public void applyAll(Collection<UsageChanged> changes) {
+        UsageRollupState state = state();
+        Map<Long, Map<UsageSnapshot, Totals>> deltas = new HashMap<>();
+        for (UsageChanged change : changes) {
+            if (!ROLLED_UP.contains(change.after().jobType())) {
+                continue;
+            }
+            for (long generation : generations(state, change)) {
+                merge(deltas.computeIfAbsent(generation, key -> new HashMap<>()), change);
+            }
+        }
+        deltas.forEach((generation, byKey) -> byKey.forEach((key, totals) -> add(generation, key, totals)));
+    }
+
+    public List<UsageRollupView> query(LocalDate from, LocalDate to, Set<Dimension> groupBy, Filter filter) {
+        if (from == null || to == null || from.isAfter(to)) {
+            throw new IllegalArgumentException("Informe um intervalo válido: from <= to");
+        }
+        return rollupRepository.aggregate(state().getActiveGeneration(), from, to, groupBy, filter);
+    }
+
+    // false quando esta ou outra instância já está reconstruindo
+    public boolean startRebuild() {
+        if (!rebuilding.compareAndSet(false, true)) {
+            return false;
+        }
+        Long generation;
+        try {
+            generation = claimRebuild();
+        } catch (RuntimeException ex) {
+            rebuilding.set(false);
+            throw ex;
+        }
+        if (generation == null) {
+            rebuilding.set(false);
+            return false;
+        }
+        Thread.ofVirtual().name("usage-rollup-rebuild").start(() -> rebuild(generation));
+        return true;
+    }
+
+    private Long claimRebuild() {
+        Instant now = clock.instant();
+        return transactions.execute(status -> {
+            if (stateRepository.claimRebuild(now, now.minus(staleAfter)) == 0) {
+                return null;
+            }
+            Long generation = state().getBuildingGeneration();
+            // sobras de uma reconstrução abandonada com o mesmo número de geração
+            rollupRepository.deleteGeneration(generation);
+            return generation;
+        });
+    }
+
+    // A geração nova só passa a ser servida quando completa; até lá consultas e orçamentos
+    // leem a ativa, que continua recebendo os incrementos.
+    void rebuild(long generation) {
+        try {
+            long codex = rebuild(generation, SandboxJobType.CODEX, codexRequestRepository::findUsageRows);
+            long uploads = rebuild(generation, SandboxJobType.UPLOAD, uploadJobRepository::findUsageRows);
+            Integer activated = transactions.execute(status -> stateRepository.activate(generation));
+            if (activated == null || activated == 0) {
+                throw new IllegalStateException("Reconstrução da geração " + generation + " foi assumida por outra instância");
+            }
+            transactions.executeWithoutResult(status -> rollupRepository.deleteOtherGenerations(generation));
+            log.info("Rollups de uso reconstruídos na geração {}: {} CodexRequest(s), {} upload job(s)",
+                generation, codex, uploads);
+        } catch (RuntimeException ex) {
+            log.error("Falha ao reconstruir rollups de uso; pode ser executada novamente", ex);
+            transactions.executeWithoutResult(status -> stateRepository.abandon(generation));
+        } finally {
+            rebuilding.set(false);
+        }
+    }
+
+    private long rebuild(long generation, SandboxJobType jobType, BiFunction<Long, Pageable, List<UsageRow>> reader) {
+        long total = 0;
+        long lastId = 0;
+        while (true) {
+            List<UsageRow> rows = reader.apply(lastId, PageRequest.of(0, batchSize));
+            // o cursor avança antes de somar o lote: mudanças em linhas já lidas passam a
+            // alimentar também a geração nova
+            advanceCursor(generation, jobType, rows.isEmpty() ? Long.MAX_VALUE : rows.get(rows.size() - 1).id());
+            if (rows.isEmpty()) {
+                return total;
+            }
+            lastId = rows.get(rows.size() - 1).id();
+            Map<UsageSnapshot, Totals> chunk = new HashMap<>();
+            for (UsageRow row : rows) {
+                UsageSnapshot snapshot = row.toSnapshot(jobType);
+                if (snapshot.hasUsage()) {
+                    chunk.merge(keyOf(snapshot), Totals.of(snapshot), Totals::plus);
+                }
+            }
+            chunk.forEach((key, totals) -> add(generation, key, totals));
+            total += rows.size();
+        }
+    }
+
+    private void advanceCursor(long generation, SandboxJobType jobType, long cursor) {
+        Instant now = clock.instant();
+        Integer updated = transactions.execute(status -> jobType == SandboxJobType.CODEX
+            ? stateRepository.advanceCodexCursor(generation, cursor, now)
+            : stateRepository.advanceUploadCursor(generation, cursor, now));
+        if (updated == null || updated == 0) {
+            throw new IllegalStateException("Reconstrução da geração " + generation + " foi assumida por outra instância");
+        }
+    }
+
+    private UsageRollupState state() {
+        return stateRepository.findById(UsageRollupState.ID)
+            .orElseThrow(() -> new IllegalStateException("usage_rollup_state sem a linha " + UsageRollupState.ID));
+    }
+
+    private void add(long generation, UsageSnapshot key, Totals totals) {
+        if (totals.isZero()) {
+            return;
+        }
+        Integer updated = transactions.execute(status -> increment(generation, key, totals));
+        if (updated != null && updated > 0) {
+            return;
+        }
+        try {
+            transactions.executeWithoutResult(status -> rollupRepository.save(totals.apply(
+                new UsageRollup(generation, key.day(), key.jobType(), key.model(), key.profile(), key.project())
+            )));
+        } catch (DataIntegrityViolationException ex) {
+            // outra thread criou a linha do rollup entre o update e o insert
+            transactions.execute(status -> increment(generation, key, totals));
+        }
+    }
+
+    private int increment(long generation, UsageSnapshot key, Totals totals) {
+        return rollupRepository.increment(
+            generation, key.day(), key.jobType(), key.model(), key.profile(), key.project(),
+            totals.requests(), totals.promptTokens(), totals.cachedPromptTokens(), totals.completionTokens(),
+            totals.totalTokens(), totals.cost(), clock.instant()
+        );
+    }
+
+    // A geração em construção só recebe mudanças de linhas que a reconstrução já leu; as
+    // demais entram nela com o valor final quando forem lidas.
+    private static List<Long> generations(UsageRollupState state, UsageChanged change) {
+        Long building = state.getBuildingGeneration();
+        Long cursor = state.cursor(change.after().jobType());
+        if (building != null && cursor != null && (change.id() == null || change.id() <= cursor)) {
+            return List.of(state.getActiveGeneration(), building);
+        }
+        return List.of(state.getActiveGeneration());
+    }
+
+    private static void merge(Map<UsageSnapshot, Totals> deltas, UsageChanged change) {
+        UsageSnapshot before = change.before();
+        UsageSnapshot after = change.after();
+        if (before.sameKey(after)) {
+            deltas.merge(keyOf(after), Totals.of(after).minus(Totals.of(before)), Totals::plus);
+        } else {
+            deltas.merge(keyOf(before), Totals.of(before).negate(), Totals::plus);
+            deltas.merge(keyOf(after), Totals.of(after), Totals::plus);
+        }
+    }
+
+    private static UsageSnapshot keyOf(UsageSnapshot snapshot) {
+        return new UsageSnapshot(snapshot.jobType(), snapshot.day(), snapshot.model(), snapshot.profile(),
+            snapshot.project(), 0, 0, 0, 0, BigDecimal.ZERO);
+    }
+
+    private record Totals(long requests,
+                          long promptTokens,
+                          long cachedPromptTokens,
+                          long completionTokens,
+                          long totalTokens,
+                          BigDecimal cost) {
+
+        static Totals of(UsageSnapshot snapshot) {
+            if (!snapshot.hasUsage()) {
+                return new Totals(0, 0, 0, 0, 0, BigDecimal.ZERO);
+            }
+            return new Totals(1, snapshot.promptTokens(), snapshot.cachedPromptTokens(), snapshot.completionTokens(),
+                snapshot.totalTokens(), snapshot.cost());
+        }
+
+        Totals plus(Totals other) {
+            return new Totals(requests + other.requests, promptTokens + other.promptTokens,
+                cachedPromptTokens + other.cachedPromptTokens, completionTokens + other.completionTokens,
+                totalTokens + other.totalTokens, cost.add(other.cost));
+        }
+
+        Totals negate() {
+            return new Totals(-requests, -promptTokens, -cachedPromptTokens, -completionTokens, -totalTokens, cost.negate());
+        }
+
+        Totals minus(Totals other) {
+            return plus(other.negate());
+        }
+
+        boolean isZero() {
+            return requests == 0 && promptTokens == 0 && cachedPromptTokens == 0 && completionTokens == 0
+                && totalTokens == 0 && cost.signum() == 0;
+        }
+
+        UsageRollup apply(UsageRollup rollup) {
+            rollup.setRequests(requests);
+            rollup.setPromptTokens(promptTokens);
+            rollup.setCachedPromptTokens(cachedPromptTokens);
+            rollup.setCompletionTokens(completionTokens);
+            rollup.setTotalTokens(totalTokens);
+            rollup.setCost(cost);
+            return rollup;
+        }
+    }
+}
@@ -0,0 +1,31 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.CodexIntegrationProfile;
+import com.aihub.hub.domain.SandboxJobType;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+public record UsageRow(Long id,
+                       Instant createdAt,
+                       String model,
+                       String profile,
+                       String project,
+                       Integer promptTokens,
+                       Integer cachedPromptTokens,
+                       Integer completionTokens,
+                       Integer totalTokens,
+                       BigDecimal cost) {
+
+    public UsageRow(Long id, Instant createdAt, String model, CodexIntegrationProfile profile, String project,
+                    Integer promptTokens, Integer cachedPromptTokens, Integer completionTokens, Integer totalTokens,
+                    BigDecimal cost) {
+        this(id, createdAt, model, profile != null ? profile.name() : null, project,
+            promptTokens, cachedPromptTokens, completionTokens, totalTokens, cost);
+    }
+
+    public UsageSnapshot toSnapshot(SandboxJobType jobType) {
+        return UsageSnapshot.of(jobType, createdAt, model, profile, project,
+            promptTokens, cachedPromptTokens, completionTokens, totalTokens, cost);
+    }
+}
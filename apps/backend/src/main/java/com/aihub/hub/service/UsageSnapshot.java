@@ -0,0 +1,98 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.CodexRequest;
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.UploadJobRecord;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+
+public record UsageSnapshot(SandboxJobType jobType,
+                            LocalDate day,
+                            String model,
+                            String profile,
+                            String project,
+                            long promptTokens,
+                            long cachedPromptTokens,
+                            long completionTokens,
+                            long totalTokens,
+                            BigDecimal cost) {
+
+    public static UsageSnapshot of(CodexRequest request) {
+        return of(
+            SandboxJobType.CODEX,
+            request.getCreatedAt(),
+            request.getModel(),
+            request.getProfile() != null ? request.getProfile().name() : null,
+            request.getRepoOwner() != null ? request.getRepoOwner() + "/" + request.getRepoName() : null,
+            request.getPromptTokens(),
+            request.getCachedPromptTokens(),
+            request.getCompletionTokens(),
+            request.getTotalTokens(),
+            request.getCost()
+        );
+    }
+
+    public static UsageSnapshot of(UploadJobRecord record) {
+        return of(
+            SandboxJobType.UPLOAD,
+            record.getCreatedAt(),
+            record.getModel(),
+            record.getProfile(),
+            record.getProject(),
+            record.getPromptTokens(),
+            record.getCachedPromptTokens(),
+            record.getCompletionTokens(),
+            record.getTotalTokens(),
+            record.getCost()
+        );
+    }
+
+    static UsageSnapshot of(SandboxJobType jobType, Instant createdAt, String model, String profile, String project,
+                            Integer promptTokens, Integer cachedPromptTokens, Integer completionTokens,
+                            Integer totalTokens, BigDecimal cost) {
+        return new UsageSnapshot(
+            jobType,
+            LocalDate.ofInstant(createdAt != null ? createdAt : Instant.EPOCH, ZoneOffset.UTC),
+            dimension(model, 200),
+            dimension(profile, 50),
+            dimension(project, 255),
+            promptTokens != null ? promptTokens : 0L,
+            cachedPromptTokens != null ? cachedPromptTokens : 0L,
+            completionTokens != null ? completionTokens : 0L,
+            totalTokens != null ? totalTokens : 0L,
+            cost != null ? cost : BigDecimal.ZERO
+        );
+    }
+
+    public boolean hasUsage() {
+        return promptTokens != 0 || cachedPromptTokens != 0 || completionTokens != 0 || totalTokens != 0
+            || cost.signum() != 0;
+    }
+
+    public boolean sameKey(UsageSnapshot other) {
+        return jobType == other.jobType
+            && day.equals(other.day)
+            && model.equals(other.model)
+            && profile.equals(other.profile)
+            && project.equals(other.project);
+    }
+
+    public boolean sameUsage(UsageSnapshot other) {
+        return promptTokens == other.promptTokens
+            && cachedPromptTokens == other.cachedPromptTokens
+            && completionTokens == other.completionTokens
+            && totalTokens == other.totalTokens
+            && cost.compareTo(other.cost) == 0;
+    }
+
+    private static String dimension(String value, int maxLength) {
+        if (value == null) {
+            return "";
+        }
+        String trimmed = value.trim();
+        return trimmed.length() > maxLength ? trimmed.substring(0, maxLength) : trimmed;
+    }
+}
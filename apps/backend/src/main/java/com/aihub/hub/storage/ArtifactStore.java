@@ -0,0 +1,32 @@
+package com.aihub.hub.storage;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.SeekableByteChannel;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+public interface ArtifactStore {
+
+    StoredArtifact put(InputStream content) throws IOException;
+
+    // Variante para conteúdo gerado na hora (ex.: ZIP reescrito): o writer grava direto
+    // no arquivo temporário do store, sem cópia intermediária.
+    StoredArtifact write(ContentWriter writer) throws IOException;
+
+    Optional<StoredArtifact> find(String sha256);
+
+    SeekableByteChannel open(String sha256) throws IOException;
+
+    boolean delete(String sha256) throws IOException;
+
+    // Hashes dos artefatos sem gravação desde cutoff; o chamador fecha o stream.
+    Stream<String> listOlderThan(Instant cutoff) throws IOException;
+
+    @FunctionalInterface
+    interface ContentWriter {
+        void writeTo(OutputStream output) throws IOException;
+    }
+}
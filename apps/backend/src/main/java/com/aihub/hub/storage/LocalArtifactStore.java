@@ -0,0 +1,161 @@
+package com.aihub.hub.storage;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Instant;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+@Component
+public class LocalArtifactStore implements ArtifactStore {
+
+    private static final Logger log = LoggerFactory.getLogger(LocalArtifactStore.class);
+    private static final Pattern SHA256_PATTERN = Pattern.compile("[0-9a-f]{64}");
+
+    private final Path root;
+    private final Path tmpDir;
+
+    public LocalArtifactStore(@Value("${hub.artifacts.root:./data/artifacts}") String root) {
+        this.root = Path.of(root).toAbsolutePath().normalize();
+        this.tmpDir = this.root.resolve("tmp");
+    }
+
+    @Override
+    public StoredArtifact put(InputStream content) throws IOException {
+        return write(content::transferTo);
+    }
+
+    @Override
+    public StoredArtifact write(ContentWriter writer) throws IOException {
+        Files.createDirectories(tmpDir);
+        Path tempFile = Files.createTempFile(tmpDir, "artifact-", ".part");
+        try {
+            MessageDigest digest = newDigest();
+            try (OutputStream output = new DigestOutputStream(
+                Files.newOutputStream(tempFile, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING), digest)) {
+                writer.writeTo(output);
+            }
+            long size = Files.size(tempFile);
+            String sha256 = HexFormat.of().formatHex(digest.digest());
+            Path target = resolve(sha256);
+            Files.createDirectories(target.getParent());
+            if (Files.exists(target)) {
+                Files.deleteIfExists(tempFile);
+                touch(target);
+                return new StoredArtifact(sha256, Files.size(target));
+            }
+            try {
+                Files.move(tempFile, target, StandardCopyOption.ATOMIC_MOVE);
+            } catch (FileAlreadyExistsException ex) {
+                Files.deleteIfExists(tempFile);
+                touch(target);
+            }
+            log.info("Artefato {} gravado em {} ({} bytes)", sha256, target, size);
+            return new StoredArtifact(sha256, size);
+        } catch (IOException | RuntimeException ex) {
+            Files.deleteIfExists(tempFile);
+            throw ex;
+        }
+    }
+
+    @Override
+    public Optional<StoredArtifact> find(String sha256) {
+        String normalized = normalize(sha256);
+        if (normalized == null) {
+            return Optional.empty();
+        }
+        Path path = resolve(normalized);
+        try {
+            if (!Files.isRegularFile(path)) {
+                return Optional.empty();
+            }
+            return Optional.of(new StoredArtifact(normalized, Files.size(path)));
+        } catch (IOException ex) {
+            log.warn("Falha ao consultar artefato {}: {}", normalized, ex.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    @Override
+    public SeekableByteChannel open(String sha256) throws IOException {
+        String normalized = normalize(sha256);
+        if (normalized == null) {
+            throw new IllegalArgumentException("Hash de artefato inválido: " + sha256);
+        }
+        return FileChannel.open(resolve(normalized), StandardOpenOption.READ);
+    }
+
+    @Override
+    public boolean delete(String sha256) throws IOException {
+        String normalized = normalize(sha256);
+        if (normalized == null) {
+            return false;
+        }
+        return Files.deleteIfExists(resolve(normalized));
+    }
+
+    @Override
+    public Stream<String> listOlderThan(Instant cutoff) throws IOException {
+        if (!Files.isDirectory(root)) {
+            return Stream.empty();
+        }
+        FileTime limit = FileTime.from(cutoff);
+        return Files.find(root, 3, (path, attributes) -> attributes.isRegularFile()
+                && !path.startsWith(tmpDir)
+                && SHA256_PATTERN.matcher(path.getFileName().toString()).matches()
+                && attributes.lastModifiedTime().compareTo(limit) < 0)
+            .map(path -> path.getFileName().toString());
+    }
+
+    // Conteúdo reaproveitado conta como gravação nova: a coleta de lixo usa o mtime
+    // como período de carência e não pode apagar um hash que acabou de ser reenviado.
+    private void touch(Path target) {
+        try {
+            Files.setLastModifiedTime(target, FileTime.from(Instant.now()));
+        } catch (IOException ex) {
+            log.warn("Falha ao atualizar mtime do artefato {}: {}", target, ex.getMessage());
+        }
+    }
+
+    private Path resolve(String sha256) {
+        return root.resolve(sha256.substring(0, 2))
+            .resolve(sha256.substring(2, 4))
+            .resolve(sha256);
+    }
+
+    private String normalize(String sha256) {
+        if (sha256 == null) {
+            return null;
+        }
+        String normalized = sha256.trim().toLowerCase(Locale.ROOT);
+        return SHA256_PATTERN.matcher(normalized).matches() ? normalized : null;
+    }
+
+    private MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("SHA-256 indisponível na JVM", ex);
+        }
+    }
+}
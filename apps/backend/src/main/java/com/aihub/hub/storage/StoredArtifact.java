@@ -0,0 +1,7 @@
+package com.aihub.hub.storage;
+
+public record StoredArtifact(
+    String sha256,
+    long size
+) {
+}
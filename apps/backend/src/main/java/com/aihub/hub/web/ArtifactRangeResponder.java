@@ -0,0 +1,225 @@
+package com.aihub.hub.web;
+
+import com.aihub.hub.storage.ArtifactStore;
+import com.aihub.hub.storage.StoredArtifact;
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpRange;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+class ArtifactRangeResponder {
+
+    private static final int COPY_BUFFER_SIZE = 64 * 1024;
+
+    private final ArtifactStore artifactStore;
+
+    ArtifactRangeResponder(ArtifactStore artifactStore) {
+        this.artifactStore = artifactStore;
+    }
+
+    ResponseEntity<StreamingResponseBody> respond(StoredArtifact artifact,
+                                                  String filename,
+                                                  String rangeHeader,
+                                                  String ifRangeHeader,
+                                                  String ifNoneMatchHeader) {
+        String etag = etagFor(artifact);
+        String disposition = ContentDisposition.attachment()
+            .filename(filename, StandardCharsets.UTF_8)
+            .build()
+            .toString();
+        long size = artifact.size();
+
+        if (matchesIfNoneMatch(ifNoneMatchHeader, etag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                .eTag(etag)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .build();
+        }
+
+        if (rangeHeader == null || rangeHeader.isBlank() || !rangeApplies(ifRangeHeader, etag)) {
+            return ResponseEntity.ok()
+                .eTag(etag)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition)
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(size)
+                .body(outputStream -> writeRegion(artifact.sha256(), 0, size, outputStream));
+        }
+
+        List<ByteRange> ranges = resolveRanges(rangeHeader, size);
+        if (ranges.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE)
+                .eTag(etag)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_RANGE, "bytes */" + size)
+                .build();
+        }
+
+        if (ranges.size() == 1) {
+            ByteRange range = ranges.get(0);
+            return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+                .eTag(etag)
+                .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+                .header(HttpHeaders.CONTENT_DISPOSITION, disposition)
+                .header(HttpHeaders.CONTENT_RANGE, range.contentRange(size))
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .contentLength(range.length())
+                .body(outputStream -> writeRegion(artifact.sha256(), range.start(), range.length(), outputStream));
+        }
+
+        String boundary = HexFormat.of().formatHex(randomBytes());
+        List<byte[]> partHeaders = new ArrayList<>(ranges.size());
+        long contentLength = 0;
+        for (ByteRange range : ranges) {
+            byte[] header = ("\r\n--" + boundary + "\r\n"
+                + HttpHeaders.CONTENT_TYPE + ": " + MediaType.APPLICATION_OCTET_STREAM_VALUE + "\r\n"
+                + HttpHeaders.CONTENT_RANGE + ": " + range.contentRange(size) + "\r\n\r\n")
+                .getBytes(StandardCharsets.US_ASCII);
+            partHeaders.add(header);
+            contentLength += header.length + range.length();
+        }
+        byte[] closing = ("\r\n--" + boundary + "--\r\n").getBytes(StandardCharsets.US_ASCII);
+        contentLength += closing.length;
+
+        return ResponseEntity.status(HttpStatus.PARTIAL_CONTENT)
+            .eTag(etag)
+            .header(HttpHeaders.ACCEPT_RANGES, "bytes")
+            .header(HttpHeaders.CONTENT_DISPOSITION, disposition)
+            .contentType(MediaType.parseMediaType("multipart/byteranges; boundary=" + boundary))
+            .contentLength(contentLength)
+            .body(outputStream -> {
+                for (int i = 0; i < ranges.size(); i++) {
+                    ByteRange range = ranges.get(i);
+                    outputStream.write(partHeaders.get(i));
+                    writeRegion(artifact.sha256(), range.start(), range.length(), outputStream);
+                }
+                outputStream.write(closing);
+            });
+    }
+
+    static String etagFor(StoredArtifact artifact) {
+        return "\"" + artifact.sha256() + "\"";
+    }
+
+    private boolean matchesIfNoneMatch(String ifNoneMatchHeader, String etag) {
+        if (ifNoneMatchHeader == null || ifNoneMatchHeader.isBlank()) {
+            return false;
+        }
+        for (String candidate : ifNoneMatchHeader.split(",")) {
+            String value = candidate.trim();
+            if (value.equals("*") || value.equals(etag) || value.equals("W/" + etag)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean rangeApplies(String ifRangeHeader, String etag) {
+        if (ifRangeHeader == null || ifRangeHeader.isBlank()) {
+            return true;
+        }
+        // If-Range exige comparação forte; datas não são aceitas porque não expomos Last-Modified.
+        return ifRangeHeader.trim().equals(etag);
+    }
+
+    private List<ByteRange> resolveRanges(String rangeHeader, long size) {
+        List<HttpRange> httpRanges;
+        try {
+            httpRanges = HttpRange.parseRanges(rangeHeader);
+        } catch (IllegalArgumentException ex) {
+            return List.of();
+        }
+
+        List<ByteRange> ranges = new ArrayList<>(httpRanges.size());
+        long total = 0;
+        for (HttpRange httpRange : httpRanges) {
+            try {
+                long start = httpRange.getRangeStart(size);
+                long end = httpRange.getRangeEnd(size);
+                if (start >= size || end < start) {
+                    continue;
+                }
+                ranges.add(new ByteRange(start, end));
+                total += end - start + 1;
+            } catch (IllegalArgumentException ignored) {
+                // faixa fora do artefato: descartada, as demais ainda podem ser atendidas
+            }
+        }
+        if (total > size) {
+            return List.of();
+        }
+        return ranges;
+    }
+
+    private void writeRegion(String sha256, long start, long length, OutputStream outputStream) throws IOException {
+        try (SeekableByteChannel channel = artifactStore.open(sha256)) {
+            WritableByteChannel target = Channels.newChannel(outputStream);
+            if (channel instanceof FileChannel fileChannel) {
+                long position = start;
+                long end = start + length;
+                while (position < end) {
+                    long transferred = fileChannel.transferTo(position, end - position, target);
+                    if (transferred <= 0) {
+                        throw new IOException("Artefato " + sha256 + " terminou antes do esperado");
+                    }
+                    position += transferred;
+                }
+                return;
+            }
+
+            channel.position(start);
+            ByteBuffer buffer = ByteBuffer.allocate(COPY_BUFFER_SIZE);
+            long remaining = length;
+            while (remaining > 0) {
+                buffer.clear();
+                if (remaining < buffer.capacity()) {
+                    buffer.limit((int) remaining);
+                }
+                int read = channel.read(buffer);
+                if (read < 0) {
+                    throw new IOException("Artefato " + sha256 + " terminou antes do esperado");
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    target.write(buffer);
+                }
+                remaining -= read;
+            }
+        }
+    }
+
+    private static byte[] randomBytes() {
+        byte[] bytes = new byte[12];
+        ThreadLocalRandom.current().nextBytes(bytes);
+        return bytes;
+    }
+
+    private record ByteRange(long start, long end) {
+
+        long length() {
+            return end - start + 1;
+        }
+
+        String contentRange(long size) {
+            return "bytes " + start + "-" + end + "/" + size;
+        }
+    }
+}
@@ -3,6 +3,9 @@ package com.aihub.hub.web;
 import com.aihub.hub.dto.CiFixJobView;
 import com.aihub.hub.dto.CreateCiFixJobRequest;
 import com.aihub.hub.service.CiFixJobService;
+import com.aihub.hub.service.IdempotencyService;
+import com.aihub.hub.service.RequestFingerprint;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
@@ -19,17 +22,28 @@ import org.springframework.web.bind.annotation.RestController;
 public class CiFixJobController {
 
     private final CiFixJobService ciFixJobService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
 
-    public CiFixJobController(CiFixJobService ciFixJobService) {
+    public CiFixJobController(CiFixJobService ciFixJobService,
+                              IdempotencyService idempotencyService,
+                              ObjectMapper objectMapper) {
         this.ciFixJobService = ciFixJobService;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
-    public ResponseEntity<CiFixJobView> createJob(@RequestHeader(value = "X-Role", defaultValue = "viewer") String role,
-                                                  @RequestHeader(value = "X-User", defaultValue = "unknown") String actor,
-                                                  @Valid @RequestBody CreateCiFixJobRequest request) {
+    public ResponseEntity<?> createJob(@RequestHeader(value = "X-Role", defaultValue = "viewer") String role,
+                                       @RequestHeader(value = "X-User", defaultValue = "unknown") String actor,
+                                       @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+                                       @Valid @RequestBody CreateCiFixJobRequest request) {
         assertOwner(role);
-        return ResponseEntity.ok(ciFixJobService.createJob(actor, request));
+        String fingerprint = idempotencyKey == null
+            ? null
+            : new RequestFingerprint().add(actor).addJson(objectMapper, request).hex();
+        return idempotencyService.execute("cifix-job", idempotencyKey, fingerprint,
+            () -> ResponseEntity.accepted().body(ciFixJobService.createJob(actor, request)));
     }
 
     @GetMapping("/{jobId}")
@@ -1,34 +1,85 @@
 package com.aihub.hub.web;
 
 import com.aihub.hub.domain.CodexRequest;
+import com.aihub.hub.dto.CreateCodexBatchRequest;
 import com.aihub.hub.dto.CreateCodexRequest;
+import com.aihub.hub.service.CodexBatchService;
 import com.aihub.hub.service.CodexRequestService;
+import com.aihub.hub.service.IdempotencyService;
+import com.aihub.hub.service.RequestFingerprint;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.List;
 
 @RestController
-@RequestMapping("/api/codex/requests")
+@RequestMapping("/api/codex")
 public class CodexController {
 
     private final CodexRequestService codexRequestService;
+    private final CodexBatchService codexBatchService;
+    private final IdempotencyService idempotencyService;
+    private final ObjectMapper objectMapper;
 
-    public CodexController(CodexRequestService codexRequestService) {
+    public CodexController(CodexRequestService codexRequestService,
+                           CodexBatchService codexBatchService,
+                           IdempotencyService idempotencyService,
+                           ObjectMapper objectMapper) {
         this.codexRequestService = codexRequestService;
+        this.codexBatchService = codexBatchService;
+        this.idempotencyService = idempotencyService;
+        this.objectMapper = objectMapper;
     }
 
-    @GetMapping
-    public List<CodexRequest> list() {
-        return codexRequestService.list();
+    @GetMapping("/requests")
+    public List<CodexRequest> list(
+        @RequestParam(value = "repo", required = false) String repo,
+        @RequestParam(value = "prNumber", required = false) Integer prNumber
+    ) {
+        return codexRequestService.list(repo, prNumber);
     }
 
-    @PostMapping
-    public CodexRequest create(@Valid @RequestBody CreateCodexRequest request) {
-        return codexRequestService.create(request);
+    @PostMapping("/requests")
+    public ResponseEntity<?> create(
+        @RequestHeader(value = "X-User", defaultValue = "unknown") String actor,
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
+        @Valid @RequestBody CreateCodexRequest request
+    ) {
+        String fingerprint = idempotencyKey == null
+            ? null
+            : new RequestFingerprint().add(actor).addJson(objectMapper, request).hex();
+        return idempotencyService.execute("codex-request", idempotencyKey, fingerprint,
+            () -> ResponseEntity.accepted().body(codexRequestService.create(actor, request)));
+    }
+
+    @PostMapping(value = "/requests:batch", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    public ResponseEntity<StreamingResponseBody> createBatch(
+        @RequestHeader(value = "X-User", defaultValue = "unknown") String actor,
+        @Valid @RequestBody CreateCodexBatchRequest request
+    ) {
+        List<CreateCodexRequest> requests = request.getRequests();
+        codexBatchService.validate(requests);
+        StreamingResponseBody body = output -> codexBatchService.submit(actor, requests, result -> {
+            try {
+                output.write(objectMapper.writeValueAsBytes(result));
+                output.write('\n');
+                output.flush();
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        return ResponseEntity.accepted().contentType(MediaType.APPLICATION_NDJSON).body(body);
     }
 }
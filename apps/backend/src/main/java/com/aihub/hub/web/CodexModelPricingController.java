@@ -1,30 +1,38 @@
 package com.aihub.hub.web;
 
 import com.aihub.hub.domain.CodexModelPricing;
+import com.aihub.hub.domain.PricingRecomputeJob;
 import com.aihub.hub.dto.CodexModelPricingRequest;
+import com.aihub.hub.dto.PricingRecomputeRequest;
 import com.aihub.hub.service.CodexModelPricingService;
+import com.aihub.hub.service.PricingRecomputeService;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.ResponseStatus;
 import org.springframework.web.bind.annotation.RestController;
 
 import java.util.List;
+import java.util.Map;
 
 @RestController
 @RequestMapping("/api/codex/models")
 public class CodexModelPricingController {
 
     private final CodexModelPricingService service;
+    private final PricingRecomputeService recomputeService;
 
-    public CodexModelPricingController(CodexModelPricingService service) {
+    public CodexModelPricingController(CodexModelPricingService service, PricingRecomputeService recomputeService) {
         this.service = service;
+        this.recomputeService = recomputeService;
     }
 
     @GetMapping
@@ -48,4 +56,33 @@ public class CodexModelPricingController {
     public void delete(@PathVariable Long id) {
         service.delete(id);
     }
+
+    @PostMapping("/recompute")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    public PricingRecomputeJob recompute(@RequestHeader(value = "X-Role", defaultValue = "viewer") String role,
+                                         @Valid @RequestBody PricingRecomputeRequest request) {
+        assertOwner(role);
+        return recomputeService.start(request.getModelName(), request.getFrom(), request.getTo());
+    }
+
+    @GetMapping("/recompute/{id}")
+    public PricingRecomputeJob recomputeStatus(@PathVariable Long id) {
+        return recomputeService.find(id);
+    }
+
+    @PostMapping("/recompute/{id}/resume")
+    public ResponseEntity<?> resumeRecompute(@RequestHeader(value = "X-Role", defaultValue = "viewer") String role,
+                                             @PathVariable Long id) {
+        assertOwner(role);
+        if (!recomputeService.resume(id)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "recálculo de custos já em andamento"));
+        }
+        return ResponseEntity.accepted().body(Map.of("status", "recálculo retomado"));
+    }
+
+    private void assertOwner(String role) {
+        if (!"owner".equalsIgnoreCase(role)) {
+            throw new IllegalStateException("Ação requer confirmação de um owner");
+        }
+    }
 }
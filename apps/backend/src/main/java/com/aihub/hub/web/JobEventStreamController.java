@@ -0,0 +1,31 @@
+package com.aihub.hub.web;
+
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.service.JobEventStream;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobEventStreamController {
+
+    private final JobEventStream jobEventStream;
+
+    public JobEventStreamController(JobEventStream jobEventStream) {
+        this.jobEventStream = jobEventStream;
+    }
+
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(
+        @RequestParam(value = "jobType", required = false) SandboxJobType jobType,
+        @RequestParam(value = "jobId", required = false) String jobId,
+        @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId
+    ) {
+        return jobEventStream.subscribe(jobType, jobId, lastEventId);
+    }
+}
@@ -0,0 +1,25 @@
+package com.aihub.hub.web;
+
+import com.aihub.hub.service.SandboxLogTail;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/jobs")
+public class JobLogStreamController {
+
+    private final SandboxLogTail sandboxLogTail;
+
+    public JobLogStreamController(SandboxLogTail sandboxLogTail) {
+        this.sandboxLogTail = sandboxLogTail;
+    }
+
+    @GetMapping(value = "/{jobId}/logs/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamLogs(@PathVariable String jobId) {
+        return sandboxLogTail.subscribe(jobId);
+    }
+}
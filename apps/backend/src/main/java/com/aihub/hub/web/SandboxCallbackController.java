@@ -0,0 +1,41 @@
+package com.aihub.hub.web;
+
+import com.aihub.hub.github.GithubAppAuth;
+import com.aihub.hub.service.SandboxCallbackService;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+public class SandboxCallbackController {
+
+    private final GithubAppAuth githubAppAuth;
+    private final SandboxCallbackService sandboxCallbackService;
+    private final String callbackSecret;
+
+    public SandboxCallbackController(GithubAppAuth githubAppAuth,
+                                     SandboxCallbackService sandboxCallbackService,
+                                     @Value("${hub.sandbox.callbacks.secret:}") String callbackSecret) {
+        this.githubAppAuth = githubAppAuth;
+        this.sandboxCallbackService = sandboxCallbackService;
+        this.callbackSecret = callbackSecret;
+    }
+
+    @PostMapping("/api/sandbox/callbacks")
+    public ResponseEntity<?> receive(@RequestBody String payload,
+                                     @RequestHeader(value = "X-Sandbox-Signature-256", required = false) String signature) {
+        if (callbackSecret == null || callbackSecret.isBlank()) {
+            return ResponseEntity.status(404).body(Map.of("error", "callbacks do sandbox desabilitados"));
+        }
+        if (!githubAppAuth.verifySignature(payload, callbackSecret, signature)) {
+            return ResponseEntity.status(401).body(Map.of("error", "assinatura inválida"));
+        }
+        SandboxCallbackService.Result result = sandboxCallbackService.apply(payload);
+        return ResponseEntity.ok(Map.of("status", result == SandboxCallbackService.Result.APPLIED ? "aplicado" : "duplicado"));
+    }
+}
@@ -1,10 +1,16 @@
 package com.aihub.hub.web;
 
 import com.aihub.hub.dto.CreateUploadJobRequest;
+import com.aihub.hub.dto.UploadDeltaManifestEntry;
+import com.aihub.hub.dto.UploadDeltaPlanView;
+import com.aihub.hub.dto.UploadJobSummaryView;
 import com.aihub.hub.dto.UploadJobView;
+import com.aihub.hub.service.IdempotencyService;
+import com.aihub.hub.service.RequestFingerprint;
+import com.aihub.hub.service.SandboxOrchestratorClient;
 import com.aihub.hub.service.SandboxUploadService;
+import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
-import org.springframework.core.io.ByteArrayResource;
 import org.springframework.http.ContentDisposition;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
@@ -13,37 +19,69 @@ import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.ModelAttribute;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/upload-jobs")
 public class SandboxUploadController {
 
     private final SandboxUploadService sandboxUploadService;
+    private final IdempotencyService idempotencyService;
+    private final ArtifactRangeResponder rangeResponder;
 
-    public SandboxUploadController(SandboxUploadService sandboxUploadService) {
+    public SandboxUploadController(SandboxUploadService sandboxUploadService,
+                                   IdempotencyService idempotencyService,
+                                   ArtifactRangeResponder rangeResponder) {
         this.sandboxUploadService = sandboxUploadService;
+        this.idempotencyService = idempotencyService;
+        this.rangeResponder = rangeResponder;
     }
 
     @PostMapping(consumes = MediaType.MULTIPART_FORM_DATA_VALUE)
-    public ResponseEntity<UploadJobView> createJob(
+    public ResponseEntity<?> createJob(
         @RequestHeader(value = "X-Role", defaultValue = "viewer") String role,
         @RequestHeader(value = "X-User", defaultValue = "unknown") String actor,
+        @RequestHeader(value = IdempotencyService.HEADER, required = false) String idempotencyKey,
         @Valid @ModelAttribute CreateUploadJobRequest request
     ) {
         assertOwner(role);
-        return ResponseEntity.ok(sandboxUploadService.createJob(actor, request));
+        String fingerprint = idempotencyKey == null ? null : fingerprint(actor, request);
+        return idempotencyService.execute("upload-job", idempotencyKey, fingerprint,
+            () -> ResponseEntity.accepted().body(sandboxUploadService.createJob(actor, request)));
+    }
+
+    @PostMapping(value = "/{baseJobId}/delta", consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UploadDeltaPlanView> planDelta(
+        @RequestHeader(value = "X-Role", defaultValue = "viewer") String role,
+        @PathVariable String baseJobId,
+        @RequestBody List<UploadDeltaManifestEntry> manifest
+    ) {
+        assertOwner(role);
+        return ResponseEntity.ok(sandboxUploadService.planDelta(baseJobId, manifest));
     }
 
     @GetMapping
-    public ResponseEntity<List<UploadJobView>> listJobs() {
-        return ResponseEntity.ok(sandboxUploadService.listJobs());
+    public ResponseEntity<List<UploadJobSummaryView>> listJobs(
+        @RequestParam(value = "cursor", required = false) String cursor,
+        @RequestParam(value = "limit", required = false, defaultValue = "50") int limit
+    ) {
+        SandboxUploadService.UploadJobPage page = sandboxUploadService.listJobs(cursor, limit);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+        if (page.nextCursor() != null) {
+            response.header("X-Next-Cursor", page.nextCursor());
+        }
+        return response.body(page.items());
     }
 
     @GetMapping("/{jobId}")
@@ -53,17 +91,61 @@ public class SandboxUploadController {
     }
 
     @GetMapping("/{jobId}/result-zip")
-    public ResponseEntity<ByteArrayResource> downloadResultZip(@PathVariable String jobId) {
-        SandboxUploadService.ResultZip zip = sandboxUploadService.downloadResultZip(jobId);
-        ByteArrayResource resource = new ByteArrayResource(zip.bytes());
-        ContentDisposition disposition = ContentDisposition.attachment()
-            .filename(zip.filename(), StandardCharsets.UTF_8)
-            .build();
-        return ResponseEntity.ok()
-            .header(HttpHeaders.CONTENT_DISPOSITION, disposition.toString())
-            .contentType(MediaType.APPLICATION_OCTET_STREAM)
-            .contentLength(zip.bytes().length)
-            .body(resource);
+    public ResponseEntity<StreamingResponseBody> downloadResultZip(
+        @PathVariable String jobId,
+        @RequestHeader(value = HttpHeaders.RANGE, required = false) String range,
+        @RequestHeader(value = HttpHeaders.IF_RANGE, required = false) String ifRange,
+        @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String ifNoneMatch,
+        HttpServletResponse response
+    ) {
+        Optional<SandboxUploadService.ResultZip> stored = sandboxUploadService.findStoredResultZip(jobId);
+        if (stored.isEmpty() && range != null) {
+            // Range precisa de acesso aleatório: materializa o ZIP no armazenamento local antes de responder.
+            stored = Optional.of(sandboxUploadService.storeRemoteResultZip(jobId));
+        }
+        if (stored.isEmpty()
+            && sandboxUploadService.proxyRemoteResultZip(jobId, remoteZip -> openProxyResponse(jobId, remoteZip, response))) {
+            return null;
+        }
+        SandboxUploadService.ResultZip zip = stored.orElseGet(() -> sandboxUploadService.storeResultZipFromJobPayload(jobId));
+        return rangeResponder.respond(zip.artifact(), zip.filename(), range, ifRange, ifNoneMatch);
+    }
+
+    private OutputStream openProxyResponse(String jobId,
+                                           SandboxOrchestratorClient.ResultZipStream remoteZip,
+                                           HttpServletResponse response) throws IOException {
+        String disposition = remoteZip.contentDisposition();
+        if (disposition == null || disposition.isBlank()) {
+            String filename = remoteZip.filename() != null ? remoteZip.filename() : jobId + "-resultado.zip";
+            disposition = ContentDisposition.attachment().filename(filename, StandardCharsets.UTF_8).build().toString();
+        }
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(MediaType.APPLICATION_OCTET_STREAM_VALUE);
+        response.setHeader(HttpHeaders.CONTENT_DISPOSITION, disposition);
+        // Sem ETag/Accept-Ranges: o sha256 só é conhecido depois de gravar o ZIP no armazenamento,
+        // e é ele o ETag das respostas servidas de lá (ArtifactRangeResponder).
+        if (remoteZip.contentLength() >= 0) {
+            response.setContentLengthLong(remoteZip.contentLength());
+        }
+        return response.getOutputStream();
+    }
+
+    private String fingerprint(String actor, CreateUploadJobRequest request) {
+        return new RequestFingerprint()
+            .add(actor)
+            .add(request.getTaskDescription())
+            .add(request.getTestCommand())
+            .add(request.getProfile())
+            .add(request.getModel())
+            .add(request.getProject())
+            .add(request.getBaseJobId())
+            .add(request.getSourceManifest())
+            .add(request.getSourceZip())
+            .add(request.getProblemFiles())
+            .add(request.getApplicationDefaultCredentials())
+            .add(request.getGitSshPrivateKey())
+            .add(request.getGitlabPersonalAccessToken())
+            .hex();
     }
 
     private void assertOwner(String role) {
@@ -0,0 +1,233 @@
+package com.aihub.hub.web;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.util.unit.DataSize;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class UploadAdmissionFilter extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(UploadAdmissionFilter.class);
+    private static final String UPLOAD_PATH_PREFIX = "/api/upload-jobs";
+    private static final long PERMIT_BYTES = 1024;
+
+    private final boolean enabled;
+    private final int totalPermits;
+    private final int unknownLengthPermits;
+    private final long minBytes;
+    private final int maxQueued;
+    private final Duration queueTimeout;
+    private final Duration retryAfter;
+    private final Semaphore budget;
+    private final AtomicLong inFlightBytes = new AtomicLong();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final Counter rejected;
+    private final DistributionSummary unknownLengthBytes;
+
+    public UploadAdmissionFilter(MeterRegistry meterRegistry,
+                                 @Value("${hub.upload-jobs.admission.enabled:true}") boolean enabled,
+                                 @Value("${hub.upload-jobs.admission.memory-budget:1GB}") DataSize memoryBudget,
+                                 @Value("${hub.upload-jobs.admission.min-request-size:1MB}") DataSize minRequestSize,
+                                 @Value("${hub.upload-jobs.admission.unknown-length-reservation:16MB}") DataSize unknownLengthReservation,
+                                 @Value("${hub.upload-jobs.admission.max-queued:16}") int maxQueued,
+                                 @Value("${hub.upload-jobs.admission.queue-timeout:PT30S}") Duration queueTimeout,
+                                 @Value("${hub.upload-jobs.admission.retry-after:PT10S}") Duration retryAfter) {
+        this.enabled = enabled;
+        this.totalPermits = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, memoryBudget.toBytes() / PERMIT_BYTES));
+        this.unknownLengthPermits = permitsFor(unknownLengthReservation.toBytes());
+        this.minBytes = minRequestSize.toBytes();
+        this.maxQueued = Math.max(0, maxQueued);
+        this.queueTimeout = queueTimeout;
+        this.retryAfter = retryAfter;
+        this.budget = new Semaphore(totalPermits, true);
+        Gauge.builder("hub.upload.admission.inflight.bytes", inFlightBytes, AtomicLong::get)
+            .description("Bytes de uploads admitidos e ainda em processamento")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+        Gauge.builder("hub.upload.admission.queued", queued, AtomicInteger::get)
+            .description("Uploads aguardando orçamento de memória")
+            .register(meterRegistry);
+        this.rejected = Counter.builder("hub.upload.admission.rejected")
+            .description("Uploads recusados com 429 por falta de orçamento")
+            .register(meterRegistry);
+        this.unknownLengthBytes = DistributionSummary.builder("hub.upload.admission.unknown-length.bytes")
+            .description("Bytes lidos de uploads sem Content-Length, para calibrar a reserva")
+            .baseUnit("bytes")
+            .register(meterRegistry);
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        if (!enabled || !request.getRequestURI().startsWith(UPLOAD_PATH_PREFIX)) {
+            return true;
+        }
+        String method = request.getMethod();
+        if (!"POST".equals(method) && !"PUT".equals(method)) {
+            return true;
+        }
+        long contentLength = request.getContentLengthLong();
+        // sem Content-Length (chunked) o tamanho é desconhecido: trata como requisição grande
+        return contentLength >= 0 && contentLength < minBytes;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request,
+                                    HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+        long contentLength = request.getContentLengthLong();
+        if (contentLength < 0 && isMultipart(request)) {
+            // multipart chunked seria lido inteiro pelo parser antes de qualquer limite por parte
+            lengthRequired(response);
+            return;
+        }
+        int permits = contentLength < 0 ? unknownLengthPermits : permitsFor(contentLength);
+        if (!acquire(permits)) {
+            rejected.increment();
+            log.warn("Upload de {} bytes recusado em {}: orçamento de memória esgotado ({} bytes em uso, {} na fila)",
+                contentLength, request.getRequestURI(), inFlightBytes.get(), queued.get());
+            reject(response);
+            return;
+        }
+
+        long reserved = permits * PERMIT_BYTES;
+        inFlightBytes.addAndGet(reserved);
+        MeteredRequest metered = contentLength < 0 ? new MeteredRequest(request) : null;
+        try {
+            filterChain.doFilter(metered != null ? metered : request, response);
+        } finally {
+            inFlightBytes.addAndGet(-reserved);
+            budget.release(permits);
+            if (metered != null) {
+                unknownLengthBytes.record(metered.bytesRead());
+            }
+        }
+    }
+
+    int permitsFor(long contentLength) {
+        long permits = (contentLength + PERMIT_BYTES - 1) / PERMIT_BYTES;
+        // Um corpo maior que o orçamento inteiro ainda pode passar, mas sozinho.
+        return (int) Math.min(Math.max(permits, 1L), totalPermits);
+    }
+
+    private boolean acquire(int permits) {
+        if (budget.tryAcquire(permits)) {
+            return true;
+        }
+        if (queued.incrementAndGet() > maxQueued) {
+            queued.decrementAndGet();
+            return false;
+        }
+        try {
+            return budget.tryAcquire(permits, queueTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        } finally {
+            queued.decrementAndGet();
+        }
+    }
+
+    private boolean isMultipart(HttpServletRequest request) {
+        String contentType = request.getContentType();
+        return contentType != null && contentType.toLowerCase(Locale.ROOT).startsWith("multipart/");
+    }
+
+    private void lengthRequired(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.LENGTH_REQUIRED.value());
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"error\":\"Uploads multipart precisam informar Content-Length; use sessões de upload para envio em partes\"}");
+    }
+
+    private void reject(HttpServletResponse response) throws IOException {
+        response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, String.valueOf(Math.max(1L, retryAfter.toSeconds())));
+        response.setHeader(HttpHeaders.CONNECTION, "close");
+        response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+        response.setCharacterEncoding("UTF-8");
+        response.getWriter().write("{\"error\":\"Servidor ocupado recebendo outros uploads; tente novamente em instantes\"}");
+    }
+
+    // PUTs de sessão sem Content-Length já são limitados a max-chunk-bytes pelo serviço; a
+    // reserva fixa cobre esse teto e a contagem real alimenta a métrica de calibração.
+    private static final class MeteredRequest extends HttpServletRequestWrapper {
+
+        private final AtomicLong bytesRead = new AtomicLong();
+        private ServletInputStream input;
+
+        MeteredRequest(HttpServletRequest request) {
+            super(request);
+        }
+
+        @Override
+        public ServletInputStream getInputStream() throws IOException {
+            if (input == null) {
+                ServletInputStream delegate = super.getInputStream();
+                input = new ServletInputStream() {
+                    @Override
+                    public int read() throws IOException {
+                        int value = delegate.read();
+                        if (value >= 0) {
+                            bytesRead.incrementAndGet();
+                        }
+                        return value;
+                    }
+
+                    @Override
+                    public int read(byte[] buffer, int offset, int length) throws IOException {
+                        int read = delegate.read(buffer, offset, length);
+                        if (read > 0) {
+                            bytesRead.addAndGet(read);
+                        }
+                        return read;
+                    }
+
+                    @Override
+                    public boolean isFinished() {
+                        return delegate.isFinished();
+                    }
+
+                    @Override
+                    public boolean isReady() {
+                        return delegate.isReady();
+                    }
+
+                    @Override
+                    public void setReadListener(ReadListener listener) {
+                        delegate.setReadListener(listener);
+                    }
+                };
+            }
+            return input;
+        }
+
+        long bytesRead() {
+            return bytesRead.get();
+        }
+    }
+}
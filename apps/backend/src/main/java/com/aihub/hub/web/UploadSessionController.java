@@ -0,0 +1,98 @@
+package com.aihub.hub.web;
+
+import com.aihub.hub.dto.CreateUploadJobRequest;
+import com.aihub.hub.dto.CreateUploadSessionRequest;
+import com.aihub.hub.dto.UploadJobView;
+import com.aihub.hub.dto.UploadSessionView;
+import com.aihub.hub.service.UploadSessionService;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.ModelAttribute;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.IOException;
+
+@RestController
+@RequestMapping("/api/upload-jobs/sessions")
+public class UploadSessionController {
+
+    private final UploadSessionService uploadSessionService;
+
+    public UploadSessionController(UploadSessionService uploadSessionService) {
+        this.uploadSessionService = uploadSessionService;
+    }
+
+    @PostMapping(consumes = MediaType.APPLICATION_JSON_VALUE)
+    public ResponseEntity<UploadSessionView> createSession(
+        @RequestHeader(value = "X-Role", defaultValue = "viewer") String role,
+        @RequestHeader(value = "X-User", defaultValue = "unknown") String actor,
+        @Valid @RequestBody CreateUploadSessionRequest request
+    ) {
+        assertOwner(role);
+        return ResponseEntity.status(HttpStatus.CREATED).body(uploadSessionService.create(actor, request));
+    }
+
+    @PutMapping("/{sessionId}/chunks")
+    public ResponseEntity<UploadSessionView> writeChunk(
+        @RequestHeader(value = "X-Role", defaultValue = "viewer") String role,
+        @RequestHeader(value = "X-User", defaultValue = "unknown") String actor,
+        @PathVariable String sessionId,
+        @RequestParam("offset") long offset,
+        HttpServletRequest request
+    ) throws IOException {
+        assertOwner(role);
+        return ResponseEntity.ok(uploadSessionService.writeChunk(
+            actor, sessionId, offset, request.getContentLengthLong(), request.getInputStream()
+        ));
+    }
+
+    @GetMapping("/{sessionId}")
+    public ResponseEntity<UploadSessionView> getSession(
+        @RequestHeader(value = "X-Role", defaultValue = "viewer") String role,
+        @RequestHeader(value = "X-User", defaultValue = "unknown") String actor,
+        @PathVariable String sessionId
+    ) {
+        assertOwner(role);
+        return ResponseEntity.ok(uploadSessionService.status(actor, sessionId));
+    }
+
+    @PostMapping("/{sessionId}/complete")
+    public ResponseEntity<UploadJobView> completeSession(
+        @RequestHeader(value = "X-Role", defaultValue = "viewer") String role,
+        @RequestHeader(value = "X-User", defaultValue = "unknown") String actor,
+        @PathVariable String sessionId,
+        @Valid @ModelAttribute CreateUploadJobRequest request
+    ) {
+        assertOwner(role);
+        return ResponseEntity.accepted().body(uploadSessionService.complete(actor, sessionId, request));
+    }
+
+    @DeleteMapping("/{sessionId}")
+    public ResponseEntity<Void> cancelSession(
+        @RequestHeader(value = "X-Role", defaultValue = "viewer") String role,
+        @RequestHeader(value = "X-User", defaultValue = "unknown") String actor,
+        @PathVariable String sessionId
+    ) {
+        assertOwner(role);
+        uploadSessionService.cancel(actor, sessionId);
+        return ResponseEntity.noContent().build();
+    }
+
+    private void assertOwner(String role) {
+        if (!"owner".equalsIgnoreCase(role)) {
+            throw new IllegalStateException("Ação requer confirmação de um owner");
+        }
+    }
+}
@@ -0,0 +1,62 @@
+package com.aihub.hub.web;
+
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.dto.UsageRollupView;
+import com.aihub.hub.service.UsageRollupService;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/usage")
+public class UsageController {
+
+    private final UsageRollupService usageRollupService;
+
+    public UsageController(UsageRollupService usageRollupService) {
+        this.usageRollupService = usageRollupService;
+    }
+
+    @GetMapping("/rollups")
+    public List<UsageRollupView> rollups(
+        @RequestParam("from") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+        @RequestParam("to") @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+        @RequestParam(value = "groupBy", required = false) String groupBy,
+        @RequestParam(value = "jobType", required = false) SandboxJobType jobType,
+        @RequestParam(value = "model", required = false) String model,
+        @RequestParam(value = "profile", required = false) String profile,
+        @RequestParam(value = "project", required = false) String project
+    ) {
+        return usageRollupService.query(
+            from,
+            to,
+            UsageRollupService.Dimension.parse(groupBy),
+            new UsageRollupService.Filter(jobType, model, profile, project)
+        );
+    }
+
+    @PostMapping("/rollups/rebuild")
+    public ResponseEntity<?> rebuild(@RequestHeader(value = "X-Role", defaultValue = "viewer") String role) {
+        assertOwner(role);
+        if (!usageRollupService.startRebuild()) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(Map.of("error", "reconstrução dos rollups já em andamento"));
+        }
+        return ResponseEntity.accepted().body(Map.of("status", "reconstrução iniciada"));
+    }
+
+    private void assertOwner(String role) {
+        if (!"owner".equalsIgnoreCase(role)) {
+            throw new IllegalStateException("Ação requer confirmação de um owner");
+        }
+    }
+}
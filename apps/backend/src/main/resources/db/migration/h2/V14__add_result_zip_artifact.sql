@@ -0,0 +1,2 @@
+ALTER TABLE upload_jobs ADD COLUMN result_zip_sha256 VARCHAR(64);
+ALTER TABLE upload_jobs ADD COLUMN result_zip_size BIGINT;
@@ -0,0 +1,2 @@
+ALTER TABLE upload_jobs ADD COLUMN source_manifest LONGVARCHAR;
+ALTER TABLE upload_jobs ADD COLUMN source_excluded_entries INTEGER;
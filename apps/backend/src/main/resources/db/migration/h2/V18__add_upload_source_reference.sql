@@ -0,0 +1,2 @@
+ALTER TABLE upload_jobs ADD COLUMN source_zip_sha256 VARCHAR(64);
+ALTER TABLE upload_jobs ADD COLUMN base_job_id VARCHAR(255);
@@ -0,0 +1,5 @@
+ALTER TABLE cifix_jobs ADD COLUMN callback_sequence BIGINT;
+ALTER TABLE upload_jobs ADD COLUMN callback_sequence BIGINT;
+ALTER TABLE codex_requests ADD COLUMN callback_sequence BIGINT;
+
+CREATE INDEX idx_codex_requests_external_id ON codex_requests(external_id);
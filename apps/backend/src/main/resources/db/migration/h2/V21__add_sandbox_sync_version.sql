@@ -0,0 +1,3 @@
+ALTER TABLE cifix_jobs ADD COLUMN sync_version VARCHAR(80);
+ALTER TABLE upload_jobs ADD COLUMN sync_version VARCHAR(80);
+ALTER TABLE codex_requests ADD COLUMN sync_version VARCHAR(80);
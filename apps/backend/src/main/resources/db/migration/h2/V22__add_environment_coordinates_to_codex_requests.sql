@@ -0,0 +1,10 @@
+ALTER TABLE codex_requests ADD COLUMN repo_owner VARCHAR(100);
+ALTER TABLE codex_requests ADD COLUMN repo_name VARCHAR(200);
+ALTER TABLE codex_requests ADD COLUMN branch VARCHAR(200);
+ALTER TABLE codex_requests ADD COLUMN run_id BIGINT;
+ALTER TABLE codex_requests ADD COLUMN pr_number INT;
+ALTER TABLE codex_requests ADD COLUMN prompt_id BIGINT;
+ALTER TABLE codex_requests ADD CONSTRAINT fk_codex_requests_prompt FOREIGN KEY (prompt_id) REFERENCES prompts(id) ON DELETE SET NULL;
+
+CREATE INDEX idx_codex_requests_repo ON codex_requests(repo_owner, repo_name, pr_number);
+CREATE INDEX idx_codex_requests_prompt_id ON codex_requests(prompt_id);
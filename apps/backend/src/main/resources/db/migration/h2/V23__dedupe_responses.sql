@@ -0,0 +1,6 @@
+ALTER TABLE responses ADD COLUMN codex_request_id BIGINT;
+ALTER TABLE responses ADD COLUMN content_hash VARCHAR(64);
+ALTER TABLE responses ADD CONSTRAINT fk_responses_codex_request FOREIGN KEY (codex_request_id) REFERENCES codex_requests(id) ON DELETE CASCADE;
+
+CREATE UNIQUE INDEX uk_responses_request_content ON responses(codex_request_id, content_hash);
+CREATE INDEX idx_responses_repo_created_at ON responses(repo, created_at);
@@ -0,0 +1,20 @@
+-- Totais de tokens e custo por (dia, tipo de job, modelo, perfil, projeto), mantidos
+-- incrementalmente pelo backend. Dimensões ausentes são gravadas como '' para que a
+-- chave única funcione em todos os bancos.
+CREATE TABLE usage_rollups (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    bucket_date DATE NOT NULL,
+    job_type VARCHAR(20) NOT NULL,
+    model VARCHAR(200) NOT NULL,
+    profile VARCHAR(50) NOT NULL,
+    project VARCHAR(255) NOT NULL,
+    requests BIGINT NOT NULL DEFAULT 0,
+    prompt_tokens BIGINT NOT NULL DEFAULT 0,
+    cached_prompt_tokens BIGINT NOT NULL DEFAULT 0,
+    completion_tokens BIGINT NOT NULL DEFAULT 0,
+    total_tokens BIGINT NOT NULL DEFAULT 0,
+    cost DECIMAL(19, 6) NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP()
+);
+
+CREATE UNIQUE INDEX uk_usage_rollups_key ON usage_rollups(bucket_date, job_type, model, profile, project);
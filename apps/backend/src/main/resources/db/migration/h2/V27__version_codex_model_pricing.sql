@@ -0,0 +1,24 @@
+-- Preços passam a ter vigência: cada linha vale de effective_from (inclusive) até
+-- effective_to (exclusive, NULL para a versão atual). As linhas existentes valem desde sempre.
+ALTER TABLE codex_model_pricing ADD COLUMN effective_from TIMESTAMP NOT NULL DEFAULT TIMESTAMP '1970-01-01 00:00:00';
+ALTER TABLE codex_model_pricing ADD COLUMN effective_to TIMESTAMP;
+
+ALTER TABLE codex_model_pricing DROP CONSTRAINT uk_codex_model_pricing_model_name;
+ALTER TABLE codex_model_pricing
+    ADD CONSTRAINT uk_codex_model_pricing_model_effective UNIQUE (model_name, effective_from);
+
+CREATE TABLE pricing_recompute_jobs (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    model_name VARCHAR(191) NOT NULL,
+    window_from TIMESTAMP,
+    window_to TIMESTAMP,
+    status VARCHAR(20) NOT NULL,
+    codex_checkpoint_id BIGINT NOT NULL DEFAULT 0,
+    upload_checkpoint_id BIGINT NOT NULL DEFAULT 0,
+    updated_rows BIGINT NOT NULL DEFAULT 0,
+    last_error LONGVARCHAR,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP(),
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP()
+);
+
+CREATE INDEX idx_pricing_recompute_jobs_status ON pricing_recompute_jobs(status);
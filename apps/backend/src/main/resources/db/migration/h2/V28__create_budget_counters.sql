@@ -0,0 +1,17 @@
+-- Usuário (X-User) que criou o job, para o orçamento por usuário.
+ALTER TABLE codex_requests ADD COLUMN requested_by VARCHAR(191);
+ALTER TABLE upload_jobs ADD COLUMN requested_by VARCHAR(191);
+
+-- Gasto acumulado (micro-dólares) por escopo de orçamento (USER, PROJECT, MODEL), sujeito e
+-- período. Os contadores vivem em memória e são somados aqui periodicamente.
+CREATE TABLE budget_counters (
+    id BIGINT AUTO_INCREMENT PRIMARY KEY,
+    scope VARCHAR(20) NOT NULL,
+    subject VARCHAR(191) NOT NULL,
+    period VARCHAR(10) NOT NULL,
+    period_start DATE NOT NULL,
+    spent_micros BIGINT NOT NULL DEFAULT 0,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP()
+);
+
+CREATE UNIQUE INDEX uk_budget_counters_key ON budget_counters(scope, subject, period, period_start);
@@ -0,0 +1,2 @@
+-- Repositório (owner/nome) informado no upload: dimensão de projeto dos rollups e orçamentos.
+ALTER TABLE upload_jobs ADD COLUMN project VARCHAR(255);
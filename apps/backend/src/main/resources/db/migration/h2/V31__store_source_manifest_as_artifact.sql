@@ -0,0 +1,5 @@
+-- O manifesto por arquivo passa a ser um artefato no ArtifactStore; a linha guarda só o hash.
+-- Jobs anteriores perdem o manifesto inline e não servem de base para reenvio parcial
+-- (o cliente recebe o pedido de enviar o ZIP completo).
+ALTER TABLE upload_jobs ADD COLUMN source_manifest_sha256 VARCHAR(64);
+ALTER TABLE upload_jobs DROP COLUMN source_manifest;
@@ -0,0 +1,3 @@
+ALTER TABLE upload_jobs
+    ADD COLUMN result_zip_sha256 VARCHAR(64) NULL AFTER result_zip_ready,
+    ADD COLUMN result_zip_size BIGINT NULL AFTER result_zip_sha256;
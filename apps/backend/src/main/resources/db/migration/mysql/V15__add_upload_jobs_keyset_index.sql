@@ -0,0 +1 @@
+CREATE INDEX idx_upload_jobs_created_at_id ON upload_jobs(created_at, id);
@@ -0,0 +1,3 @@
+ALTER TABLE upload_jobs
+    ADD COLUMN source_manifest LONGTEXT NULL AFTER zip_name,
+    ADD COLUMN source_excluded_entries INT NULL AFTER source_manifest;
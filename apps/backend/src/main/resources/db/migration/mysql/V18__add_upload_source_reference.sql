@@ -0,0 +1,3 @@
+ALTER TABLE upload_jobs
+    ADD COLUMN source_zip_sha256 VARCHAR(64) NULL AFTER source_excluded_entries,
+    ADD COLUMN base_job_id VARCHAR(255) NULL AFTER source_zip_sha256;
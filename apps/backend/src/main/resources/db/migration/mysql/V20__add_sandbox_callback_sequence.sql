@@ -0,0 +1,5 @@
+ALTER TABLE cifix_jobs ADD COLUMN callback_sequence BIGINT NULL AFTER sync_misses;
+ALTER TABLE upload_jobs ADD COLUMN callback_sequence BIGINT NULL AFTER sync_misses;
+ALTER TABLE codex_requests ADD COLUMN callback_sequence BIGINT NULL AFTER sync_misses;
+
+CREATE INDEX idx_codex_requests_external_id ON codex_requests(external_id);
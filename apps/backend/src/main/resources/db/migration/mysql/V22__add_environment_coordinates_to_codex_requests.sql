@@ -0,0 +1,11 @@
+ALTER TABLE codex_requests
+    ADD COLUMN repo_owner VARCHAR(100) NULL AFTER environment,
+    ADD COLUMN repo_name VARCHAR(200) NULL AFTER repo_owner,
+    ADD COLUMN branch VARCHAR(200) NULL AFTER repo_name,
+    ADD COLUMN run_id BIGINT NULL AFTER branch,
+    ADD COLUMN pr_number INT NULL AFTER run_id,
+    ADD COLUMN prompt_id BIGINT NULL AFTER pr_number,
+    ADD CONSTRAINT fk_codex_requests_prompt FOREIGN KEY (prompt_id) REFERENCES prompts(id) ON DELETE SET NULL;
+
+CREATE INDEX idx_codex_requests_repo ON codex_requests(repo_owner, repo_name, pr_number);
+CREATE INDEX idx_codex_requests_prompt_id ON codex_requests(prompt_id);
@@ -0,0 +1,10 @@
+-- Ids de prompts, codex_requests e sandbox_outbox passam a vir de um gerador em tabela
+-- com alocação em blocos (pooled-lo), o que permite inserts em lote via JDBC.
+CREATE TABLE id_generators (
+    sequence_name VARCHAR(255) NOT NULL PRIMARY KEY,
+    next_val BIGINT NOT NULL
+);
+
+INSERT INTO id_generators (sequence_name, next_val) SELECT 'prompts', COALESCE(MAX(id), 0) + 1 FROM prompts;
+INSERT INTO id_generators (sequence_name, next_val) SELECT 'codex_requests', COALESCE(MAX(id), 0) + 1 FROM codex_requests;
+INSERT INTO id_generators (sequence_name, next_val) SELECT 'sandbox_outbox', COALESCE(MAX(id), 0) + 1 FROM sandbox_outbox;
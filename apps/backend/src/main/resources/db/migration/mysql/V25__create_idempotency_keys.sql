@@ -0,0 +1,12 @@
+CREATE TABLE idempotency_keys (
+    id VARCHAR(191) NOT NULL PRIMARY KEY,
+    scope VARCHAR(40) NOT NULL,
+    fingerprint VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    response_status INT NULL,
+    response_body LONGTEXT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_idempotency_keys_expires_at ON idempotency_keys(expires_at);
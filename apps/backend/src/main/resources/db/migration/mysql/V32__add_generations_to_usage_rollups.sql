@@ -0,0 +1,17 @@
+-- A reconstrução grava os rollups numa geração nova e só a ativa no fim: consultas e
+-- orçamentos seguem lendo a geração completa. Geração ativa, geração em construção e
+-- cursores ficam numa linha compartilhada por todas as instâncias.
+ALTER TABLE usage_rollups ADD COLUMN generation BIGINT NOT NULL DEFAULT 0;
+DROP INDEX uk_usage_rollups_key ON usage_rollups;
+CREATE UNIQUE INDEX uk_usage_rollups_key ON usage_rollups(generation, bucket_date, job_type, model, profile, project);
+
+CREATE TABLE usage_rollup_state (
+    id INT NOT NULL PRIMARY KEY,
+    active_generation BIGINT NOT NULL,
+    building_generation BIGINT,
+    codex_cursor BIGINT,
+    upload_cursor BIGINT,
+    heartbeat_at TIMESTAMP NULL
+);
+
+INSERT INTO usage_rollup_state (id, active_generation) VALUES (1, 0);
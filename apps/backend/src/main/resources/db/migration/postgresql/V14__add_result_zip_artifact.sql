@@ -0,0 +1,3 @@
+ALTER TABLE upload_jobs
+    ADD COLUMN result_zip_sha256 VARCHAR(64),
+    ADD COLUMN result_zip_size BIGINT;
@@ -0,0 +1,16 @@
+CREATE TABLE sandbox_outbox (
+    id BIGSERIAL PRIMARY KEY,
+    job_type VARCHAR(30) NOT NULL,
+    job_id VARCHAR(100) NOT NULL,
+    payload TEXT NOT NULL,
+    status VARCHAR(30) NOT NULL,
+    attempts INTEGER NOT NULL DEFAULT 0,
+    next_attempt_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    last_error TEXT,
+    dispatched_at TIMESTAMP,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    updated_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_sandbox_outbox_due ON sandbox_outbox(status, next_attempt_at);
+CREATE INDEX idx_sandbox_outbox_job ON sandbox_outbox(job_type, job_id);
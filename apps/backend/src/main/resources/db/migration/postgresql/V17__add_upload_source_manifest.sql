@@ -0,0 +1,3 @@
+ALTER TABLE upload_jobs
+    ADD COLUMN source_manifest TEXT,
+    ADD COLUMN source_excluded_entries INTEGER;
@@ -0,0 +1,24 @@
+ALTER TABLE cifix_jobs
+    ADD COLUMN next_sync_at TIMESTAMP,
+    ADD COLUMN sync_misses INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE upload_jobs
+    ADD COLUMN next_sync_at TIMESTAMP,
+    ADD COLUMN sync_misses INTEGER NOT NULL DEFAULT 0;
+ALTER TABLE codex_requests
+    ADD COLUMN next_sync_at TIMESTAMP,
+    ADD COLUMN sync_misses INTEGER NOT NULL DEFAULT 0;
+
+-- Jobs já entregues e ainda não finalizados entram na fila do reconciliador.
+UPDATE cifix_jobs SET next_sync_at = created_at
+WHERE status NOT IN ('COMPLETED', 'FAILED')
+  AND job_id NOT IN (SELECT job_id FROM sandbox_outbox WHERE status = 'PENDING');
+UPDATE upload_jobs SET next_sync_at = created_at
+WHERE status NOT IN ('COMPLETED', 'FAILED')
+  AND job_id NOT IN (SELECT job_id FROM sandbox_outbox WHERE status = 'PENDING');
+UPDATE codex_requests SET next_sync_at = created_at
+WHERE external_id IS NOT NULL
+  AND (response_text IS NULL OR total_tokens IS NULL OR cost IS NULL);
+
+CREATE INDEX idx_cifix_jobs_next_sync_at ON cifix_jobs(next_sync_at);
+CREATE INDEX idx_upload_jobs_next_sync_at ON upload_jobs(next_sync_at);
+CREATE INDEX idx_codex_requests_next_sync_at ON codex_requests(next_sync_at);
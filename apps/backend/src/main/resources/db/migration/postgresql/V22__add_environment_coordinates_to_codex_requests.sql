@@ -0,0 +1,10 @@
+ALTER TABLE codex_requests
+    ADD COLUMN repo_owner VARCHAR(100),
+    ADD COLUMN repo_name VARCHAR(200),
+    ADD COLUMN branch VARCHAR(200),
+    ADD COLUMN run_id BIGINT,
+    ADD COLUMN pr_number INTEGER,
+    ADD COLUMN prompt_id INTEGER REFERENCES prompts(id) ON DELETE SET NULL;
+
+CREATE INDEX idx_codex_requests_repo ON codex_requests(repo_owner, repo_name, pr_number);
+CREATE INDEX idx_codex_requests_prompt_id ON codex_requests(prompt_id);
@@ -0,0 +1,6 @@
+ALTER TABLE responses
+    ADD COLUMN codex_request_id BIGINT REFERENCES codex_requests(id) ON DELETE CASCADE,
+    ADD COLUMN content_hash VARCHAR(64);
+
+CREATE UNIQUE INDEX uk_responses_request_content ON responses(codex_request_id, content_hash);
+CREATE INDEX idx_responses_repo_created_at ON responses(repo, created_at);
@@ -0,0 +1,11 @@
+-- Credenciais de upload cifradas (AES-GCM) até a entrega ao orquestrador;
+-- removidas no dispatch/falha definitiva ou ao expirar.
+CREATE TABLE sandbox_credentials (
+    job_id VARCHAR(100) NOT NULL PRIMARY KEY,
+    ciphertext TEXT NOT NULL,
+    created_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP,
+    expires_at TIMESTAMP NOT NULL DEFAULT CURRENT_TIMESTAMP
+);
+
+CREATE INDEX idx_sandbox_credentials_expires_at ON sandbox_credentials(expires_at);
+CREATE INDEX idx_sandbox_outbox_dispatched_at ON sandbox_outbox(status, dispatched_at);
@@ -0,0 +1,66 @@
+package com.aihub.hub.repository;
+
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.dto.UsageRollupView;
+import com.aihub.hub.service.UsageRollupService;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.TypedQuery;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UsageRollupRepositoryImplTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+
+    private final EntityManager entityManager = mock(EntityManager.class);
+    @SuppressWarnings("unchecked")
+    private final TypedQuery<Object[]> query = mock(TypedQuery.class);
+    private final UsageRollupRepositoryImpl repository = new UsageRollupRepositoryImpl(entityManager);
+
+    @Test
+    void groupsAndFiltersInTheQuery() {
+        ArgumentCaptor<String> jpql = ArgumentCaptor.forClass(String.class);
+        when(entityManager.createQuery(jpql.capture(), eq(Object[].class))).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.<Object[]>of(
+            new Object[] {DAY, "gpt-5-codex", 3L, 300L, 0L, 10L, 310L, new BigDecimal("1.50")}
+        ));
+
+        List<UsageRollupView> rows = repository.aggregate(3L, DAY, DAY.plusDays(1),
+            UsageRollupService.Dimension.parse("model,day"),
+            new UsageRollupService.Filter(SandboxJobType.CODEX, null, null, "acme/api"));
+
+        assertThat(jpql.getValue())
+            .startsWith("select r.bucketDate, r.model, sum(r.requests)")
+            .contains("where r.generation = :generation and r.bucketDate between :from and :to")
+            .contains("and r.jobType = :jobType and r.project = :project")
+            .doesNotContain(":model")
+            .contains("group by r.bucketDate, r.model")
+            .endsWith("order by r.bucketDate, sum(r.cost) desc");
+        verify(query).setParameter("generation", 3L);
+        verify(query).setParameter("project", "acme/api");
+        assertThat(rows).containsExactly(new UsageRollupView(DAY, null, "gpt-5-codex", null, null,
+            3, 300, 0, 10, 310, new BigDecimal("1.50")));
+    }
+
+    @Test
+    void totalWithoutGroupingIsEmptyWhenNoRowsMatch() {
+        ArgumentCaptor<String> jpql = ArgumentCaptor.forClass(String.class);
+        when(entityManager.createQuery(jpql.capture(), eq(Object[].class))).thenReturn(query);
+        when(query.getResultList()).thenReturn(List.<Object[]>of(new Object[] {null, null, null, null, null, null}));
+
+        List<UsageRollupView> rows = repository.aggregate(3L, DAY, DAY, java.util.EnumSet.noneOf(UsageRollupService.Dimension.class), null);
+
+        assertThat(jpql.getValue()).doesNotContain("group by");
+        assertThat(rows).isEmpty();
+    }
+}
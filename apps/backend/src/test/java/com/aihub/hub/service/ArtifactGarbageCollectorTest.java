@@ -0,0 +1,45 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.repository.UploadJobRepository;
+import com.aihub.hub.storage.LocalArtifactStore;
+import com.aihub.hub.storage.StoredArtifact;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ArtifactGarbageCollectorTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void deletesOnlyUnreferencedArtifactsPastTheGracePeriod() throws Exception {
+        LocalArtifactStore store = new LocalArtifactStore(root.toString());
+        StoredArtifact referenced = store.put(new ByteArrayInputStream(new byte[] {1}));
+        StoredArtifact orphan = store.put(new ByteArrayInputStream(new byte[] {2}));
+        UploadJobRepository repository = mock(UploadJobRepository.class);
+        when(repository.findReferencedArtifacts(anyCollection())).thenReturn(List.of(referenced.sha256()));
+
+        Clock now = Clock.fixed(Instant.now().plusSeconds(5), ZoneOffset.UTC);
+        ArtifactGarbageCollector withinGrace = new ArtifactGarbageCollector(store, repository, now, true, Duration.ofHours(1), 1);
+        assertThat(withinGrace.collect()).isZero();
+
+        Clock later = Clock.fixed(Instant.now().plus(Duration.ofHours(2)), ZoneOffset.UTC);
+        ArtifactGarbageCollector collector = new ArtifactGarbageCollector(store, repository, later, true, Duration.ofHours(1), 1);
+        assertThat(collector.collect()).isEqualTo(1);
+        assertThat(store.find(referenced.sha256())).isPresent();
+        assertThat(store.find(orphan.sha256())).isEmpty();
+    }
+}
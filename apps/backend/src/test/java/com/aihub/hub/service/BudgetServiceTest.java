@@ -0,0 +1,194 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.config.BudgetProperties;
+import com.aihub.hub.config.BudgetProperties.Action;
+import com.aihub.hub.config.BudgetProperties.Period;
+import com.aihub.hub.config.BudgetProperties.Scope;
+import com.aihub.hub.domain.BudgetCounter;
+import com.aihub.hub.domain.CodexModelPricing;
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.dto.UsageRollupView;
+import com.aihub.hub.repository.BudgetCounterRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.EnumSet;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class BudgetServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 10);
+    private static final Instant NOW = Instant.parse("2024-05-10T10:00:00Z");
+
+    private final BudgetCounterRepository counterRepository = mock(BudgetCounterRepository.class);
+    private final UsageRollupService usageRollupService = mock(UsageRollupService.class);
+    private final CodexModelPricingService pricingService = mock(CodexModelPricingService.class);
+
+    @Test
+    void rejectsUserOverDailyLimitUntilTheNextDay() {
+        BudgetService service = service(policy(Scope.USER, "*", Period.DAY, "1.00", Action.REJECT));
+
+        service.onUsageChanged(new UsageChanged(1L, "ana", snapshot("gpt-5-codex", null), snapshot("gpt-5-codex", "1.00")));
+
+        assertThatThrownBy(() -> service.admit("ana", "acme/api", "gpt-5-codex"))
+            .isInstanceOf(BudgetExceededException.class)
+            .hasMessageContaining("diário do usuário ana")
+            .extracting(ex -> ((BudgetExceededException) ex).getRetryAfterSeconds())
+            .isEqualTo(14 * 3600L);
+        assertThat(service.admit("bia", "acme/api", "gpt-5-codex")).isEqualTo(BudgetService.Decision.ALLOW);
+    }
+
+    @Test
+    void downgradesOnlyTheModelOverBudget() {
+        BudgetService service = service(policy(Scope.MODEL, "gpt-5-codex", Period.MONTH, "2.00", Action.DOWNGRADE));
+
+        service.onUsageChanged(new UsageChanged(1L, "ana", snapshot("gpt-5-codex", null), snapshot("gpt-5-codex", "1.50")));
+        assertThat(service.admit("ana", "acme/api", "gpt-5-codex")).isEqualTo(BudgetService.Decision.ALLOW);
+
+        service.onUsageChanged(new UsageChanged(2L, "bia", snapshot("gpt-5-codex", null), snapshot("gpt-5-codex", "0.50")));
+        assertThat(service.admit("ana", "acme/api", "GPT-5-Codex")).isEqualTo(BudgetService.Decision.DOWNGRADE);
+        assertThat(service.admit("ana", "acme/api", "gpt-4.1-mini")).isEqualTo(BudgetService.Decision.ALLOW);
+    }
+
+    @Test
+    void reservationCountsUntilTheJobReportsUsage() {
+        BudgetService service = service(policy(Scope.USER, "*", Period.DAY, "1.00", Action.REJECT));
+        when(pricingService.snapshot()).thenReturn(ModelPricingSnapshot.of(List.of(pricing("10.00"))));
+
+        service.reserve(SandboxJobType.CODEX, 7L, "ana", "acme/api", "gpt-5-codex");
+        assertThatThrownBy(() -> service.admit("ana", null, null)).isInstanceOf(BudgetExceededException.class);
+
+        service.onUsageChanged(new UsageChanged(7L, "ana", snapshot("gpt-5-codex", null), snapshot("gpt-5-codex", "0.10")));
+        assertThat(service.admit("ana", null, null)).isEqualTo(BudgetService.Decision.ALLOW);
+    }
+
+    @Test
+    void flushWritesOnlyTheDeltaSinceTheLastFlush() {
+        BudgetService service = service(policy(Scope.USER, "*", Period.DAY, "1.00", Action.REJECT));
+        when(counterRepository.increment(anyString(), anyString(), anyString(), any(), anyLong(), any())).thenReturn(0, 1);
+
+        service.onUsageChanged(new UsageChanged(1L, "ana", snapshot("gpt-5-codex", null), snapshot("gpt-5-codex", "0.25")));
+        service.flush();
+        service.flush();
+
+        ArgumentCaptor<BudgetCounter> inserted = ArgumentCaptor.forClass(BudgetCounter.class);
+        verify(counterRepository, times(1)).save(inserted.capture());
+        assertThat(inserted.getValue().getScope()).isEqualTo("USER");
+        assertThat(inserted.getValue().getSpentMicros()).isEqualTo(250_000L);
+        verify(counterRepository, times(2)).increment(eq("USER"), eq("ana"), anyString(), any(), eq(250_000L), any());
+    }
+
+    @Test
+    void flushPicksUpSpendRecordedByOtherInstances() {
+        BudgetService service = service(policy(Scope.USER, "*", Period.DAY, "1.00", Action.REJECT));
+        assertThat(service.admit("ana", null, null)).isEqualTo(BudgetService.Decision.ALLOW);
+
+        when(counterRepository.findByScopeAndPeriodStartGreaterThanEqual("USER", DAY.withDayOfMonth(1)))
+            .thenReturn(List.of(new BudgetCounter("USER", "ana", "DAY", DAY, 1_000_000L)));
+        service.flush();
+
+        assertThatThrownBy(() -> service.admit("ana", null, null)).isInstanceOf(BudgetExceededException.class);
+    }
+
+    @Test
+    void modelSpendIsRefreshedFromRollupsInsteadOfBudgetCounters() {
+        BudgetService service = service(policy(Scope.MODEL, "*", Period.DAY, "2.00", Action.DOWNGRADE));
+        service.onUsageChanged(new UsageChanged(1L, "ana", snapshot("gpt-5-codex", null), snapshot("gpt-5-codex", "1.50")));
+        assertThat(service.admit("ana", null, "gpt-5-codex")).isEqualTo(BudgetService.Decision.ALLOW);
+
+        // o rollup já inclui o uso local (1.50) e o de outra instância (1.00)
+        when(usageRollupService.query(DAY.withDayOfMonth(1), DAY,
+            EnumSet.of(UsageRollupService.Dimension.DAY, UsageRollupService.Dimension.MODEL), null))
+            .thenReturn(List.of(view(DAY, "gpt-5-codex", null, "2.50")));
+        service.flush();
+
+        assertThat(service.admit("ana", null, "gpt-5-codex")).isEqualTo(BudgetService.Decision.DOWNGRADE);
+        verify(counterRepository, never()).increment(eq("MODEL"), anyString(), anyString(), any(), anyLong(), any());
+    }
+
+    @Test
+    void loadRestoresUsersFromCountersAndProjectsFromRollups() {
+        BudgetService service = service(
+            policy(Scope.USER, "*", Period.DAY, "1.00", Action.REJECT),
+            policy(Scope.PROJECT, "*", Period.MONTH, "5.00", Action.REJECT)
+        );
+        LocalDate monthStart = DAY.withDayOfMonth(1);
+        when(counterRepository.findByScopeAndPeriodStartGreaterThanEqual("USER", monthStart)).thenReturn(List.of(
+            new BudgetCounter("USER", "ana", "DAY", DAY, 1_000_000L),
+            new BudgetCounter("USER", "bia", "DAY", DAY.minusDays(1), 9_000_000L)
+        ));
+        when(usageRollupService.query(monthStart, DAY,
+            EnumSet.of(UsageRollupService.Dimension.DAY, UsageRollupService.Dimension.PROJECT), null)).thenReturn(List.of(
+            view(monthStart, null, "acme/api", "3.00"),
+            view(DAY, null, "acme/api", "2.00")
+        ));
+
+        service.load();
+
+        assertThatThrownBy(() -> service.admit("ana", null, null)).isInstanceOf(BudgetExceededException.class);
+        assertThat(service.admit("bia", null, null)).isEqualTo(BudgetService.Decision.ALLOW);
+        assertThatThrownBy(() -> service.admit("bia", "acme/api", null))
+            .isInstanceOf(BudgetExceededException.class)
+            .hasMessageContaining("mensal do projeto acme/api");
+    }
+
+    private BudgetService service(BudgetProperties.Policy... policies) {
+        BudgetProperties properties = new BudgetProperties();
+        properties.setPolicies(List.of(policies));
+        return new BudgetService(
+            counterRepository,
+            usageRollupService,
+            pricingService,
+            mock(PlatformTransactionManager.class),
+            Clock.fixed(NOW, ZoneOffset.UTC),
+            properties
+        );
+    }
+
+    private static BudgetProperties.Policy policy(Scope scope, String subject, Period period, String limit, Action action) {
+        BudgetProperties.Policy policy = new BudgetProperties.Policy();
+        policy.setScope(scope);
+        policy.setSubject(subject);
+        policy.setPeriod(period);
+        policy.setLimit(new BigDecimal(limit));
+        policy.setAction(action);
+        return policy;
+    }
+
+    private static UsageSnapshot snapshot(String model, String cost) {
+        return UsageSnapshot.of(SandboxJobType.CODEX, NOW, model, "STANDARD", "acme/api",
+            cost != null ? 1000 : null, null, null, cost != null ? 1000 : null, cost != null ? new BigDecimal(cost) : null);
+    }
+
+    private static CodexModelPricing pricing(String input) {
+        CodexModelPricing pricing = new CodexModelPricing();
+        pricing.setModelName("gpt-5-codex");
+        pricing.setInputPricePerMillion(new BigDecimal(input));
+        pricing.setCachedInputPricePerMillion(BigDecimal.ZERO);
+        pricing.setOutputPricePerMillion(BigDecimal.ZERO);
+        pricing.setEffectiveFrom(Instant.EPOCH);
+        return pricing;
+    }
+
+    private static UsageRollupView view(LocalDate day, String model, String project, String cost) {
+        return new UsageRollupView(day, null, model, null, project, 1, 0, 0, 0, 0, new BigDecimal(cost));
+    }
+}
@@ -2,6 +2,8 @@ package com.aihub.hub.service;
 
 import com.aihub.hub.domain.CiFixJobRecord;
 import com.aihub.hub.domain.Project;
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.SandboxOutboxEntry;
 import com.aihub.hub.dto.CiFixJobView;
 import com.aihub.hub.dto.CreateCiFixJobRequest;
 import com.aihub.hub.repository.CiFixJobRepository;
@@ -10,15 +12,23 @@ import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionOperations;
 
+import java.time.Clock;
+import java.time.Duration;
 import java.time.Instant;
+import java.time.ZoneOffset;
 import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -28,9 +38,12 @@ class CiFixJobServiceTest {
     private final CiFixJobRepository jobRepository = mock(CiFixJobRepository.class);
     private final SandboxOrchestratorClient sandboxOrchestratorClient = mock(SandboxOrchestratorClient.class);
     private final AuditService auditService = mock(AuditService.class);
+    private final SandboxOutbox sandboxOutbox = mock(SandboxOutbox.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final BudgetService budgetService = mock(BudgetService.class);
 
     @Test
-    void createJobPersistsAndPropagatesToOrchestrator() {
+    void createJobPersistsAndDispatchesThroughOutbox() {
         Project project = new Project();
         project.setRepo("owner/repo");
         project.setRepoUrl("https://github.com/owner/repo.git");
@@ -57,7 +70,7 @@ class CiFixJobServiceTest {
                 BigDecimal.ZERO
             ));
 
-        CiFixJobService service = new CiFixJobService(projectRepository, jobRepository, sandboxOrchestratorClient, auditService);
+        CiFixJobService service = new CiFixJobService(projectRepository, jobRepository, sandboxOrchestratorClient, auditService, sandboxOutbox, eventPublisher, budgetService, TransactionOperations.withoutTransaction());
         CreateCiFixJobRequest request = new CreateCiFixJobRequest();
         request.setProjectId(42L);
         request.setTaskDescription("look into failure");
@@ -65,13 +78,21 @@ class CiFixJobServiceTest {
         request.setCommitHash("abc123");
         request.setTestCommand("mvn test");
 
-        CiFixJobView view = service.createJob("alice", request);
+        CiFixJobView created = service.createJob("alice", request);
 
         ArgumentCaptor<CiFixJobRecord> recordCaptor = ArgumentCaptor.forClass(CiFixJobRecord.class);
         verify(jobRepository, org.mockito.Mockito.atLeastOnce()).save(recordCaptor.capture());
         CiFixJobRecord persisted = recordCaptor.getValue();
+        assertThat(created.status()).isEqualTo("PENDING");
+        verify(sandboxOrchestratorClient, never()).createJob(org.mockito.ArgumentMatchers.any());
 
-        assertThat(view.jobId()).isEqualTo(persisted.getJobId());
+        SandboxOutboxEntry entry = dispatchEntryFor(persisted);
+        when(jobRepository.claimDispatch(persisted.getJobId())).thenReturn(1);
+        when(jobRepository.findByJobId(persisted.getJobId())).thenReturn(Optional.of(persisted));
+        service.dispatch(entry);
+        CiFixJobView view = CiFixJobView.from(persisted);
+
+        assertThat(view.jobId()).isEqualTo(created.jobId());
         assertThat(view.status()).isEqualTo("RUNNING");
         assertThat(view.summary()).isEqualTo("investigating");
         assertThat(view.changedFiles()).containsExactly("README.md");
@@ -108,7 +129,7 @@ class CiFixJobServiceTest {
                 BigDecimal.ZERO
             ));
 
-        CiFixJobService service = new CiFixJobService(projectRepository, jobRepository, sandboxOrchestratorClient, auditService);
+        CiFixJobService service = new CiFixJobService(projectRepository, jobRepository, sandboxOrchestratorClient, auditService, sandboxOutbox, eventPublisher, budgetService, TransactionOperations.withoutTransaction());
         CiFixJobView view = service.refreshFromOrchestrator("job-refresh");
 
         assertThat(view.status()).isEqualTo("COMPLETED");
@@ -138,13 +159,84 @@ class CiFixJobServiceTest {
         when(sandboxOrchestratorClient.getJob("job-refresh-snake"))
             .thenReturn(SandboxOrchestratorClient.SandboxOrchestratorJobResponse.from(payload));
 
-        CiFixJobService service = new CiFixJobService(projectRepository, jobRepository, sandboxOrchestratorClient, auditService);
+        CiFixJobService service = new CiFixJobService(projectRepository, jobRepository, sandboxOrchestratorClient, auditService, sandboxOutbox, eventPublisher, budgetService, TransactionOperations.withoutTransaction());
         CiFixJobView view = service.refreshFromOrchestrator("job-refresh-snake");
 
         assertThat(view.pullRequestUrl()).isEqualTo("https://github.com/owner/repo/pull/202");
         assertThat(record.getPullRequestUrl()).isEqualTo("https://github.com/owner/repo/pull/202");
     }
 
+    @Test
+    void applySyncBacksOffWhileUnchangedAndStopsAtTerminalStatus() {
+        Instant now = Instant.parse("2024-05-01T12:00:00Z");
+        SandboxSyncBackoff backoff = new SandboxSyncBackoff(
+            Clock.fixed(now, ZoneOffset.UTC), Duration.ofSeconds(5), Duration.ofMinutes(5), 0.05
+        );
+        CiFixJobRecord record = new CiFixJobRecord();
+        record.setJobId("job-sync");
+        record.setStatus("RUNNING");
+        record.setSummary("investigating");
+        ReflectionTestUtils.setField(record, "createdAt", now.minusSeconds(60));
+        Instant updatedAt = now.minusSeconds(30);
+        record.setUpdatedAt(updatedAt);
+        record.setSyncMisses(1);
+        when(jobRepository.findById(7L)).thenReturn(Optional.of(record));
+        SandboxSyncCandidate candidate = new SandboxSyncCandidate(7L, "job-sync", null);
+
+        CiFixJobService service = new CiFixJobService(projectRepository, jobRepository, sandboxOrchestratorClient, auditService, sandboxOutbox, eventPublisher, budgetService, TransactionOperations.withoutTransaction());
+        service.applySync(candidate, jobResponse("job-sync", "RUNNING", "investigating"), null, backoff);
+
+        assertThat(record.getSyncMisses()).isEqualTo(2);
+        assertThat(record.getNextSyncAt()).isEqualTo(now.plusSeconds(20));
+        assertThat(record.getUpdatedAt()).isEqualTo(updatedAt);
+
+        service.applySync(candidate, jobResponse("job-sync", "RUNNING", "applying patch"), null, backoff);
+
+        assertThat(record.getSyncMisses()).isZero();
+        assertThat(record.getNextSyncAt()).isEqualTo(now.plusSeconds(5));
+        assertThat(record.getUpdatedAt()).isAfter(updatedAt);
+
+        service.applySync(candidate, jobResponse("job-sync", "COMPLETED", "done"), null, backoff);
+
+        assertThat(record.getStatus()).isEqualTo("COMPLETED");
+        assertThat(record.getNextSyncAt()).isNull();
+    }
+
+    @Test
+    void dispatchKeepsStateAppliedByAnEarlierCallback() {
+        Project project = new Project();
+        project.setRepo("owner/repo");
+        project.setRepoUrl("https://github.com/owner/repo.git");
+        ReflectionTestUtils.setField(project, "id", 7L);
+        when(projectRepository.findById(7L)).thenReturn(Optional.of(project));
+        when(jobRepository.save(org.mockito.ArgumentMatchers.any(CiFixJobRecord.class)))
+            .thenAnswer(invocation -> invocation.getArgument(0));
+        when(sandboxOrchestratorClient.createJob(org.mockito.ArgumentMatchers.any()))
+            .thenReturn(jobResponse("job-1", "PENDING", "na fila"));
+
+        CiFixJobService service = new CiFixJobService(projectRepository, jobRepository, sandboxOrchestratorClient, auditService, sandboxOutbox, eventPublisher, budgetService, TransactionOperations.withoutTransaction());
+        CreateCiFixJobRequest request = new CreateCiFixJobRequest();
+        request.setProjectId(7L);
+        request.setTaskDescription("look into failure");
+        service.createJob("alice", request);
+
+        ArgumentCaptor<CiFixJobRecord> recordCaptor = ArgumentCaptor.forClass(CiFixJobRecord.class);
+        verify(jobRepository).save(recordCaptor.capture());
+        CiFixJobRecord record = recordCaptor.getValue();
+        SandboxOutboxEntry entry = dispatchEntryFor(record);
+        // o callback de conclusão chegou antes da resposta do POST
+        record.setStatus("COMPLETED");
+        record.setSummary("pronto");
+        when(jobRepository.claimDispatch(record.getJobId())).thenReturn(0);
+        when(jobRepository.findByJobId(record.getJobId())).thenReturn(Optional.of(record));
+
+        service.dispatch(entry);
+
+        assertThat(record.getStatus()).isEqualTo("COMPLETED");
+        assertThat(record.getSummary()).isEqualTo("pronto");
+        verify(jobRepository, org.mockito.Mockito.times(1)).save(org.mockito.ArgumentMatchers.any(CiFixJobRecord.class));
+    }
+
     @Test
     void createJobStillPersistsWhenOrchestratorFails() {
         Project project = new Project();
@@ -157,20 +249,40 @@ class CiFixJobServiceTest {
         when(sandboxOrchestratorClient.createJob(org.mockito.ArgumentMatchers.any()))
             .thenThrow(new RuntimeException("timeout creating job"));
 
-        CiFixJobService service = new CiFixJobService(projectRepository, jobRepository, sandboxOrchestratorClient, auditService);
+        CiFixJobService service = new CiFixJobService(projectRepository, jobRepository, sandboxOrchestratorClient, auditService, sandboxOutbox, eventPublisher, budgetService, TransactionOperations.withoutTransaction());
         CreateCiFixJobRequest request = new CreateCiFixJobRequest();
         request.setProjectId(99L);
         request.setTaskDescription("run analysis");
 
-        CiFixJobView view = service.createJob("carol", request);
+        service.createJob("carol", request);
 
         ArgumentCaptor<CiFixJobRecord> recordCaptor = ArgumentCaptor.forClass(CiFixJobRecord.class);
         verify(jobRepository, org.mockito.Mockito.atLeastOnce()).save(recordCaptor.capture());
         CiFixJobRecord finalRecord = recordCaptor.getValue();
 
+        SandboxOutboxEntry entry = dispatchEntryFor(finalRecord);
+        when(jobRepository.findByJobId(finalRecord.getJobId())).thenReturn(Optional.of(finalRecord));
+        assertThatThrownBy(() -> service.dispatch(entry)).hasMessageContaining("timeout creating job");
+        service.markFailed(entry, "timeout creating job");
+        CiFixJobView view = CiFixJobView.from(finalRecord);
+
         assertThat(finalRecord.getStatus()).isEqualTo("FAILED");
         assertThat(finalRecord.getSummary()).contains("timeout creating job");
         assertThat(view.status()).isEqualTo("FAILED");
         assertThat(view.summary()).contains("timeout creating job");
     }
+
+    private SandboxOutboxEntry dispatchEntryFor(CiFixJobRecord record) {
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(sandboxOutbox).enqueue(eq(SandboxJobType.CI_FIX), eq(record.getJobId()), payload.capture());
+        SandboxOutboxEntry entry = new SandboxOutboxEntry(SandboxJobType.CI_FIX, record.getJobId(), "{}");
+        when(sandboxOutbox.readPayload(entry, SandboxJobRequest.class)).thenReturn((SandboxJobRequest) payload.getValue());
+        return entry;
+    }
+
+    private SandboxOrchestratorClient.SandboxOrchestratorJobResponse jobResponse(String jobId, String status, String summary) {
+        return new SandboxOrchestratorClient.SandboxOrchestratorJobResponse(
+            jobId, status, summary, null, null, null, null, null, null, null, null, null, null, null, null
+        );
+    }
 }
@@ -0,0 +1,107 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.CodexIntegrationProfile;
+import com.aihub.hub.domain.CodexRequest;
+import com.aihub.hub.dto.CodexBatchItemResult;
+import com.aihub.hub.dto.CreateCodexRequest;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CodexBatchServiceTest {
+
+    private final CodexRequestService codexRequestService = mock(CodexRequestService.class);
+    private final CodexBatchService batchService = new CodexBatchService(codexRequestService, 5, 2);
+
+    @Test
+    void persistsInChunksAndReportsEachItemInOrder() {
+        when(codexRequestService.createAll(eq("ana"), anyList(), anyList()))
+            .thenReturn(List.of(saved(1L, "acme"), saved(2L, null)))
+            .thenThrow(new IllegalStateException("banco indisponível"))
+            .thenReturn(List.of(saved(5L, "acme")));
+
+        List<CodexBatchItemResult> results = new ArrayList<>();
+        batchService.submit("ana", requests(5), results::add);
+
+        verify(codexRequestService, times(3)).createAll(eq("ana"), anyList(), anyList());
+        assertThat(results).extracting(CodexBatchItemResult::index).containsExactly(0, 1, 2, 3, 4);
+        assertThat(results.get(0)).isEqualTo(CodexBatchItemResult.accepted(0, 1L, CodexBatchItemResult.Dispatch.QUEUED));
+        assertThat(results.get(1).dispatch()).isEqualTo(CodexBatchItemResult.Dispatch.SKIPPED);
+        assertThat(results.get(2)).isEqualTo(CodexBatchItemResult.failed(2, "banco indisponível"));
+        assertThat(results.get(3).status()).isEqualTo(CodexBatchItemResult.Status.FAILED);
+        assertThat(results.get(4).id()).isEqualTo(5L);
+
+        assertThatThrownBy(() -> batchService.submit("ana", requests(6), results::add))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("limite de 5");
+    }
+
+    @Test
+    void rejectsOnlyItemsOverBudget() {
+        List<CreateCodexRequest> requests = requests(3);
+        CodexRequestService.Admission standard = new CodexRequestService.Admission(CodexIntegrationProfile.STANDARD, "gpt-5-codex");
+        CodexRequestService.Admission economy = new CodexRequestService.Admission(CodexIntegrationProfile.ECONOMY, "gpt-4.1-mini");
+        when(codexRequestService.checkBudget("ana", requests.get(0))).thenReturn(standard);
+        when(codexRequestService.checkBudget("ana", requests.get(2))).thenReturn(economy);
+        doThrow(new BudgetExceededException("Orçamento diário do usuário ana esgotado", 60))
+            .when(codexRequestService).checkBudget("ana", requests.get(1));
+        when(codexRequestService.createAll(eq("ana"), anyList(), anyList())).thenReturn(List.of(saved(1L, "acme"), saved(3L, "acme")));
+
+        List<CodexBatchItemResult> results = new ArrayList<>();
+        batchService.submit("ana", requests, results::add);
+
+        verify(codexRequestService).createAll("ana", List.of(requests.get(0), requests.get(2)), List.of(standard, economy));
+        assertThat(results).extracting(CodexBatchItemResult::index).containsExactly(1, 0, 2);
+        assertThat(results.get(0)).isEqualTo(CodexBatchItemResult.failed(1, "Orçamento diário do usuário ana esgotado"));
+        assertThat(results.get(2).id()).isEqualTo(3L);
+    }
+
+    @Test
+    void keepsPersistingAfterTheClientDisconnects() {
+        when(codexRequestService.createAll(eq("ana"), anyList(), anyList()))
+            .thenReturn(List.of(saved(1L, "acme"), saved(2L, "acme")))
+            .thenReturn(List.of(saved(3L, "acme")));
+        List<CodexBatchItemResult> results = new ArrayList<>();
+
+        batchService.submit("ana", requests(3), result -> {
+            if (results.size() == 1) {
+                throw new UncheckedIOException(new IOException("Broken pipe"));
+            }
+            results.add(result);
+        });
+
+        verify(codexRequestService, times(2)).createAll(eq("ana"), anyList(), anyList());
+        assertThat(results).extracting(CodexBatchItemResult::index).containsExactly(0);
+    }
+
+    private List<CreateCodexRequest> requests(int count) {
+        return IntStream.range(0, count).mapToObj(i -> {
+            CreateCodexRequest request = new CreateCodexRequest();
+            request.setEnvironment("acme/api");
+            request.setPrompt("tarefa " + i);
+            return request;
+        }).toList();
+    }
+
+    private CodexRequest saved(Long id, String repoOwner) {
+        CodexRequest request = new CodexRequest("acme/api", "gpt", null, "p");
+        ReflectionTestUtils.setField(request, "id", id);
+        request.setRepoOwner(repoOwner);
+        return request;
+    }
+}
@@ -0,0 +1,116 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.CodexModelPricing;
+import com.aihub.hub.dto.CodexModelPricingRequest;
+import com.aihub.hub.repository.CodexModelPricingRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CodexModelPricingServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-10T10:00:00Z");
+    private static final Instant LAUNCH = Instant.parse("2024-01-01T00:00:00Z");
+
+    private final CodexModelPricingRepository repository = mock(CodexModelPricingRepository.class);
+    private final CodexModelPricingService service = new CodexModelPricingService(
+        repository, mock(ApplicationEventPublisher.class), Clock.fixed(NOW, ZoneOffset.UTC)
+    );
+
+    @Test
+    void priceChangeOnTheCurrentVersionOpensANewVersionFromNow() {
+        CodexModelPricing current = version(LAUNCH, null, "1.00");
+        stubVersions(current);
+
+        CodexModelPricing saved = service.update(1L, request("gpt-5-codex", "2.00", false));
+
+        assertThat(saved).isNotSameAs(current);
+        assertThat(saved.getEffectiveFrom()).isEqualTo(NOW);
+        assertThat(saved.getEffectiveTo()).isNull();
+        assertThat(saved.getInputPricePerMillion()).isEqualByComparingTo("2.00");
+        assertThat(current.getInputPricePerMillion()).isEqualByComparingTo("1.00");
+        assertThat(current.getEffectiveTo()).isEqualTo(NOW);
+    }
+
+    @Test
+    void correctionEditsTheCurrentVersionInPlace() {
+        CodexModelPricing current = version(LAUNCH, null, "1.00");
+        stubVersions(current);
+
+        CodexModelPricing saved = service.update(1L, request("gpt-5-codex", "2.00", true));
+
+        assertThat(saved).isSameAs(current);
+        assertThat(current.getInputPricePerMillion()).isEqualByComparingTo("2.00");
+        assertThat(current.getEffectiveTo()).isNull();
+        verify(repository, times(1)).save(any(CodexModelPricing.class));
+    }
+
+    @Test
+    void pastVersionsAndUnchangedPricesAreEditedInPlace() {
+        CodexModelPricing past = version(LAUNCH, NOW.minusSeconds(3600), "1.00");
+        CodexModelPricing current = version(NOW.minusSeconds(3600), null, "1.50");
+        stubVersions(past, current);
+        when(repository.findById(2L)).thenReturn(Optional.of(current));
+
+        assertThat(service.update(1L, request("gpt-5-codex", "0.90", false))).isSameAs(past);
+        CodexModelPricingRequest renamed = request("gpt-5-codex", "1.50", false);
+        renamed.setDisplayName("GPT-5 Codex");
+        assertThat(service.update(2L, renamed)).isSameAs(current);
+
+        ArgumentCaptor<CodexModelPricing> saved = ArgumentCaptor.forClass(CodexModelPricing.class);
+        verify(repository, times(2)).save(saved.capture());
+        assertThat(saved.getAllValues()).containsExactly(past, current);
+        assertThat(current.getDisplayName()).isEqualTo("GPT-5 Codex");
+    }
+
+    @Test
+    void rejectsRenameCombinedWithPriceChangeOnTheCurrentVersion() {
+        stubVersions(version(LAUNCH, null, "1.00"));
+
+        assertThatThrownBy(() -> service.update(1L, request("gpt-5.1-codex", "2.00", false)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("requisições separadas");
+    }
+
+    private void stubVersions(CodexModelPricing... versions) {
+        when(repository.findById(1L)).thenReturn(Optional.of(versions[0]));
+        when(repository.findByModelNameIgnoreCaseOrderByEffectiveFromAsc("gpt-5-codex")).thenReturn(List.of(versions));
+        when(repository.save(any(CodexModelPricing.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    }
+
+    private static CodexModelPricing version(Instant from, Instant to, String input) {
+        CodexModelPricing pricing = new CodexModelPricing();
+        pricing.setModelName("gpt-5-codex");
+        pricing.setInputPricePerMillion(new BigDecimal(input));
+        pricing.setCachedInputPricePerMillion(BigDecimal.ZERO);
+        pricing.setOutputPricePerMillion(BigDecimal.TEN);
+        pricing.setEffectiveFrom(from);
+        pricing.setEffectiveTo(to);
+        return pricing;
+    }
+
+    private static CodexModelPricingRequest request(String modelName, String input, boolean correction) {
+        CodexModelPricingRequest request = new CodexModelPricingRequest();
+        request.setModelName(modelName);
+        request.setInputPricePerMillion(new BigDecimal(input));
+        request.setCachedInputPricePerMillion(BigDecimal.ZERO);
+        request.setOutputPricePerMillion(BigDecimal.TEN);
+        request.setCorrection(correction);
+        return request;
+    }
+}
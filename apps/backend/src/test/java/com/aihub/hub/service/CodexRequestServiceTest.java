@@ -0,0 +1,117 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.CodexIntegrationProfile;
+import com.aihub.hub.domain.CodexRequest;
+import com.aihub.hub.domain.ResponseRecord;
+import com.aihub.hub.repository.CodexRequestRepository;
+import com.aihub.hub.repository.PromptRepository;
+import com.aihub.hub.repository.ResponseRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CodexRequestServiceTest {
+
+    private static final Instant NOW = Instant.parse("2024-05-10T10:00:00Z");
+    private static final SandboxSyncCandidate CANDIDATE = new SandboxSyncCandidate(1L, "job-1", null);
+    private static final SandboxSyncBackoff BACKOFF = new SandboxSyncBackoff(
+        Clock.fixed(NOW, ZoneOffset.UTC), Duration.ofSeconds(5), Duration.ofMinutes(5), 0.1
+    );
+
+    private final CodexRequestRepository codexRequestRepository = mock(CodexRequestRepository.class);
+    private final ResponseRepository responseRepository = mock(ResponseRepository.class);
+    private final CodexRequestService service = new CodexRequestService(
+        codexRequestRepository,
+        mock(PromptRepository.class),
+        responseRepository,
+        mock(SandboxOrchestratorClient.class),
+        mock(TokenCostCalculator.class),
+        mock(SandboxOutbox.class),
+        mock(ApplicationEventPublisher.class),
+        mock(BudgetService.class),
+        mock(PlatformTransactionManager.class),
+        "gpt-5-codex",
+        "gpt-4.1-mini",
+        "main"
+    );
+
+    private final CodexRequest request = new CodexRequest("acme/api", "gpt-5-codex", CodexIntegrationProfile.STANDARD, "Corrigir build");
+
+    @Test
+    void refreshWithUnchangedContentWritesNoResponse() {
+        when(codexRequestRepository.findById(1L)).thenReturn(Optional.of(request));
+
+        service.applySync(CANDIDATE, response("Plano A"), "v1", BACKOFF);
+        when(responseRepository.existsByCodexRequestIdAndContentHash(any(), anyString())).thenReturn(true);
+        service.applySync(CANDIDATE, response("Plano A"), "v2", BACKOFF);
+
+        verify(responseRepository, times(1)).saveAndFlush(any(ResponseRecord.class));
+    }
+
+    @Test
+    void changedContentInsertsANewResponse() {
+        when(codexRequestRepository.findById(1L)).thenReturn(Optional.of(request));
+
+        service.applySync(CANDIDATE, response("Plano A"), "v1", BACKOFF);
+        service.applySync(CANDIDATE, response("Plano B"), "v2", BACKOFF);
+
+        ArgumentCaptor<ResponseRecord> saved = ArgumentCaptor.forClass(ResponseRecord.class);
+        verify(responseRepository, times(2)).saveAndFlush(saved.capture());
+        assertThat(saved.getAllValues()).extracting(ResponseRecord::getFixPlan).containsExactly("Plano A", "Plano B");
+        assertThat(saved.getAllValues().get(0).getContentHash()).isNotEqualTo(saved.getAllValues().get(1).getContentHash());
+    }
+
+    @Test
+    void concurrentDuplicateInsertDoesNotFailTheSync() {
+        when(codexRequestRepository.findById(1L)).thenReturn(Optional.of(request));
+        when(responseRepository.saveAndFlush(any(ResponseRecord.class)))
+            .thenThrow(new DataIntegrityViolationException("uk_responses_request_content"));
+
+        assertThatCode(() -> service.applySync(CANDIDATE, response("Plano A"), "v1", BACKOFF)).doesNotThrowAnyException();
+        assertThat(request.getSyncVersion()).isEqualTo("v1");
+        verify(responseRepository, never()).save(any(ResponseRecord.class));
+    }
+
+    @Test
+    void polledRowsMoveBehindOlderDueRowsUntilTheyFinish() {
+        // a fila é ordenada por next_sync_at: cada consulta sem novidade empurra a linha para depois das demais
+        request.setCreatedAt(NOW.minus(Duration.ofDays(2)));
+        request.setNextSyncAt(NOW.minus(Duration.ofHours(1)));
+        when(codexRequestRepository.findById(1L)).thenReturn(Optional.of(request));
+
+        service.applySync(CANDIDATE, response("Plano A"), "v1", BACKOFF);
+        service.applySync(CANDIDATE, response("Plano A"), "v1", BACKOFF);
+
+        assertThat(request.getNextSyncAt()).isAfter(NOW);
+        assertThat(request.getSyncMisses()).isEqualTo(1);
+
+        service.applySync(CANDIDATE, new SandboxOrchestratorClient.SandboxOrchestratorJobResponse(
+            "job-1", "COMPLETED", "Plano A", null, null, null, null, null, null, null, null, null, null, null, null
+        ), "v2", BACKOFF);
+        assertThat(request.getNextSyncAt()).isNull();
+    }
+
+    private static SandboxOrchestratorClient.SandboxOrchestratorJobResponse response(String summary) {
+        return new SandboxOrchestratorClient.SandboxOrchestratorJobResponse(
+            "job-1", "RUNNING", summary, null, null, null, null, null, null, null, null, null, null, null, null
+        );
+    }
+}
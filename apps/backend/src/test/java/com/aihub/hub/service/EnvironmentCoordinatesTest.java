@@ -0,0 +1,31 @@
+package com.aihub.hub.service;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EnvironmentCoordinatesTest {
+
+    @Test
+    void parsesRepositoryBranchRunAndPullRequest() {
+        EnvironmentCoordinates coordinates = EnvironmentCoordinates.parse("acme/api/release-1 run:42 PR#7", "main");
+
+        assertThat(coordinates.hasRepository()).isTrue();
+        assertThat(coordinates.owner()).isEqualTo("acme");
+        assertThat(coordinates.name()).isEqualTo("api");
+        assertThat(coordinates.repo()).isEqualTo("acme/api");
+        assertThat(coordinates.branch()).isEqualTo("release-1");
+        assertThat(coordinates.runId()).isEqualTo(42L);
+        assertThat(coordinates.prNumber()).isEqualTo(7);
+
+        EnvironmentCoordinates withAt = EnvironmentCoordinates.parse("acme/web@feature/x pr:3", "main");
+        assertThat(withAt.name()).isEqualTo("web");
+        assertThat(withAt.branch()).isEqualTo("feature/x");
+        assertThat(withAt.prNumber()).isEqualTo(3);
+
+        EnvironmentCoordinates freeText = EnvironmentCoordinates.parse("  homologação ", "main");
+        assertThat(freeText.hasRepository()).isFalse();
+        assertThat(freeText.repo()).isEqualTo("homologação");
+        assertThat(freeText.branch()).isEqualTo("main");
+    }
+}
@@ -0,0 +1,118 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.repository.IdempotencyKeyRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class IdempotencyServiceTest {
+
+    private final IdempotencyKeyRepository repository = mock(IdempotencyKeyRepository.class);
+    private final IdempotencyService service = new IdempotencyService(
+        repository,
+        new ObjectMapper(),
+        Clock.systemUTC(),
+        Duration.ofHours(1),
+        Duration.ofMinutes(5),
+        Duration.ofSeconds(5),
+        Duration.ofMillis(10),
+        100
+    );
+
+    IdempotencyServiceTest() {
+        when(repository.findById(anyString())).thenReturn(Optional.empty());
+    }
+
+    @Test
+    void replaysStoredResponseAndRejectsKeyReusedWithOtherPayload() {
+        AtomicInteger calls = new AtomicInteger();
+
+        ResponseEntity<?> first = service.execute("codex-request", "k-1", "abc",
+            () -> ResponseEntity.accepted().body(Map.of("id", calls.incrementAndGet())));
+        ResponseEntity<?> second = service.execute("codex-request", "k-1", "abc",
+            () -> ResponseEntity.accepted().body(Map.of("id", calls.incrementAndGet())));
+
+        assertThat(calls).hasValue(1);
+        assertThat(first.getBody()).isEqualTo(Map.of("id", 1));
+        assertThat(second.getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(second.getBody()).isEqualTo("{\"id\":1}");
+        assertThat(second.getHeaders().getFirst(IdempotencyService.REPLAYED_HEADER)).isEqualTo("true");
+        verify(repository).insertInProgress(eq("codex-request:k-1"), eq("codex-request"), eq("abc"), any(), any());
+        verify(repository).complete(eq("codex-request:k-1"), eq(202), eq("{\"id\":1}"), any());
+
+        assertThatThrownBy(() -> service.execute("codex-request", "k-1", "outro",
+            () -> ResponseEntity.accepted().build()))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void concurrentDuplicateWaitsForOriginalInsteadOfStartingAnotherJob() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        CompletableFuture<ResponseEntity<?>> original = CompletableFuture.supplyAsync(() ->
+            service.execute("cifix-job", "k-2", "abc", () -> {
+                calls.incrementAndGet();
+                started.countDown();
+                await(release);
+                return ResponseEntity.accepted().body(Map.of("jobId", "job-1"));
+            }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<ResponseEntity<?>> retry = CompletableFuture.supplyAsync(() ->
+            service.execute("cifix-job", "k-2", "abc", () -> {
+                calls.incrementAndGet();
+                return ResponseEntity.accepted().build();
+            }));
+
+        release.countDown();
+
+        assertThat(original.get(5, TimeUnit.SECONDS).getStatusCode()).isEqualTo(HttpStatus.ACCEPTED);
+        assertThat(retry.get(5, TimeUnit.SECONDS).getBody()).isEqualTo("{\"jobId\":\"job-1\"}");
+        assertThat(calls).hasValue(1);
+    }
+
+    @Test
+    void releasesKeyWhenCreationFails() {
+        assertThatThrownBy(() -> service.execute("upload-job", "k-3", "abc", () -> {
+            throw new IllegalArgumentException("ZIP inválido");
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        ResponseEntity<?> retried = service.execute("upload-job", "k-3", "abc",
+            () -> ResponseEntity.accepted().body(Map.of("jobId", "job-2")));
+
+        verify(repository).deleteInProgress("upload-job:k-3");
+        verify(repository, times(2)).insertInProgress(eq("upload-job:k-3"), anyString(), anyString(), any(), any());
+        verify(repository).complete(eq("upload-job:k-3"), anyInt(), anyString(), any());
+        assertThat(retried.getBody()).isEqualTo(Map.of("jobId", "job-2"));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxJobType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JobEventStreamTest {
+
+    private final JobEventStream stream = new JobEventStream(
+        new SimpleMeterRegistry(), 8, 4, Duration.ofSeconds(15), Duration.ofMinutes(1)
+    );
+
+    @Test
+    void publishesChangedFieldsAndResumesOnlyWithinReplayWindow() {
+        String epoch = (String) ReflectionTestUtils.getField(stream, "epoch");
+        SandboxJobSnapshot pending = new SandboxJobSnapshot("PENDING", null, null, List.of(), false);
+        SandboxJobSnapshot running = new SandboxJobSnapshot("RUNNING", 120, new BigDecimal("0.01"), List.of(), false);
+        stream.onJobChanged(new SandboxJobChanged(SandboxJobType.UPLOAD, "job-1", pending, running));
+
+        List<JobEventStream.JobEvent> first = stream.eventsSince(epoch + "-0");
+        assertThat(first).extracting(JobEventStream.JobEvent::type).containsExactly("status", "tokens", "cost");
+        assertThat(first.get(1).data())
+            .containsEntry("jobType", "UPLOAD")
+            .containsEntry("jobId", "job-1")
+            .containsEntry("tokens", 120);
+
+        SandboxJobSnapshot completed = new SandboxJobSnapshot("COMPLETED", 120, new BigDecimal("0.01"), List.of("a.txt"), true);
+        stream.onJobChanged(new SandboxJobChanged(SandboxJobType.UPLOAD, "job-1", running, completed));
+
+        // replay-size 4: os dois primeiros eventos já saíram do histórico
+        assertThat(stream.eventsSince(epoch + "-0")).isNull();
+        assertThat(stream.eventsSince(first.get(2).id())).extracting(JobEventStream.JobEvent::type)
+            .containsExactly("status", "changedFiles", "resultZipReady");
+        assertThat(stream.eventsSince("outroboot-3")).isNull();
+    }
+}
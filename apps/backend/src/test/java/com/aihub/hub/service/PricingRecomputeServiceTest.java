@@ -0,0 +1,137 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.CodexModelPricing;
+import com.aihub.hub.domain.PricingRecomputeJob;
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.repository.CodexModelPricingRepository;
+import com.aihub.hub.repository.CodexRequestRepository;
+import com.aihub.hub.repository.PricingRecomputeJobRepository;
+import com.aihub.hub.repository.UploadJobRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class PricingRecomputeServiceTest {
+
+    private static final Instant CHANGE = Instant.parse("2024-06-01T00:00:00Z");
+    private static final Instant BEFORE = CHANGE.minusSeconds(60);
+    private static final Instant AFTER = CHANGE.plusSeconds(60);
+
+    private final PricingRecomputeJobRepository jobRepository = mock(PricingRecomputeJobRepository.class);
+    private final CodexModelPricingRepository pricingRepository = mock(CodexModelPricingRepository.class);
+    private final CodexRequestRepository codexRequestRepository = mock(CodexRequestRepository.class);
+    private final UploadJobRepository uploadJobRepository = mock(UploadJobRepository.class);
+    private final UsageRollupService usageRollupService = mock(UsageRollupService.class);
+    private final JdbcTemplate jdbcTemplate = mock(JdbcTemplate.class);
+    private final PricingRecomputeService service = new PricingRecomputeService(
+        jobRepository,
+        pricingRepository,
+        codexRequestRepository,
+        uploadJobRepository,
+        usageRollupService,
+        jdbcTemplate,
+        mock(PlatformTransactionManager.class),
+        2,
+        2,
+        false
+    );
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void recomputesWithPriceEffectiveAtCreationAndKeepsReportedCosts() {
+        ModelPricingSnapshot pricing = ModelPricingSnapshot.of(versions());
+        List<CostRow> rows = List.of(
+            codexRow(1L, BEFORE, 1_000_000, "1.000000", "1.000000"),
+            codexRow(2L, AFTER, 1_000_000, "1.000000", "1.000000"),
+            codexRow(3L, AFTER, 1_000_000, "1.000000", "7.500000"),
+            codexRow(4L, AFTER, 1_000_000, "2.000000", "2.000000")
+        );
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] {1, 0});
+
+        int updated = service.write(SandboxJobType.CODEX, pricing, rows);
+
+        ArgumentCaptor<List<Object[]>> arguments = ArgumentCaptor.forClass(List.class);
+        verify(jdbcTemplate).batchUpdate(anyString(), arguments.capture());
+        assertThat(arguments.getValue()).hasSize(2);
+        assertThat(arguments.getValue().get(0)).containsExactly(
+            new BigDecimal("2.000000"), new BigDecimal("0.000000"), new BigDecimal("0.000000"),
+            new BigDecimal("2.000000"), 2L, new BigDecimal("1.000000")
+        );
+        // custo informado pelo sandbox: só os componentes mudam
+        assertThat(arguments.getValue().get(1)[3]).isEqualTo(new BigDecimal("7.500000"));
+
+        ArgumentCaptor<Collection<UsageChanged>> changes = ArgumentCaptor.forClass(Collection.class);
+        verify(usageRollupService).applyAll(changes.capture());
+        assertThat(changes.getValue()).extracting(UsageChanged::id).containsExactly(2L);
+        assertThat(updated).isEqualTo(1);
+    }
+
+    @Test
+    void advancesCheckpointOverContiguousChunksAndResumesFromIt() {
+        PricingRecomputeJob job = new PricingRecomputeJob("gpt-5-codex", CHANGE, null);
+        ReflectionTestUtils.setField(job, "id", 9L);
+        job.setCodexCheckpointId(10L);
+        when(jobRepository.findById(9L)).thenReturn(Optional.of(job));
+        when(pricingRepository.findByModelNameIgnoreCaseOrderByEffectiveFromAsc("gpt-5-codex")).thenReturn(versions());
+        when(codexRequestRepository.findCostRows(eq("gpt-5-codex"), eq(CHANGE), any(), eq(10L), any(Pageable.class)))
+            .thenReturn(List.of(codexRow(11L, AFTER, 1_000_000, "1", "1"), codexRow(12L, AFTER, 0, null, null)));
+        when(codexRequestRepository.findCostRows(eq("gpt-5-codex"), eq(CHANGE), any(), eq(12L), any(Pageable.class)))
+            .thenReturn(List.of(codexRow(13L, AFTER, 1_000_000, "1", "1")));
+        when(codexRequestRepository.findCostRows(eq("gpt-5-codex"), eq(CHANGE), any(), eq(13L), any(Pageable.class)))
+            .thenReturn(List.of());
+        when(uploadJobRepository.findCostRows(anyString(), any(), any(), anyLong(), any(Pageable.class))).thenReturn(List.of());
+        when(jdbcTemplate.batchUpdate(anyString(), anyList())).thenReturn(new int[] {1});
+
+        service.run(9L);
+
+        assertThat(job.getStatus()).isEqualTo(PricingRecomputeJob.STATUS_COMPLETED);
+        assertThat(job.getCodexCheckpointId()).isEqualTo(13L);
+        assertThat(job.getUpdatedRows()).isEqualTo(2L);
+        verify(codexRequestRepository, never()).findCostRows(anyString(), any(), any(), eq(0L), any(Pageable.class));
+    }
+
+    private static List<CodexModelPricing> versions() {
+        CodexModelPricing old = pricing("1.00", Instant.EPOCH, CHANGE);
+        CodexModelPricing current = pricing("2.00", CHANGE, null);
+        return List.of(old, current);
+    }
+
+    private static CodexModelPricing pricing(String input, Instant from, Instant to) {
+        CodexModelPricing pricing = new CodexModelPricing();
+        pricing.setModelName("gpt-5-codex");
+        pricing.setInputPricePerMillion(new BigDecimal(input));
+        pricing.setCachedInputPricePerMillion(BigDecimal.ZERO);
+        pricing.setOutputPricePerMillion(BigDecimal.ZERO);
+        pricing.setEffectiveFrom(from);
+        pricing.setEffectiveTo(to);
+        return pricing;
+    }
+
+    private static CostRow codexRow(Long id, Instant createdAt, int promptTokens, String promptCost, String cost) {
+        return new CostRow(id, createdAt, "gpt-5-codex", "STANDARD", "acme/api", "ana", promptTokens, 0, 0, promptTokens,
+            promptCost != null ? new BigDecimal(promptCost) : null,
+            promptCost != null ? BigDecimal.ZERO : null,
+            promptCost != null ? BigDecimal.ZERO : null,
+            cost != null ? new BigDecimal(cost) : null);
+    }
+}
@@ -0,0 +1,83 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.ResponseRecord;
+import com.aihub.hub.repository.ResponseRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.transaction.support.TransactionOperations;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class ResponseCompactionJobTest {
+
+    private final ResponseRepository responseRepository = mock(ResponseRepository.class);
+    private final ResponseCompactionJob job =
+        new ResponseCompactionJob(responseRepository, TransactionOperations.withoutTransaction(), true, 100);
+
+    @Test
+    void removesDuplicatesAndKeepsTheOldestRowOfEachGroup() {
+        List<ResponseDuplicateGroup> groups = List.of(
+            new ResponseDuplicateGroup(10L, "acme/api", "hash-a", 3L),
+            new ResponseDuplicateGroup(null, "acme/web", "hash-b", 8L)
+        );
+        when(responseRepository.findDuplicateGroups(any())).thenReturn(groups).thenReturn(List.of());
+        when(responseRepository.findDuplicateIds(10L, "acme/api", "hash-a", 3L)).thenReturn(List.of(5L, 9L));
+        when(responseRepository.findDuplicateIds(null, "acme/web", "hash-b", 8L)).thenReturn(List.of(12L));
+
+        assertThat(job.removeDuplicates()).isEqualTo(3);
+
+        verify(responseRepository).deleteAllByIdInBatch(List.of(5L, 9L));
+        verify(responseRepository).deleteAllByIdInBatch(List.of(12L));
+        verify(responseRepository, never()).deleteAllByIdInBatch(eq(List.of(3L)));
+    }
+
+    @Test
+    void backfillsMissingHashesInIdOrder() {
+        ResponseRecord legacy = new ResponseRecord(null, "acme/api", null, null);
+        legacy.setFixPlan("Plano A");
+        when(responseRepository.findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(eq(0L), any())).thenReturn(List.of(legacy));
+        when(responseRepository.saveAll(anyList())).thenAnswer(invocation -> {
+            List<ResponseRecord> records = invocation.getArgument(0);
+            return records.isEmpty() ? records : List.of(withId(records.get(0), 7L));
+        });
+
+        assertThat(job.backfillHashes()).isEqualTo(1);
+        assertThat(legacy.getContentHash()).isEqualTo(ResponseRecord.hashContent(null, "Plano A", null));
+        verify(responseRepository).findByContentHashIsNullAndIdGreaterThanOrderByIdAsc(eq(7L), any());
+    }
+
+    @Test
+    void linksLegacyResponsesToTheirRequestAndDropsTheOnesAlreadyRecorded() {
+        ResponseRecord legacy = withId(new ResponseRecord(null, "acme/api", null, null), 3L);
+        legacy.setContentHash("hash-a");
+        ResponseRecord repeated = withId(new ResponseRecord(null, "acme/api", null, null), 4L);
+        repeated.setContentHash("hash-b");
+        List<ResponseRequestLink> links = List.of(new ResponseRequestLink(3L, 20L), new ResponseRequestLink(4L, 21L));
+        when(responseRepository.findUnlinkedAfter(eq(0L), any())).thenReturn(links);
+        when(responseRepository.findUnlinkedAfter(eq(4L), any())).thenReturn(List.of());
+        when(responseRepository.findAllById(List.of(3L, 4L))).thenReturn(List.of(legacy, repeated));
+        when(responseRepository.existsByCodexRequestIdAndContentHash(21L, "hash-b")).thenReturn(true);
+
+        assertThat(job.linkCodexRequests()).isEqualTo(2);
+
+        assertThat(legacy.getCodexRequestId()).isEqualTo(20L);
+        assertThat(repeated.getCodexRequestId()).isNull();
+        verify(responseRepository).saveAll(List.of(legacy));
+        verify(responseRepository).deleteAllByIdInBatch(List.of(4L));
+    }
+
+    private static ResponseRecord withId(ResponseRecord record, long id) {
+        ResponseRecord spy = spy(record);
+        when(spy.getId()).thenReturn(id);
+        return spy;
+    }
+}
@@ -0,0 +1,65 @@
+package com.aihub.hub.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SandboxCallbackServiceTest {
+
+    private final SandboxJobSynchronizer codex = mock(SandboxJobSynchronizer.class);
+    private final SandboxJobSynchronizer upload = mock(SandboxJobSynchronizer.class);
+    private final Instant now = Instant.parse("2024-05-01T12:00:00Z");
+    private final SandboxCallbackService service = new SandboxCallbackService(
+        List.of(codex, upload), new ObjectMapper(), Clock.fixed(now, ZoneOffset.UTC), new SimpleMeterRegistry(), Duration.ofMinutes(2)
+    );
+
+    @Test
+    void appliesEachSequenceOnceToTheOwningJob() {
+        SandboxSyncCandidate candidate = new SandboxSyncCandidate(5L, "job-1", null);
+        when(codex.findSyncCandidate("job-1")).thenReturn(Optional.empty());
+        when(upload.findSyncCandidate("job-1")).thenReturn(Optional.of(candidate));
+        when(upload.claimCallback(candidate, 3L)).thenReturn(true, false);
+        String payload = "{\"jobId\":\"job-1\",\"sequence\":3,\"job\":{\"jobId\":\"job-1\",\"status\":\"RUNNING\"}}";
+
+        assertThat(service.apply(payload)).isEqualTo(SandboxCallbackService.Result.APPLIED);
+        assertThat(service.apply(payload)).isEqualTo(SandboxCallbackService.Result.DUPLICATE);
+
+        ArgumentCaptor<SandboxOrchestratorClient.SandboxOrchestratorJobResponse> response =
+            ArgumentCaptor.forClass(SandboxOrchestratorClient.SandboxOrchestratorJobResponse.class);
+        ArgumentCaptor<SandboxSyncBackoff> backoff = ArgumentCaptor.forClass(SandboxSyncBackoff.class);
+        verify(upload).applySync(eq(candidate), response.capture(), eq("RUNNING@null"), backoff.capture());
+        assertThat(response.getValue().status()).isEqualTo("RUNNING");
+        assertThat(backoff.getValue().next(now, 0, true, false).at()).isEqualTo(now.plus(Duration.ofMinutes(2)));
+        verify(codex, never()).applySync(any(), any(), any(), any());
+    }
+
+    @Test
+    void rejectsUnknownJobsAndMalformedPayloads() {
+        when(codex.findSyncCandidate("job-x")).thenReturn(Optional.empty());
+        when(upload.findSyncCandidate("job-x")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.apply("{\"jobId\":\"job-x\",\"sequence\":1,\"job\":{\"status\":\"RUNNING\"}}"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("job-x");
+        assertThatThrownBy(() -> service.apply("{\"jobId\":\"job-x\",\"job\":{}}"))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("sequence");
+    }
+}
@@ -0,0 +1,59 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxCredentialRecord;
+import com.aihub.hub.repository.SandboxCredentialRepository;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Base64;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SandboxCredentialVaultTest {
+
+    private final SandboxCredentialRepository repository = mock(SandboxCredentialRepository.class);
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final Instant now = Instant.parse("2024-05-01T12:00:00Z");
+    private final String key = Base64.getEncoder().encodeToString(new byte[32]);
+
+    private SandboxCredentialVault vault(String key, Instant at) {
+        return new SandboxCredentialVault(repository, objectMapper, Clock.fixed(at, ZoneOffset.UTC), key, Duration.ofHours(1));
+    }
+
+    @Test
+    void credentialsSurviveAcrossInstancesSharingTheKeyUntilTheyExpire() {
+        SandboxUploadService.UploadCredentials credentials = new SandboxUploadService.UploadCredentials(
+            null, new UploadedGitSshKey("id_ed25519", "c2VjcmV0"), null);
+        ArgumentCaptor<SandboxCredentialRecord> saved = ArgumentCaptor.forClass(SandboxCredentialRecord.class);
+
+        vault(key, now).store("job-1", credentials);
+
+        verify(repository).save(saved.capture());
+        assertThat(saved.getValue().getCiphertext()).doesNotContain("c2VjcmV0");
+        assertThat(saved.getValue().getExpiresAt()).isEqualTo(now.plus(Duration.ofHours(1)));
+        when(repository.findById("job-1")).thenReturn(Optional.of(saved.getValue()));
+        assertThat(vault(key, now.plusSeconds(60)).load("job-1", SandboxUploadService.UploadCredentials.class))
+            .contains(credentials);
+        assertThat(vault(key, now.plus(Duration.ofHours(2))).load("job-1", SandboxUploadService.UploadCredentials.class))
+            .isEmpty();
+
+        String otherKey = Base64.getEncoder().encodeToString(new byte[16]);
+        assertThatThrownBy(() -> vault(otherKey, now).load("job-1", SandboxUploadService.UploadCredentials.class))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("hub.sandbox.credentials.key");
+        when(repository.findById("job-2")).thenReturn(Optional.of(new SandboxCredentialRecord(
+            "job-2", saved.getValue().getCiphertext(), now, now.plusSeconds(60))));
+        assertThatThrownBy(() -> vault(key, now).load("job-2", SandboxUploadService.UploadCredentials.class))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,69 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxJobType;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Map;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SandboxJobReconcilerTest {
+
+    private final SandboxOrchestratorClient client = mock(SandboxOrchestratorClient.class);
+    private final SandboxJobSynchronizer synchronizer = mock(SandboxJobSynchronizer.class);
+    private final Instant now = Instant.parse("2024-05-01T12:00:00Z");
+    private final SandboxJobReconciler reconciler = new SandboxJobReconciler(
+        client, List.of(synchronizer), Clock.fixed(now, ZoneOffset.UTC), new SimpleMeterRegistry(),
+        Duration.ofSeconds(5), Duration.ofMinutes(5), 0.05, 100, 4
+    );
+
+    @Test
+    void fetchesFullPayloadOnlyForJobsWhoseVersionChanged() {
+        SandboxSyncCandidate unchanged = new SandboxSyncCandidate(1L, "job-1", "RUNNING@t1");
+        SandboxSyncCandidate changed = new SandboxSyncCandidate(2L, "job-2", "RUNNING@t1");
+        SandboxSyncCandidate gone = new SandboxSyncCandidate(3L, "job-3", null);
+        when(synchronizer.jobType()).thenReturn(SandboxJobType.UPLOAD);
+        when(synchronizer.findDueForSync(now, 100)).thenReturn(List.of(unchanged, changed, gone));
+        when(client.getJobs(List.of("job-1", "job-2", "job-3"))).thenReturn(Map.of(
+            "job-1", new SandboxOrchestratorClient.SandboxJobStatus("job-1", "RUNNING", "t1"),
+            "job-2", new SandboxOrchestratorClient.SandboxJobStatus("job-2", "COMPLETED", "t2")
+        ));
+        SandboxOrchestratorClient.SandboxOrchestratorJobResponse completed =
+            new SandboxOrchestratorClient.SandboxOrchestratorJobResponse(
+                "job-2", "COMPLETED", "done", null, null, null, null, null, null, null, null, null, null, null, null
+            );
+        when(client.getJob("job-2")).thenReturn(completed);
+
+        reconciler.reconcile();
+
+        verify(synchronizer).deferSync(eq(unchanged), any());
+        verify(client, never()).getJob("job-1");
+        verify(synchronizer).applySync(eq(changed), eq(completed), eq("COMPLETED@t2"), any());
+        verify(client, never()).getJob("job-3");
+        verify(synchronizer).applySync(eq(gone), isNull(), isNull(), any());
+    }
+
+    @Test
+    void fallsBackToPerJobLookupsWhenBatchEndpointIsMissing() {
+        SandboxSyncCandidate candidate = new SandboxSyncCandidate(1L, "job-1", "RUNNING@t1");
+        when(synchronizer.findDueForSync(now, 100)).thenReturn(List.of(candidate));
+        when(client.getJobs(List.of("job-1"))).thenReturn(null);
+
+        reconciler.reconcile();
+
+        verify(client).getJob("job-1");
+        verify(synchronizer).applySync(eq(candidate), isNull(), isNull(), any());
+    }
+}
@@ -0,0 +1,79 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.UploadJobRecord;
+import com.aihub.hub.repository.CiFixJobRepository;
+import com.aihub.hub.repository.UploadJobRepository;
+import com.aihub.hub.service.SandboxOrchestratorClient.LogStreamResult;
+import com.aihub.hub.service.SandboxOrchestratorClient.SandboxLogLine;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SandboxLogTailTest {
+
+    private final SandboxOrchestratorClient client = mock(SandboxOrchestratorClient.class);
+    private final CiFixJobRepository ciFixJobRepository = mock(CiFixJobRepository.class);
+    private final UploadJobRepository uploadJobRepository = mock(UploadJobRepository.class);
+    private final SandboxLogTail logTail = new SandboxLogTail(
+        client, ciFixJobRepository, uploadJobRepository, Clock.systemUTC(), new SimpleMeterRegistry(),
+        DataSize.ofBytes(20), 16, Duration.ofSeconds(15), Duration.ofMinutes(1), Duration.ofMinutes(10), Duration.ofMillis(10)
+    );
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void resumesAfterDisconnectAndKeepsOnlyTheTailOfTheLog() throws InterruptedException {
+        when(uploadJobRepository.findByJobId("job-1")).thenReturn(Optional.of(new UploadJobRecord()));
+        when(client.streamJobLogs(eq("job-1"), anyLong(), any())).thenAnswer(invocation -> {
+            long from = invocation.getArgument(1);
+            Consumer<SandboxLogLine> consumer = invocation.getArgument(2);
+            if (from == 0) {
+                consumer.accept(new SandboxLogLine(0, "info", "workspace criado"));
+                consumer.accept(new SandboxLogLine(1, "model", "enviando"));
+                return LogStreamResult.DISCONNECTED;
+            }
+            // linha repetida após reconexão não deve duplicar
+            consumer.accept(new SandboxLogLine(1, "model", "enviando"));
+            consumer.accept(new SandboxLogLine(2, "shell", "run_shell ok"));
+            return LogStreamResult.ENDED;
+        });
+
+        logTail.subscribe("job-1");
+
+        verify(client, timeout(2000)).streamJobLogs(eq("job-1"), eq(2L), any());
+        awaitLine("job-1", 2);
+        // buffer de 20 bytes: "workspace criado" já foi descartado
+        assertThat(logTail.recentLines("job-1"))
+            .extracting(SandboxLogLine::index)
+            .containsExactly(1L, 2L);
+    }
+
+    private void awaitLine(String jobId, long index) throws InterruptedException {
+        long deadline = System.nanoTime() + Duration.ofSeconds(2).toNanos();
+        while (logTail.recentLines(jobId).stream().noneMatch(line -> line.index() == index) && System.nanoTime() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    void rejectsUnknownJobs() {
+        when(ciFixJobRepository.findByJobId("x")).thenReturn(Optional.empty());
+        when(uploadJobRepository.findByJobId("x")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> logTail.subscribe("x")).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,187 @@
+package com.aihub.hub.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import okhttp3.mockwebserver.MockResponse;
+import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.ByteArrayResource;
+import org.springframework.http.client.JdkClientHttpRequestFactory;
+import org.springframework.web.client.RestClient;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SandboxOrchestratorClientTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private MockWebServer server;
+
+    @BeforeEach
+    void setup() throws IOException {
+        server = new MockWebServer();
+        server.start();
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        server.shutdown();
+    }
+
+    @Test
+    void createUploadJobStreamsZipBeforeSendingManifest() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200).addHeader("Allow", "PUT"));
+        server.enqueue(new MockResponse().setResponseCode(201)
+            .addHeader("Content-Type", "application/json")
+            .setBody("{\"jobId\":\"job-1\",\"size\":9}"));
+        server.enqueue(jobResponse());
+
+        SandboxOrchestratorClient.SandboxOrchestratorJobResponse response =
+            client("stream").createUploadJob(uploadRequest("zip-bytes"));
+
+        assertThat(response.status()).isEqualTo("PENDING");
+        assertThat(server.takeRequest().getMethod()).isEqualTo("OPTIONS");
+
+        RecordedRequest upload = server.takeRequest();
+        assertThat(upload.getMethod()).isEqualTo("PUT");
+        assertThat(upload.getPath()).isEqualTo("/jobs/job-1/source-zip");
+        assertThat(upload.getHeader("Content-Type")).isEqualTo("application/zip");
+        assertThat(upload.getBody().readString(StandardCharsets.UTF_8)).isEqualTo("zip-bytes");
+
+        JsonNode manifest = objectMapper.readTree(server.takeRequest().getBody().readUtf8());
+        assertThat(manifest.at("/uploadedZip/staged").asBoolean()).isTrue();
+        assertThat(manifest.at("/uploadedZip/filename").asText()).isEqualTo("fonte.zip");
+        assertThat(manifest.path("uploadedZip").has("base64")).isFalse();
+    }
+
+    @Test
+    void createUploadJobTreatsConflictOnRedeliveryAsAlreadyRegistered() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200).addHeader("Allow", "PUT"));
+        server.enqueue(new MockResponse().setResponseCode(409));
+        server.enqueue(jobResponse());
+
+        SandboxOrchestratorClient.SandboxOrchestratorJobResponse response =
+            client("stream").createUploadJob(uploadRequest("zip-bytes"));
+
+        assertThat(response.status()).isEqualTo("PENDING");
+        assertThat(server.takeRequest().getMethod()).isEqualTo("OPTIONS");
+        assertThat(server.takeRequest().getMethod()).isEqualTo("PUT");
+        RecordedRequest lookup = server.takeRequest();
+        assertThat(lookup.getMethod()).isEqualTo("GET");
+        assertThat(lookup.getPath()).isEqualTo("/jobs/job-1");
+    }
+
+    @Test
+    void getJobsReadsCompactStatusesInOneRequestAndRemembersMissingEndpoint() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(200)
+            .addHeader("Content-Type", "application/json")
+            .setBody("{\"jobs\":[{\"jobId\":\"job-1\",\"status\":\"RUNNING\",\"updatedAt\":\"2024-05-01T12:00:00Z\"}]}"));
+        SandboxOrchestratorClient client = client("stream");
+
+        var statuses = client.getJobs(List.of("job-1", "job-2"));
+
+        assertThat(statuses).containsOnlyKeys("job-1");
+        assertThat(statuses.get("job-1").version()).isEqualTo("RUNNING@2024-05-01T12:00:00Z");
+        RecordedRequest batch = server.takeRequest();
+        assertThat(batch.getMethod()).isEqualTo("POST");
+        assertThat(batch.getPath()).isEqualTo("/jobs/status");
+        assertThat(objectMapper.readTree(batch.getBody().readUtf8()).path("jobIds")).hasSize(2);
+
+        SandboxOrchestratorClient legacy = client("stream");
+        server.enqueue(new MockResponse().setResponseCode(404));
+        assertThat(legacy.getJobs(List.of("job-1"))).isNull();
+        assertThat(legacy.getJobs(List.of("job-1"))).isNull();
+        assertThat(server.getRequestCount()).isEqualTo(2);
+    }
+
+    @Test
+    void createUploadJobFallsBackToBase64WhenOrchestratorDoesNotSupportStreaming() throws Exception {
+        server.enqueue(new MockResponse().setResponseCode(404));
+        server.enqueue(jobResponse());
+
+        client("stream").createUploadJob(uploadRequest("zip-bytes"));
+
+        assertThat(server.takeRequest().getMethod()).isEqualTo("OPTIONS");
+        RecordedRequest create = server.takeRequest();
+        assertThat(create.getMethod()).isEqualTo("POST");
+        JsonNode manifest = objectMapper.readTree(create.getBody().readUtf8());
+        assertThat(manifest.at("/uploadedZip/base64").asText()).isEqualTo("emlwLWJ5dGVz");
+        assertThat(manifest.path("uploadedZip").has("staged")).isFalse();
+    }
+
+    @Test
+    void createUploadJobReusesSourceBlobAlreadyKnownByOrchestrator() throws Exception {
+        String sha256 = "a".repeat(64);
+        server.enqueue(new MockResponse().setResponseCode(200).addHeader("Allow", "HEAD,PUT"));
+        server.enqueue(new MockResponse().setResponseCode(200));
+        server.enqueue(jobResponse());
+        server.enqueue(new MockResponse().setResponseCode(404));
+        server.enqueue(new MockResponse().setResponseCode(201));
+        server.enqueue(jobResponse());
+
+        SandboxOrchestratorClient client = client("stream");
+        client.createUploadJob(uploadRequest("zip-bytes", sha256));
+
+        assertThat(server.takeRequest().getMethod()).isEqualTo("OPTIONS");
+        RecordedRequest head = server.takeRequest();
+        assertThat(head.getMethod()).isEqualTo("HEAD");
+        assertThat(head.getPath()).isEqualTo("/blobs/" + sha256);
+        JsonNode manifest = objectMapper.readTree(server.takeRequest().getBody().readUtf8());
+        assertThat(manifest.at("/uploadedZip/blobSha256").asText()).isEqualTo(sha256);
+        assertThat(manifest.path("uploadedZip").has("base64")).isFalse();
+
+        client.createUploadJob(uploadRequest("zip-bytes", sha256));
+
+        assertThat(server.takeRequest().getMethod()).isEqualTo("HEAD");
+        RecordedRequest upload = server.takeRequest();
+        assertThat(upload.getMethod()).isEqualTo("PUT");
+        assertThat(upload.getBody().readString(StandardCharsets.UTF_8)).isEqualTo("zip-bytes");
+        assertThat(server.takeRequest().getMethod()).isEqualTo("POST");
+        assertThat(meterRegistry.get("hub.sandbox.source.blobs").tag("result", "hit").counter().count()).isEqualTo(1.0);
+        assertThat(meterRegistry.get("hub.sandbox.source.blobs").tag("result", "miss").counter().count()).isEqualTo(1.0);
+    }
+
+    private SandboxOrchestratorClient client(String transport) {
+        RestClient restClient = RestClient.builder()
+            .requestFactory(new JdkClientHttpRequestFactory())
+            .baseUrl(server.url("/").toString())
+            .build();
+        return new SandboxOrchestratorClient(restClient, objectMapper, "/jobs", transport, "/blobs", meterRegistry);
+    }
+
+    private SandboxUploadJobRequest uploadRequest(String content) {
+        return uploadRequest(content, null);
+    }
+
+    private SandboxUploadJobRequest uploadRequest(String content, String sha256) {
+        byte[] bytes = content.getBytes(StandardCharsets.UTF_8);
+        return new SandboxUploadJobRequest(
+            "job-1",
+            "Corrigir build",
+            new UploadedSourceZip("fonte.zip", bytes.length, sha256, new ByteArrayResource(bytes)),
+            null,
+            null,
+            null,
+            null,
+            null,
+            List.of(),
+            null,
+            null,
+            null
+        );
+    }
+
+    private MockResponse jobResponse() {
+        return new MockResponse().setResponseCode(201)
+            .addHeader("Content-Type", "application/json")
+            .setBody("{\"jobId\":\"job-1\",\"status\":\"PENDING\"}");
+    }
+}
@@ -0,0 +1,98 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.SandboxOutboxEntry;
+import com.aihub.hub.repository.SandboxOutboxRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SandboxOutboxDispatcherTest {
+
+    private final SandboxOutboxRepository outboxRepository = mock(SandboxOutboxRepository.class);
+    private final SandboxDispatchHandler handler = mock(SandboxDispatchHandler.class);
+    private final Instant now = Instant.parse("2024-05-01T12:00:00Z");
+
+    private SandboxOutboxDispatcher dispatcher(int maxAttempts) {
+        when(handler.jobType()).thenReturn(SandboxJobType.CI_FIX);
+        return new SandboxOutboxDispatcher(
+            outboxRepository,
+            List.of(handler),
+            Clock.fixed(now, ZoneOffset.UTC),
+            maxAttempts,
+            Duration.ofSeconds(2),
+            Duration.ofSeconds(30),
+            Duration.ofMinutes(5),
+            10,
+            4,
+            Duration.ofDays(7)
+        );
+    }
+
+    @Test
+    void marksEntryDispatchedWhenHandlerSucceeds() {
+        SandboxOutboxEntry entry = new SandboxOutboxEntry(SandboxJobType.CI_FIX, "job-1", "{}");
+        entry.setAttempts(1);
+
+        dispatcher(3).deliver(entry);
+
+        verify(handler).dispatch(entry);
+        assertThat(entry.getStatus()).isEqualTo(SandboxOutboxEntry.STATUS_DISPATCHED);
+        assertThat(entry.getDispatchedAt()).isEqualTo(now);
+        verify(outboxRepository).save(entry);
+    }
+
+    @Test
+    void purgesDispatchedEntriesOlderThanRetention() {
+        dispatcher(3).purgeDispatched();
+
+        verify(outboxRepository).deleteDispatchedBefore(SandboxOutboxEntry.STATUS_DISPATCHED, now.minus(Duration.ofDays(7)));
+    }
+
+    @Test
+    void reschedulesTransientFailuresWithExponentialBackoff() {
+        SandboxOutboxEntry entry = new SandboxOutboxEntry(SandboxJobType.CI_FIX, "job-2", "{}");
+        entry.setAttempts(3);
+        doThrow(new IllegalStateException("orquestrador indisponível")).when(handler).dispatch(entry);
+
+        dispatcher(5).deliver(entry);
+
+        assertThat(entry.getStatus()).isEqualTo(SandboxOutboxEntry.STATUS_PENDING);
+        assertThat(entry.getNextAttemptAt()).isEqualTo(now.plusSeconds(8));
+        assertThat(entry.getLastError()).isEqualTo("orquestrador indisponível");
+        verify(handler, never()).markFailed(any(), any());
+    }
+
+    @Test
+    void failsJobAfterLastAttemptOrInvalidPayload() {
+        SandboxOutboxEntry exhausted = new SandboxOutboxEntry(SandboxJobType.CI_FIX, "job-3", "{}");
+        exhausted.setAttempts(5);
+        doThrow(new IllegalStateException("timeout")).when(handler).dispatch(exhausted);
+        SandboxOutboxEntry invalid = new SandboxOutboxEntry(SandboxJobType.CI_FIX, "job-4", "{}");
+        invalid.setAttempts(1);
+        doThrow(new IllegalArgumentException("payload inválido")).when(handler).dispatch(invalid);
+
+        SandboxOutboxDispatcher dispatcher = dispatcher(5);
+        dispatcher.deliver(exhausted);
+        dispatcher.deliver(invalid);
+
+        assertThat(exhausted.getStatus()).isEqualTo(SandboxOutboxEntry.STATUS_FAILED);
+        assertThat(invalid.getStatus()).isEqualTo(SandboxOutboxEntry.STATUS_FAILED);
+        verify(handler).markFailed(eq(exhausted), eq("timeout"));
+        verify(handler).markFailed(eq(invalid), eq("payload inválido"));
+        assertThat(dispatcher.backoffFor(10)).isEqualTo(Duration.ofSeconds(30));
+    }
+}
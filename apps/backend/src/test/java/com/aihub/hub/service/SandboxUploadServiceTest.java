@@ -1,21 +1,39 @@
 package com.aihub.hub.service;
 
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.SandboxOutboxEntry;
 import com.aihub.hub.domain.UploadJobRecord;
+import com.aihub.hub.dto.CreateUploadJobRequest;
+import com.aihub.hub.dto.UploadJobSummaryView;
 import com.aihub.hub.dto.UploadJobView;
 import com.aihub.hub.repository.UploadJobRepository;
+import com.aihub.hub.storage.ArtifactStore;
+import com.aihub.hub.storage.StoredArtifact;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.mock.web.MockMultipartFile;
+import org.springframework.transaction.support.TransactionOperations;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Instant;
 import java.util.List;
 import java.util.Optional;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
@@ -34,21 +52,186 @@ class SandboxUploadServiceTest {
     @Mock
     private TokenCostCalculator tokenCostCalculator;
 
+    @Mock
+    private ArtifactStore artifactStore;
+
+    @Mock
+    private SandboxOutbox sandboxOutbox;
+
+    @Mock
+    private SourceZipPreprocessor sourceZipPreprocessor;
+
+    @Mock
+    private SourceZipDeltaAssembler sourceZipDeltaAssembler;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    @Mock
+    private BudgetService budgetService;
+
+    @Mock
+    private SandboxCredentialVault credentialVault;
+
     private SandboxUploadService sandboxUploadService;
 
     @BeforeEach
     void setUp() {
-        sandboxUploadService = new SandboxUploadService(
+        sandboxUploadService = newService(8_388_608L, TransactionOperations.withoutTransaction());
+    }
+
+    private SandboxUploadService newService(long maxInlineZipBytes, TransactionOperations transactionOperations) {
+        return new SandboxUploadService(
             sandboxOrchestratorClient,
             auditService,
             uploadJobRepository,
-            8_388_608L,
+            artifactStore,
+            maxInlineZipBytes,
             tokenCostCalculator,
             "gpt-5-codex",
-            "gpt-5-codex"
+            "gpt-5-codex",
+            Runnable::run,
+            sandboxOutbox,
+            sourceZipPreprocessor,
+            sourceZipDeltaAssembler,
+            transactionOperations,
+            eventPublisher,
+            budgetService,
+            credentialVault,
+            "gpt-4.1-mini"
         );
     }
 
+    @Test
+    void createJobShouldCheckBudgetBeforePreprocessingTheZip() {
+        CreateUploadJobRequest request = new CreateUploadJobRequest();
+        request.setTaskDescription("Corrigir build");
+        request.setProject("acme/api");
+        request.setSourceZip(new MockMultipartFile("sourceZip", "src.zip", "application/zip", new byte[] {1}));
+        when(budgetService.admit(eq("ana"), eq("acme/api"), anyString()))
+            .thenThrow(new BudgetExceededException("Orçamento mensal do projeto acme/api esgotado", 60L));
+
+        assertThatThrownBy(() -> sandboxUploadService.createJob("ana", request))
+            .isInstanceOf(BudgetExceededException.class);
+        verifyNoInteractions(sourceZipPreprocessor, artifactStore);
+    }
+
+    @Test
+    void createJobShouldRejectProjectOutsideOwnerNameFormat() {
+        CreateUploadJobRequest request = new CreateUploadJobRequest();
+        request.setTaskDescription("Corrigir build");
+        request.setProject("sem-barra");
+        request.setSourceZip(new MockMultipartFile("sourceZip", "src.zip", "application/zip", new byte[] {1}));
+
+        assertThatThrownBy(() -> sandboxUploadService.createJob("ana", request))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("owner/nome");
+        verifyNoInteractions(budgetService, sourceZipPreprocessor);
+    }
+
+    @Test
+    void credentialsAreStoredWithTheJobAndLoadedOnDispatch() throws Exception {
+        StoredArtifact sourceZip = new StoredArtifact("b".repeat(64), 10L);
+        CreateUploadJobRequest request = new CreateUploadJobRequest();
+        request.setTaskDescription("Corrigir build");
+        request.setSourceZip(new MockMultipartFile("sourceZip", "src.zip", "application/zip", new byte[] {1}));
+        request.setGitlabPersonalAccessToken(new MockMultipartFile(
+            "gitlabPersonalAccessToken", "pat.key", "text/plain", "token".getBytes(StandardCharsets.UTF_8)));
+        when(sourceZipPreprocessor.process(any(Path.class)))
+            .thenReturn(new SourceZipPreprocessor.PreprocessedSourceZip(sourceZip, "c".repeat(64), 1, 0));
+        when(uploadJobRepository.save(any(UploadJobRecord.class))).thenAnswer(invocation -> invocation.getArgument(0));
+
+        String jobId = sandboxUploadService.createJob("ana", request).jobId();
+        ArgumentCaptor<Object> stored = ArgumentCaptor.forClass(Object.class);
+        verify(credentialVault).store(eq(jobId), stored.capture());
+        ArgumentCaptor<Object> payload = ArgumentCaptor.forClass(Object.class);
+        verify(sandboxOutbox).enqueue(eq(SandboxJobType.UPLOAD), eq(jobId), payload.capture());
+        assertThat(payload.getValue().toString()).doesNotContain("dG9rZW4=");
+        when(sandboxOutbox.readPayload(any(), any())).thenAnswer(invocation -> payload.getValue());
+        SandboxOutboxEntry entry = new SandboxOutboxEntry(SandboxJobType.UPLOAD, jobId, "{}");
+
+        when(credentialVault.load(jobId, SandboxUploadService.UploadCredentials.class)).thenReturn(Optional.empty());
+        assertThatThrownBy(() -> sandboxUploadService.dispatch(entry))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("expiraram");
+
+        when(credentialVault.load(jobId, SandboxUploadService.UploadCredentials.class))
+            .thenReturn(Optional.of((SandboxUploadService.UploadCredentials) stored.getValue()));
+        when(artifactStore.find(sourceZip.sha256())).thenReturn(Optional.of(sourceZip));
+        ArgumentCaptor<SandboxUploadJobRequest> sent =
+            ArgumentCaptor.forClass(SandboxUploadJobRequest.class);
+        when(sandboxOrchestratorClient.createUploadJob(sent.capture())).thenThrow(new IllegalStateException("orquestrador indisponível"));
+
+        assertThatThrownBy(() -> sandboxUploadService.dispatch(entry)).hasMessage("orquestrador indisponível");
+        assertThat(sent.getValue().gitlabPersonalAccessToken()).isNotNull();
+        verify(credentialVault, never()).remove(jobId);
+
+        sandboxUploadService.markFailed(entry, "desistiu");
+        verify(credentialVault).remove(jobId);
+    }
+
+    @Test
+    void dispatchAppliesTheCreateResponseOnlyWhileNoCallbackWasClaimed() {
+        StoredArtifact sourceZip = new StoredArtifact("b".repeat(64), 10L);
+        SandboxUploadService.UploadDispatchPayload payload = new SandboxUploadService.UploadDispatchPayload(
+            "Corrigir build", null, null, null, "src.zip", sourceZip.sha256(), 10L, List.of(), false);
+        SandboxOutboxEntry entry = new SandboxOutboxEntry(SandboxJobType.UPLOAD, "job-cb", "{}");
+        when(sandboxOutbox.readPayload(entry, SandboxUploadService.UploadDispatchPayload.class)).thenReturn(payload);
+        when(artifactStore.find(sourceZip.sha256())).thenReturn(Optional.of(sourceZip));
+        when(sandboxOrchestratorClient.createUploadJob(any())).thenReturn(new SandboxOrchestratorClient.SandboxOrchestratorJobResponse(
+            "job-cb", "PENDING", "na fila", null, null, null, null, null, null, null, null, null, null, null, null));
+        UploadJobRecord record = new UploadJobRecord();
+        record.setJobId("job-cb");
+        record.setStatus("COMPLETED");
+        record.setSummary("pronto");
+        when(uploadJobRepository.findByJobId("job-cb")).thenReturn(Optional.of(record));
+
+        when(uploadJobRepository.claimDispatch("job-cb")).thenReturn(0);
+        sandboxUploadService.dispatch(entry);
+
+        assertThat(record.getStatus()).isEqualTo("COMPLETED");
+        assertThat(record.getSummary()).isEqualTo("pronto");
+        verify(uploadJobRepository, never()).save(any(UploadJobRecord.class));
+
+        record.setStatus("PENDING");
+        when(uploadJobRepository.claimDispatch("job-cb")).thenReturn(1);
+        sandboxUploadService.dispatch(entry);
+
+        assertThat(record.getSummary()).isEqualTo("na fila");
+        assertThat(record.getNextSyncAt()).isNotNull();
+        verify(uploadJobRepository).save(record);
+    }
+
+    @Test
+    void listJobsCursorResumesAfterTheLastRowAndBreaksTiesById() {
+        Instant sameInstant = Instant.parse("2024-05-10T10:00:00.123456Z");
+        when(uploadJobRepository.findSummaries(PageRequest.of(0, 3))).thenReturn(List.of(
+            summary(12L, sameInstant), summary(11L, sameInstant), summary(10L, sameInstant)
+        ));
+
+        SandboxUploadService.UploadJobPage first = sandboxUploadService.listJobs(null, 2);
+
+        assertThat(first.items()).extracting(UploadJobSummaryView::id).containsExactly(12L, 11L);
+        assertThat(first.nextCursor()).isNotBlank().doesNotContain("=", "+", "/");
+
+        when(uploadJobRepository.findSummariesBefore(sameInstant, 11L, PageRequest.of(0, 3)))
+            .thenReturn(List.of(summary(10L, sameInstant)));
+        SandboxUploadService.UploadJobPage last = sandboxUploadService.listJobs(first.nextCursor(), 2);
+
+        assertThat(last.items()).extracting(UploadJobSummaryView::id).containsExactly(10L);
+        assertThat(last.nextCursor()).isNull();
+    }
+
+    @Test
+    void listJobsRejectsMalformedCursor() {
+        assertThatThrownBy(() -> sandboxUploadService.listJobs("nao-e-um-cursor", 20))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessage("Cursor de paginação inválido");
+        assertThatThrownBy(() -> sandboxUploadService.listJobs("%%%", 20))
+            .isInstanceOf(IllegalArgumentException.class);
+        verifyNoInteractions(uploadJobRepository);
+    }
+
     @Test
     void getJobRefreshShouldKeepCompletedStatusWhenOrchestratorReturnsNotFound() {
         UploadJobRecord record = new UploadJobRecord();
@@ -91,15 +274,7 @@ class SandboxUploadServiceTest {
 
     @Test
     void getJobRefreshShouldNotPersistLargeInlineZip() {
-        SandboxUploadService constrainedService = new SandboxUploadService(
-            sandboxOrchestratorClient,
-            auditService,
-            uploadJobRepository,
-            100L,
-            tokenCostCalculator,
-            "gpt-5-codex",
-            "gpt-5-codex"
-        );
+        SandboxUploadService constrainedService = newService(100L, TransactionOperations.withoutTransaction());
 
         UploadJobRecord record = new UploadJobRecord();
         record.setJobId("job-large");
@@ -171,4 +346,76 @@ class SandboxUploadServiceTest {
         assertThat(result.resultZipFilename()).isEqualTo("resultado.zip");
         verify(uploadJobRepository).save(record);
     }
+
+    @Test
+    void proxyRemoteResultZipShouldStreamBodyAndCacheSmallArtifacts() throws Exception {
+        UploadJobRecord record = new UploadJobRecord();
+        record.setJobId("job-proxy");
+        record.setStatus("COMPLETED");
+
+        byte[] zipBytes = "conteudo-zip".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        when(sandboxOrchestratorClient.getResultZip(eq("job-proxy"), any())).thenAnswer(invocation -> {
+            SandboxOrchestratorClient.ResultZipHandler<?> handler = invocation.getArgument(1);
+            return handler.handle(new SandboxOrchestratorClient.ResultZipStream(
+                new java.io.ByteArrayInputStream(zipBytes),
+                "resultado.zip",
+                "attachment; filename=\"resultado.zip\"",
+                zipBytes.length
+            ));
+        });
+        when(artifactStore.put(any())).thenReturn(new StoredArtifact("a".repeat(64), zipBytes.length));
+        when(uploadJobRepository.findByJobId("job-proxy")).thenReturn(Optional.of(record));
+
+        java.io.ByteArrayOutputStream output = new java.io.ByteArrayOutputStream();
+        boolean proxied = sandboxUploadService.proxyRemoteResultZip("job-proxy", remoteZip -> output);
+
+        assertThat(proxied).isTrue();
+        assertThat(output.toByteArray()).isEqualTo(zipBytes);
+        assertThat(record.getResultZipSha256()).isEqualTo("a".repeat(64));
+        assertThat(record.getResultZipSize()).isEqualTo(zipBytes.length);
+        verify(uploadJobRepository).save(record);
+    }
+
+    @Test
+    void storeRemoteResultZipShouldDownloadBeforeOpeningTransaction() throws Exception {
+        UploadJobRecord record = new UploadJobRecord();
+        record.setJobId("job-remote");
+        record.setStatus("COMPLETED");
+
+        byte[] zipBytes = "conteudo-zip".getBytes(java.nio.charset.StandardCharsets.UTF_8);
+        List<String> steps = new java.util.ArrayList<>();
+        when(sandboxOrchestratorClient.getResultZip(eq("job-remote"), any())).thenAnswer(invocation -> {
+            SandboxOrchestratorClient.ResultZipHandler<?> handler = invocation.getArgument(1);
+            return handler.handle(new SandboxOrchestratorClient.ResultZipStream(
+                new java.io.ByteArrayInputStream(zipBytes),
+                "resultado.zip",
+                "attachment; filename=\"resultado.zip\"",
+                zipBytes.length
+            ));
+        });
+        when(artifactStore.put(any())).thenAnswer(invocation -> {
+            steps.add("download");
+            return new StoredArtifact("b".repeat(64), zipBytes.length);
+        });
+        when(uploadJobRepository.findByJobId("job-remote")).thenReturn(Optional.of(record));
+        SandboxUploadService service = newService(8_388_608L, new TransactionOperations() {
+            @Override
+            public <T> T execute(org.springframework.transaction.support.TransactionCallback<T> action) {
+                steps.add("transaction");
+                return action.doInTransaction(new org.springframework.transaction.support.SimpleTransactionStatus());
+            }
+        });
+
+        SandboxUploadService.ResultZip zip = service.storeRemoteResultZip("job-remote");
+
+        assertThat(steps).containsExactly("download", "transaction");
+        assertThat(zip.filename()).isEqualTo("resultado.zip");
+        assertThat(record.getResultZipSha256()).isEqualTo("b".repeat(64));
+        verify(uploadJobRepository).save(record);
+    }
+
+    private static UploadJobSummaryView summary(long id, Instant createdAt) {
+        return new UploadJobSummaryView(id, "job-" + id, "Job " + id, "STANDARD", "gpt-5-codex", "COMPLETED",
+            Boolean.TRUE, 0, 0, 0, 0, BigDecimal.ZERO, createdAt, createdAt);
+    }
 }
@@ -0,0 +1,173 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.config.SourceZipPreprocessProperties;
+import com.aihub.hub.dto.UploadDeltaManifestEntry;
+import com.aihub.hub.storage.LocalArtifactStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.util.HashMap;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SourceZipDeltaAssemblerTest {
+
+    @TempDir
+    Path tempDir;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final SourceZipDeltaAssembler assembler =
+        new SourceZipDeltaAssembler(objectMapper, new SourceZipPreprocessProperties());
+
+    @Test
+    void rebuildsFullZipFromBaseJobAndChangedFiles() throws Exception {
+        LocalArtifactStore store = new LocalArtifactStore(tempDir.resolve("artifacts").toString());
+        SourceZipPreprocessor preprocessor = new SourceZipPreprocessor(store, objectMapper, new SourceZipPreprocessProperties());
+        SourceZipPreprocessor.PreprocessedSourceZip base = preprocessor.process(writeZip(Map.of(
+            "src/Main.java", "class Main {}",
+            "src/Util.java", "class Util {}",
+            "README.md", "leia-me"
+        )));
+        List<SourceZipPreprocessor.SourceManifestEntry> baseManifest;
+        try (InputStream json = Channels.newInputStream(store.open(base.manifestSha256()))) {
+            baseManifest = assembler.readBaseManifest(json);
+        }
+
+        List<UploadDeltaManifestEntry> manifest = List.of(
+            new UploadDeltaManifestEntry("src/Main.java", sha256("class Main { int x; }")),
+            new UploadDeltaManifestEntry("src/Util.java", sha256("class Util {}")),
+            new UploadDeltaManifestEntry("src/Novo.java", sha256("class Novo {}"))
+        );
+
+        SourceZipDeltaAssembler.DeltaPlan plan = assembler.plan(
+            baseManifest, manifest, () -> Channels.newInputStream(store.open(base.artifact().sha256())));
+        assertThat(plan.missing()).containsExactly("src/Main.java", "src/Novo.java");
+        assertThat(plan.reused()).isEqualTo(1);
+        assertThat(plan.removed()).isEqualTo(1);
+
+        Path overlay = writeZip(Map.of("src/Main.java", "class Main { int x; }", "src/Novo.java", "class Novo {}"));
+        Path target = tempDir.resolve("montado.zip");
+        try (InputStream baseZip = Channels.newInputStream(store.open(base.artifact().sha256()))) {
+            assembler.assemble(baseZip, baseManifest, manifest, overlay, target);
+        }
+
+        assertThat(readZip(target)).containsExactlyInAnyOrderEntriesOf(Map.of(
+            "src/Main.java", "class Main { int x; }",
+            "src/Util.java", "class Util {}",
+            "src/Novo.java", "class Novo {}"
+        ));
+    }
+
+    @Test
+    void planAndAssemblySkipFilesTheBaseJobExcluded() throws Exception {
+        List<SourceZipPreprocessor.SourceManifestEntry> baseManifest = List.of(
+            new SourceZipPreprocessor.SourceManifestEntry("pom.xml", 10, 0, sha256("<project/>"))
+        );
+        List<UploadDeltaManifestEntry> manifest = List.of(
+            new UploadDeltaManifestEntry("pom.xml", sha256("<project/>")),
+            new UploadDeltaManifestEntry("target/app.jar", sha256("binário")),
+            new UploadDeltaManifestEntry("node_modules/lib/index.js", sha256("module.exports = {}")),
+            new UploadDeltaManifestEntry("src/Main.java", sha256("class Main {}"))
+        );
+
+        Path baseZip = writeZip(Map.of("pom.xml", "<project/>"));
+        SourceZipDeltaAssembler.DeltaPlan plan = assembler.plan(baseManifest, manifest, () -> Files.newInputStream(baseZip));
+        assertThat(plan.missing()).containsExactly("src/Main.java");
+        assertThat(plan.reused()).isEqualTo(1);
+
+        Path overlay = writeZip(Map.of("src/Main.java", "class Main {}", "target/app.jar", "binário"));
+        Path target = tempDir.resolve("montado.zip");
+        try (InputStream base = Files.newInputStream(baseZip)) {
+            assembler.assemble(base, baseManifest, manifest, overlay, target);
+        }
+
+        assertThat(readZip(target)).containsOnlyKeys("pom.xml", "src/Main.java");
+    }
+
+    @Test
+    void planAndAssemblyHonorGitignoreKeptFromTheBaseJob() throws Exception {
+        LocalArtifactStore store = new LocalArtifactStore(tempDir.resolve("artifacts").toString());
+        SourceZipPreprocessor preprocessor = new SourceZipPreprocessor(store, objectMapper, new SourceZipPreprocessProperties());
+        SourceZipPreprocessor.PreprocessedSourceZip base = preprocessor.process(writeZip(Map.of(
+            ".gitignore", "*.log\n",
+            "src/Main.java", "class Main {}",
+            "debug.log", "antigo"
+        )));
+        List<SourceZipPreprocessor.SourceManifestEntry> baseManifest;
+        try (InputStream json = Channels.newInputStream(store.open(base.manifestSha256()))) {
+            baseManifest = assembler.readBaseManifest(json);
+        }
+        List<UploadDeltaManifestEntry> manifest = List.of(
+            new UploadDeltaManifestEntry(".gitignore", sha256("*.log\n")),
+            new UploadDeltaManifestEntry("src/Main.java", sha256("class Main { int x; }")),
+            new UploadDeltaManifestEntry("debug.log", sha256("novo"))
+        );
+
+        SourceZipDeltaAssembler.DeltaPlan plan = assembler.plan(
+            baseManifest, manifest, () -> Channels.newInputStream(store.open(base.artifact().sha256())));
+        assertThat(plan.missing()).containsExactly("src/Main.java");
+        assertThat(plan.reused()).isEqualTo(1);
+
+        Path overlay = writeZip(Map.of("src/Main.java", "class Main { int x; }"));
+        Path target = tempDir.resolve("montado.zip");
+        try (InputStream baseZip = Channels.newInputStream(store.open(base.artifact().sha256()))) {
+            assembler.assemble(baseZip, baseManifest, manifest, overlay, target);
+        }
+        assertThat(readZip(target)).containsOnlyKeys(".gitignore", "src/Main.java");
+    }
+
+    @Test
+    void rejectsManifestEntryMissingFromBaseAndOverlay() throws Exception {
+        Path overlay = writeZip(Map.of());
+        List<UploadDeltaManifestEntry> manifest = List.of(new UploadDeltaManifestEntry("a.txt", sha256("a")));
+
+        assertThatThrownBy(() -> assembler.assemble(
+            InputStream.nullInputStream(), List.of(), manifest, overlay, tempDir.resolve("montado.zip")))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("a.txt");
+    }
+
+    private Path writeZip(Map<String, String> files) throws IOException {
+        Path zip = Files.createTempFile(tempDir, "fonte-", ".zip");
+        try (OutputStream output = Files.newOutputStream(zip); ZipOutputStream zipOutput = new ZipOutputStream(output)) {
+            for (Map.Entry<String, String> file : new LinkedHashMap<>(files).entrySet()) {
+                zipOutput.putNextEntry(new ZipEntry(file.getKey()));
+                zipOutput.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                zipOutput.closeEntry();
+            }
+        }
+        return zip;
+    }
+
+    private Map<String, String> readZip(Path zip) throws IOException {
+        Map<String, String> files = new HashMap<>();
+        try (InputStream input = Files.newInputStream(zip); ZipInputStream zipInput = new ZipInputStream(input)) {
+            ZipEntry entry;
+            while ((entry = zipInput.getNextEntry()) != null) {
+                files.put(entry.getName(), new String(zipInput.readAllBytes(), StandardCharsets.UTF_8));
+            }
+        }
+        return files;
+    }
+
+    private String sha256(String content) throws Exception {
+        return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content.getBytes(StandardCharsets.UTF_8)));
+    }
+}
@@ -0,0 +1,125 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.config.SourceZipPreprocessProperties;
+import com.aihub.hub.storage.LocalArtifactStore;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class SourceZipPreprocessorTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void stripsBuildOutputAndGitignoredFilesAndWritesManifest() throws Exception {
+        Path zip = writeZip(Map.of(
+            "app/.gitignore", "*.log\n/generated/\n!keep.log\n",
+            "app/pom.xml", "<project/>",
+            "app/src/Main.java", "class Main {}",
+            "app/target/Main.class", "binário",
+            "app/node_modules/lib/index.js", "module.exports = {}",
+            "app/.git/HEAD", "ref: refs/heads/main",
+            "app/debug.log", "log",
+            "app/keep.log", "manter",
+            "app/generated/Stub.java", "class Stub {}"
+        ));
+        LocalArtifactStore store = new LocalArtifactStore(tempDir.resolve("artifacts").toString());
+        SourceZipPreprocessor preprocessor = new SourceZipPreprocessor(store, new ObjectMapper(), new SourceZipPreprocessProperties());
+
+        SourceZipPreprocessor.PreprocessedSourceZip result = preprocessor.process(zip);
+
+        assertThat(entryNames(store, result.artifact().sha256()))
+            .containsExactlyInAnyOrder("app/.gitignore", "app/pom.xml", "app/src/Main.java", "app/keep.log");
+        assertThat(result.excludedEntries()).isEqualTo(5);
+        assertThat(result.keptEntries()).isEqualTo(4);
+        try (InputStream manifest = Channels.newInputStream(store.open(result.manifestSha256()))) {
+            assertThat(new String(manifest.readAllBytes(), StandardCharsets.UTF_8))
+                .contains("\"path\":\"app/src/Main.java\"", "\"size\":13", "\"crc\":");
+        }
+    }
+
+    @Test
+    void keepsTargetAndBuildDirectoriesThatAreNotBuildOutput() throws Exception {
+        Path zip = writeZip(Map.of(
+            "build.gradle", "plugins {}",
+            "build/libs/app.jar", "binário",
+            "src/main/java/com/acme/build/Builder.java", "class Builder {}",
+            "src/main/java/com/acme/target/Target.java", "class Target {}",
+            "docs/target/README.md", "alvo"
+        ));
+        LocalArtifactStore store = new LocalArtifactStore(tempDir.resolve("artifacts").toString());
+        SourceZipPreprocessor preprocessor = new SourceZipPreprocessor(store, new ObjectMapper(), new SourceZipPreprocessProperties());
+
+        SourceZipPreprocessor.PreprocessedSourceZip result = preprocessor.process(zip);
+
+        assertThat(entryNames(store, result.artifact().sha256())).containsExactlyInAnyOrder(
+            "build.gradle",
+            "src/main/java/com/acme/build/Builder.java",
+            "src/main/java/com/acme/target/Target.java",
+            "docs/target/README.md"
+        );
+        try (var files = Files.list(tempDir.resolve("artifacts").resolve("tmp"))) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void rejectsZipExceedingLimits() throws Exception {
+        Path zip = writeZip(Map.of("a.txt", "0123456789", "b.txt", "0123456789"));
+        LocalArtifactStore store = new LocalArtifactStore(tempDir.resolve("artifacts").toString());
+        SourceZipPreprocessProperties properties = new SourceZipPreprocessProperties();
+        properties.setMaxTotalBytes(15);
+        SourceZipPreprocessor preprocessor = new SourceZipPreprocessor(store, new ObjectMapper(), properties);
+
+        assertThatThrownBy(() -> preprocessor.process(zip))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("excede 15 bytes");
+
+        properties.setMaxTotalBytes(1024);
+        properties.setMaxEntries(1);
+        assertThatThrownBy(() -> preprocessor.process(zip))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("entradas excedem o limite");
+    }
+
+    private Path writeZip(Map<String, String> files) throws IOException {
+        Path zip = Files.createTempFile(tempDir, "fonte-", ".zip");
+        try (OutputStream output = Files.newOutputStream(zip); ZipOutputStream zipOutput = new ZipOutputStream(output)) {
+            for (Map.Entry<String, String> file : files.entrySet()) {
+                zipOutput.putNextEntry(new ZipEntry(file.getKey()));
+                zipOutput.write(file.getValue().getBytes(StandardCharsets.UTF_8));
+                zipOutput.closeEntry();
+            }
+        }
+        return zip;
+    }
+
+    private List<String> entryNames(LocalArtifactStore store, String sha256) throws IOException {
+        List<String> names = new ArrayList<>();
+        try (InputStream input = Channels.newInputStream(store.open(sha256)); ZipInputStream zipInput = new ZipInputStream(input)) {
+            ZipEntry entry;
+            while ((entry = zipInput.getNextEntry()) != null) {
+                names.add(entry.getName());
+            }
+        }
+        return names;
+    }
+}
@@ -0,0 +1,126 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.CodexModelPricing;
+import com.aihub.hub.dto.CodexModelPricingRequest;
+import com.aihub.hub.repository.CodexModelPricingRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class TokenCostCalculatorTest {
+
+    private static final Instant NOW = Instant.parse("2024-06-01T12:00:00Z");
+
+    private final CodexModelPricingRepository repository = mock(CodexModelPricingRepository.class);
+    private final ApplicationEventPublisher eventPublisher = mock(ApplicationEventPublisher.class);
+    private final CodexModelPricingService pricingService = new CodexModelPricingService(
+        repository, eventPublisher, Clock.fixed(NOW, ZoneOffset.UTC)
+    );
+    private final TokenCostCalculator calculator = new TokenCostCalculator(pricingService);
+
+    @Test
+    void computesCostsFromInMemorySnapshotMatchingBigDecimalRounding() {
+        when(repository.findAll()).thenReturn(List.of(pricing(1L, "GPT-5-Codex", "1.25", "0.125", "10")));
+
+        TokenCostBreakdown breakdown = calculator.calculate(" gpt-5-codex ", 1234, 7, 333, null);
+        calculator.calculate("gpt-5-codex", 1, null, null, null);
+
+        verify(repository, times(1)).findAll();
+        assertThat(breakdown.totalTokens()).isEqualTo(1574);
+        assertThat(breakdown.inputCost()).isEqualTo(legacyCost("1.25", 1234));
+        assertThat(breakdown.cachedInputCost()).isEqualTo(legacyCost("0.125", 7));
+        assertThat(breakdown.outputCost()).isEqualTo(legacyCost("10", 333));
+        assertThat(breakdown.totalCost()).isEqualByComparingTo(
+            legacyCost("1.25", 1234).add(legacyCost("0.125", 7)).add(legacyCost("10", 333))
+        );
+        assertThat(TokenCostCalculator.costMicros(1_500_000L, 1)).isEqualTo(2L);
+        assertThat(TokenCostCalculator.costMicros(Long.MAX_VALUE / 2, 4)).isEqualTo(
+            BigDecimal.valueOf(Long.MAX_VALUE / 2).multiply(BigDecimal.valueOf(4))
+                .divide(BigDecimal.valueOf(1_000_000L), 0, RoundingMode.HALF_UP).longValueExact()
+        );
+        assertThat(calculator.calculate("desconhecido", 10, 0, 0, null)).isNull();
+    }
+
+    @Test
+    void newPriceOpensVersionAndKeepsHistoricalCosts() {
+        CodexModelPricing current = pricing(1L, "gpt-4.1-mini", "0.15", "0.06", "0.60");
+        when(repository.findByModelNameIgnoreCaseOrderByEffectiveFromAsc("gpt-4.1-mini")).thenReturn(List.of(current));
+        when(repository.save(any())).thenAnswer(invocation -> invocation.getArgument(0));
+
+        CodexModelPricing created = pricingService.create(request("gpt-4.1-mini", "2.00"));
+
+        assertThat(current.getEffectiveTo()).isEqualTo(NOW);
+        assertThat(created.getEffectiveFrom()).isEqualTo(NOW);
+        assertThat(created.getEffectiveTo()).isNull();
+        verify(eventPublisher).publishEvent(new ModelPricingChanged("gpt-4.1-mini", NOW, null));
+
+        when(repository.findAll()).thenReturn(List.of(current, created));
+        pricingService.reloadSnapshot();
+        Instant before = NOW.minusSeconds(3600);
+        assertThat(calculator.calculate("gpt-4.1-mini", before, 1_000_000, 0, 0, null).inputCost())
+            .isEqualByComparingTo("0.15");
+        assertThat(calculator.calculate("gpt-4.1-mini", NOW, 1_000_000, 0, 0, null).inputCost())
+            .isEqualByComparingTo("2.00");
+        assertThat(calculator.calculate("gpt-4.1-mini", 1_000_000, 0, 0, null).inputCost())
+            .isEqualByComparingTo("2.00");
+        assertThat(pricingService.snapshot().find("gpt-4.1-mini", Instant.EPOCH.minusSeconds(1))).isNull();
+    }
+
+    @Test
+    void deletingVersionExtendsPreviousOneAndReloadsSnapshot() {
+        CodexModelPricing first = pricing(1L, "gpt-5-codex", "1.25", "0.125", "10");
+        CodexModelPricing second = pricing(2L, "gpt-5-codex", "2.00", "0.20", "12");
+        first.setEffectiveTo(NOW);
+        second.setEffectiveFrom(NOW);
+        when(repository.findById(2L)).thenReturn(Optional.of(second));
+        when(repository.findByModelNameIgnoreCaseOrderByEffectiveFromAsc("gpt-5-codex")).thenReturn(List.of(first, second));
+        when(repository.findAll()).thenReturn(List.of(first));
+
+        pricingService.delete(2L);
+
+        assertThat(first.getEffectiveTo()).isNull();
+        verify(repository).delete(second);
+        verify(eventPublisher).publishEvent(new ModelPricingChanged("gpt-5-codex", NOW, null));
+        assertThat(pricingService.snapshot().find("gpt-5-codex", NOW).inputMicrosPerMillion()).isEqualTo(1_250_000L);
+        verify(repository, times(1)).findAll();
+    }
+
+    private static BigDecimal legacyCost(String pricePerMillion, int tokens) {
+        return new BigDecimal(pricePerMillion).multiply(BigDecimal.valueOf(tokens))
+            .divide(BigDecimal.valueOf(1_000_000L), 6, RoundingMode.HALF_UP);
+    }
+
+    private static CodexModelPricing pricing(Long id, String model, String input, String cached, String output) {
+        CodexModelPricing pricing = new CodexModelPricing();
+        ReflectionTestUtils.setField(pricing, "id", id);
+        pricing.setModelName(model);
+        pricing.setInputPricePerMillion(new BigDecimal(input));
+        pricing.setCachedInputPricePerMillion(new BigDecimal(cached));
+        pricing.setOutputPricePerMillion(new BigDecimal(output));
+        return pricing;
+    }
+
+    private static CodexModelPricingRequest request(String model, String price) {
+        CodexModelPricingRequest request = new CodexModelPricingRequest();
+        request.setModelName(model);
+        request.setInputPricePerMillion(new BigDecimal(price));
+        request.setCachedInputPricePerMillion(new BigDecimal(price));
+        request.setOutputPricePerMillion(new BigDecimal(price));
+        return request;
+    }
+}
@@ -0,0 +1,173 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.dto.CreateUploadJobRequest;
+import com.aihub.hub.dto.CreateUploadSessionRequest;
+import com.aihub.hub.dto.UploadSessionView;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UploadSessionServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void assemblesOutOfOrderChunksAndHandsFileToJobCreation() throws Exception {
+        SandboxUploadService uploadService = mock(SandboxUploadService.class);
+        UploadSessionService sessions = new UploadSessionService(
+            uploadService, Clock.systemUTC(), tempDir.toString(), 4, 1024, Duration.ofHours(1)
+        );
+        byte[] content = "0123456789".getBytes(StandardCharsets.UTF_8);
+        AtomicReference<String> received = new AtomicReference<>();
+        when(uploadService.createJobFromFile(eq("ana"), any(), eq("fonte.zip"), any())).thenAnswer(invocation -> {
+            received.set(Files.readString(invocation.getArgument(3, Path.class)));
+            return null;
+        });
+
+        UploadSessionView session = sessions.create("ana", new CreateUploadSessionRequest("fonte.zip", content.length, null));
+        String id = session.sessionId();
+
+        sessions.writeChunk("ana", id, 8, 2, new ByteArrayInputStream(content, 8, 2));
+        sessions.writeChunk("ana", id, 0, 4, new ByteArrayInputStream(content, 0, 4));
+        UploadSessionView partial = sessions.status("ana", id);
+        assertThat(partial.committed()).containsExactly(
+            new UploadSessionView.Range(0, 4),
+            new UploadSessionView.Range(8, 10)
+        );
+        assertThatThrownBy(() -> sessions.complete("ana", id, new CreateUploadJobRequest()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("6 de 10 bytes");
+        assertThatThrownBy(() -> sessions.writeChunk("ana", id, 4, -1, new ByteArrayInputStream(content, 4, 6)))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("excede o limite");
+
+        UploadSessionView full = sessions.writeChunk("ana", id, 4, 4, new ByteArrayInputStream(content, 4, 4));
+        assertThat(full.complete()).isTrue();
+        assertThat(full.committed()).containsExactly(new UploadSessionView.Range(0, 10));
+
+        sessions.complete("ana", id, new CreateUploadJobRequest());
+        assertThat(received.get()).isEqualTo("0123456789");
+        assertThat(Files.list(tempDir)).isEmpty();
+        assertThatThrownBy(() -> sessions.status("ana", id)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void completeAndCancelWaitForChunksStillBeingWritten() throws Exception {
+        UploadSessionService sessions = new UploadSessionService(
+            mock(SandboxUploadService.class), Clock.systemUTC(), tempDir.toString(), 16, 1024, Duration.ofHours(1)
+        );
+        String id = sessions.create("ana", new CreateUploadSessionRequest("fonte.zip", 4, null)).sessionId();
+        sessions.writeChunk("ana", id, 0, 2, new ByteArrayInputStream(new byte[] {1, 2}));
+        CountDownLatch reading = new CountDownLatch(1);
+        CountDownLatch resume = new CountDownLatch(1);
+        InputStream slowBody = new InputStream() {
+            private int calls;
+
+            @Override
+            public int read() {
+                return -1;
+            }
+
+            @Override
+            public int read(byte[] buffer, int offset, int length) throws IOException {
+                if (calls++ == 0) {
+                    buffer[offset] = 3;
+                    return 1;
+                }
+                reading.countDown();
+                try {
+                    resume.await();
+                } catch (InterruptedException ex) {
+                    throw new IOException(ex);
+                }
+                buffer[offset] = 4;
+                return 1;
+            }
+        };
+        CompletableFuture<UploadSessionView> writer = CompletableFuture.supplyAsync(() -> {
+            try {
+                return sessions.writeChunk("ana", id, 2, 2, slowBody);
+            } catch (IOException ex) {
+                throw new UncheckedIOException(ex);
+            }
+        });
+        assertThat(reading.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> sessions.complete("ana", id, new CreateUploadJobRequest()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("sendo gravadas");
+        sessions.cancel("ana", id);
+        assertThat(tempDir.resolve(id + ".part")).exists();
+
+        resume.countDown();
+        assertThatThrownBy(() -> writer.get(5, TimeUnit.SECONDS))
+            .hasCauseInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("encerrada");
+        assertThat(tempDir.resolve(id + ".part")).doesNotExist();
+    }
+
+    @Test
+    void keepsAssembledFileWhenJobCreationFails() throws Exception {
+        SandboxUploadService uploadService = mock(SandboxUploadService.class);
+        UploadSessionService sessions = new UploadSessionService(
+            uploadService, Clock.systemUTC(), tempDir.toString(), 16, 1024, Duration.ofHours(1)
+        );
+        byte[] content = "0123456789".getBytes(StandardCharsets.UTF_8);
+        when(uploadService.createJobFromFile(eq("ana"), any(), eq("fonte.zip"), any()))
+            .thenThrow(new BudgetExceededException("Orçamento esgotado", 60))
+            .thenReturn(null);
+
+        String id = sessions.create("ana", new CreateUploadSessionRequest("fonte.zip", content.length, null)).sessionId();
+        sessions.writeChunk("ana", id, 0, content.length, new ByteArrayInputStream(content));
+
+        assertThatThrownBy(() -> sessions.complete("ana", id, new CreateUploadJobRequest()))
+            .isInstanceOf(BudgetExceededException.class);
+        assertThat(sessions.status("ana", id).complete()).isTrue();
+
+        sessions.complete("ana", id, new CreateUploadJobRequest());
+        verify(uploadService, times(2)).createJobFromFile(eq("ana"), any(), eq("fonte.zip"), any());
+        assertThat(Files.list(tempDir)).isEmpty();
+    }
+
+    @Test
+    void discardsSessionWhenChecksumDoesNotMatch() throws Exception {
+        SandboxUploadService uploadService = mock(SandboxUploadService.class);
+        UploadSessionService sessions = new UploadSessionService(
+            uploadService, Clock.systemUTC(), tempDir.toString(), 16, 1024, Duration.ofHours(1)
+        );
+        byte[] content = "0123456789".getBytes(StandardCharsets.UTF_8);
+
+        String id = sessions.create("ana", new CreateUploadSessionRequest("fonte.zip", content.length, "0".repeat(64))).sessionId();
+        sessions.writeChunk("ana", id, 0, content.length, new ByteArrayInputStream(content));
+
+        assertThatThrownBy(() -> sessions.complete("ana", id, new CreateUploadJobRequest()))
+            .isInstanceOf(IllegalArgumentException.class)
+            .hasMessageContaining("SHA-256");
+        verify(uploadService, never()).createJobFromFile(any(), any(), any(), any());
+        assertThat(Files.list(tempDir)).isEmpty();
+    }
+}
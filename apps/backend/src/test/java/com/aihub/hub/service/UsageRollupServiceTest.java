@@ -0,0 +1,163 @@
+package com.aihub.hub.service;
+
+import com.aihub.hub.domain.SandboxJobType;
+import com.aihub.hub.domain.UsageRollup;
+import com.aihub.hub.domain.UsageRollupState;
+import com.aihub.hub.dto.UsageRollupView;
+import com.aihub.hub.repository.CodexRequestRepository;
+import com.aihub.hub.repository.UploadJobRepository;
+import com.aihub.hub.repository.UsageRollupRepository;
+import com.aihub.hub.repository.UsageRollupStateRepository;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.math.BigDecimal;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class UsageRollupServiceTest {
+
+    private static final LocalDate DAY = LocalDate.of(2024, 5, 1);
+    private static final Instant CREATED_AT = Instant.parse("2024-05-01T10:00:00Z");
+
+    private final UsageRollupRepository rollupRepository = mock(UsageRollupRepository.class);
+    private final UsageRollupStateRepository stateRepository = mock(UsageRollupStateRepository.class);
+    private final CodexRequestRepository codexRequestRepository = mock(CodexRequestRepository.class);
+    private final UploadJobRepository uploadJobRepository = mock(UploadJobRepository.class);
+    private final UsageRollupService service = new UsageRollupService(
+        rollupRepository,
+        stateRepository,
+        codexRequestRepository,
+        uploadJobRepository,
+        mock(PlatformTransactionManager.class),
+        Clock.fixed(CREATED_AT, ZoneOffset.UTC),
+        2,
+        false,
+        Duration.ofMinutes(10)
+    );
+
+    @Test
+    void addsOnlyTheDifferenceBetweenSnapshots() {
+        UsageSnapshot empty = snapshot("gpt-5-codex", null, null);
+        UsageSnapshot first = snapshot("gpt-5-codex", 1000, "0.010000");
+        UsageSnapshot second = snapshot("gpt-5-codex", 1500, "0.015000");
+        state(new UsageRollupState(4L, null, null, null));
+        when(rollupRepository.increment(anyLong(), any(), any(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyLong(),
+            anyLong(), any(), any())).thenReturn(0).thenReturn(1);
+
+        service.onUsageChanged(new UsageChanged(1L, empty, first));
+        service.onUsageChanged(new UsageChanged(1L, first, second));
+        service.onUsageChanged(new UsageChanged(1L, second, second));
+
+        ArgumentCaptor<UsageRollup> inserted = ArgumentCaptor.forClass(UsageRollup.class);
+        verify(rollupRepository).save(inserted.capture());
+        assertThat(inserted.getValue().getRequests()).isEqualTo(1);
+        assertThat(inserted.getValue().getPromptTokens()).isEqualTo(1000);
+        assertThat(inserted.getValue().getProject()).isEqualTo("acme/api");
+        assertThat(inserted.getValue().getGeneration()).isEqualTo(4L);
+        verify(rollupRepository).increment(eq(4L), eq(DAY), eq(SandboxJobType.CODEX), eq("gpt-5-codex"), eq("STANDARD"),
+            eq("acme/api"), eq(0L), eq(500L), eq(0L), eq(0L), eq(500L), eq(new BigDecimal("0.005000")), any());
+    }
+
+    @Test
+    void queryDelegatesAggregationToTheRepository() {
+        Set<UsageRollupService.Dimension> groupBy = UsageRollupService.Dimension.parse("model,project");
+        UsageRollupService.Filter filter = new UsageRollupService.Filter(SandboxJobType.CODEX, null, null, "acme/api");
+        List<UsageRollupView> rows = List.of(new UsageRollupView(null, null, "gpt-5-codex", null, "acme/api",
+            3, 300, 0, 0, 300, new BigDecimal("1.50")));
+        state(new UsageRollupState(4L, 5L, 10L, 0L));
+        when(rollupRepository.aggregate(4L, DAY, DAY.plusDays(1), groupBy, filter)).thenReturn(rows);
+
+        assertThat(service.query(DAY, DAY.plusDays(1), groupBy, filter)).isEqualTo(rows);
+        assertThatThrownBy(() -> service.query(DAY.plusDays(1), DAY, groupBy, filter))
+            .isInstanceOf(IllegalArgumentException.class);
+        verify(rollupRepository, never()).findByBucketDateBetween(any(), any());
+    }
+
+    @Test
+    void rebuildFillsANewGenerationAndActivatesItAtTheEnd() {
+        when(codexRequestRepository.findUsageRows(eq(0L), any())).thenReturn(List.of(
+            row(1L, 100, "0.10"),
+            row(2L, null, null)
+        ));
+        when(codexRequestRepository.findUsageRows(eq(2L), any())).thenReturn(List.of(row(3L, 50, "0.05")));
+        when(codexRequestRepository.findUsageRows(eq(3L), any())).thenReturn(List.of());
+        when(uploadJobRepository.findUsageRows(anyLong(), any())).thenReturn(List.of());
+        when(stateRepository.advanceCodexCursor(eq(5L), anyLong(), any())).thenReturn(1);
+        when(stateRepository.advanceUploadCursor(eq(5L), anyLong(), any())).thenReturn(1);
+        when(stateRepository.activate(5L)).thenReturn(1);
+
+        service.rebuild(5L);
+
+        verify(stateRepository).advanceCodexCursor(eq(5L), eq(2L), any());
+        verify(stateRepository).advanceCodexCursor(eq(5L), eq(Long.MAX_VALUE), any());
+        ArgumentCaptor<UsageRollup> inserted = ArgumentCaptor.forClass(UsageRollup.class);
+        verify(rollupRepository, times(2)).save(inserted.capture());
+        assertThat(inserted.getAllValues()).extracting(UsageRollup::getPromptTokens).containsExactly(100L, 50L);
+        assertThat(inserted.getAllValues()).extracting(UsageRollup::getGeneration).containsOnly(5L);
+        verify(rollupRepository).deleteOtherGenerations(5L);
+        verify(rollupRepository, never()).deleteAllInBatch();
+        verify(uploadJobRepository, never()).findUsageRows(eq(1L), any());
+    }
+
+    @Test
+    void rebuildTakenOverByAnotherInstanceIsNeverActivated() {
+        when(codexRequestRepository.findUsageRows(eq(0L), any())).thenReturn(List.of(row(1L, 100, "0.10")));
+        when(stateRepository.advanceCodexCursor(eq(5L), anyLong(), any())).thenReturn(0);
+
+        service.rebuild(5L);
+
+        verify(rollupRepository, never()).save(any());
+        verify(stateRepository, never()).activate(anyLong());
+        verify(stateRepository).abandon(5L);
+    }
+
+    @Test
+    void changesToRowsAlreadyReadAlsoFeedTheGenerationBeingBuilt() {
+        state(new UsageRollupState(4L, 5L, 10L, 0L));
+        when(rollupRepository.increment(anyLong(), any(), any(), any(), any(), any(), anyLong(), anyLong(), anyLong(), anyLong(),
+            anyLong(), any(), any())).thenReturn(1);
+        UsageSnapshot empty = snapshot("gpt-5-codex", null, null);
+        UsageSnapshot used = snapshot("gpt-5-codex", 100, "0.10");
+
+        service.onUsageChanged(new UsageChanged(7L, empty, used));
+        service.onUsageChanged(new UsageChanged(11L, empty, used));
+
+        verify(rollupRepository, times(2)).increment(eq(4L), eq(DAY), any(), any(), any(), any(), anyLong(), anyLong(),
+            anyLong(), anyLong(), anyLong(), any(), any());
+        verify(rollupRepository, times(1)).increment(eq(5L), eq(DAY), any(), any(), any(), any(), anyLong(), anyLong(),
+            anyLong(), anyLong(), anyLong(), any(), any());
+    }
+
+    private void state(UsageRollupState state) {
+        when(stateRepository.findById(UsageRollupState.ID)).thenReturn(Optional.of(state));
+    }
+
+    private UsageSnapshot snapshot(String model, Integer promptTokens, String cost) {
+        return UsageSnapshot.of(SandboxJobType.CODEX, CREATED_AT, model, "STANDARD", "acme/api",
+            promptTokens, null, null, promptTokens, cost != null ? new BigDecimal(cost) : null);
+    }
+
+    private UsageRow row(Long id, Integer promptTokens, String cost) {
+        return new UsageRow(id, CREATED_AT, "gpt-5-codex", "STANDARD", "acme/api",
+            promptTokens, null, null, promptTokens, cost != null ? new BigDecimal(cost) : null);
+    }
+}
@@ -0,0 +1,95 @@
+package com.aihub.hub.storage;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.SeekableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Instant;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LocalArtifactStoreTest {
+
+    @TempDir
+    Path root;
+
+    @Test
+    void storesContentUnderShardedSha256Path() throws Exception {
+        LocalArtifactStore store = new LocalArtifactStore(root.toString());
+
+        StoredArtifact artifact = store.put(new ByteArrayInputStream("hello".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(artifact.sha256()).isEqualTo("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824");
+        assertThat(artifact.size()).isEqualTo(5L);
+        assertThat(Files.exists(root.resolve("2c").resolve("f2").resolve(artifact.sha256()))).isTrue();
+        assertThat(store.find(artifact.sha256())).contains(artifact);
+
+        try (SeekableByteChannel channel = store.open(artifact.sha256())) {
+            ByteBuffer buffer = ByteBuffer.allocate(5);
+            channel.read(buffer);
+            assertThat(new String(buffer.array(), StandardCharsets.UTF_8)).isEqualTo("hello");
+        }
+    }
+
+    @Test
+    void deduplicatesIdenticalContentAndRejectsInvalidHashes() throws Exception {
+        LocalArtifactStore store = new LocalArtifactStore(root.toString());
+
+        StoredArtifact first = store.put(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+        StoredArtifact second = store.put(new ByteArrayInputStream(new byte[] {1, 2, 3}));
+
+        assertThat(second).isEqualTo(first);
+        try (var files = Files.list(root.resolve("tmp"))) {
+            assertThat(files).isEmpty();
+        }
+        assertThat(store.find("../../etc/passwd")).isEmpty();
+        assertThat(store.delete(first.sha256())).isTrue();
+        assertThat(store.find(first.sha256())).isEmpty();
+    }
+
+    @Test
+    void writeHashesGeneratedContentAndDiscardsTempFileOnFailure() throws Exception {
+        LocalArtifactStore store = new LocalArtifactStore(root.toString());
+
+        StoredArtifact artifact = store.write(output -> output.write("hello".getBytes(StandardCharsets.UTF_8)));
+
+        assertThat(artifact).isEqualTo(new StoredArtifact("2cf24dba5fb0a30e26e83b2ac5b9e29e1b161e5c1fa7425e73043362938b9824", 5L));
+        assertThatThrownBy(() -> store.write(output -> {
+            output.write(1);
+            throw new IOException("falha no meio");
+        })).isInstanceOf(IOException.class);
+        try (var files = Files.list(root.resolve("tmp"))) {
+            assertThat(files).isEmpty();
+        }
+    }
+
+    @Test
+    void listsOnlyArtifactsOlderThanCutoffAndRefreshesReusedContent() throws Exception {
+        LocalArtifactStore store = new LocalArtifactStore(root.toString());
+        StoredArtifact old = store.put(new ByteArrayInputStream(new byte[] {1}));
+        StoredArtifact fresh = store.put(new ByteArrayInputStream(new byte[] {2}));
+        Instant cutoff = Instant.now().minusSeconds(3600);
+        Files.setLastModifiedTime(root.resolve(old.sha256().substring(0, 2)).resolve(old.sha256().substring(2, 4)).resolve(old.sha256()),
+            FileTime.from(cutoff.minusSeconds(60)));
+        Files.createDirectories(root.resolve("tmp"));
+        Files.setLastModifiedTime(Files.createTempFile(root.resolve("tmp"), "artifact-", ".part"), FileTime.from(cutoff.minusSeconds(60)));
+
+        try (var hashes = store.listOlderThan(cutoff)) {
+            assertThat(hashes.toList()).containsExactly(old.sha256());
+        }
+
+        store.put(new ByteArrayInputStream(new byte[] {1}));
+        try (var hashes = store.listOlderThan(cutoff)) {
+            assertThat(hashes.toList()).isEmpty();
+        }
+        assertThat(store.find(fresh.sha256())).isPresent();
+    }
+}
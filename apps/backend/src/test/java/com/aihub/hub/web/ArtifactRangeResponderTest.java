@@ -0,0 +1,81 @@
+package com.aihub.hub.web;
+
+import com.aihub.hub.storage.LocalArtifactStore;
+import com.aihub.hub.storage.StoredArtifact;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ArtifactRangeResponderTest {
+
+    @TempDir
+    Path root;
+
+    private ArtifactRangeResponder responder;
+    private StoredArtifact artifact;
+    private String etag;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        LocalArtifactStore store = new LocalArtifactStore(root.toString());
+        artifact = store.put(new ByteArrayInputStream("0123456789".getBytes(StandardCharsets.US_ASCII)));
+        etag = ArtifactRangeResponder.etagFor(artifact);
+        responder = new ArtifactRangeResponder(store);
+    }
+
+    @Test
+    void servesSingleRangeWithStrongEtag() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = responder.respond(artifact, "r.zip", "bytes=2-5", etag, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getETag()).isEqualTo("\"" + artifact.sha256() + "\"");
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes 2-5/10");
+        assertThat(response.getHeaders().getContentLength()).isEqualTo(4L);
+        assertThat(body(response)).isEqualTo("2345");
+    }
+
+    @Test
+    void servesMultipleRangesAsMultipartByteranges() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = responder.respond(artifact, "r.zip", "bytes=0-1,-2", null, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.PARTIAL_CONTENT);
+        assertThat(response.getHeaders().getContentType().toString()).startsWith("multipart/byteranges");
+        String body = body(response);
+        assertThat(body).contains("Content-Range: bytes 0-1/10\r\n\r\n01");
+        assertThat(body).contains("Content-Range: bytes 8-9/10\r\n\r\n89");
+        assertThat((long) body.getBytes(StandardCharsets.US_ASCII).length).isEqualTo(response.getHeaders().getContentLength());
+    }
+
+    @Test
+    void ignoresRangeWhenIfRangeDoesNotMatch() throws Exception {
+        ResponseEntity<StreamingResponseBody> response = responder.respond(artifact, "r.zip", "bytes=2-5", "\"outro\"", null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.OK);
+        assertThat(body(response)).isEqualTo("0123456789");
+    }
+
+    @Test
+    void rejectsUnsatisfiableRange() {
+        ResponseEntity<StreamingResponseBody> response = responder.respond(artifact, "r.zip", "bytes=20-30", null, null);
+
+        assertThat(response.getStatusCode()).isEqualTo(HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE);
+        assertThat(response.getHeaders().getFirst(HttpHeaders.CONTENT_RANGE)).isEqualTo("bytes */10");
+    }
+
+    private String body(ResponseEntity<StreamingResponseBody> response) throws Exception {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        response.getBody().writeTo(output);
+        return output.toString(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,103 @@
+package com.aihub.hub.web;
+
+import com.aihub.hub.dto.CreateUploadJobRequest;
+import com.aihub.hub.service.IdempotencyService;
+import com.aihub.hub.service.SandboxOrchestratorClient;
+import com.aihub.hub.service.SandboxUploadService;
+import com.aihub.hub.storage.ArtifactStore;
+import org.junit.jupiter.api.Test;
+import org.mockito.ArgumentCaptor;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.ResponseEntity;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.web.multipart.MultipartFile;
+
+import java.io.ByteArrayInputStream;
+import java.util.List;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+class SandboxUploadControllerTest {
+
+    private final SandboxUploadService sandboxUploadService = mock(SandboxUploadService.class);
+    private final IdempotencyService idempotencyService = mock(IdempotencyService.class);
+    private final SandboxUploadController controller = new SandboxUploadController(
+        sandboxUploadService, idempotencyService, new ArtifactRangeResponder(mock(ArtifactStore.class))
+    );
+
+    @Test
+    void listJobsExposesTheNextCursorOnlyWhenThereIsAnotherPage() throws Exception {
+        MockMvc mvc = MockMvcBuilders.standaloneSetup(controller).setControllerAdvice(new RestExceptionHandler()).build();
+        when(sandboxUploadService.listJobs(null, 2)).thenReturn(new SandboxUploadService.UploadJobPage(List.of(), "abc"));
+        when(sandboxUploadService.listJobs("abc", 2)).thenReturn(new SandboxUploadService.UploadJobPage(List.of(), null));
+        when(sandboxUploadService.listJobs("quebrado", 50)).thenThrow(new IllegalArgumentException("Cursor de paginação inválido"));
+
+        mvc.perform(get("/api/upload-jobs").param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(header().string("X-Next-Cursor", "abc"));
+        mvc.perform(get("/api/upload-jobs").param("cursor", "abc").param("limit", "2"))
+            .andExpect(status().isOk())
+            .andExpect(header().doesNotExist("X-Next-Cursor"));
+        mvc.perform(get("/api/upload-jobs").param("cursor", "quebrado"))
+            .andExpect(status().isBadRequest())
+            .andExpect(jsonPath("$.error").value("Cursor de paginação inválido"));
+    }
+
+    @Test
+    void idempotencyFingerprintUsesUploadMetadataWithoutReadingTheZip() throws Exception {
+        MultipartFile sourceZip = mock(MultipartFile.class);
+        when(sourceZip.getOriginalFilename()).thenReturn("src.zip");
+        when(sourceZip.getContentType()).thenReturn("application/zip");
+        when(sourceZip.getSize()).thenReturn(5L * 1024 * 1024 * 1024);
+        CreateUploadJobRequest request = new CreateUploadJobRequest();
+        request.setTaskDescription("Corrigir build");
+        request.setSourceZip(sourceZip);
+        ArgumentCaptor<String> fingerprint = ArgumentCaptor.forClass(String.class);
+        when(idempotencyService.execute(eq("upload-job"), eq("chave-1"), fingerprint.capture(), any()))
+            .thenReturn(ResponseEntity.accepted().build());
+
+        controller.createJob("owner", "ana", "chave-1", request);
+        controller.createJob("owner", "ana", "chave-1", request);
+        when(sourceZip.getSize()).thenReturn(1024L);
+        controller.createJob("owner", "ana", "chave-1", request);
+
+        assertThat(fingerprint.getAllValues().get(0)).isEqualTo(fingerprint.getAllValues().get(1));
+        assertThat(fingerprint.getAllValues().get(2)).isNotEqualTo(fingerprint.getAllValues().get(0));
+        verify(sourceZip, never()).getInputStream();
+        verify(sourceZip, never()).getBytes();
+    }
+
+    @Test
+    void proxiedResultZipOmitsValidatorsThatDifferFromTheStoredPath() throws Exception {
+        byte[] zipBytes = {1, 2, 3};
+        when(sandboxUploadService.findStoredResultZip("job-1")).thenReturn(Optional.empty());
+        when(sandboxUploadService.proxyRemoteResultZip(eq("job-1"), any())).thenAnswer(invocation -> {
+            SandboxUploadService.ResultZipProxyTarget target = invocation.getArgument(1);
+            target.open(new SandboxOrchestratorClient.ResultZipStream(
+                new ByteArrayInputStream(zipBytes), "resultado.zip", null, zipBytes.length
+            )).write(zipBytes);
+            return true;
+        });
+        MockHttpServletResponse response = new MockHttpServletResponse();
+
+        assertThat(controller.downloadResultZip("job-1", null, null, null, response)).isNull();
+
+        assertThat(response.getContentAsByteArray()).isEqualTo(zipBytes);
+        assertThat(response.getHeader(HttpHeaders.CONTENT_DISPOSITION)).contains("resultado.zip");
+        assertThat(response.getHeader(HttpHeaders.ETAG)).isNull();
+        assertThat(response.getHeader(HttpHeaders.ACCEPT_RANGES)).isNull();
+    }
+}
@@ -0,0 +1,96 @@
+package com.aihub.hub.web;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class UploadAdmissionFilterTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final UploadAdmissionFilter filter = new UploadAdmissionFilter(
+        meterRegistry, true, DataSize.ofKilobytes(4), DataSize.ofBytes(100), DataSize.ofKilobytes(1), 0, Duration.ofMillis(50), Duration.ofSeconds(7)
+    );
+
+    @Test
+    void rejectsWith429WhileBudgetIsHeldByAnotherUpload() throws Exception {
+        CountDownLatch admitted = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        CompletableFuture<Void> first = CompletableFuture.runAsync(() -> {
+            try {
+                filter.doFilter(upload(3 * 1024), new MockHttpServletResponse(), (request, response) -> {
+                    admitted.countDown();
+                    try {
+                        release.await(5, TimeUnit.SECONDS);
+                    } catch (InterruptedException ex) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            } catch (Exception ex) {
+                throw new IllegalStateException(ex);
+            }
+        });
+        assertThat(admitted.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(meterRegistry.get("hub.upload.admission.inflight.bytes").gauge().value()).isEqualTo(3 * 1024);
+
+        MockHttpServletResponse rejected = new MockHttpServletResponse();
+        filter.doFilter(upload(2 * 1024), rejected, (request, response) -> {
+            throw new AssertionError("upload não deveria ser admitido");
+        });
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader("Retry-After")).isEqualTo("7");
+
+        MockHttpServletResponse small = new MockHttpServletResponse();
+        filter.doFilter(upload(10), small, (request, response) -> ((MockHttpServletResponse) response).setStatus(202));
+        assertThat(small.getStatus()).isEqualTo(202);
+
+        release.countDown();
+        first.get(5, TimeUnit.SECONDS);
+        assertThat(meterRegistry.get("hub.upload.admission.inflight.bytes").gauge().value()).isZero();
+        assertThat(meterRegistry.get("hub.upload.admission.rejected").counter().count()).isEqualTo(1.0);
+    }
+
+    @Test
+    void rejectsChunkedMultipartAndReservesBoundedBudgetForOtherUnknownLengths() throws Exception {
+        MockHttpServletRequest multipart = new MockHttpServletRequest("POST", "/api/upload-jobs") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        multipart.setContentType("multipart/form-data; boundary=x");
+        MockHttpServletResponse refused = new MockHttpServletResponse();
+        filter.doFilter(multipart, refused, (request, response) -> {
+            throw new AssertionError("multipart sem Content-Length não deveria ser admitido");
+        });
+        assertThat(refused.getStatus()).isEqualTo(411);
+
+        MockHttpServletRequest chunk = new MockHttpServletRequest("PUT", "/api/upload-jobs/sessions/s1") {
+            @Override
+            public long getContentLengthLong() {
+                return -1;
+            }
+        };
+        chunk.setContent(new byte[300]);
+        filter.doFilter(chunk, new MockHttpServletResponse(), (request, response) -> {
+            assertThat(meterRegistry.get("hub.upload.admission.inflight.bytes").gauge().value()).isEqualTo(1024);
+            request.getInputStream().readAllBytes();
+        });
+        assertThat(meterRegistry.get("hub.upload.admission.unknown-length.bytes").summary().totalAmount()).isEqualTo(300);
+        assertThat(meterRegistry.get("hub.upload.admission.inflight.bytes").gauge().value()).isZero();
+    }
+
+    private MockHttpServletRequest upload(int size) {
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/upload-jobs");
+        request.setContent(new byte[size]);
+        return request;
+    }
+}
@@ -0,0 +1,61 @@
+import { useEffect, useRef } from 'react';
+import client from '../api/client';
+
+export type JobEventType = 'status' | 'tokens' | 'cost' | 'changedFiles' | 'resultZipReady' | 'reset';
+
+export interface JobEvent {
+  type: JobEventType;
+  jobType?: 'UPLOAD' | 'CI_FIX' | 'CODEX';
+  jobId?: string;
+  value?: unknown;
+}
+
+const eventTypes: JobEventType[] = ['status', 'tokens', 'cost', 'changedFiles', 'resultZipReady', 'reset'];
+
+// Assina GET /api/jobs/stream (SSE). O EventSource reconecta sozinho e envia
+// Last-Event-ID; um evento "reset" indica que o estado local deve ser recarregado.
+export function useJobEvents(
+  filter: { jobType?: JobEvent['jobType']; jobId?: string },
+  onEvent: (event: JobEvent) => void
+) {
+  const handlerRef = useRef(onEvent);
+  handlerRef.current = onEvent;
+  const { jobType, jobId } = filter;
+
+  useEffect(() => {
+    if (typeof EventSource === 'undefined') {
+      return;
+    }
+    const params = new URLSearchParams();
+    if (jobType) {
+      params.set('jobType', jobType);
+    }
+    if (jobId) {
+      params.set('jobId', jobId);
+    }
+    const query = params.toString();
+    const source = new EventSource(`${client.defaults.baseURL}/jobs/stream${query ? `?${query}` : ''}`);
+    const listeners = eventTypes.map((type) => {
+      const listener = (message: MessageEvent<string>) => {
+        let data: Record<string, unknown> = {};
+        try {
+          data = message.data ? JSON.parse(message.data) : {};
+        } catch {
+          return;
+        }
+        handlerRef.current({
+          type,
+          jobType: data.jobType as JobEvent['jobType'],
+          jobId: data.jobId as string | undefined,
+          value: data[type]
+        });
+      };
+      source.addEventListener(type, listener as EventListener);
+      return [type, listener] as const;
+    });
+    return () => {
+      listeners.forEach(([type, listener]) => source.removeEventListener(type, listener as EventListener));
+      source.close();
+    };
+  }, [jobType, jobId]);
+}
@@ -0,0 +1,47 @@
+import { useEffect, useState } from 'react';
+import client from '../api/client';
+
+export interface JobLogLine {
+  index: number;
+  kind: 'shell' | 'model' | 'info';
+  line: string;
+}
+
+const maxLines = 500;
+const kinds: JobLogLine['kind'][] = ['shell', 'model', 'info'];
+
+// Acompanha GET /api/jobs/{jobId}/logs/stream enquanto o job roda. O backend
+// já entrega o trecho final do log ao conectar; o evento "end" encerra o stream.
+export function useJobLogTail(jobId: string | undefined, enabled: boolean) {
+  const [lines, setLines] = useState<JobLogLine[]>([]);
+
+  useEffect(() => {
+    if (!jobId || !enabled || typeof EventSource === 'undefined') {
+      return;
+    }
+    const source = new EventSource(`${client.defaults.baseURL}/jobs/${encodeURIComponent(jobId)}/logs/stream`);
+    const onLine = (message: MessageEvent<string>) => {
+      try {
+        const parsed = JSON.parse(message.data) as JobLogLine;
+        setLines((current) => {
+          if (current.length && current[current.length - 1].index >= parsed.index) {
+            return current;
+          }
+          return [...current, parsed].slice(-maxLines);
+        });
+      } catch {
+        // linha malformada: ignora
+      }
+    };
+    const onEnd = () => source.close();
+    kinds.forEach((kind) => source.addEventListener(kind, onLine as EventListener));
+    source.addEventListener('end', onEnd);
+    return () => {
+      kinds.forEach((kind) => source.removeEventListener(kind, onLine as EventListener));
+      source.removeEventListener('end', onEnd);
+      source.close();
+    };
+  }, [jobId, enabled]);
+
+  return lines;
+}
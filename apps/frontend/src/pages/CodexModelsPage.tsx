@@ -18,6 +18,7 @@ interface FormState {
   inputPricePerMillion: string;
   cachedInputPricePerMillion: string;
   outputPricePerMillion: string;
+  correction: boolean;
 }
 
 const initialFormState: FormState = {
@@ -25,7 +26,8 @@ const initialFormState: FormState = {
   displayName: '',
   inputPricePerMillion: '',
   cachedInputPricePerMillion: '',
-  outputPricePerMillion: ''
+  outputPricePerMillion: '',
+  correction: false
 };
 
 const parsePrice = (value: string): number | null => {
@@ -103,7 +105,8 @@ export default function CodexModelsPage() {
       displayName: form.displayName.trim() || undefined,
       inputPricePerMillion: inputPrice,
       cachedInputPricePerMillion: cachedInputPrice,
-      outputPricePerMillion: outputPrice
+      outputPricePerMillion: outputPrice,
+      correction: editingId ? form.correction : undefined
     };
 
     setSaving(true);
@@ -131,7 +134,8 @@ export default function CodexModelsPage() {
       displayName: model.displayName ?? '',
       inputPricePerMillion: model.inputPricePerMillion.toString(),
       cachedInputPricePerMillion: model.cachedInputPricePerMillion.toString(),
-      outputPricePerMillion: model.outputPricePerMillion.toString()
+      outputPricePerMillion: model.outputPricePerMillion.toString(),
+      correction: false
     });
     setSuccessMessage(null);
     setError(null);
@@ -327,6 +331,24 @@ export default function CodexModelsPage() {
               />
             </label>
 
+            {editingId && (
+              <label className="flex items-start gap-2 text-sm text-slate-700 dark:text-slate-200">
+                <input
+                  type="checkbox"
+                  checked={form.correction}
+                  onChange={(event) => setForm((prev) => ({ ...prev, correction: event.target.checked }))}
+                  className="mt-1"
+                  disabled={saving}
+                />
+                <span>
+                  Corrigir preço desta versão
+                  <span className="block text-xs text-slate-500 dark:text-slate-400">
+                    Sem esta opção, um novo preço passa a valer a partir de agora e o histórico é mantido.
+                  </span>
+                </span>
+              </label>
+            )}
+
             <div className="flex items-center gap-3">
               <button
                 type="submit"
@@ -1,6 +1,8 @@
 import { useCallback, useEffect, useMemo, useState } from 'react';
 import { Link, useParams } from 'react-router-dom';
 import client from '../api/client';
+import { useJobEvents } from '../hooks/useJobEvents';
+import { useJobLogTail } from '../hooks/useJobLogTail';
 import { useToasts } from '../components/ToastContext';
 import {
   buildJobTitle,
@@ -79,6 +81,27 @@ export default function UploadJobDetailPage() {
     loadJob();
   }, [jobId, loadJob]);
 
+  const reloadSavedJob = useCallback(async () => {
+    if (!jobId) {
+      return;
+    }
+    try {
+      const response = await client.get(`/upload-jobs/${jobId}`);
+      if (response.data) {
+        const parsed = parseUploadJob(response.data);
+        setJob((current) => (current ? { ...current, ...parsed, title: current.title ?? parsed.title } : current));
+      }
+    } catch (err) {
+      console.warn(`Falha ao recarregar job ${jobId}`, err);
+    }
+  }, [jobId]);
+
+  // O backend acompanha o sandbox e avisa pelo stream; basta reler o registro salvo.
+  useJobEvents({ jobType: 'UPLOAD', jobId }, reloadSavedJob);
+
+  const jobRunning = job?.status === 'PENDING' || job?.status === 'RUNNING';
+  const logLines = useJobLogTail(jobId, jobRunning);
+
   const handleDownloadZip = async () => {
     if (!job) {
       return;
@@ -254,6 +277,26 @@ export default function UploadJobDetailPage() {
             </dl>
           </div>
 
+          {(jobRunning || logLines.length > 0) && (
+            <div className="rounded-xl border border-slate-200 bg-white/70 p-6 shadow-sm dark:border-slate-800 dark:bg-slate-900/60">
+              <h3 className="text-lg font-semibold">Log ao vivo</h3>
+              {logLines.length > 0 ? (
+                <pre className="mt-3 max-h-[400px] overflow-auto rounded-md bg-slate-900/90 p-4 text-xs text-slate-100">
+                  {logLines.map((entry) => (
+                    <div
+                      key={entry.index}
+                      className={entry.kind === 'shell' ? 'text-emerald-200' : entry.kind === 'model' ? 'text-sky-200' : undefined}
+                    >
+                      {entry.line}
+                    </div>
+                  ))}
+                </pre>
+              ) : (
+                <p className="mt-2 text-sm text-slate-500">Aguardando saída do sandbox...</p>
+              )}
+            </div>
+          )}
+
           <div className="rounded-xl border border-slate-200 bg-white/70 p-6 shadow-sm dark:border-slate-800 dark:bg-slate-900/60">
             <h3 className="text-lg font-semibold">Arquivos alterados</h3>
             {job.changedFiles && job.changedFiles.length > 0 ? (
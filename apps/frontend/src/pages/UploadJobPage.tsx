@@ -1,13 +1,16 @@
 import { ChangeEvent, FormEvent, useCallback, useEffect, useMemo, useState } from 'react';
 import { Link } from 'react-router-dom';
 import client from '../api/client';
+import { JobEvent, useJobEvents } from '../hooks/useJobEvents';
 import { useToasts } from '../components/ToastContext';
 import {
   buildJobTitle,
+  chunkedUploadThresholdBytes,
   downloadUploadJobZip,
   getUploadJobStatusClassName,
   parseUploadJob,
   resolveUploadJobTitle,
+  uploadFileInSession,
   UploadJob
 } from '../utils/uploadJobs';
 
@@ -26,6 +29,7 @@ export default function UploadJobPage() {
   const { pushToast } = useToasts();
   const [taskDescription, setTaskDescription] = useState('');
   const [testCommand, setTestCommand] = useState('');
+  const [project, setProject] = useState('');
   const [profile, setProfile] = useState<SandboxProfile>('STANDARD');
   const [model, setModel] = useState('');
   const [file, setFile] = useState<File | null>(null);
@@ -39,24 +43,25 @@ export default function UploadJobPage() {
   const [modelOptions, setModelOptions] = useState<CodexModelOption[]>([]);
   const [jobsLoaded, setJobsLoaded] = useState(false);
   const [jobsError, setJobsError] = useState<string | null>(null);
+  const [nextCursor, setNextCursor] = useState<string | null>(null);
+  const [loadingMore, setLoadingMore] = useState(false);
+
+  const parseJobList = (data: unknown): UploadJob[] =>
+    (Array.isArray(data) ? data.map((item: unknown) => parseUploadJob(item)) : []).map((job) => ({
+      ...job,
+      title: resolveUploadJobTitle(
+        job.jobId,
+        job.title,
+        job.taskDescription ? buildJobTitle(job.taskDescription) : undefined
+      )
+    }));
 
   const loadJobs = useCallback(async () => {
     try {
       setJobsLoaded(false);
       const response = await client.get('/upload-jobs');
-      const parsed = Array.isArray(response.data)
-        ? response.data.map((item: unknown) => parseUploadJob(item))
-        : [];
-      setJobs(
-        parsed.map((job) => ({
-          ...job,
-          title: resolveUploadJobTitle(
-            job.jobId,
-            job.title,
-            job.taskDescription ? buildJobTitle(job.taskDescription) : undefined
-          )
-        }))
-      );
+      setJobs(parseJobList(response.data));
+      setNextCursor(response.headers['x-next-cursor'] ?? null);
       setJobsError(null);
     } catch (err) {
       setJobsError((err as Error).message);
@@ -65,10 +70,54 @@ export default function UploadJobPage() {
     }
   }, []);
 
+  const loadMoreJobs = useCallback(async () => {
+    if (!nextCursor) {
+      return;
+    }
+    try {
+      setLoadingMore(true);
+      const response = await client.get('/upload-jobs', { params: { cursor: nextCursor } });
+      const page = parseJobList(response.data);
+      setJobs((current) => [
+        ...current,
+        ...page.filter((job) => !current.some((existing) => existing.jobId === job.jobId))
+      ]);
+      setNextCursor(response.headers['x-next-cursor'] ?? null);
+      setJobsError(null);
+    } catch (err) {
+      setJobsError((err as Error).message);
+    } finally {
+      setLoadingMore(false);
+    }
+  }, [nextCursor]);
+
   useEffect(() => {
     loadJobs();
   }, [loadJobs]);
 
+  const applyJobEvent = useCallback(
+    (event: JobEvent) => {
+      if (event.type === 'reset') {
+        loadJobs();
+        return;
+      }
+      const patch: Partial<UploadJob> =
+        event.type === 'status'
+          ? { status: event.value as UploadJob['status'] }
+          : event.type === 'tokens'
+            ? { totalTokens: event.value as number }
+            : event.type === 'cost'
+              ? { cost: Number(event.value) }
+              : event.type === 'changedFiles'
+                ? { changedFiles: event.value as string[] }
+                : { resultZipReady: Boolean(event.value) };
+      setJobs((current) => current.map((job) => (job.jobId === event.jobId ? { ...job, ...patch } : job)));
+    },
+    [loadJobs]
+  );
+
+  useJobEvents({ jobType: 'UPLOAD' }, applyJobEvent);
+
   useEffect(() => {
     client
       .get<CodexModelOption[]>('/codex/models')
@@ -124,15 +173,21 @@ export default function UploadJobPage() {
     setLoading(true);
     setError(null);
 
+    const useSession = file.size > chunkedUploadThresholdBytes;
     const formData = new FormData();
     formData.append('taskDescription', trimmedTask);
-    formData.append('sourceZip', file);
+    if (!useSession) {
+      formData.append('sourceZip', file);
+    }
     if (testCommand.trim()) {
       formData.append('testCommand', testCommand.trim());
     }
     if (model.trim()) {
       formData.append('model', model.trim());
     }
+    if (project.trim()) {
+      formData.append('project', project.trim());
+    }
     formData.append('profile', profile);
     problemFiles.forEach((problemFile) => {
       formData.append('problemFiles', problemFile);
@@ -148,7 +203,10 @@ export default function UploadJobPage() {
     }
 
     try {
-      const response = await client.post('/upload-jobs', formData, {
+      const endpoint = useSession
+        ? `/upload-jobs/sessions/${await uploadFileInSession(file, ownerHeaders)}/complete`
+        : '/upload-jobs';
+      const response = await client.post(endpoint, formData, {
         headers: { 'Content-Type': 'multipart/form-data', ...ownerHeaders }
       });
       const parsed = parseUploadJob(response.data);
@@ -160,6 +218,7 @@ export default function UploadJobPage() {
       ]);
       setTaskDescription('');
       setTestCommand('');
+      setProject('');
       setFile(null);
       setModel('');
       setProblemFiles([]);
@@ -391,6 +450,15 @@ export default function UploadJobPage() {
                 placeholder="npm test"
               />
             </div>
+            <div className="space-y-2">
+              <label className="text-sm font-medium text-slate-700 dark:text-slate-200">Projeto (opcional)</label>
+              <input
+                value={project}
+                onChange={(event) => setProject(event.target.value)}
+                className="w-full rounded-md border border-slate-300 bg-white px-3 py-2 text-sm dark:border-slate-700 dark:bg-slate-900"
+                placeholder="owner/repositorio"
+              />
+            </div>
             <div className="space-y-2">
               <label className="text-sm font-medium text-slate-700 dark:text-slate-200">Modelo (opcional)</label>
               <select
@@ -537,6 +605,16 @@ export default function UploadJobPage() {
                   </div>
                 );
               })}
+              {nextCursor && (
+                <button
+                  type="button"
+                  onClick={loadMoreJobs}
+                  disabled={loadingMore}
+                  className="w-full rounded border border-slate-200 px-3 py-2 text-xs font-semibold text-emerald-700 hover:bg-emerald-50 disabled:opacity-60 dark:border-slate-800 dark:hover:bg-slate-800"
+                >
+                  {loadingMore ? 'Carregando...' : 'Carregar mais jobs'}
+                </button>
+              )}
             </div>
           )}
         </div>
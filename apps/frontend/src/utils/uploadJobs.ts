@@ -211,3 +211,77 @@ export const resolveUploadJobTitle = (jobId: string, ...candidates: (string | un
   }
   return `Job ${jobId.slice(0, 8)}`;
 };
+
+interface UploadSessionRange {
+  start: number;
+  end: number;
+}
+
+interface UploadSessionState {
+  sessionId: string;
+  maxChunkBytes: number;
+  committed: UploadSessionRange[];
+  complete: boolean;
+}
+
+export const chunkedUploadThresholdBytes = 64 * 1024 * 1024;
+const chunkUploadParallelism = 4;
+const chunkUploadAttempts = 3;
+
+const missingRanges = (size: number, chunkSize: number, committed: UploadSessionRange[]) => {
+  const ranges: UploadSessionRange[] = [];
+  let cursor = 0;
+  const sorted = [...committed].sort((left, right) => left.start - right.start);
+  const pushGap = (start: number, end: number) => {
+    for (let offset = start; offset < end; offset += chunkSize) {
+      ranges.push({ start: offset, end: Math.min(offset + chunkSize, end) });
+    }
+  };
+  sorted.forEach((range) => {
+    if (range.start > cursor) {
+      pushGap(cursor, range.start);
+    }
+    cursor = Math.max(cursor, range.end);
+  });
+  if (cursor < size) {
+    pushGap(cursor, size);
+  }
+  return ranges;
+};
+
+export const uploadFileInSession = async (file: File, headers: Record<string, string>) => {
+  const created = await client.post<UploadSessionState>(
+    '/upload-jobs/sessions',
+    { filename: file.name, size: file.size },
+    { headers }
+  );
+  const { sessionId, maxChunkBytes } = created.data;
+  let state = created.data;
+
+  for (let attempt = 1; attempt <= chunkUploadAttempts && !state.complete; attempt += 1) {
+    const pending = missingRanges(file.size, maxChunkBytes, state.committed);
+    const worker = async () => {
+      let range = pending.shift();
+      while (range) {
+        await client.put(`/upload-jobs/sessions/${sessionId}/chunks`, file.slice(range.start, range.end), {
+          params: { offset: range.start },
+          headers: { ...headers, 'Content-Type': 'application/octet-stream' }
+        });
+        range = pending.shift();
+      }
+    };
+    try {
+      await Promise.all(Array.from({ length: chunkUploadParallelism }, worker));
+    } catch (err) {
+      if (attempt === chunkUploadAttempts) {
+        throw err;
+      }
+    }
+    state = (await client.get<UploadSessionState>(`/upload-jobs/sessions/${sessionId}`, { headers })).data;
+  }
+
+  if (!state.complete) {
+    throw new Error('Não foi possível concluir o envio do ZIP em partes.');
+  }
+  return sessionId;
+};
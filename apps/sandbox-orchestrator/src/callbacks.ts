@@ -0,0 +1,65 @@
+import { createHmac } from 'node:crypto';
+
+import { SandboxJob } from './types.js';
+
+export interface JobCallbackNotifier {
+  notify(job: SandboxJob): void;
+}
+
+interface CallbackOptions {
+  url?: string;
+  secret?: string;
+  maxAttempts?: number;
+  fetchImpl?: typeof fetch;
+}
+
+const noopNotifier: JobCallbackNotifier = { notify: () => undefined };
+
+// `sequence` cresce por job para o backend descartar entregas repetidas ou fora de ordem
+export function createJobCallbackNotifier(
+  serialize: (job: SandboxJob) => unknown,
+  options: CallbackOptions = {},
+): JobCallbackNotifier {
+  const url = options.url ?? process.env.HUB_CALLBACK_URL;
+  const secret = options.secret ?? process.env.HUB_CALLBACK_SECRET;
+  if (!url || !secret) {
+    return noopNotifier;
+  }
+  const maxAttempts = options.maxAttempts ?? 5;
+  const fetchImpl = options.fetchImpl ?? fetch;
+
+  const deliver = async (jobId: string, sequence: number, body: string) => {
+    const signature = `sha256=${createHmac('sha256', secret).update(body).digest('hex')}`;
+    for (let attempt = 1; attempt <= maxAttempts; attempt += 1) {
+      try {
+        const response = await fetchImpl(url, {
+          method: 'POST',
+          headers: { 'Content-Type': 'application/json', 'X-Sandbox-Signature-256': signature },
+          body,
+        });
+        if (response.ok) {
+          return;
+        }
+        // 400 pode ser só o backend ainda sem o job registrado; os demais 4xx não mudam com nova tentativa
+        if (response.status > 400 && response.status < 500 && response.status !== 429) {
+          console.warn(`Sandbox orchestrator: callback ${sequence} do job ${jobId} recusado (${response.status})`);
+          return;
+        }
+      } catch (err) {
+        if (attempt === maxAttempts) {
+          console.warn(`Sandbox orchestrator: callback ${sequence} do job ${jobId} não entregue`, err);
+          return;
+        }
+      }
+      await new Promise((resolve) => setTimeout(resolve, Math.min(30_000, 500 * 2 ** (attempt - 1))));
+    }
+  };
+
+  return {
+    notify(job: SandboxJob) {
+      job.callbackSequence = (job.callbackSequence ?? 0) + 1;
+      const body = JSON.stringify({ jobId: job.jobId, sequence: job.callbackSequence, job: serialize(job) });
+      void deliver(job.jobId, job.callbackSequence, body);
+    },
+  };
+}
@@ -15,6 +15,7 @@ import {
 } from 'openai/resources/responses/responses.js';
 
 import { buildAuthRepoUrl, extractTokenFromRepoUrl, redactUrlCredentials } from './git.js';
+import { appendJobLog } from './logStream.js';
 import { JobProcessor, SandboxJob, SandboxProfile } from './types.js';
 
 const exec = promisify(execCallback);
@@ -635,20 +636,29 @@ ${block}` : block;
   }
 
   private isUploadJob(job: SandboxJob): boolean {
-    return Boolean(job.uploadedZip?.base64);
+    return Boolean(job.uploadedZip?.base64 || job.uploadedZip?.path);
   }
 
   private async prepareUploadedRepository(job: SandboxJob, repoPath: string): Promise<string | undefined> {
     const upload = job.uploadedZip;
-    if (!upload?.base64) {
+    if (!upload?.base64 && !upload?.path) {
       throw new Error('conteúdo do zip ausente no job');
     }
 
     let buffer: Buffer;
-    try {
-      buffer = Buffer.from(upload.base64, 'base64');
-    } catch {
-      throw new Error('conteúdo do zip inválido (base64)');
+    if (upload.path) {
+      try {
+        buffer = await fs.readFile(upload.path);
+      } catch (err) {
+        const message = err instanceof Error ? err.message : String(err);
+        throw new Error(`falha ao ler zip recebido em ${upload.path}: ${message}`);
+      }
+    } else {
+      try {
+        buffer = Buffer.from(upload.base64!, 'base64');
+      } catch {
+        throw new Error('conteúdo do zip inválido (base64)');
+      }
     }
 
     this.log(
@@ -1617,7 +1627,7 @@ Modo econômico ativo: minimize leituras extensas, priorize comandos curtos, esc
 
   private log(job: SandboxJob, message: string) {
     const entry = `[${new Date().toISOString()}] ${message}`;
-    job.logs.push(entry);
+    appendJobLog(job, entry);
     console.info(`Sandbox job ${job.jobId}: ${message}`);
   }
 
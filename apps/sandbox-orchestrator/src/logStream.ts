@@ -0,0 +1,95 @@
+import { EventEmitter } from 'node:events';
+import { Request, Response } from 'express';
+
+import { SandboxJob } from './types.js';
+
+export type JobLogKind = 'shell' | 'model' | 'info';
+
+export const jobLogEvents = new EventEmitter();
+jobLogEvents.setMaxListeners(0);
+
+const heartbeatMs = 15000;
+
+export function appendJobLog(job: SandboxJob, entry: string) {
+  job.logs.push(entry);
+  jobLogEvents.emit(job.jobId);
+}
+
+export function notifyJobLogs(job: SandboxJob) {
+  jobLogEvents.emit(job.jobId);
+}
+
+export function classifyLogLine(line: string): JobLogKind {
+  const message = line.replace(/^\[[^\]]*\]\s*/, '');
+  if (message.startsWith('run_shell')) {
+    return 'shell';
+  }
+  if (/^(enviando mensagens para o modelo|resposta do modelo|resumo final do modelo|modelo |loop do modelo|executando tool|erro ao executar tool)/.test(message)) {
+    return 'model';
+  }
+  return 'info';
+}
+
+function isTerminal(job: SandboxJob) {
+  return job.status === 'COMPLETED' || job.status === 'FAILED';
+}
+
+// pausa até `drain` quando res.write devolve false, em vez de acumular o log em memória
+export function streamJobLogs(job: SandboxJob, req: Request, res: Response, from: number) {
+  res.status(200);
+  res.setHeader('Content-Type', 'text/event-stream');
+  res.setHeader('Cache-Control', 'no-cache');
+  res.setHeader('Connection', 'keep-alive');
+  res.flushHeaders();
+
+  let next = Math.max(0, Math.min(from, job.logs.length));
+  let waitingDrain = false;
+  let closed = false;
+
+  const cleanup = () => {
+    if (closed) {
+      return;
+    }
+    closed = true;
+    clearInterval(heartbeat);
+    jobLogEvents.off(job.jobId, flush);
+    res.off('drain', onDrain);
+  };
+
+  function flush() {
+    if (closed || waitingDrain) {
+      return;
+    }
+    while (next < job.logs.length) {
+      const line = job.logs[next];
+      const data = JSON.stringify({ index: next, kind: classifyLogLine(line), line });
+      next++;
+      if (!res.write(`id: ${next}\nevent: log\ndata: ${data}\n\n`)) {
+        waitingDrain = true;
+        return;
+      }
+    }
+    if (isTerminal(job)) {
+      res.write(`event: end\ndata: ${JSON.stringify({ status: job.status, next })}\n\n`);
+      cleanup();
+      res.end();
+    }
+  }
+
+  function onDrain() {
+    waitingDrain = false;
+    flush();
+  }
+
+  const heartbeat = setInterval(() => {
+    if (!waitingDrain) {
+      res.write(': heartbeat\n\n');
+    }
+  }, heartbeatMs);
+  heartbeat.unref?.();
+
+  jobLogEvents.on(job.jobId, flush);
+  res.on('drain', onDrain);
+  req.on('close', cleanup);
+  flush();
+}
@@ -1,14 +1,27 @@
 import express, { Request, Response } from 'express';
 import morgan from 'morgan';
 import fs from 'node:fs';
+import os from 'node:os';
+import path from 'node:path';
+import { createHash } from 'node:crypto';
+import { Transform } from 'node:stream';
+import { pipeline } from 'node:stream/promises';
 import { spawnSync } from 'node:child_process';
 
+import { JobCallbackNotifier, createJobCallbackNotifier } from './callbacks.js';
 import { SandboxJobProcessor } from './jobProcessor.js';
+import { appendJobLog, notifyJobLogs, streamJobLogs } from './logStream.js';
 import { JobProcessor, SandboxJob, SandboxProfile, UploadedApplicationDefaultCredential, UploadedGitSshPrivateKey, UploadedGitlabPersonalAccessToken, UploadedProblemFile } from './types.js';
 
 interface AppOptions {
   jobRegistry?: Map<string, SandboxJob>;
   processor?: JobProcessor;
+  callbacks?: JobCallbackNotifier;
+}
+
+interface StagedSourceZip {
+  path: string;
+  size: number;
 }
 
 interface ApiKeyResolution {
@@ -187,6 +200,15 @@ function buildJobResponse(job: SandboxJob) {
 
 export function createApp(options: AppOptions = {}) {
   const jobRegistry = options.jobRegistry ?? new Map<string, SandboxJob>();
+  const stagedSources = new Map<string, StagedSourceZip>();
+  const stagingDir = validateString(process.env.SOURCE_STAGING_DIR) ?? path.join(os.tmpdir(), 'sandbox-uploads');
+  const blobDir = validateString(process.env.SOURCE_BLOB_DIR) ?? path.join(os.tmpdir(), 'sandbox-blobs');
+  const blobTtlMs = (() => {
+    const raw = Number(process.env.SOURCE_BLOB_TTL_HOURS);
+    return (Number.isFinite(raw) && raw > 0 ? raw : 24) * 60 * 60 * 1000;
+  })();
+  const blobPath = (sha256: string) => path.join(blobDir, `${sha256}.zip`);
+  const isSha256 = (value?: string | null): value is string => Boolean(value && /^[0-9a-f]{64}$/.test(value));
   logVolumeMappings();
   const { key: apiKey, candidates: keyCandidates } = resolveOpenAiApiKey();
   if (!apiKey) {
@@ -196,6 +218,7 @@ export function createApp(options: AppOptions = {}) {
     );
   }
   const processor = options.processor ?? new SandboxJobProcessor(apiKey, process.env.CIFIX_MODEL);
+  const callbacks = options.callbacks ?? createJobCallbackNotifier(buildJobResponse);
 
   const normalizeProfile = (value?: string): SandboxProfile => {
     if (!value) {
@@ -235,7 +258,8 @@ export function createApp(options: AppOptions = {}) {
     job.status = 'FAILED';
     job.error = 'Job ficou em execução por tempo demais e foi marcado como falho.';
     job.updatedAt = new Date(now).toISOString();
-    job.logs.push(`[${job.updatedAt}] job expirou após ${Math.round(jobStaleTimeoutMs / 60000)} minutos`);
+    appendJobLog(job, `[${job.updatedAt}] job expirou após ${Math.round(jobStaleTimeoutMs / 60000)} minutos`);
+    callbacks.notify(job);
   };
 
   const app = express();
@@ -269,6 +293,108 @@ export function createApp(options: AppOptions = {}) {
     res.json({ status: 'ok', python: healthcheckPythonInfo() });
   });
 
+  app.put('/jobs/:id/source-zip', async (req: Request, res: Response) => {
+    const jobId = validateString(req.params.id);
+    if (!jobId || jobId.includes('/') || jobId.includes('..')) {
+      return res.status(400).json({ error: 'jobId inválido' });
+    }
+    if (jobRegistry.has(jobId)) {
+      return res.status(409).json({ error: 'job já registrado' });
+    }
+
+    const target = path.join(stagingDir, `${jobId}.zip`);
+    try {
+      await fs.promises.mkdir(stagingDir, { recursive: true });
+      await pipeline(req, fs.createWriteStream(target));
+      const { size } = await fs.promises.stat(target);
+      stagedSources.set(jobId, { path: target, size });
+      console.log(`Sandbox orchestrator: zip do job ${jobId} recebido em ${target} (${size} bytes)`);
+      return res.status(201).json({ jobId, size });
+    } catch (err) {
+      console.error(`Sandbox orchestrator: falha ao receber zip do job ${jobId}`, err);
+      await fs.promises.rm(target, { force: true });
+      return res.status(500).json({ error: 'falha ao gravar zip enviado' });
+    }
+  });
+
+  const sweepExpiredBlobs = async () => {
+    let entries: string[];
+    try {
+      entries = await fs.promises.readdir(blobDir);
+    } catch {
+      return;
+    }
+    const cutoff = Date.now() - blobTtlMs;
+    for (const entry of entries) {
+      const target = path.join(blobDir, entry);
+      try {
+        const { mtimeMs } = await fs.promises.stat(target);
+        if (mtimeMs < cutoff) {
+          await fs.promises.rm(target, { force: true });
+        }
+      } catch {
+        // removido por outra varredura ou por um PUT concorrente
+      }
+    }
+  };
+  setInterval(() => {
+    sweepExpiredBlobs().catch(() => undefined);
+  }, 60 * 60 * 1000).unref();
+
+  app.head('/blobs/:sha256', async (req: Request, res: Response) => {
+    const sha256 = validateString(req.params.sha256);
+    if (!isSha256(sha256)) {
+      return res.status(400).end();
+    }
+    const target = blobPath(sha256);
+    try {
+      const { size } = await fs.promises.stat(target);
+      // renova o TTL: blobs consultados continuam quentes
+      const now = new Date();
+      await fs.promises.utimes(target, now, now);
+      res.setHeader('Content-Length', String(size));
+      return res.status(200).end();
+    } catch {
+      return res.status(404).end();
+    }
+  });
+
+  app.put('/blobs/:sha256', async (req: Request, res: Response) => {
+    const sha256 = validateString(req.params.sha256);
+    if (!isSha256(sha256)) {
+      return res.status(400).json({ error: 'sha256 inválido' });
+    }
+    const target = blobPath(sha256);
+    const partial = path.join(blobDir, `${sha256}.${process.pid}.${Date.now()}.part`);
+    const hash = createHash('sha256');
+    try {
+      await fs.promises.mkdir(blobDir, { recursive: true });
+      await pipeline(
+        req,
+        new Transform({
+          transform(chunk, _encoding, callback) {
+            hash.update(chunk);
+            callback(null, chunk);
+          },
+        }),
+        fs.createWriteStream(partial),
+      );
+      const digest = hash.digest('hex');
+      if (digest !== sha256) {
+        await fs.promises.rm(partial, { force: true });
+        return res.status(400).json({ error: `conteúdo não confere com o sha256 informado (${digest})` });
+      }
+      await fs.promises.rename(partial, target);
+      const { size } = await fs.promises.stat(target);
+      console.log(`Sandbox orchestrator: blob ${sha256} armazenado (${size} bytes)`);
+      return res.status(201).json({ sha256, size });
+    } catch (err) {
+      console.error(`Sandbox orchestrator: falha ao receber blob ${sha256}`, err);
+      await fs.promises.rm(partial, { force: true });
+      return res.status(500).json({ error: 'falha ao gravar blob enviado' });
+    }
+  });
+
   app.post('/jobs', async (req: Request, res: Response) => {
     const jobId = validateString(req.body?.jobId);
     const repoUrl = validateString(req.body?.repoUrl);
@@ -288,12 +414,34 @@ export function createApp(options: AppOptions = {}) {
       validateString(req.body?.sourceZipName) ??
       validateString(req.body?.zipName);
 
+    const stagedSource = req.body?.uploadedZip?.staged === true && jobId ? stagedSources.get(jobId) : undefined;
+    if (req.body?.uploadedZip?.staged === true && !stagedSource && !(jobId && jobRegistry.has(jobId))) {
+      return res.status(409).json({ error: 'zip do job não foi recebido via PUT /jobs/{id}/source-zip' });
+    }
+
+    const blobSha256 = validateString(req.body?.uploadedZip?.blobSha256);
+    let blobSource: StagedSourceZip | undefined;
+    if (blobSha256) {
+      if (!isSha256(blobSha256)) {
+        return res.status(400).json({ error: 'uploadedZip.blobSha256 inválido' });
+      }
+      try {
+        const { size } = await fs.promises.stat(blobPath(blobSha256));
+        blobSource = { path: blobPath(blobSha256), size };
+      } catch {
+        if (!(jobId && jobRegistry.has(jobId))) {
+          return res.status(409).json({ error: 'blob não encontrado; envie-o via PUT /blobs/{sha256}' });
+        }
+      }
+    }
+
     const problemFiles = parseProblemFiles(req.body?.problemFiles);
     const applicationDefaultCredentials = parseApplicationDefaultCredentials(req.body?.applicationDefaultCredentials);
     const gitSshPrivateKey = parseGitSshPrivateKey(req.body?.gitSshPrivateKey);
     const gitlabPersonalAccessToken = parseGitlabPersonalAccessToken(req.body?.gitlabPersonalAccessToken);
 
-    const isUpload = Boolean(uploadedZipBase64);
+    const fileSource = blobSource ?? stagedSource;
+    const isUpload = Boolean(uploadedZipBase64 || fileSource);
     const resolvedBranch = branch ?? (isUpload ? 'upload' : undefined);
 
     if (!jobId || !taskDescription || (!isUpload && ((!repoUrl && !repoSlug) || !resolvedBranch))) {
@@ -329,7 +477,11 @@ export function createApp(options: AppOptions = {}) {
       testCommand,
       profile,
       model: model ?? undefined,
-      uploadedZip: isUpload ? { base64: uploadedZipBase64!, filename: uploadedZipName ?? undefined } : undefined,
+      uploadedZip: fileSource
+        ? { path: fileSource.path, size: fileSource.size, filename: uploadedZipName ?? undefined }
+        : isUpload
+          ? { base64: uploadedZipBase64!, filename: uploadedZipName ?? undefined }
+          : undefined,
       applicationDefaultCredentials: applicationDefaultCredentials ?? undefined,
       gitSshPrivateKey: gitSshPrivateKey ?? undefined,
       gitlabPersonalAccessToken: gitlabPersonalAccessToken ?? undefined,
@@ -341,9 +493,13 @@ export function createApp(options: AppOptions = {}) {
     };
 
     jobRegistry.set(jobId, job);
+    stagedSources.delete(jobId);
 
-    processor
-      .process(job)
+    const processing = processor.process(job);
+    if (job.status !== 'PENDING') {
+      callbacks.notify(job);
+    }
+    processing
       .catch((err) => {
         job.status = 'FAILED';
         job.error = err instanceof Error ? err.message : String(err);
@@ -351,6 +507,11 @@ export function createApp(options: AppOptions = {}) {
       })
       .finally(() => {
         jobRegistry.set(jobId, job);
+        callbacks.notify(job);
+        notifyJobLogs(job);
+        if (stagedSource) {
+          fs.promises.rm(stagedSource.path, { force: true }).catch(() => undefined);
+        }
       });
 
     res.status(201).json(buildJobResponse(job));
@@ -365,6 +526,31 @@ export function createApp(options: AppOptions = {}) {
     res.json(buildJobResponse(job));
   });
 
+  app.post('/jobs/status', (req: Request, res: Response) => {
+    const raw = (req.body ?? {}).jobIds;
+    if (!Array.isArray(raw) || raw.length > 1000) {
+      return res.status(400).json({ error: 'jobIds deve ser uma lista com até 1000 ids' });
+    }
+    const jobs = raw
+      .map((id: unknown) => (typeof id === 'string' ? jobRegistry.get(id) : undefined))
+      .filter((job): job is SandboxJob => Boolean(job))
+      .map((job) => {
+        markStaleJobIfNeeded(job);
+        return { jobId: job.jobId, status: job.status, updatedAt: job.updatedAt };
+      });
+    res.json({ jobs });
+  });
+
+  app.get('/jobs/:id/logs/stream', (req: Request, res: Response) => {
+    const job = jobRegistry.get(req.params.id);
+    if (!job) {
+      return res.status(404).json({ error: 'job not found' });
+    }
+    markStaleJobIfNeeded(job);
+    const from = Number.parseInt(String(req.query.from ?? '0'), 10);
+    streamJobLogs(job, req, res, Number.isNaN(from) ? 0 : from);
+  });
+
   app.get('/jobs/:id/result-zip', (req: Request, res: Response) => {
     const job = jobRegistry.get(req.params.id);
     if (!job) {
@@ -2,7 +2,9 @@ export type JobStatus = 'PENDING' | 'RUNNING' | 'COMPLETED' | 'FAILED';
 export type SandboxProfile = 'STANDARD' | 'ECONOMY';
 
 export interface UploadedZip {
-  base64: string;
+  base64?: string;
+  path?: string;
+  size?: number;
   filename?: string;
 }
 
@@ -58,6 +60,7 @@ export interface SandboxJob {
   resultZipBase64?: string;
   resultZipFilename?: string;
   logs: string[];
+  callbackSequence?: number;
   createdAt: string;
   updatedAt: string;
   gitSshKeyPath?: string;
@@ -1719,3 +1719,77 @@ test('remove workspace quando SANDBOX_KEEP_WORKSPACE não está habilitado', asy
     process.env.SANDBOX_KEEP_WORKSPACE = originalKeepWorkspace;
   }
 });
+
+test('envia callbacks assinados com sequência crescente a cada transição', async () => {
+  const { createHmac } = await import('node:crypto');
+  const { createJobCallbackNotifier } = await import('../src/callbacks.js');
+  const deliveries: { body: string; signature: string }[] = [];
+  const fakeFetch = (async (_url: string, init: { body: string; headers: Record<string, string> }) => {
+    deliveries.push({ body: init.body, signature: init.headers['X-Sandbox-Signature-256'] });
+    return new Response(null, { status: 200 });
+  }) as unknown as typeof fetch;
+  const callbacks = createJobCallbackNotifier((job) => ({ jobId: job.jobId, status: job.status }), {
+    url: 'http://hub.local/api/sandbox/callbacks',
+    secret: 'segredo',
+    fetchImpl: fakeFetch,
+  });
+  const app = createApp({ processor: new StubProcessor(), callbacks });
+
+  await request(app)
+    .post('/jobs')
+    .send({ jobId: 'job-callback', repoUrl: 'https://github.com/example/repo.git', branch: 'main', taskDescription: 'fix' })
+    .expect(201);
+  await new Promise((resolve) => setTimeout(resolve, 10));
+
+  assert.equal(deliveries.length, 2);
+  const [first, last] = deliveries.map((delivery) => JSON.parse(delivery.body));
+  assert.deepEqual([first.sequence, last.sequence], [1, 2]);
+  assert.equal(last.job.status, 'COMPLETED');
+  const expected = `sha256=${createHmac('sha256', 'segredo').update(deliveries[1].body).digest('hex')}`;
+  assert.equal(deliveries[1].signature, expected);
+});
+
+test('consulta status de vários jobs em lote sem payload completo', async () => {
+  const registry = new Map<string, SandboxJob>();
+  const app = createApp({ jobRegistry: registry, processor: new StubProcessor() });
+  await request(app)
+    .post('/jobs')
+    .send({ jobId: 'job-lote', repoUrl: 'https://github.com/example/repo.git', branch: 'main', taskDescription: 'fix' })
+    .expect(201);
+
+  const response = await request(app).post('/jobs/status').send({ jobIds: ['job-lote', 'desconhecido'] }).expect(200);
+
+  assert.equal(response.body.jobs.length, 1);
+  assert.deepEqual(Object.keys(response.body.jobs[0]).sort(), ['jobId', 'status', 'updatedAt']);
+  assert.equal(response.body.jobs[0].status, 'COMPLETED');
+});
+
+test('transmite o log do job por SSE a partir do índice pedido e encerra no estado terminal', async () => {
+  const registry = new Map<string, SandboxJob>();
+  const now = new Date().toISOString();
+  registry.set('job-log', {
+    jobId: 'job-log',
+    repoUrl: 'upload://job-log',
+    branch: 'main',
+    taskDescription: 'tail',
+    status: 'COMPLETED',
+    logs: [
+      `[${now}] workspace criado em /tmp/x`,
+      `[${now}] enviando mensagens para o modelo (mensagens=1, tools=4)`,
+      `[${now}] run_shell stdout: ok`,
+    ],
+    createdAt: now,
+    updatedAt: now,
+  });
+  const app = createApp({ jobRegistry: registry, processor: new StubProcessor() });
+
+  const response = await request(app).get('/jobs/job-log/logs/stream?from=1').expect(200);
+
+  assert.match(response.headers['content-type'], /text\/event-stream/);
+  const events = response.text.split('\n\n').filter((chunk) => chunk.includes('event: log'));
+  assert.equal(events.length, 2);
+  assert.match(events[0], /"index":1,"kind":"model"/);
+  assert.match(events[1], /"index":2,"kind":"shell"/);
+  assert.match(response.text, /event: end\ndata: \{"status":"COMPLETED","next":3\}/);
+  await request(app).get('/jobs/desconhecido/logs/stream').expect(404);
+});